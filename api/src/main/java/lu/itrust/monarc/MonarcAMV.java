@@ -2,7 +2,9 @@ package lu.itrust.monarc;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
@@ -17,6 +19,18 @@ public class MonarcAMV {
     private int status;
     private Set<String> parentInstanceId;
     private Set<String> measures;
+    // Set when a value is changed through a setter, cleared when the database is
+    // exported
+    private boolean modified;
+    // Runs the changes of the setters under the write lock of the database
+    // holding the AMV, null until it is attached to the database
+    private Consumer<Runnable> changes;
+
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcAMV() {
+    }
 
     /**
      * Constructs a new MonarcAMV object with the specified properties.
@@ -38,7 +52,7 @@ public class MonarcAMV {
         this.vulnerability = vulnerability;
         this.status = status;
         this.measures = new HashSet<>();
-        this.parentInstanceId = new HashSet<>();
+        this.parentInstanceId = new MonarcInstanceIds();
     }
 
     /**
@@ -110,10 +124,12 @@ public class MonarcAMV {
      *
      * @param measureUUID The UUID of the measure to add.
      */
-    public synchronized void addMeasure(String measureUUID) {
-        if (this.measures == null)
-            this.measures = new HashSet<>();
-        this.measures.add(measureUUID);
+    public void addMeasure(String measureUUID) {
+        change(() -> {
+            if (this.measures == null)
+                this.measures = new HashSet<>();
+            this.measures.add(measureUUID);
+        });
     }
 
     /**
@@ -122,7 +138,11 @@ public class MonarcAMV {
      * @param newMeasureList The new list of measures.
      */
     public void setMeasureList(Set<String> newMeasureList) {
-        this.measures = newMeasureList;
+        change(() -> {
+            if (!Objects.equals(this.measures, newMeasureList))
+                modified = true;
+            this.measures = newMeasureList;
+        });
     }
 
     /**
@@ -133,4 +153,36 @@ public class MonarcAMV {
     public Set<String> getMeasures() {
         return measures;
     }
+
+    /**
+     * Attaches the AMV to the database holding it, see MonarcDatabase#update.
+     *
+     * @param changes Runs a change under the write lock of the database.
+     */
+    void setChanges(Consumer<Runnable> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Changes the AMV under the write lock of the database, if it is attached
+     * to one.
+     */
+    private void change(Runnable change) {
+        if (changes == null)
+            change.run();
+        else
+            changes.accept(change);
+    }
+
+    /**
+     * @return True if a value of the AMV was changed since the database was
+     *         loaded or last exported.
+     */
+    boolean isModified() {
+        return modified;
+    }
+
+    void clearModified() {
+        modified = false;
+    }
 }
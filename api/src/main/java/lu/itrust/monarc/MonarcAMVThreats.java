@@ -1,5 +1,7 @@
 package lu.itrust.monarc;
 
+import java.util.Objects;
+import java.util.function.Consumer;
 /**
  * Class that represents the Monarc AMV Threats.
  */
@@ -21,6 +23,18 @@ public class MonarcAMVThreats {
     private int a;
     private String comment;
     private MonarcThreatTheme theme;
+    // Set when a value is changed through a setter, cleared when the database is
+    // exported
+    private boolean modified;
+    // Runs the changes of the setters under the write lock of the database
+    // holding the threat, null until it is attached to the database
+    private Consumer<Runnable> changes;
+
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    MonarcAMVThreats() {
+    }
 
     /**
      * Constructor for MonarcAMVThreats.
@@ -80,7 +94,11 @@ public class MonarcAMVThreats {
      * @param uuid The UUID of the threat.
      */
     public void setUuid(String uuid) {
-        this.uuid = uuid;
+        change(() -> {
+            if (!Objects.equals(this.uuid, uuid))
+                modified = true;
+            this.uuid = uuid;
+        });
     }
 
     /**
@@ -98,7 +116,11 @@ public class MonarcAMVThreats {
      * @param label1 The first label of the threat.
      */
     public void setLabel1(String label1) {
-        this.label1 = label1;
+        change(() -> {
+            if (!Objects.equals(this.label1, label1))
+                modified = true;
+            this.label1 = label1;
+        });
     }
 
     /**
@@ -116,7 +138,11 @@ public class MonarcAMVThreats {
      * @param label2 The second label of the threat.
      */
     public void setLabel2(String label2) {
-        this.label2 = label2;
+        change(() -> {
+            if (!Objects.equals(this.label2, label2))
+                modified = true;
+            this.label2 = label2;
+        });
     }
 
     /**
@@ -134,7 +160,11 @@ public class MonarcAMVThreats {
      * @param label3 The third label of the threat.
      */
     public void setLabel3(String label3) {
-        this.label3 = label3;
+        change(() -> {
+            if (!Objects.equals(this.label3, label3))
+                modified = true;
+            this.label3 = label3;
+        });
     }
 
     /**
@@ -152,7 +182,11 @@ public class MonarcAMVThreats {
      * @param label4 The fourth label of the threat.
      */
     public void setLabel4(String label4) {
-        this.label4 = label4;
+        change(() -> {
+            if (!Objects.equals(this.label4, label4))
+                modified = true;
+            this.label4 = label4;
+        });
     }
 
     /**
@@ -170,7 +204,11 @@ public class MonarcAMVThreats {
      * @param description1 The first description of the threat.
      */
     public void setDescription1(String description1) {
-        this.description1 = description1;
+        change(() -> {
+            if (!Objects.equals(this.description1, description1))
+                modified = true;
+            this.description1 = description1;
+        });
     }
 
     /**
@@ -188,7 +226,11 @@ public class MonarcAMVThreats {
      * @param description2 The second description of the threat.
      */
     public void setDescription2(String description2) {
-        this.description2 = description2;
+        change(() -> {
+            if (!Objects.equals(this.description2, description2))
+                modified = true;
+            this.description2 = description2;
+        });
     }
 
     /**
@@ -206,7 +248,11 @@ public class MonarcAMVThreats {
      * @param description3 The third description of the threat.
      */
     public void setDescription3(String description3) {
-        this.description3 = description3;
+        change(() -> {
+            if (!Objects.equals(this.description3, description3))
+                modified = true;
+            this.description3 = description3;
+        });
     }
 
     /**
@@ -224,7 +270,11 @@ public class MonarcAMVThreats {
      * @param description4 The fourth description of the threat.
      */
     public void setDescription4(String description4) {
-        this.description4 = description4;
+        change(() -> {
+            if (!Objects.equals(this.description4, description4))
+                modified = true;
+            this.description4 = description4;
+        });
     }
 
     /**
@@ -242,7 +292,11 @@ public class MonarcAMVThreats {
      * @param code The code of the threat.
      */
     public void setCode(String code) {
-        this.code = code;
+        change(() -> {
+            if (!Objects.equals(this.code, code))
+                modified = true;
+            this.code = code;
+        });
     }
 
     /**
@@ -260,7 +314,11 @@ public class MonarcAMVThreats {
      * @param trend The trend of the threat.
      */
     public void setTrend(int trend) {
-        this.trend = trend;
+        change(() -> {
+            if (this.trend != trend)
+                modified = true;
+            this.trend = trend;
+        });
     }
 
     /**
@@ -278,7 +336,11 @@ public class MonarcAMVThreats {
      * @param qualification The qualification of the threat.
      */
     public void setQualification(int qualification) {
-        this.qualification = qualification;
+        change(() -> {
+            if (this.qualification != qualification)
+                modified = true;
+            this.qualification = qualification;
+        });
     }
 
     /**
@@ -296,7 +358,11 @@ public class MonarcAMVThreats {
      * @param c The C value of the threat.
      */
     public void setC(int c) {
-        this.c = c;
+        change(() -> {
+            if (this.c != c)
+                modified = true;
+            this.c = c;
+        });
     }
 
     /**
@@ -314,7 +380,11 @@ public class MonarcAMVThreats {
      * @param i The I value of the threat.
      */
     public void setI(int i) {
-        this.i = i;
+        change(() -> {
+            if (this.i != i)
+                modified = true;
+            this.i = i;
+        });
     }
 
     /**
@@ -332,7 +402,11 @@ public class MonarcAMVThreats {
      * @param a The A value of the threat.
      */
     public void setA(int a) {
-        this.a = a;
+        change(() -> {
+            if (this.a != a)
+                modified = true;
+            this.a = a;
+        });
     }
 
     /**
@@ -350,7 +424,11 @@ public class MonarcAMVThreats {
      * @param comment The comment for the threat.
      */
     public void setComment(String comment) {
-        this.comment = comment;
+        change(() -> {
+            if (!Objects.equals(this.comment, comment))
+                modified = true;
+            this.comment = comment;
+        });
     }
 
     /**
@@ -368,7 +446,11 @@ public class MonarcAMVThreats {
      * @param theme The theme of the threat.
      */
     public void setTheme(MonarcThreatTheme theme) {
-        this.theme = theme;
+        change(() -> {
+            if (!Objects.equals(this.theme, theme))
+                modified = true;
+            this.theme = theme;
+        });
     }
 
     /**
@@ -413,4 +495,36 @@ public class MonarcAMVThreats {
         }
     }
 
+    /**
+     * Attaches the threat to the database holding it, see
+     * MonarcDatabase#update.
+     *
+     * @param changes Runs a change under the write lock of the database.
+     */
+    void setChanges(Consumer<Runnable> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Changes the threat under the write lock of the database, if it is
+     * attached to one.
+     */
+    private void change(Runnable change) {
+        if (changes == null)
+            change.run();
+        else
+            changes.accept(change);
+    }
+
+    /**
+     * @return True if a value of the threat was changed since the database was
+     *         loaded or last exported.
+     */
+    boolean isModified() {
+        return modified;
+    }
+
+    void clearModified() {
+        modified = false;
+    }
 }
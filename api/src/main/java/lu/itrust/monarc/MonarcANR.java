@@ -36,6 +36,12 @@ public final class MonarcANR {
     private Map<String, MonarcScalesComments> scalesComments;
     private MonarcMethod method;
 
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcANR() {
+    }
+
     private MonarcANR(String type, String monarc_version, String export_datetime, boolean with_eval) {
         this.type = type;
         this.monarc_version = monarc_version;
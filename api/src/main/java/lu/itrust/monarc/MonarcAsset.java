@@ -2,7 +2,6 @@ package lu.itrust.monarc;
 
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +27,12 @@ public class MonarcAsset {
     private List<String> measures;
     private Set<String> parentInstanceId;
 
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcAsset() {
+    }
+
     public MonarcAsset(String uuid,
             String label1,
             String label2,
@@ -64,7 +69,7 @@ public class MonarcAsset {
         this.themes = new HashMap<>();
         this.vuls = new HashMap<>();
         this.measures = new LinkedList<>();
-        this.parentInstanceId = new HashSet<>();
+        this.parentInstanceId = new MonarcInstanceIds();
     }
 
     public MonarcAsset(String uuid,
@@ -102,7 +107,7 @@ public class MonarcAsset {
         this.themes = new HashMap<>();
         this.vuls = new HashMap<>();
         this.measures = new LinkedList<>();
-        this.parentInstanceId = new HashSet<>();
+        this.parentInstanceId = new MonarcInstanceIds();
     }
 
     public void addParentInstance(String parentInstance) {
@@ -196,8 +201,12 @@ public class MonarcAsset {
         final String clsName = name == null ? "" : name.trim();
         if (clsName.isEmpty())
             return false;
-        return asset.entrySet().stream().anyMatch(e -> e.getKey().startsWith("label") && e.getValue() != null
-                && clsName.equalsIgnoreCase(e.getValue().toString()));
+        for (int i = 1; i <= 4; i++) {
+            final Object value = asset.get("label" + i);
+            if (value != null && clsName.equalsIgnoreCase(value.toString()))
+                return true;
+        }
+        return false;
     }
 
     @JsonIgnore
@@ -11,6 +11,12 @@ public class MonarcCategories {
     private String label4;
     private Integer parent;
 
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcCategories() {
+    }
+
     /**
      * Constructs a new MonarcCategories object with the specified parameters.
      *
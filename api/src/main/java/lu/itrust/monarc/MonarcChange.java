@@ -0,0 +1,97 @@
+package lu.itrust.monarc;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A Monarc object added, removed or changed between two databases.
+ *
+ * @see MonarcDiff#getChanges()
+ */
+public final class MonarcChange {
+
+    /**
+     * What happened to the object.
+     */
+    public enum Kind {
+        /**
+         * The object is only in the newer database.
+         */
+        ADDED,
+
+        /**
+         * The object is only in the older database.
+         */
+        REMOVED,
+
+        /**
+         * The object is in both databases, with different values.
+         */
+        CHANGED
+    }
+
+    private final MonarcEntityType type;
+    private final Kind kind;
+    private final Object key;
+    private final Object oldEntity;
+    private final Object newEntity;
+    private final List<MonarcFieldChange> fieldChanges;
+
+    MonarcChange(MonarcEntityType type, Kind kind, Object key, Object oldEntity, Object newEntity,
+            List<MonarcFieldChange> fieldChanges) {
+        this.type = type;
+        this.kind = kind;
+        this.key = key;
+        this.oldEntity = oldEntity;
+        this.newEntity = newEntity;
+        this.fieldChanges = Collections.unmodifiableList(fieldChanges);
+    }
+
+    /**
+     * @return The type of the object.
+     */
+    public MonarcEntityType getType() {
+        return type;
+    }
+
+    /**
+     * @return Whether the object was added, removed or changed.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return The ID (an Integer) or the UUID (a String) of the object.
+     */
+    public Object getKey() {
+        return key;
+    }
+
+    /**
+     * @return The object in the older database, or null if it was added.
+     */
+    public Object getOldEntity() {
+        return oldEntity;
+    }
+
+    /**
+     * @return The object in the newer database, or null if it was removed.
+     */
+    public Object getNewEntity() {
+        return newEntity;
+    }
+
+    /**
+     * @return The fields whose value changed, empty if the object was added or
+     *         removed.
+     */
+    public List<MonarcFieldChange> getFieldChanges() {
+        return fieldChanges;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + type + " " + key + (fieldChanges.isEmpty() ? "" : " " + fieldChanges);
+    }
+}
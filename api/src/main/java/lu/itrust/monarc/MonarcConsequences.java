@@ -1,8 +1,8 @@
 package lu.itrust.monarc;
 
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
@@ -19,6 +19,19 @@ public class MonarcConsequences {
     private int d;
     private MonarcScaleImpactType scaleImpactType;
     private Set<String> parentInstanceId;
+    private MonarcRiskEngine riskEngine;
+    // Set when a value is changed through a setter, cleared when the database is
+    // exported
+    private boolean modified;
+    // Runs the changes of the setters under the write lock of the database
+    // holding the consequence, null until it is attached to the database
+    private Consumer<Runnable> changes;
+
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcConsequences() {
+    }
 
     /**
      * Constructs a new MonarcConsequences object with the specified parameters.
@@ -39,7 +52,7 @@ public class MonarcConsequences {
         this.i = i;
         this.d = d;
         this.scaleImpactType = scaleImpactType;
-        this.parentInstanceId = new HashSet<>();
+        this.parentInstanceId = new MonarcInstanceIds();
     }
 
     /**
@@ -121,7 +134,11 @@ public class MonarcConsequences {
      * @param isHidden The flag indicating if the consequences are hidden.
      */
     public void setIsHidden(int isHidden) {
-        this.isHidden = isHidden;
+        change(() -> {
+            if (this.isHidden != isHidden)
+                modified = true;
+            this.isHidden = isHidden;
+        });
     }
 
     /**
@@ -130,7 +147,11 @@ public class MonarcConsequences {
      * @param locallyTouched The flag indicating if the consequences are locally touched.
      */
     public void setLocallyTouched(int locallyTouched) {
-        this.locallyTouched = locallyTouched;
+        change(() -> {
+            if (this.locallyTouched != locallyTouched)
+                modified = true;
+            this.locallyTouched = locallyTouched;
+        });
     }
 
     /**
@@ -139,7 +160,15 @@ public class MonarcConsequences {
      * @param c The value of the C parameter.
      */
     public void setC(int c) {
-        this.c = c;
+        change(() -> {
+            final boolean changed = this.c != c;
+            this.c = c;
+            if (changed) {
+                modified = true;
+                if (riskEngine != null)
+                    riskEngine.consequenceChanged(this);
+            }
+        });
     }
 
     /**
@@ -148,7 +177,15 @@ public class MonarcConsequences {
      * @param i The value of the I parameter.
      */
     public void setI(int i) {
-        this.i = i;
+        change(() -> {
+            final boolean changed = this.i != i;
+            this.i = i;
+            if (changed) {
+                modified = true;
+                if (riskEngine != null)
+                    riskEngine.consequenceChanged(this);
+            }
+        });
     }
 
     /**
@@ -157,7 +194,24 @@ public class MonarcConsequences {
      * @param d The value of the D parameter.
      */
     public void setD(int d) {
-        this.d = d;
+        change(() -> {
+            final boolean changed = this.d != d;
+            this.d = d;
+            if (changed) {
+                modified = true;
+                if (riskEngine != null)
+                    riskEngine.consequenceChanged(this);
+            }
+        });
+    }
+
+    /**
+     * Sets the engine to notify when the C, I or D value changes.
+     * 
+     * @param riskEngine The engine computing the risks of the instance.
+     */
+    void setRiskEngine(MonarcRiskEngine riskEngine) {
+        this.riskEngine = riskEngine;
     }
 
     /**
@@ -201,4 +255,37 @@ public class MonarcConsequences {
             return false;
         return true;
     }
+
+    /**
+     * Attaches the consequence to the database holding it, see
+     * MonarcDatabase#update.
+     *
+     * @param changes Runs a change under the write lock of the database.
+     */
+    void setChanges(Consumer<Runnable> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Changes the consequence under the write lock of the database, if it is
+     * attached to one.
+     */
+    private void change(Runnable change) {
+        if (changes == null)
+            change.run();
+        else
+            changes.accept(change);
+    }
+
+    /**
+     * @return True if a value of the consequence was changed since the database
+     *         was loaded or last exported.
+     */
+    boolean isModified() {
+        return modified;
+    }
+
+    void clearModified() {
+        modified = false;
+    }
 }
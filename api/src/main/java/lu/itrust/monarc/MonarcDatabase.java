@@ -0,0 +1,4883 @@
+package lu.itrust.monarc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * Main class for converting the Monarc JSON database file in Java objects.
+ * This class not only gathers the data from the JSON file, but provides
+ * functions for searching the data.
+ * 
+ * A database can be shared by several threads once loaded: the search
+ * functions read it without locking, while the functions changing it are run
+ * one at a time. See {@link #query(Function)} and {@link #update(Consumer)} to
+ * read or change it through several calls at once.
+ */
+public class MonarcDatabase {
+
+    // Number of instances reported by each task of a parallel report
+    private static final int REPORT_SLICE = 1024;
+    // Sections of the instance elements read when a database is opened by
+    // openLazy(), the others are read with the subtree of the instance
+    private static final Set<String> SECTIONS_READ_WHEN_OPENED = new HashSet<>(
+            Arrays.asList("instance", "object", "vuls", "threats", "amvs", "recs", "recos", "recSets"));
+
+    private MonarcIntMap<MonarcInstance> monarcData;
+    private MonarcIntMap<MonarcRisks> monarcRiskList;
+    private Map<String, MonarcVulnerabilities> monarcVulnerabilityList;
+    private Map<String, MonarcThreats> monarcThreatList;
+    private Map<String, MonarcAMVThreats> monarcAMVThreatList;
+    private Map<String, MonarcAMV> monarcAMVList;
+    private Map<String, MonarcScales> scales;
+    private Map<String, MonarcScalesComments> scalesComments;
+    private Map<String, MonarcSoaScaleComment> soaScaleComment;
+    private Map<String, MonarcObject> monarcObjectsList;
+    private Map<String, MonarcThemes> monarcThemesList;
+    private Map<String, MonarcRecs> monarcRecsList;
+    private Map<String, MonarcRecos> monarcRecosList;
+    private Map<String, MonarcRecSets> monarcRecSetsList;
+    private Map<String, MonarcReferentials> monarcReferentials;
+    private Map<String, MonarcMeasures> monarcMeasures;
+    private List<MonarcSoaCategories> monarcSoaCategories;
+    private List<MonarcSoa> monarcSoa;
+    private Map<String, MonarcOperationalRiskScales> monarcOperationalRiskScales;
+    // Asset by code
+    private Map<String, MonarcAsset> monarcAssetList;
+    // private Map<String, MonarcConsequences> monarcConsequenceList;
+    private MonarcANR monarcANR;
+    // Recommendations created for the implemented recommendations of an instance
+    // element extracted by a parallel load, kept apart from the ones of its
+    // "recs" section until they are merged, null otherwise
+    private Map<String, MonarcRecs> recsOfRecos;
+    // Collects the risks created while reading a subtree of a database opened by
+    // openLazy(), null otherwise
+    private List<MonarcRisks> risksRead;
+    // The Monarc JSON file the database was loaded from
+    private final Path sourcePath;
+    private final MonarcInputMode inputMode;
+    // Shares the equal strings read from the file, null once the file is loaded
+    private MonarcStringPool stringPool;
+    private MonarcStringPoolStats stringPoolStats;
+    // Subtrees of the root instances of a database opened by openLazy(), by ID
+    // of the root instance in the order of the file, null once they have all been
+    // read and indexed
+    private volatile List<LazySubtree> lazySubtrees;
+    // Subtree holding each instance of a database opened by openLazy(), by ID of
+    // the instance, null once they have all been read
+    private volatile MonarcIntMap<LazySubtree> lazySubtreesByInstance;
+    // Instances of the subtrees not read yet, created with their threats,
+    // vulnerabilities and AMVs when the file is opened, by ID
+    private MonarcIntMap<MonarcInstance> lazyInstances;
+    // ID and parent ID of each instance when the database was loaded or last
+    // exported, to find out whether the tree changed since
+    private int[] exportedTree;
+
+    // Indexes used by the search functions, built by buildIndexes() once the file
+    // is loaded and kept up to date by the functions changing the database.
+    private final MonarcIndex<String, MonarcThreats> threatsByCode = MonarcIndex.of(MonarcThreats::getCode);
+    private final MonarcIndex<String, MonarcVulnerabilities> vulnerabilitiesByCode = MonarcIndex.of(
+            MonarcVulnerabilities::getCode);
+    private final MonarcIndex<String, MonarcAMV> amvsByThreat = MonarcIndex.of(MonarcAMV::getThreat);
+    private final MonarcIndex<String, MonarcAMV> amvsByVulnerability = MonarcIndex.of(
+            MonarcAMV::getVulnerability);
+    private final MonarcIndex<String, MonarcAMV> amvsByAsset = MonarcIndex.of(MonarcAMV::getAsset);
+    private final MonarcIndex<String, MonarcAMV> amvsByMeasure = MonarcIndex
+            .ofAll(amv -> amv.getMeasures() == null ? Collections.<String>emptySet() : amv.getMeasures());
+    private final MonarcIndex<String, MonarcRisks> risksByAMV = MonarcIndex.of(MonarcRisks::getAmv);
+    private final MonarcIndex<String, MonarcRisks> risksByThreat = MonarcIndex.of(MonarcRisks::getThreat);
+    private final MonarcIndex<String, MonarcRisks> risksByVulnerability = MonarcIndex.of(
+            MonarcRisks::getVulnerability);
+    private final MonarcIndex<String, MonarcMeasures> measuresByCode = MonarcIndex.of(MonarcMeasures::getCode);
+    private final MonarcIndex<Object, MonarcMeasures> measuresByReferential = MonarcIndex.of(
+            MonarcMeasures::getReferential);
+    private final MonarcIndex<String, MonarcSoa> soasByMeasureId = MonarcIndex.of(MonarcSoa::getMeasureId);
+    private final MonarcIndex<String, MonarcRecs> recsByRecommandationSet = MonarcIndex.of(
+            MonarcRecs::getRecommandationSet);
+    // Objects by translated label, description or name, in each language
+    private final MonarcTextIndex<MonarcThreats> threatsByLabel = MonarcTextIndex.of(MonarcThreats::getLabel);
+    private final MonarcTextIndex<MonarcThreats> threatsByDescription = MonarcTextIndex
+            .of(MonarcThreats::getDescription);
+    private final MonarcTextIndex<MonarcVulnerabilities> vulnerabilitiesByLabel = MonarcTextIndex
+            .of(MonarcVulnerabilities::getLabel);
+    private final MonarcTextIndex<MonarcVulnerabilities> vulnerabilitiesByDescription = MonarcTextIndex
+            .of(MonarcVulnerabilities::getDescription);
+    private final MonarcTextIndex<MonarcAsset> assetsByLabel = MonarcTextIndex.of(MonarcAsset::getLabel);
+    private final MonarcTextIndex<MonarcInstance> instancesByName = MonarcTextIndex.of(MonarcInstance::getName);
+    private final MonarcTextIndex<MonarcInstance> instancesByLabel = MonarcTextIndex.of(MonarcInstance::getLabel);
+    // Threats and vulnerabilities by trigrams of their labels and descriptions
+    private final MonarcTrigramIndex<MonarcThreats> threatsBySimilarity = MonarcTrigramIndex
+            .of(MonarcThreats::getLabel, MonarcThreats::getDescription);
+    private final MonarcTrigramIndex<MonarcVulnerabilities> vulnerabilitiesBySimilarity = MonarcTrigramIndex
+            .of(MonarcVulnerabilities::getLabel, MonarcVulnerabilities::getDescription);
+    // Objects by ID of the instances they belong to, built from their parent
+    // instance IDs and following the changes of these
+    private final MonarcIndex<Integer, MonarcAMV> amvsByInstance = MonarcIndex
+            .byInstance(MonarcAMV::getParentInstanceId, this::write);
+    private final MonarcIndex<Integer, MonarcVulnerabilities> vulnerabilitiesByInstance = MonarcIndex
+            .byInstance(MonarcVulnerabilities::getParentInstanceId, this::write);
+    private final MonarcIndex<Integer, MonarcThreats> threatsByInstance = MonarcIndex
+            .byInstance(MonarcThreats::getParentInstanceId, this::write);
+    private final MonarcIndex<Integer, MonarcRisks> risksByInstance = MonarcIndex
+            .byInstance(MonarcRisks::getParentInstanceId, this::write);
+    private final MonarcIndex<Integer, MonarcThemes> themesByInstance = MonarcIndex
+            .byInstance(MonarcThemes::getParentInstanceId, this::write);
+    private final MonarcIndex<Integer, MonarcRecSets> recSetsByInstance = MonarcIndex
+            .byInstance(MonarcRecSets::getParentInstanceId, this::write);
+    private final MonarcIndex<Integer, MonarcRecs> recsByInstance = MonarcIndex
+            .byInstance(MonarcRecs::getParentInstanceId, this::write);
+    private final MonarcIndex<Integer, MonarcRecos> recosByInstance = MonarcIndex
+            .byInstance(MonarcRecos::getParentInstanceId, this::write);
+    private final MonarcIndex<Integer, MonarcObject> objectsByInstance = MonarcIndex
+            .byInstance(MonarcObject::getParentInstanceId, this::write);
+    // Recos by related risk ID and UUID
+    private final Map<String, Map<String, MonarcRecos>> recosByRisk = new HashMap<>();
+    private List<MonarcSoaScaleComment> soaScaleCommentsByIndex = Collections.emptyList();
+
+    private final MonarcRiskEngine riskEngine;
+
+    // Guards the maps and indexes above and the values of the objects: the search
+    // functions share the read lock, the functions changing the database and the
+    // setters of its objects hold the write lock
+    private final StampedLock lock = new StampedLock();
+    // Thread holding the write lock, so that the functions changing the database
+    // can call the other functions
+    private volatile Thread writer;
+
+    /**
+     * Constructor, processes the JSON file and populates the internal
+     * representation of the
+     * JSON as Java objects.
+     * 
+     * This function initiates the processing of the file by reading the
+     * upper level of the JSON file and processing all elements that are
+     * in the uppermost level, calling the relevant functions for processing
+     * the subsequent elements.
+     *
+     * The file is read as a stream of tokens, so that the whole JSON tree is
+     * never held in memory next to the Java objects built from it.
+     *
+     * @param jsonPath The path for the Monarc JSON file to be processed
+     * @throws StreamReadException
+     * @throws DatabindException
+     * @throws IOException
+     */
+    public MonarcDatabase(String jsonPath) throws Exception {
+        this(Paths.get(jsonPath), null, MonarcStringPool.create(), MonarcInputMode.BUFFERED, false);
+    }
+
+    /**
+     * Constructor, processes the JSON file with the sections of the file
+     * extracted in parallel.
+     * 
+     * The file is read by the calling thread, and the sections (referentials,
+     * measures, soas, scales, method...) are extracted by the executor as soon as
+     * they are read. The sections do not share any data, except for the scales
+     * comments which are extracted after the scales.
+     * 
+     * Each root instance is read in memory and extracted by a fork/join task,
+     * which forks a task for each of its children, by the executor when it is a
+     * {@link ForkJoinPool} and by the common pool otherwise. The objects shared
+     * by several instances are merged by key as the tasks extract them, and the
+     * object kept for each key is the first one in the file. The database is
+     * therefore the same as the one loaded by {@link #MonarcDatabase(String)},
+     * at the cost of holding the instances in memory until they are merged.
+     * 
+     * @param jsonPath The path for the Monarc JSON file to be processed
+     * @param executor The executor extracting the sections, for instance
+     *                 {@link ForkJoinPool#commonPool()}, or null to extract them
+     *                 in the calling thread
+     * @throws IOException
+     */
+    public MonarcDatabase(String jsonPath, Executor executor) throws IOException {
+        this(Paths.get(jsonPath), executor, MonarcStringPool.create(), MonarcInputMode.BUFFERED, false);
+    }
+
+    /**
+     * Constructor, processes the JSON file with the given pool of strings.
+     * 
+     * The labels, uuids, codes and translation keys read from the file are given
+     * to the pool, so that equal strings are only kept once. The other
+     * constructors use a new pool for each file. A pool given to several loads
+     * also shares the strings between the databases.
+     * 
+     * @param jsonPath   The path for the Monarc JSON file to be processed
+     * @param executor   The executor extracting the sections, or null to extract
+     *                   them in the calling thread
+     * @param stringPool The pool sharing the strings read from the file
+     * @throws IOException
+     * @see #getStringPoolStats()
+     */
+    public MonarcDatabase(String jsonPath, Executor executor, MonarcStringPool stringPool) throws IOException {
+        this(jsonPath, executor, stringPool, MonarcInputMode.BUFFERED);
+    }
+
+    /**
+     * Constructor, processes the JSON file with the given pool of strings, read
+     * as given.
+     * 
+     * With {@link MonarcInputMode#MAPPED}, the file is mapped in memory and the
+     * parser reads it from the mapping, which avoids copying multi-GB exports
+     * from the page cache of the system to the buffers of the parser.
+     * 
+     * @param jsonPath   The path for the Monarc JSON file to be processed
+     * @param executor   The executor extracting the sections, or null to extract
+     *                   them in the calling thread
+     * @param stringPool The pool sharing the strings read from the file
+     * @param inputMode  How the file is read
+     * @throws IOException
+     */
+    public MonarcDatabase(String jsonPath, Executor executor, MonarcStringPool stringPool,
+            MonarcInputMode inputMode) throws IOException {
+        this(Paths.get(jsonPath), executor, Objects.requireNonNull(stringPool, "stringPool"),
+                Objects.requireNonNull(inputMode, "inputMode"), false);
+    }
+
+    /**
+     * Processes a Monarc JSON file.
+     * 
+     * @param sourcePath The path of the file to be processed
+     * @param executor   The executor extracting the sections other than the
+     *                   instances, or null to extract them in the calling thread
+     * @param stringPool The pool sharing the strings read from the file
+     * @param inputMode  How the file is read
+     * @param lazy       True to only read the root instances, see
+     *                   {@link #openLazy(String)}
+     * @throws IOException
+     */
+    private MonarcDatabase(Path sourcePath, Executor executor, MonarcStringPool stringPool,
+            MonarcInputMode inputMode, boolean lazy) throws IOException {
+        createMaps();
+
+        this.sourcePath = sourcePath;
+        this.inputMode = inputMode;
+        this.stringPool = stringPool;
+        this.riskEngine = new MonarcRiskEngine(monarcData, monarcRiskList, this::getChildrenByParent,
+                risksByInstance::view, this::getMethod);
+
+        try (JsonParser parser = openSource()) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new IOException("Invalid Monarc JSON file, the root element must be an object: " + sourcePath);
+
+            // The scales comments refer to the scales by type, so if the comments come
+            // first in the file they are kept aside until the scales have been read.
+            Object ANRScalesCommentsMap = null;
+            CompletableFuture<Void> scalesExtracted = null;
+            final List<CompletableFuture<Void>> extractions = new ArrayList<>();
+            final InstanceMerge merge = new InstanceMerge();
+            final List<InstanceExtraction> roots = new ArrayList<>();
+
+            // Only the section being processed is held in memory. The instance tree,
+            // which holds most of the data, is read one instance at a time.
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String section = parser.currentName();
+                parser.nextToken();
+                switch (section) {
+                    case "instances":
+                        // The "measures" in "instance" hold their own copy of the referential, so
+                        // the instances do not depend on "referentials" being read before them.
+                        if (lazy)
+                            recordInstances(parser);
+                        else if (executor == null)
+                            streamInstances(parser, null);
+                        else
+                            forkInstances(parser, executor instanceof ForkJoinPool ? (ForkJoinPool) executor
+                                    : ForkJoinPool.commonPool(), merge, roots);
+                        break;
+                    case "referentials": {
+                        final Object data = parser.readValueAs(Object.class);
+                        extractions.add(extractSection(executor, () -> extractReferentials(data)));
+                        break;
+                    }
+                    case "soaScaleComment": {
+                        // If there is no data in soaScaleComment, it is represented as a list on the
+                        // json file instead of a map
+                        // so, we need to check if the element is a map before processing it.
+                        final Object data = parser.readValueAs(Object.class);
+                        extractions.add(extractSection(executor, () -> extractSoaScaleComment(data)));
+                        break;
+                    }
+                    case "measures": {
+                        final Object data = parser.readValueAs(Object.class);
+                        extractions.add(extractSection(executor, () -> extractMeasures(data)));
+                        break;
+                    }
+                    case "soacategories": {
+                        final Object data = parser.readValueAs(Object.class);
+                        extractions.add(extractSection(executor, () -> extractSoaCategories(data)));
+                        break;
+                    }
+                    case "soas": {
+                        final Object data = parser.readValueAs(Object.class);
+                        extractions.add(extractSection(executor, () -> extractSoas(data)));
+                        break;
+                    }
+                    case "scales": {
+                        final Object data = parser.readValueAs(Object.class);
+                        scalesExtracted = extractSection(executor, () -> extractANRScales(data));
+                        extractions.add(scalesExtracted);
+                        if (ANRScalesCommentsMap != null) {
+                            final Object comments = ANRScalesCommentsMap;
+                            extractions.add(extractSection(executor, scalesExtracted,
+                                    () -> extractANRScalesComment(comments)));
+                            ANRScalesCommentsMap = null;
+                        }
+                        break;
+                    }
+                    case "scalesComments":
+                        if (scalesExtracted != null) {
+                            final Object comments = parser.readValueAs(Object.class);
+                            extractions.add(extractSection(executor, scalesExtracted,
+                                    () -> extractANRScalesComment(comments)));
+                        } else
+                            ANRScalesCommentsMap = parser.readValueAs(Object.class);
+                        break;
+                    case "method": {
+                        final Object data = parser.readValueAs(Object.class);
+                        extractions.add(extractSection(executor, () -> extractAMVThreats(data)));
+                        break;
+                    }
+                    case "operationalRiskScales": {
+                        final Object data = parser.readValueAs(Object.class);
+                        extractions.add(extractSection(executor, () -> extractOperationalRiskScales(data)));
+                        break;
+                    }
+                    default:
+                        // Sections that are not interpreted are skipped without being read.
+                        parser.skipChildren();
+                        break;
+                }
+            }
+
+            if (ANRScalesCommentsMap != null)
+                extractANRScalesComment(ANRScalesCommentsMap);
+
+            awaitSections(extractions);
+
+            if (!roots.isEmpty())
+                mergeInstances(roots, merge);
+        }
+
+        this.stringPoolStats = stringPool.getStats();
+        // The pool is kept for the subtrees left to read
+        if (lazySubtrees == null)
+            this.stringPool = null;
+
+        indexAll();
+        if (lazySubtrees == null)
+            exportedWhenLoaded();
+    }
+
+    /**
+     * Creates the empty maps and lists of the objects read from the file.
+     */
+    private void createMaps() {
+        this.monarcData = new MonarcIntMap<>();
+        this.monarcRiskList = new MonarcIntMap<>();
+        this.monarcVulnerabilityList = new HashMap<>();
+        this.monarcThreatList = new HashMap<>();
+        this.monarcAMVThreatList = new HashMap<>();
+        this.monarcAMVList = new HashMap<>();
+        this.scales = new HashMap<>();
+        this.soaScaleComment = new HashMap<>();
+        this.monarcObjectsList = new HashMap<>();
+        this.monarcAssetList = new HashMap<>();
+        // this.monarcConsequenceList = new HashMap<>();
+        this.monarcThemesList = new HashMap<>();
+        this.monarcRecsList = new HashMap<>();
+        this.monarcRecosList = new HashMap<>();
+        this.monarcRecSetsList = new HashMap<>();
+        this.monarcReferentials = new HashMap<>();
+        this.monarcMeasures = new HashMap<>();
+        this.monarcSoaCategories = new ArrayList<>();
+        this.monarcSoa = new ArrayList<>();
+        this.monarcANR = MonarcANR.build();
+        this.scalesComments = new HashMap<>();
+        this.monarcOperationalRiskScales = new HashMap<>();
+    }
+
+    /**
+     * Opens a Monarc JSON file lazily: only the root instances are read, and the
+     * subtree of each of them (its child instances, and their risks,
+     * consequences and measures) is read from the file the first time it is
+     * needed.
+     *
+     * The subtree of a root instance is read when one of its getters is called,
+     * for instance {@link MonarcInstance#getChildren()} or
+     * {@link MonarcInstance#getRisks()}, so that a job going through a few
+     * branches of the tree only reads these branches. The threats,
+     * vulnerabilities, AMVs, objects, assets and recommendations of all the
+     * instances, as well as the other sections of the file, are read when it is
+     * opened: they are searched without reading any subtree.
+     *
+     * The risks of an instance are searched by reading the subtree holding the
+     * instance only, see {@link #searchRiskByInstanceId(int)}. The functions
+     * going through all the instances, their risks or their consequences, or
+     * changing or exporting them, first read all the subtrees left, in the order
+     * of the file, and index them. The database is then the same as the one
+     * loaded by {@link #MonarcDatabase(String)}.
+     *
+     * The file must not be changed while the database is in use.
+     * 
+     * @param jsonPath The path for the Monarc JSON file to be processed
+     * @return The database holding the root instances
+     * @throws IOException
+     * @see #getRootInstances()
+     * @see MonarcInstance#isMaterialized()
+     */
+    public static MonarcDatabase openLazy(String jsonPath) throws IOException {
+        return openLazy(jsonPath, MonarcInputMode.BUFFERED);
+    }
+
+    /**
+     * Opens a Monarc JSON file lazily, as {@link #openLazy(String)}, read as
+     * given. With {@link MonarcInputMode#MAPPED}, the subtrees are read from the
+     * mapping of the file at their position.
+     * 
+     * @param jsonPath  The path for the Monarc JSON file to be processed
+     * @param inputMode How the file is read
+     * @return The database holding the root instances
+     * @throws IOException
+     */
+    public static MonarcDatabase openLazy(String jsonPath, MonarcInputMode inputMode) throws IOException {
+        return new MonarcDatabase(Paths.get(jsonPath), null, MonarcStringPool.create(),
+                Objects.requireNonNull(inputMode, "inputMode"), true);
+    }
+
+    /**
+     * Subtree of a root instance of a database opened by
+     * {@link #openLazy(String)}, read from the file on demand.
+     */
+    private static final class LazySubtree {
+        private final String key;
+        // Position of the start of the instance element in the file
+        private final long offset;
+        private final MonarcInstance root;
+        // IDs of the instances of the subtree, the root included
+        private final MonarcIntSet instanceIds;
+        // Risks created while reading the subtree, indexed once it is read
+        private final List<MonarcRisks> risks = new ArrayList<>();
+        private boolean materialized;
+
+        private LazySubtree(String key, long offset, MonarcInstance root, MonarcIntSet instanceIds) {
+            this.key = key;
+            this.offset = offset;
+            this.root = root;
+            this.instanceIds = instanceIds;
+        }
+    }
+
+    /**
+     * Reads the root instances from the parser, without their subtree, and the
+     * threats, vulnerabilities, AMVs, objects and recommendations of all the
+     * instances. The position of each root instance in the file is kept, so that
+     * its subtree can be read when it is first needed.
+     * 
+     * @param parser The parser positioned on the start of the "instances"
+     *               element
+     * @throws IOException
+     */
+    private void recordInstances(JsonParser parser) throws IOException {
+        // Instances without children have an empty list instead of a map
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+
+        final List<LazySubtree> subtrees = new ArrayList<>();
+        final MonarcIntMap<LazySubtree> subtreesByInstance = new MonarcIntMap<>();
+        lazyInstances = new MonarcIntMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String key = parser.currentName();
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+
+            final long offset = parser.currentTokenLocation().getByteOffset();
+            final MonarcIntSet instanceIds = new MonarcIntSet();
+            final MonarcInstance root = recordInstanceData(key, parser, instanceIds);
+            if (root == null)
+                continue;
+
+            lazyInstances.remove(root.getId());
+            monarcData.put(root.getId(), root);
+            final LazySubtree subtree = new LazySubtree(key, offset, root, instanceIds);
+            root.setMaterializer(() -> materialize(subtree, true));
+            subtrees.add(subtree);
+            for (PrimitiveIterator.OfInt ids = instanceIds.iterator(); ids.hasNext();)
+                subtreesByInstance.put(ids.nextInt(), subtree);
+        }
+
+        if (subtrees.isEmpty())
+            lazyInstances = null;
+        else {
+            lazySubtreesByInstance = subtreesByInstance;
+            lazySubtrees = subtrees;
+        }
+    }
+
+    /**
+     * Reads an instance element from the parser, as
+     * {@link #streamInstanceData(String, JsonParser)}, but only creates the
+     * instances and extracts their threats, vulnerabilities, AMVs, objects and
+     * recommendations. The other sections are skipped without being read, and
+     * the instances are kept aside until their subtree is read.
+     * 
+     * @param key         The key of the monarc instance in the ANR Monarc JSON
+     *                    element
+     * @param parser      The parser positioned on the start of the instance
+     * @param instanceIds The IDs of the instances of the subtree, completed
+     * @return The instance, or null if the element has no "instance" section
+     * @throws IOException
+     */
+    private MonarcInstance recordInstanceData(String key, JsonParser parser, MonarcIntSet instanceIds)
+            throws IOException {
+        final Map<String, Object> sections = new LinkedHashMap<>();
+        MonarcInstance newElement = null;
+        TokenBuffer children = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String section = parser.currentName();
+            parser.nextToken();
+
+            if (!"children".equals(section)) {
+                if (SECTIONS_READ_WHEN_OPENED.contains(section))
+                    sections.put(section, parser.readValueAs(Object.class));
+                else
+                    parser.skipChildren();
+                continue;
+            }
+
+            if (newElement == null && sections.containsKey("instance")) {
+                newElement = recordInstance(new AbstractMap.SimpleEntry<>(key, sections), instanceIds);
+                sections.clear();
+            }
+
+            if (newElement != null)
+                recordChildren(parser, instanceIds);
+            else
+                children = parser.readValueAs(TokenBuffer.class);
+        }
+
+        if (newElement == null) {
+            if (!(sections.get("instance") instanceof Map))
+                return null;
+            newElement = recordInstance(new AbstractMap.SimpleEntry<>(key, sections), instanceIds);
+        } else if (!sections.isEmpty())
+            extractSharedSections(new AbstractMap.SimpleEntry<>(key, sections), newElement);
+
+        if (children != null) {
+            try (JsonParser childrenParser = children.asParser(parser.getCodec())) {
+                childrenParser.nextToken();
+                recordChildren(childrenParser, instanceIds);
+            }
+        }
+
+        return newElement;
+    }
+
+    private MonarcInstance recordInstance(Map.Entry<?, ?> entry, MonarcIntSet instanceIds) {
+        final MonarcInstance newElement = createInstance(
+                (Map<?, ?>) ((Map<?, ?>) entry.getValue()).get("instance"));
+        extractSharedSections(entry, newElement);
+        lazyInstances.put(newElement.getId(), newElement);
+        instanceIds.add(newElement.getId());
+        return newElement;
+    }
+
+    private void recordChildren(JsonParser parser, MonarcIntSet instanceIds) throws IOException {
+        // Instances without children have an empty list instead of a map
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String key = parser.currentName();
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                parser.skipChildren();
+            else
+                recordInstanceData(key, parser, instanceIds);
+        }
+    }
+
+    /**
+     * Reads the subtree of a root instance from the file, if it has not been
+     * read yet.
+     * 
+     * The threats, vulnerabilities, AMVs, objects and recommendations were read
+     * when the file was opened, only the instances are attached to their parent,
+     * and their risks, consequences and measures extracted.
+     * 
+     * If the subtree cannot be read, it is read again by the next call, the
+     * objects already read from it being merged again as when they are found in
+     * several instances.
+     * 
+     * @param subtree The subtree to read
+     * @param index   True to add the risks read to the indexes, false if all
+     *                the indexes are built afterwards
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    private void materialize(LazySubtree subtree, boolean index) {
+        final long stamp = lockWrite();
+        try {
+            if (subtree.materialized)
+                return;
+
+            risksRead = subtree.risks;
+            try (JsonParser parser = openSource(subtree.offset)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT)
+                    throw new IOException("The instance " + subtree.key + " cannot be read, the file " + sourcePath
+                            + " has been changed");
+                streamInstanceData(subtree.key, parser, subtree.root);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                risksRead = null;
+            }
+            // Cleared once the subtree is read, so that another thread calling a getter
+            // of the root instance waits for it, and a failed read is tried again
+            subtree.materialized = true;
+            subtree.root.setMaterializer(null);
+
+            for (PrimitiveIterator.OfInt ids = subtree.instanceIds.iterator(); ids.hasNext();) {
+                final MonarcInstance instance = lazyInstances.remove(ids.nextInt());
+                if (instance != null)
+                    attach(instance);
+            }
+            attach(subtree.root);
+            for (MonarcRisks risk : subtree.risks)
+                risk.setChanges(this::write);
+            // The instances are only searched once all the subtrees are read
+            if (index) {
+                for (MonarcRisks risk : subtree.risks) {
+                    risksByAMV.add(risk);
+                    risksByThreat.add(risk);
+                    risksByVulnerability.add(risk);
+                    risksByInstance.add(risk);
+                }
+                riskEngine.invalidate();
+            }
+            subtree.risks.clear();
+
+            stringPoolStats = stringPool.getStats();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Reads the subtree holding an instance of a database opened by
+     * {@link #openLazy(String)}, if it has not been read yet.
+     * 
+     * @param instanceId The ID of the instance
+     */
+    private void materializeInstance(int instanceId) {
+        final MonarcIntMap<LazySubtree> subtrees = lazySubtreesByInstance;
+        final LazySubtree subtree = subtrees == null ? null : subtrees.get(instanceId);
+        if (subtree != null)
+            materialize(subtree, true);
+    }
+
+    /**
+     * Reads the subtrees of a database opened by {@link #openLazy(String)} that
+     * have not been read yet, and indexes them. Called by the functions needing
+     * all the instances or all their risks.
+     */
+    private void materializeAll() {
+        if (lazySubtrees != null)
+            indexSubtrees();
+    }
+
+    private void indexSubtrees() {
+        final long stamp = lockWrite();
+        try {
+            final List<LazySubtree> subtrees = lazySubtrees;
+            if (subtrees == null)
+                return;
+
+            for (LazySubtree subtree : subtrees)
+                materialize(subtree, false);
+
+            // The children of the subtrees read on demand were added after all the root
+            // instances, the instances are put back in the order of the file, each one
+            // before its children.
+            final List<MonarcInstance> instances = new ArrayList<>(monarcData.size());
+            for (LazySubtree subtree : subtrees)
+                addWithChildren(subtree.root, instances);
+            monarcData.clear();
+            for (MonarcInstance instance : instances)
+                monarcData.put(instance.getId(), instance);
+
+            stringPool = null;
+            lazyInstances = null;
+            indexAll();
+            lazySubtreesByInstance = null;
+            lazySubtrees = null;
+            exportedWhenLoaded();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    private static void addWithChildren(MonarcInstance instance, List<MonarcInstance> instances) {
+        instances.add(instance);
+        for (MonarcInstance child : instance.getChildren().values())
+            addWithChildren(child, instances);
+    }
+
+    /**
+     * Extraction of an instance element read in memory. The sections of the
+     * instance are extracted into databases of their own, one for the sections
+     * before "children" and one for the sections after it, which are added to
+     * the {@link InstanceMerge} of the load, and each child is extracted by a
+     * subtask of its own.
+     */
+    private static final class InstanceExtraction extends RecursiveTask<MonarcInstance> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String key;
+        private final TokenBuffer element;
+        private final ObjectCodec codec;
+        // Position of the element in the file, see InstanceMerge
+        private final int[] position;
+        private final InstanceMerge merge;
+        private final MonarcStringPool stringPool;
+
+        private InstanceExtraction(String key, TokenBuffer element, ObjectCodec codec, int[] position,
+                InstanceMerge merge, MonarcStringPool stringPool) {
+            this.key = key;
+            this.element = element;
+            this.codec = codec;
+            this.position = position;
+            this.merge = merge;
+            this.stringPool = stringPool;
+        }
+
+        @Override
+        protected MonarcInstance compute() {
+            try (JsonParser parser = element.asParser(codec)) {
+                parser.nextToken();
+                return extract(parser);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Reads the element as
+         * {@link MonarcDatabase#streamInstanceData(String, JsonParser, MonarcInstance)},
+         * forking the extraction of the children instead of extracting them in
+         * turn.
+         */
+        private MonarcInstance extract(JsonParser parser) throws IOException {
+            final Map<String, Object> sections = new LinkedHashMap<>();
+            final List<InstanceExtraction> children = new ArrayList<>();
+            MonarcInstance instance = null;
+            TokenBuffer pending = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String section = parser.currentName();
+                parser.nextToken();
+
+                if (!"children".equals(section)) {
+                    sections.put(section, parser.readValueAs(Object.class));
+                    continue;
+                }
+
+                if (instance == null && sections.containsKey("instance")) {
+                    instance = extractSections(sections, null, 0);
+                    sections.clear();
+                }
+
+                if (instance != null)
+                    forkChildren(parser, children);
+                else
+                    pending = parser.readValueAs(TokenBuffer.class);
+            }
+
+            if (instance == null) {
+                if (!(sections.get("instance") instanceof Map))
+                    return null;
+                instance = extractSections(sections, null, 0);
+            } else if (!sections.isEmpty())
+                extractSections(sections, instance, 2);
+
+            if (pending != null) {
+                try (JsonParser childrenParser = pending.asParser(codec)) {
+                    childrenParser.nextToken();
+                    forkChildren(childrenParser, children);
+                }
+            }
+
+            for (InstanceExtraction child : children) {
+                final MonarcInstance extracted = child.join();
+                if (extracted != null)
+                    instance.addChild(extracted);
+            }
+            return instance;
+        }
+
+        /**
+         * Extracts sections of the element into a database of its own, and adds
+         * the objects found to the merge.
+         *
+         * @param sections The sections
+         * @param instance The instance already created from the element, or null
+         *                 to create it
+         * @param part     0 for the sections read before the children, 2 for the
+         *                 sections read after them
+         * @return The instance
+         */
+        private MonarcInstance extractSections(Map<String, Object> sections, MonarcInstance instance, int part) {
+            final MonarcDatabase extraction = new MonarcDatabase(stringPool);
+            final Map.Entry<String, Object> entry = new AbstractMap.SimpleEntry<>(key, sections);
+            final MonarcInstance extracted = extraction.extractInstance(entry, instance);
+            merge.add(InstanceMerge.position(position, part), extraction);
+            return extracted;
+        }
+
+        /**
+         * Reads the children of the element and forks their extraction.
+         *
+         * @param parser   The parser positioned on the start of a "children"
+         *                 element
+         * @param children The extractions of the children, in the order of the
+         *                 file
+         * @throws IOException
+         */
+        private void forkChildren(JsonParser parser, List<InstanceExtraction> children) throws IOException {
+            // Instances without children have an empty list instead of a map
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                return;
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String childKey = parser.currentName();
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                final InstanceExtraction child = new InstanceExtraction(childKey,
+                        parser.readValueAs(TokenBuffer.class), codec,
+                        InstanceMerge.position(position, 1, children.size()), merge, stringPool);
+                child.fork();
+                children.add(child);
+            }
+        }
+    }
+
+    /**
+     * The objects extracted by the tasks of a parallel load, merged by key as
+     * the tasks add them.
+     *
+     * Each object is added with its position in the file: the position of the
+     * instance element it was read from (the index of the root instance, then
+     * 1 and the index of the child for each level below the root), the part of
+     * the element (0 before "children", 2 after) and its index in the objects
+     * extracted from that part. Once all the tasks are done, the object kept for
+     * each key is the first one in the file, and the parent instances of the
+     * others are added to it in the order of the file, as when the instances are
+     * extracted one after the other.
+     */
+    private static final class InstanceMerge {
+
+        private static final Comparator<Candidate<?>> IN_FILE_ORDER = (first, second) -> {
+            final int order = Arrays.compare(first.position, second.position);
+            return order != 0 ? order : Integer.compare(first.index, second.index);
+        };
+
+        private final Map<Integer, Candidates<MonarcRisks>> risks = new ConcurrentHashMap<>();
+        private final Map<String, Candidates<MonarcVulnerabilities>> vulnerabilities = new ConcurrentHashMap<>();
+        private final Map<String, Candidates<MonarcThreats>> threats = new ConcurrentHashMap<>();
+        private final Map<String, Candidates<MonarcAMV>> amvs = new ConcurrentHashMap<>();
+        private final Map<String, Candidates<MonarcThemes>> themes = new ConcurrentHashMap<>();
+        private final Map<String, Candidates<MonarcAsset>> assets = new ConcurrentHashMap<>();
+        private final Map<String, Candidates<MonarcObject>> objects = new ConcurrentHashMap<>();
+        private final Map<String, Candidates<MonarcRecSets>> recSets = new ConcurrentHashMap<>();
+        private final Map<String, Candidates<MonarcRecs>> recs = new ConcurrentHashMap<>();
+        private final Map<String, Candidates<MonarcRecos>> recos = new ConcurrentHashMap<>();
+        // Recommendations created for the implemented recommendations ("recos")
+        // first found in a part, kept only for the part where each of them is
+        // found first in the file
+        private final Map<String, Candidates<MonarcRecs>> recsOfRecos = new ConcurrentHashMap<>();
+        private final Queue<Candidate<MonarcInstance>> instances = new ConcurrentLinkedQueue<>();
+
+        /**
+         * @return The position of an element or part below the given position.
+         */
+        private static int[] position(int[] parent, int... next) {
+            final int[] position = Arrays.copyOf(parent, parent.length + next.length);
+            System.arraycopy(next, 0, position, parent.length, next.length);
+            return position;
+        }
+
+        /**
+         * Adds the objects extracted from a part of an instance element.
+         *
+         * @param position   The position of the part
+         * @param extraction The database holding the objects of the part
+         */
+        private void add(int[] position, MonarcDatabase extraction) {
+            add(risks, position, extraction.monarcRiskList, 0);
+            add(vulnerabilities, position, extraction.monarcVulnerabilityList, 0);
+            add(threats, position, extraction.monarcThreatList, 0);
+            add(amvs, position, extraction.monarcAMVList, 0);
+            add(themes, position, extraction.monarcThemesList, 0);
+            add(assets, position, extraction.monarcAssetList, 0);
+            add(objects, position, extraction.monarcObjectsList, 0);
+            add(recSets, position, extraction.monarcRecSetsList, 0);
+            add(recs, position, extraction.monarcRecsList, 0);
+            add(recos, position, extraction.monarcRecosList, 0);
+            // Created after the recommendations of the part
+            add(recsOfRecos, position, extraction.recsOfRecos, extraction.monarcRecsList.size());
+            for (MonarcInstance instance : extraction.monarcData.values())
+                instances.add(new Candidate<>(position, 0, instance));
+        }
+
+        private static <K, T> void add(Map<K, Candidates<T>> candidates, int[] position, Map<K, T> objects,
+                int index) {
+            for (Map.Entry<K, T> object : objects.entrySet()) {
+                candidates.computeIfAbsent(object.getKey(), k -> new Candidates<>())
+                        .add(new Candidate<>(position, index++, object.getValue()));
+            }
+        }
+
+        /**
+         * Adds the recommendations created for the implemented recommendations to
+         * the recommendations, from the part where each implemented recommendation
+         * is found first. Called once the implemented recommendations are merged,
+         * the first candidate of each of them being the one kept.
+         */
+        private void addRecsOfRecos() {
+            for (Map.Entry<String, Candidates<MonarcRecos>> reco : recos.entrySet()) {
+                final Candidates<MonarcRecs> created = recsOfRecos.get(reco.getKey());
+                if (created == null)
+                    continue;
+                final int[] position = reco.getValue().candidates.get(0).position;
+                for (Candidate<MonarcRecs> rec : created.candidates) {
+                    if (rec.position == position)
+                        recs.computeIfAbsent(reco.getKey(), k -> new Candidates<>()).add(rec);
+                }
+            }
+        }
+
+        /**
+         * Puts the object kept for each key into the map of the database, in the
+         * order of the file.
+         *
+         * @param candidates The objects by key
+         * @param target     The map of the database
+         * @param merge      Adds the parent instances of an object that is not kept
+         *                   to the object kept
+         */
+        private static <K, T> void merge(Map<K, Candidates<T>> candidates, Map<K, T> target,
+                BiConsumer<T, T> merge) {
+            final List<Map.Entry<K, Candidates<T>>> kept = new ArrayList<>(candidates.entrySet());
+            for (Map.Entry<K, Candidates<T>> objects : kept)
+                objects.getValue().candidates.sort(IN_FILE_ORDER);
+            kept.sort((first, second) -> IN_FILE_ORDER.compare(first.getValue().candidates.get(0),
+                    second.getValue().candidates.get(0)));
+
+            for (Map.Entry<K, Candidates<T>> objects : kept) {
+                final List<Candidate<T>> sorted = objects.getValue().candidates;
+                final T object = sorted.get(0).object;
+                for (int i = 1; i < sorted.size(); i++)
+                    merge.accept(object, sorted.get(i).object);
+                target.put(objects.getKey(), object);
+            }
+        }
+
+        /**
+         * @return The instances, in the order they were created.
+         */
+        private List<MonarcInstance> instances() {
+            final List<Candidate<MonarcInstance>> sorted = new ArrayList<>(instances);
+            sorted.sort(IN_FILE_ORDER);
+            return sorted.stream().map(candidate -> candidate.object).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * An object extracted from a part of an instance element, see
+     * {@link InstanceMerge}.
+     */
+    private static final class Candidate<T> {
+        private final int[] position;
+        private final int index;
+        private final T object;
+
+        private Candidate(int[] position, int index, T object) {
+            this.position = position;
+            this.index = index;
+            this.object = object;
+        }
+    }
+
+    /**
+     * The objects of a key extracted by the tasks of a parallel load.
+     */
+    private static final class Candidates<T> {
+        private final List<Candidate<T>> candidates = new ArrayList<>();
+
+        private synchronized void add(Candidate<T> candidate) {
+            candidates.add(candidate);
+        }
+
+    }
+
+    /**
+     * Constructs an empty database, holding the objects extracted from a part of
+     * an instance element by a parallel load until they are merged into the
+     * database being loaded. The maps keep the objects in the order they were
+     * read.
+     *
+     * @param stringPool The pool of the database being loaded
+     */
+    private MonarcDatabase(MonarcStringPool stringPool) {
+        this.monarcData = new MonarcIntMap<>();
+        this.monarcRiskList = new MonarcIntMap<>();
+        this.monarcVulnerabilityList = new LinkedHashMap<>();
+        this.monarcThreatList = new LinkedHashMap<>();
+        this.monarcAMVList = new LinkedHashMap<>();
+        this.monarcObjectsList = new LinkedHashMap<>();
+        this.monarcAssetList = new LinkedHashMap<>();
+        this.monarcThemesList = new LinkedHashMap<>();
+        this.monarcRecsList = new LinkedHashMap<>();
+        this.monarcRecosList = new LinkedHashMap<>();
+        this.monarcRecSetsList = new LinkedHashMap<>();
+        this.recsOfRecos = new LinkedHashMap<>();
+        this.monarcANR = MonarcANR.build();
+
+        this.sourcePath = null;
+        this.inputMode = null;
+        this.stringPool = stringPool;
+        this.riskEngine = null;
+    }
+
+    /**
+     * Reads the root instances from the parser and forks the extraction of each
+     * of them as soon as it has been read.
+     *
+     * @param parser The parser positioned on the start of the "instances"
+     *               element
+     * @param pool   The pool extracting the instances
+     * @param merge  The merge receiving the objects extracted
+     * @param roots  The list receiving the extractions, in the order of the file
+     * @throws IOException
+     */
+    private void forkInstances(JsonParser parser, ForkJoinPool pool, InstanceMerge merge,
+            List<InstanceExtraction> roots) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String key = parser.currentName();
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+
+            final InstanceExtraction root = new InstanceExtraction(key, parser.readValueAs(TokenBuffer.class),
+                    parser.getCodec(), new int[] { roots.size() }, merge, stringPool);
+            pool.execute(root);
+            roots.add(root);
+        }
+    }
+
+    /**
+     * Merges the instances extracted in parallel, and the objects they hold, into
+     * this database, once all the extractions are done. The database is then the
+     * same as if the instances had been extracted one after the other.
+     *
+     * @param roots The extractions of the root instances
+     * @param merge The objects extracted
+     * @throws IOException if an instance could not be extracted
+     */
+    private void mergeInstances(List<InstanceExtraction> roots, InstanceMerge merge) throws IOException {
+        for (InstanceExtraction root : roots) {
+            try {
+                root.join();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        for (MonarcInstance instance : merge.instances())
+            monarcData.put(instance.getId(), instance);
+
+        InstanceMerge.merge(merge.risks, monarcRiskList,
+                (kept, merged) -> merged.getParentInstanceId().forEach(kept::addParentInstance));
+        InstanceMerge.merge(merge.vulnerabilities, monarcVulnerabilityList,
+                (kept, merged) -> merged.getParentInstanceId().forEach(kept::addParentInstance));
+        InstanceMerge.merge(merge.threats, monarcThreatList,
+                (kept, merged) -> merged.getParentInstanceId().forEach(kept::addParentInstance));
+        InstanceMerge.merge(merge.amvs, monarcAMVList,
+                (kept, merged) -> merged.getParentInstanceId().forEach(kept::addParentInstance));
+        InstanceMerge.merge(merge.themes, monarcThemesList,
+                (kept, merged) -> merged.getParentInstanceId().forEach(kept::addParentInstance));
+        InstanceMerge.merge(merge.assets, monarcAssetList,
+                (kept, merged) -> merged.getParentInstanceId().forEach(kept::addParentInstance));
+        InstanceMerge.merge(merge.objects, monarcObjectsList,
+                (kept, merged) -> merged.getParentInstanceId().forEach(kept::addParentInstance));
+        InstanceMerge.merge(merge.recSets, monarcRecSetsList,
+                (kept, merged) -> merged.getParentInstanceId().forEach(kept::addParentInstance));
+        InstanceMerge.merge(merge.recos, monarcRecosList, (kept, merged) -> {
+            merged.getParentInstanceId().forEach(kept::addParentInstance);
+            merged.getRelatedRisks().forEach(kept::addRelatedRisk);
+        });
+        merge.addRecsOfRecos();
+        InstanceMerge.merge(merge.recs, monarcRecsList,
+                (kept, merged) -> merged.getParentInstanceId().forEach(kept::addParentInstance));
+
+        // The objects must refer to the assets kept
+        for (MonarcObject object : monarcObjectsList.values()) {
+            if (object.getAsset() != null)
+                object.setAsset(monarcAssetList.get(object.getAsset().getCode()));
+        }
+
+        // Only the first instance holding an object lists it
+        for (MonarcInstance instance : monarcData.values()) {
+            instance.getRisks().values().removeIf(risk -> monarcRiskList.get(risk.getId()) != risk);
+            instance.getVuls().values()
+                    .removeIf(vulnerability -> monarcVulnerabilityList.get(vulnerability.getUuid()) != vulnerability);
+            instance.getThreats().values().removeIf(threat -> monarcThreatList.get(threat.getUuid()) != threat);
+            instance.getAMVs().values().removeIf(amv -> monarcAMVList.get(amv.getUuid()) != amv);
+        }
+    }
+
+    /**
+     * Extracts a section of the file, in the calling thread or with the
+     * executor.
+     * 
+     * @param executor   The executor extracting the section, or null to extract
+     *                   it right away
+     * @param extraction The extraction of the section
+     * @return The extraction, completed when the section has been extracted
+     */
+    private static CompletableFuture<Void> extractSection(Executor executor, Runnable extraction) {
+        return extractSection(executor, CompletableFuture.completedFuture(null), extraction);
+    }
+
+    /**
+     * Extracts a section of the file once another section has been extracted.
+     * 
+     * @param executor   The executor extracting the section, or null to extract
+     *                   it right away
+     * @param after      The extraction of the section this one depends on
+     * @param extraction The extraction of the section
+     * @return The extraction, completed when the section has been extracted
+     */
+    private static CompletableFuture<Void> extractSection(Executor executor, CompletableFuture<Void> after,
+            Runnable extraction) {
+        if (executor == null) {
+            // Without executor every extraction is done as soon as it is scheduled
+            extraction.run();
+            return after;
+        }
+        return after.thenRunAsync(extraction, executor);
+    }
+
+    /**
+     * Waits for the extraction of the sections, rethrowing the error of the
+     * first one that failed.
+     * 
+     * Each section fills its own maps, and completing the extractions makes them
+     * visible to the calling thread, so the maps need no synchronization.
+     * 
+     * @param extractions The extractions of the sections
+     * @throws IOException
+     */
+    private static void awaitSections(List<CompletableFuture<Void>> extractions) throws IOException {
+        for (CompletableFuture<Void> extraction : extractions)
+            await(extraction);
+    }
+
+    /**
+     * Waits for an extraction, rethrowing its error if it failed.
+     * 
+     * @param <T>        The result of the extraction
+     * @param extraction The extraction
+     * @return The result of the extraction
+     * @throws IOException
+     */
+    private static <T> T await(CompletableFuture<T> extraction) throws IOException {
+        try {
+            return extraction.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException)
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Restores a database from a snapshot written by
+     * {@link #saveSnapshot(String)}. The encoding of the snapshot is detected
+     * from the file.
+     * 
+     * The objects of the database are restored as they were written, with the
+     * changes made before the snapshot still tracked for the next
+     * {@link #saveChangesToJSON(String)}. A restored database was not loaded
+     * from a JSON file, {@link #saveMapToJson(String)} cannot copy it.
+     * 
+     * @param snapshotPath The path of the snapshot
+     * @return The restored database
+     * @throws IOException if the file cannot be read, is not a snapshot, or was
+     *                     written for another version of the database model
+     */
+    public static MonarcDatabase loadSnapshot(String snapshotPath) throws IOException {
+        return new MonarcDatabase(MonarcSnapshot.read(Paths.get(snapshotPath)));
+    }
+
+    private MonarcDatabase(MonarcSnapshot.Model model) {
+        this.monarcThemesList = model.themes;
+        this.monarcThreatList = model.threats;
+        this.monarcAMVThreatList = model.amvThreats;
+        this.monarcVulnerabilityList = model.vulnerabilities;
+        this.monarcReferentials = model.referentials;
+        this.monarcMeasures = model.measures;
+        this.monarcAMVList = model.amvs;
+        this.monarcAssetList = model.assets;
+        this.monarcObjectsList = model.objects;
+        this.scales = model.scales;
+        this.scalesComments = model.scalesComments;
+        this.soaScaleComment = model.soaScaleComment;
+        this.monarcSoaCategories = model.soaCategories;
+        this.monarcSoa = model.soas;
+        this.monarcOperationalRiskScales = model.operationalRiskScales;
+        this.monarcRecSetsList = model.recSets;
+        this.monarcRecsList = model.recs;
+        this.monarcRecosList = model.recos;
+        this.monarcRiskList = model.risks;
+        this.monarcData = model.instances;
+        this.monarcANR = model.anr;
+        this.exportedTree = model.exportedTree;
+
+        for (Map.Entry<Integer, int[]> children : model.children.entrySet()) {
+            final MonarcInstance parent = monarcData.get(children.getKey());
+            for (int child : children.getValue())
+                parent.addChild(monarcData.get(child));
+        }
+
+        // The ANR element holds the maps of the database, not copies of them
+        monarcANR.setReferentials(monarcReferentials);
+        monarcANR.setMeasures(monarcMeasures);
+        monarcANR.setSoaCategories(monarcSoaCategories);
+        monarcANR.setSoa(monarcSoa);
+        monarcANR.setSoaScaleComment(soaScaleComment);
+        monarcANR.setScales(scales);
+        monarcANR.setScalesComments(scalesComments);
+        monarcANR.setOperationalRiskScales(monarcOperationalRiskScales);
+
+        this.sourcePath = null;
+        this.inputMode = MonarcInputMode.BUFFERED;
+        this.stringPoolStats = MonarcStringPool.create().getStats();
+        this.riskEngine = new MonarcRiskEngine(monarcData, monarcRiskList, this::getChildrenByParent,
+                risksByInstance::view, this::getMethod);
+
+        // The values are computed again by the first search or export needing them
+        indexAll();
+    }
+
+    /**
+     * Extracts a Monarc JSON file read in memory as a whole, as the database was
+     * loaded before the file was streamed: each instance is extracted from the
+     * map of the file before its children. The streamed extraction must build
+     * the same database from the same file.
+     * 
+     * @param jsonMap The Monarc JSON file, read as a map
+     * @return The database extracted from the map
+     */
+    static MonarcDatabase extractMap(Map<?, ?> jsonMap) {
+        return new MonarcDatabase(jsonMap);
+    }
+
+    private MonarcDatabase(Map<?, ?> jsonMap) {
+        createMaps();
+
+        this.sourcePath = null;
+        this.inputMode = MonarcInputMode.BUFFERED;
+        this.stringPool = MonarcStringPool.create();
+        this.riskEngine = new MonarcRiskEngine(monarcData, monarcRiskList, this::getChildrenByParent,
+                risksByInstance::view, this::getMethod);
+
+        extractReferentials(jsonMap.get("referentials"));
+
+        final Object instances = jsonMap.get("instances");
+        if (instances instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) instances).entrySet())
+                extractInstanceTree(entry);
+        }
+
+        extractSoaScaleComment(jsonMap.get("soaScaleComment"));
+        extractMeasures(jsonMap.get("measures"));
+        extractSoaCategories(jsonMap.get("soacategories"));
+        extractSoas(jsonMap.get("soas"));
+        extractANRScales(jsonMap.get("scales"));
+        extractANRScalesComment(jsonMap.get("scalesComments"));
+        extractAMVThreats(jsonMap.get("method"));
+        extractOperationalRiskScales(jsonMap.get("operationalRiskScales"));
+
+        this.stringPoolStats = stringPool.getStats();
+        this.stringPool = null;
+
+        indexAll();
+        exportedWhenLoaded();
+    }
+
+    /**
+     * Extracts an instance element read in memory, then its children.
+     * 
+     * @param entry The monarc instance in the ANR Monarc JSON element
+     * @return The MonarcInstance corresponding one of the branches of the tree
+     */
+    private MonarcInstance extractInstanceTree(Map.Entry<?, ?> entry) {
+        final MonarcInstance newElement = extractInstanceData(entry);
+
+        final Object children = ((Map<?, ?>) entry.getValue()).get("children");
+        if (children instanceof Map) {
+            for (Map.Entry<?, ?> child : ((Map<?, ?>) children).entrySet())
+                newElement.addChild(extractInstanceTree(child));
+        }
+        return newElement;
+    }
+
+    /**
+     * Returns how the strings read from the file were shared while it was loaded.
+     * When the pool was given to several loads, the statistics include the
+     * loads that used it before this one.
+     * 
+     * @return The statistics of the pool at the end of the load
+     */
+    public MonarcStringPoolStats getStringPoolStats() {
+        return stringPoolStats;
+    }
+
+    /**
+     * Opens the file this database is loaded from.
+     * 
+     * @return A parser positioned right before the ANR element
+     * @throws IOException
+     */
+    private JsonParser openSource() throws IOException {
+        if (sourcePath == null)
+            throw new IOException("The database was not loaded from a Monarc JSON file");
+        if (inputMode == MonarcInputMode.MAPPED)
+            return MonarcMappedParser.open(sourcePath, 0);
+        return new ObjectMapper().createParser(sourcePath.toFile());
+    }
+
+    /**
+     * Opens the JSON file this database is loaded from at the given position.
+     * 
+     * @param offset The position in the file of the first byte to read
+     * @return The parser reading the file from the position
+     * @throws IOException
+     */
+    private JsonParser openSource(long offset) throws IOException {
+        if (inputMode == MonarcInputMode.MAPPED)
+            return MonarcMappedParser.open(sourcePath, offset);
+        final FileChannel channel = FileChannel.open(sourcePath, StandardOpenOption.READ);
+        try {
+            channel.position(offset);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new ObjectMapper().createParser(Channels.newInputStream(channel));
+    }
+
+    /**
+     * Builds the indexes used by the search functions from the data extracted
+     * from the JSON file.
+     * 
+     * The indexes are kept up to date by the functions of this class changing the
+     * data, but they cannot see the changes made directly on the Java objects. If
+     * an indexed field (code, uuid, threat, vulnerability, asset, measure,
+     * recommendation set, labels, descriptions and names) is changed on an
+     * object, this function must be called again. The parent instances are
+     * followed: when one is added to or removed from an object, the object is
+     * added to or removed from the objects of this instance.
+     * 
+     * The subtrees of a database opened by {@link #openLazy(String)} are read
+     * first.
+     */
+    public void buildIndexes() {
+        if (lazySubtrees != null) {
+            materializeAll();
+            return;
+        }
+
+        final long stamp = lockWrite();
+        try {
+            indexAll();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    private void indexAll() {
+        threatsByCode.build(monarcThreatList.values());
+        vulnerabilitiesByCode.build(monarcVulnerabilityList.values());
+        amvsByThreat.build(monarcAMVList.values());
+        amvsByVulnerability.build(monarcAMVList.values());
+        amvsByAsset.build(monarcAMVList.values());
+        amvsByMeasure.build(monarcAMVList.values());
+        risksByAMV.build(monarcRiskList.values());
+        risksByThreat.build(monarcRiskList.values());
+        risksByVulnerability.build(monarcRiskList.values());
+        measuresByCode.build(monarcMeasures.values());
+        measuresByReferential.build(monarcMeasures.values());
+        soasByMeasureId.build(monarcSoa);
+        recsByRecommandationSet.build(monarcRecsList.values());
+        threatsByLabel.build(monarcThreatList.values());
+        threatsByDescription.build(monarcThreatList.values());
+        vulnerabilitiesByLabel.build(monarcVulnerabilityList.values());
+        vulnerabilitiesByDescription.build(monarcVulnerabilityList.values());
+        threatsBySimilarity.build(monarcThreatList.values());
+        vulnerabilitiesBySimilarity.build(monarcVulnerabilityList.values());
+        assetsByLabel.build(monarcAssetList.values());
+        instancesByName.build(monarcData.values());
+        instancesByLabel.build(monarcData.values());
+        buildInstanceMembers();
+
+        recosByRisk.clear();
+        for (MonarcRecos recos : monarcRecosList.values()) {
+            for (String riskId : recos.getRelatedRisks())
+                recosByRisk.computeIfAbsent(riskId, k -> new HashMap<>()).put(recos.getUuid(), recos);
+        }
+
+        soaScaleCommentsByIndex = sortSoaScaleComments(soaScaleComment.values());
+        attachAll();
+
+        // Instances, consequences or risks may have been added or removed
+        riskEngine.invalidate();
+    }
+
+    /**
+     * Makes the setters of all the objects of the database change them under its
+     * write lock.
+     */
+    private void attachAll() {
+        for (MonarcInstance instance : monarcData.values())
+            attach(instance);
+        monarcRiskList.values().forEach(risk -> risk.setChanges(this::write));
+        monarcThreatList.values().forEach(threat -> threat.setChanges(this::write));
+        monarcAMVThreatList.values().forEach(threat -> threat.setChanges(this::write));
+        monarcVulnerabilityList.values().forEach(vulnerability -> vulnerability.setChanges(this::write));
+        monarcAMVList.values().forEach(amv -> amv.setChanges(this::write));
+        monarcRecsList.values().forEach(recs -> recs.setChanges(this::write));
+        monarcRecosList.values().forEach(recos -> recos.setChanges(this::write));
+        monarcRecSetsList.values().forEach(recSet -> recSet.setChanges(this::write));
+    }
+
+    /**
+     * Makes the setters of an instance and of its consequences change them under
+     * the write lock of the database. The consequences of an instance not read
+     * yet are attached once its subtree is read.
+     */
+    private void attach(MonarcInstance instance) {
+        instance.setChanges(this::write);
+        if (!instance.isMaterialized())
+            return;
+        for (MonarcConsequences consequence : instance.getConsequences().values())
+            consequence.setChanges(this::write);
+    }
+
+    /**
+     * Builds the indexes of the objects belonging to each instance, in a single
+     * pass over the parent instance IDs of the objects.
+     */
+    private void buildInstanceMembers() {
+        amvsByInstance.build(monarcAMVList.values());
+        vulnerabilitiesByInstance.build(monarcVulnerabilityList.values());
+        threatsByInstance.build(monarcThreatList.values());
+        risksByInstance.build(monarcRiskList.values());
+        themesByInstance.build(monarcThemesList.values());
+        recSetsByInstance.build(monarcRecSetsList.values());
+        recsByInstance.build(monarcRecsList.values());
+        recosByInstance.build(monarcRecosList.values());
+        objectsByInstance.build(monarcObjectsList.values());
+    }
+
+    /**
+     * Changes the indexes of the objects belonging to each instance, when a
+     * parent instance is added to or removed from one of their objects, under
+     * the write lock.
+     * 
+     * @param change The change of the index of the object
+     */
+    private void write(Runnable change) {
+        final long stamp = lockWrite();
+        try {
+            change.run();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    private static List<MonarcSoaScaleComment> sortSoaScaleComments(Collection<MonarcSoaScaleComment> comments) {
+        return comments.stream()
+                .sorted((e1, e2) -> Integer.compare(e1.getScaleIndex(), e2.getScaleIndex()))
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    private void extractOperationalRiskScales(Object data) {
+        if (!(data instanceof Map))
+            return;
+
+        Map<?, ?> operationalRiskScales = ((Map<?, ?>) data);
+        Integer index = 1;
+
+        for (Map.Entry<?, ?> operationalRiskScale : ((Map<?, ?>) operationalRiskScales).entrySet()) {
+
+            Map<?, ?> operationalRiskScaleEntry = (Map<?, ?>) operationalRiskScale.getValue();
+            List<?> operationalRiskScaleTypes = (List<?>) operationalRiskScaleEntry.get("operationalRiskScaleTypes");
+
+            ArrayList<MonarcOperationalRiskScaleTypes> newMonarcOperationalRiskScaleType = new ArrayList<>();
+
+            for (Object operationalRiskScaleType : operationalRiskScaleTypes) {
+
+                MonarcTranslation newTranslation = ExtractTranslation((Map<?, ?>) operationalRiskScaleType);
+
+                List<?> operationalRiskScaleComments = (List<?>) ((Map<?, ?>) operationalRiskScaleType)
+                        .get("operationalRiskScaleComments");
+
+                ArrayList<MonarcOperationalRiskScaleComments> newListOperationalRiskScaleComments = new ArrayList<>();
+
+                for (Object operationalRiskScaleComment : operationalRiskScaleComments) {
+                    Map<?, ?> operationalRiskScaleCommentEntry = (Map<?, ?>) operationalRiskScaleComment;
+
+                    MonarcOperationalRiskScaleComments newOperationalRiskScaleComment = ExtractOperationalRiskScaleComments(
+                            operationalRiskScaleCommentEntry);
+
+                    newListOperationalRiskScaleComments.add(newOperationalRiskScaleComment);
+                }
+
+                MonarcOperationalRiskScaleTypes newOperationalRiskScales = new MonarcOperationalRiskScaleTypes(
+                        (Integer) ((Map<?, ?>) operationalRiskScaleType).get("id"),
+                        (Boolean) ((Map<?, ?>) operationalRiskScaleType).get("isHidden"),
+                        intern(((Map<?, ?>) operationalRiskScaleType).get("labelTranslationKey").toString()),
+                        newTranslation,
+                        newListOperationalRiskScaleComments);
+
+                newMonarcOperationalRiskScaleType.add(newOperationalRiskScales);
+            }
+
+            List<?> operationalRiskScaleComments = (List<?>) operationalRiskScaleEntry
+                    .get("operationalRiskScaleComments");
+            ArrayList<MonarcOperationalRiskScaleComments> newMonarcOperationalRiskScaleComment = new ArrayList<>();
+
+            for (Object operationalRiskScaleComment : operationalRiskScaleComments) {
+                MonarcTranslation newTranslation = ExtractTranslation((Map<?, ?>) operationalRiskScaleComment);
+
+                MonarcOperationalRiskScaleComments newOperationalRiskScaleComment = new MonarcOperationalRiskScaleComments(
+                        (Integer) ((Map<?, ?>) operationalRiskScaleComment).get("id"),
+                        (Integer) ((Map<?, ?>) operationalRiskScaleComment).get("scaleIndex"),
+                        (Integer) ((Map<?, ?>) operationalRiskScaleComment).get("scaleValue"),
+                        (Boolean) ((Map<?, ?>) operationalRiskScaleComment).get("isHidden"),
+                        intern(((Map<?, ?>) operationalRiskScaleComment).get("commentTranslationKey").toString()),
+                        newTranslation);
+
+                newMonarcOperationalRiskScaleComment.add(newOperationalRiskScaleComment);
+            }
+
+            MonarcOperationalRiskScales newRiskScale = new MonarcOperationalRiskScales(
+                    (Integer) ((Map<?, ?>) operationalRiskScaleEntry).get("id"),
+                    (Integer) ((Map<?, ?>) operationalRiskScaleEntry).get("min"),
+                    (Integer) ((Map<?, ?>) operationalRiskScaleEntry).get("max"),
+                    (Integer) ((Map<?, ?>) operationalRiskScaleEntry).get("type"),
+                    newMonarcOperationalRiskScaleType,
+                    newMonarcOperationalRiskScaleComment);
+
+            monarcOperationalRiskScales.put(index.toString(), newRiskScale);
+            index++;
+        }
+
+        this.monarcANR.setOperationalRiskScales(monarcOperationalRiskScales);
+    }
+
+    private MonarcTranslation ExtractTranslation(Map<?, ?> translationContainer) {
+        Map<?, ?> translation = (Map<?, ?>) ((Map<?, ?>) translationContainer).get("translation");
+
+        return new MonarcTranslation(text(translation.get("key"), ""),
+                text(translation.get("lang"), ""),
+                text(translation.get("value"), ""));
+    }
+
+    private MonarcOperationalRiskScaleComments ExtractOperationalRiskScaleComments(
+            Map<?, ?> operationalRiskScaleCommentsContainer) {
+        // Map<?, ?> operationalRiskScaleComments = (Map<?, ?>)((Map<?, ?>)
+        // operationalRiskScaleCommentsContainer).get("operationalRiskScaleComments");
+
+        return new MonarcOperationalRiskScaleComments((Integer) operationalRiskScaleCommentsContainer.get("id"),
+                (Integer) operationalRiskScaleCommentsContainer.get("scaleIndex"),
+                (Integer) operationalRiskScaleCommentsContainer.get("scaleValue"),
+                (Boolean) operationalRiskScaleCommentsContainer.get("isHidden"),
+                text(operationalRiskScaleCommentsContainer.get("commentTranslationKey"), ""),
+                ExtractTranslation(operationalRiskScaleCommentsContainer));
+    }
+
+    private void extractSoas(Object data) {
+        if (!(data instanceof List))
+            return;
+
+        List<?> soas = ((List<?>) data);
+        for (Object soa : soas) {
+            Map<?, ?> soaEntry = (Map<?, ?>) soa;
+
+            MonarcSoa newSoa;
+
+            if (Objects.toString(soaEntry.get("soaScaleComment"), "").isEmpty())
+
+                // In this case, soaScaleComment is set to null by default.
+                newSoa = new MonarcSoa(text(soaEntry.get("remarks"), null),
+                        text(soaEntry.get("evidences"), null),
+                        text(soaEntry.get("actions"), null),
+                        text(soaEntry.get("measure_id"), null),
+                        Integer.parseInt(Objects.toString(soaEntry.get("EX"))),
+                        Integer.parseInt(Objects.toString(soaEntry.get("LR"))),
+                        Integer.parseInt(Objects.toString(soaEntry.get("CO"))),
+                        Integer.parseInt(Objects.toString(soaEntry.get("BR"))),
+                        Integer.parseInt(Objects.toString(soaEntry.get("BP"))),
+                        Integer.parseInt(Objects.toString(soaEntry.get("RRA"))));
+
+            else
+
+                newSoa = new MonarcSoa(text(soaEntry.get("remarks"), null),
+                        text(soaEntry.get("evidences"), null),
+                        text(soaEntry.get("actions"), null),
+                        text(soaEntry.get("measure_id"), null),
+                        Integer.parseInt(Objects.toString(soaEntry.get("EX"))),
+                        Integer.parseInt(Objects.toString(soaEntry.get("LR"))),
+                        Integer.parseInt(Objects.toString(soaEntry.get("CO"))),
+                        Integer.parseInt(Objects.toString(soaEntry.get("BR"))),
+                        Integer.parseInt(Objects.toString(soaEntry.get("BP"))),
+                        Integer.parseInt(Objects.toString(soaEntry.get("RRA"))),
+                        Integer.parseInt(Objects.toString(soaEntry.get("soaScaleComment"))));
+
+            monarcSoa.add(newSoa);
+        }
+
+        this.monarcANR.setSoa(this.monarcSoa);
+    }
+
+    private void extractSoaCategories(Object data) {
+        if (!(data instanceof List))
+            return;
+
+        List<?> soaCategories = ((List<?>) data);
+
+        for (Object soaCategory : soaCategories) {
+            Map<?, ?> categoryEntry = (Map<?, ?>) soaCategory;
+
+            MonarcSoaCategories newSoaCategory = new MonarcSoaCategories(
+                    text(categoryEntry.get("referential"), ""),
+                    text(categoryEntry.get("label1"), ""),
+                    text(categoryEntry.get("label2"), ""),
+                    text(categoryEntry.get("label3"), ""),
+                    text(categoryEntry.get("label4"), ""),
+                    Integer.parseInt(Objects.toString(categoryEntry.get("status"))));
+
+            monarcSoaCategories.add(newSoaCategory);
+        }
+
+        this.monarcANR.setSoaCategories(monarcSoaCategories);
+    }
+
+    private void extractMeasures(Object data) {
+
+        if (!(data instanceof Map))
+            return;
+
+        Map<?, ?> measures = ((Map<?, ?>) data);
+        for (Map.Entry<?, ?> measure : ((Map<?, ?>) measures).entrySet()) {
+            Map<?, ?> measureEntry = (Map<?, ?>) measure.getValue();
+
+            MonarcMeasures newMeasure = new MonarcMeasures(text(measureEntry.get("category"), ""),
+                    text(measureEntry.get("referential"), ""),
+                    text(measureEntry.get("uuid"), ""),
+                    text(measureEntry.get("code"), ""),
+                    text(measureEntry.get("label1"), ""),
+                    text(measureEntry.get("label2"), ""),
+                    text(measureEntry.get("label3"), ""),
+                    text(measureEntry.get("label4"), ""),
+                    Integer.parseInt(Objects.toString(measureEntry.get("status"))));
+
+            monarcMeasures.put(newMeasure.getUuid(), newMeasure);
+        }
+
+        this.monarcANR.setMeasures(this.monarcMeasures);
+    }
+
+    private void extractReferentials(Object data) {
+
+        if (!(data instanceof Map))
+            return;
+
+        Map<?, ?> referentials = ((Map<?, ?>) data);
+        // For each recommendation set
+        for (Map.Entry<?, ?> referential : ((Map<?, ?>) referentials).entrySet()) {
+            Map<?, ?> referentialEntry = (Map<?, ?>) referential.getValue();
+
+            MonarcReferentials newReferential = new MonarcReferentials(
+                    text(referentialEntry.get("uuid"), ""),
+                    text(referentialEntry.get("label1"), ""),
+                    text(referentialEntry.get("label2"), ""),
+                    text(referentialEntry.get("label3"), ""),
+                    text(referentialEntry.get("label4"), ""));
+
+            this.monarcReferentials.put(newReferential.getUuid(), newReferential);
+        }
+
+        this.monarcANR.setReferentials(this.monarcReferentials);
+    }
+
+    /**
+     * Reads the instances of a "children" (or the root "instances") element from
+     * the parser, one instance at a time, and attaches them to their parent.
+     * 
+     * @param parser The parser positioned on the start of the element
+     * @param parent The instance owning the element, or null for the root
+     *               instances
+     * @throws IOException
+     */
+    private void streamInstances(JsonParser parser, MonarcInstance parent) throws IOException {
+        // Instances without children have an empty list instead of a map
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String key = parser.currentName();
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+
+            MonarcInstance child = streamInstanceData(key, parser);
+            if (parent != null && child != null)
+                parent.addChild(child);
+        }
+    }
+
+    /**
+     * This function is used to process the information inside the instance element
+     * of the
+     * JSON file and initializes the processing of child sections of instance.
+     * 
+     * Every section of the instance but "children" is read in memory, then the
+     * instance is created as soon as "children" is reached and its children are
+     * read from the parser afterwards. Sections following "children" are
+     * processed once the children are done.
+     * 
+     * @param key    The key of the monarc instance in the ANR Monarc JSON element
+     * @param parser The parser positioned on the start of the instance
+     * @return The MonarcInstance corresponding one of the branches of the tree
+     * @throws IOException
+     */
+    private MonarcInstance streamInstanceData(String key, JsonParser parser) throws IOException {
+        return streamInstanceData(key, parser, null);
+    }
+
+    /**
+     * Reads an instance element from the parser, as
+     * {@link #streamInstanceData(String, JsonParser)}.
+     * 
+     * @param key    The key of the monarc instance in the ANR Monarc JSON element
+     * @param parser The parser positioned on the start of the instance
+     * @param root   The root instance of a subtree loaded lazily, already created
+     *               from the element, or null to create the instance
+     * @return The MonarcInstance corresponding one of the branches of the tree
+     * @throws IOException
+     */
+    private MonarcInstance streamInstanceData(String key, JsonParser parser, MonarcInstance root)
+            throws IOException {
+        final Map<String, Object> sections = new LinkedHashMap<>();
+        MonarcInstance newElement = null;
+        TokenBuffer children = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String section = parser.currentName();
+            parser.nextToken();
+
+            if (!"children".equals(section)) {
+                sections.put(section, parser.readValueAs(Object.class));
+                continue;
+            }
+
+            if (newElement == null && sections.containsKey("instance")) {
+                newElement = extractInstance(new AbstractMap.SimpleEntry<>(key, sections), root);
+                sections.clear();
+            }
+
+            if (newElement != null)
+                streamInstances(parser, newElement);
+            else
+                // The instance itself comes after its children, which must be kept until it
+                // is known.
+                children = parser.readValueAs(TokenBuffer.class);
+        }
+
+        if (newElement == null) {
+            if (!(sections.get("instance") instanceof Map))
+                return null;
+            newElement = extractInstance(new AbstractMap.SimpleEntry<>(key, sections), root);
+        } else if (!sections.isEmpty())
+            extractInstanceSections(new AbstractMap.SimpleEntry<>(key, sections), newElement);
+
+        if (children != null) {
+            try (JsonParser childrenParser = children.asParser(parser.getCodec())) {
+                childrenParser.nextToken();
+                streamInstances(childrenParser, newElement);
+            }
+        }
+
+        return newElement;
+    }
+
+    /**
+     * This function is used to process the information inside the instance element
+     * of the
+     * JSON file, except for its children.
+     * 
+     * @param entry The monarc instance in the ANR Monarc JSON element
+     * @return The MonarcInstance corresponding one of the branches of the tree
+     */
+    private MonarcInstance extractInstanceData(Map.Entry<?, ?> entry) {
+        final Map<?, ?> instance = (Map<?, ?>) ((Map<?, ?>) entry.getValue()).get("instance");
+        // Created when the file was opened, if the database was opened lazily
+        MonarcInstance newElement = lazyInstances == null ? null : lazyInstances.get((int) instance.get("id"));
+        if (newElement == null)
+            newElement = createInstance(instance);
+
+        extractInstanceSections(entry, newElement);
+
+        monarcData.put(newElement.getId(), newElement);
+
+        return newElement;
+    }
+
+    /**
+     * Processes the sections of an instance element, either into a new instance
+     * or into the root instance of a subtree loaded lazily.
+     * 
+     * @param entry The monarc instance in the ANR Monarc JSON element
+     * @param root  The root instance already created from the element, or null
+     * @return The MonarcInstance corresponding one of the branches of the tree
+     */
+    private MonarcInstance extractInstance(Map.Entry<?, ?> entry, MonarcInstance root) {
+        if (root == null)
+            return extractInstanceData(entry);
+        extractInstanceSections(entry, root);
+        return root;
+    }
+
+    /**
+     * Creates an instance from the "instance" section of an instance element,
+     * without its other sections.
+     * 
+     * @param instance The "instance" section
+     * @return The new MonarcInstance
+     */
+    private MonarcInstance createInstance(Map<?, ?> instance) {
+        // Converting the JSON into Java classes
+        return new MonarcInstance((int) instance.get("id"),
+                text(instance.get("name1"), ""),
+                text(instance.get("name2"), ""),
+                text(instance.get("name3"), ""),
+                text(instance.get("name4"), ""),
+                text(instance.get("label1"), ""),
+                text(instance.get("label2"), ""),
+                text(instance.get("label3"), ""),
+                text(instance.get("label4"), ""),
+                (Integer) instance.get("disponibility"),
+                (Integer) instance.get("level"),
+                (Integer) instance.get("assetType"),
+                (Integer) instance.get("exportable"),
+                (Integer) instance.get("position"),
+                (Integer) instance.get("c"),
+                (Integer) instance.get("i"),
+                (Integer) instance.get("d"),
+                (Integer) instance.get("ch"),
+                (Integer) instance.get("ih"),
+                (Integer) instance.get("dh"),
+                text(instance.get("asset"), ""),
+                text(instance.get("object"), ""),
+                (Integer) instance.get("root"),
+                (Integer) instance.get("parent"));
+    }
+
+    /**
+     * Processes the consequences, risks, threats and other sections of an
+     * instance element of the JSON file.
+     * 
+     * @param entry      The monarc instance in the ANR Monarc JSON element
+     * @param newElement The MonarcInstance the sections belong to
+     */
+    private void extractInstanceSections(Map.Entry<?, ?> entry, MonarcInstance newElement) {
+        Object consequences = ((Map<?, ?>) entry.getValue()).get("consequences");
+
+        if (consequences instanceof Map) {
+            for (Map.Entry<?, ?> consequence : ((Map<?, ?>) consequences).entrySet()) {
+                Map<?, ?> newScaleImpactType = (Map<?, ?>) ((Map<?, ?>) consequence.getValue())
+                        .get("scaleImpactType");
+
+                MonarcScaleImpactType consequenceScaleImpactType = new MonarcScaleImpactType(
+                        (int) newScaleImpactType.get("id"),
+                        (int) newScaleImpactType.get("type"),
+                        intern(newScaleImpactType.get("label1").toString()),
+                        intern(newScaleImpactType.get("label2").toString()),
+                        intern(newScaleImpactType.get("label3").toString()),
+                        intern(newScaleImpactType.get("label4").toString()),
+                        (int) newScaleImpactType.get("isSys"),
+                        (int) newScaleImpactType.get("isHidden"),
+                        (int) newScaleImpactType.get("position"),
+                        (int) newScaleImpactType.get("scale"));
+
+                MonarcConsequences newConsequence = new MonarcConsequences(
+                        (int) ((Map<?, ?>) consequence.getValue()).get("id"),
+                        (int) ((Map<?, ?>) consequence.getValue()).get("isHidden"),
+                        (int) ((Map<?, ?>) consequence.getValue()).get("locallyTouched"),
+                        (int) ((Map<?, ?>) consequence.getValue()).get("c"),
+                        (int) ((Map<?, ?>) consequence.getValue()).get("i"),
+                        (int) ((Map<?, ?>) consequence.getValue()).get("d"),
+                        consequenceScaleImpactType);
+                newElement.addConsequence(newConsequence);
+            }
+        }
+
+        extractRisks(entry, newElement);
+        extractObjectMeasures(entry, newElement);
+        // The other sections of a database opened by openLazy() were read when it was
+        // opened
+        if (lazyInstances == null)
+            extractSharedSections(entry, newElement);
+    }
+
+    /**
+     * Processes the sections of an instance element shared with other instances:
+     * the threats, vulnerabilities, AMVs, object and recommendations. The first
+     * instance found holding a threat, a vulnerability or an AMV holds it.
+     * 
+     * @param entry      The monarc instance in the ANR Monarc JSON element
+     * @param newElement The MonarcInstance the sections belong to
+     */
+    private void extractSharedSections(Map.Entry<?, ?> entry, MonarcInstance newElement) {
+        extractVulnerabilities(entry, newElement);
+        extractThreats(entry, newElement);
+        extractAMVs(entry, newElement);
+        extractObject(entry);
+        extractRecs(entry);
+        extractRecos(entry);
+        extractRecSets(entry);
+    }
+
+    /**
+     * Helper function to eliminate duplicates from the records.
+     * 
+     * @param <T>
+     * @param keyExtractor
+     * @return
+     */
+    private static <T> Predicate<T> distinctByKey(Function<? super T, Object> keyExtractor) {
+        Map<Object, Boolean> map = new ConcurrentHashMap<>();
+        return t -> map.putIfAbsent(keyExtractor.apply(t), Boolean.TRUE) == null;
+    }
+
+    // region Data extraction functions
+
+    /**
+     * Returns the text of a value read from the file, shared with the equal texts
+     * already read.
+     * 
+     * @param value       The value read from the file
+     * @param nullDefault The text returned when the value is null
+     * @return The text of the value
+     */
+    private String text(Object value, String nullDefault) {
+        return intern(Objects.toString(value, nullDefault));
+    }
+
+    /**
+     * Returns the string of the pool equal to a string read from the file.
+     * 
+     * @param value The string read from the file
+     * @return The pooled string, or the string itself once the file is loaded
+     */
+    private String intern(String value) {
+        return stringPool == null ? value : stringPool.intern(value);
+    }
+
+    private void extractObjectMeasures(Map.Entry<?, ?> entry, MonarcInstance parent) {
+        Object measures = ((Map<?, ?>) entry.getValue()).get("measures");
+        if (measures == null || measures instanceof Collection)
+            return;
+
+        for (Map.Entry<?, ?> measure : ((Map<?, ?>) measures).entrySet()) {
+            Map<?, ?> category = (Map<?, ?>) ((Map<?, ?>) measure.getValue()).get("category");
+            Map<?, ?> referential = (Map<?, ?>) ((Map<?, ?>) measure.getValue()).get("referential");
+            Map<?, ?> measureEntry = (Map<?, ?>) measure.getValue();
+
+            MonarcMeasureCategory newMeasureCategory = new MonarcMeasureCategory((int) (category.get("id")),
+                    intern(category.get("label1").toString()),
+                    intern(category.get("label2").toString()),
+                    intern(category.get("label3").toString()),
+                    intern(category.get("label4").toString()),
+                    (int) (category.get("status")));
+
+            MonarcReferentials newReferential = new MonarcReferentials(intern(referential.get("uuid").toString()),
+                    intern(referential.get("label1").toString()),
+                    intern(referential.get("label2").toString()),
+                    intern(referential.get("label3").toString()),
+                    intern(referential.get("label4").toString()));
+
+            MonarcMeasures newMeasure = new MonarcMeasures(newMeasureCategory,
+                    newReferential,
+                    text(measureEntry.get("uuid"), ""),
+                    text(measureEntry.get("code"), ""),
+                    text(measureEntry.get("label1"), ""),
+                    text(measureEntry.get("label2"), ""),
+                    text(measureEntry.get("label3"), ""),
+                    text(measureEntry.get("label4"), ""),
+                    (int) (measureEntry.get("status")));
+
+            parent.addMeasure(newMeasure);
+        }
+    }
+
+    /**
+     * Function to extract data from the "recos" field in some given instance.
+     * For a given instance, the "recos" field is where the suggested security
+     * recommendations were implemented. Every element has a list of the whole
+     * list of security recommendations stored in the database, but they are
+     * under the rec tag. When the recommendation is implemented for one of the
+     * elements, it is moved to the "recos" element.
+     * The "recos" element has three levels:
+     * 
+     * "recos":
+     * "<ID of the threat addressed by the recommendation>":
+     * "<ID of the recommendation moved to recos tag>":
+     * 
+     * @param entry The "instance" from which the "recos" parameter should be
+     *              extracted from.
+     */
+    private void extractRecos(Map.Entry<?, ?> entry) {
+        Object recos = ((Map<?, ?>) entry.getValue()).get("recos");
+        if (recos == null || recos instanceof Collection)
+            return;
+
+        for (Map.Entry<?, ?> risk : ((Map<?, ?>) recos).entrySet()) {
+            // For each recommendation
+            for (Map.Entry<?, ?> reco : ((Map<?, ?>) risk.getValue()).entrySet()) {
+                Object duedate = ((Map<?, ?>) reco.getValue()).get("duedate");
+                Map<?, ?> recoEntry = (Map<?, ?>) reco.getValue();
+
+                if (monarcRecosList.containsKey(recoEntry.get("uuid").toString())) {
+                    monarcRecosList.get(recoEntry.get("uuid").toString()).addParentInstance(entry.getKey().toString());
+                    monarcRecosList.get(recoEntry.get("uuid").toString()).addRelatedRisk(risk.getKey().toString());
+                    continue;
+                }
+                MonarcDuedate newDuedate;
+
+                if (duedate == null || duedate instanceof Collection) {
+                    newDuedate = null;
+                } else {
+                    newDuedate = new MonarcDuedate(text(((Map<?, ?>) duedate).get("date"), ""),
+                            (int) ((Map<?, ?>) duedate).get("timezone_type"),
+                            text(((Map<?, ?>) duedate).get("timezone"), ""));
+                }
+
+                MonarcRecos newReco = new MonarcRecos(text(recoEntry.get("uuid"), ""),
+                        text(recoEntry.get("recommandationSet"), ""),
+                        text(recoEntry.get("code"), ""),
+                        text(recoEntry.get("description"), ""),
+                        (int) (recoEntry.get("importance")),
+                        text(recoEntry.get("comment"), ""),
+                        (int) (recoEntry.get("status")),
+                        text(recoEntry.get("responsable"), ""),
+                        newDuedate,
+                        (int) recoEntry.get("counterTreated"),
+                        text(recoEntry.get("commentAfter"), ""),
+                        risk.getKey().toString());
+
+                newReco.addParentInstance(entry.getKey().toString());
+
+                this.monarcRecosList.put(newReco.getUuid() + "", newReco);
+                MonarcRecs rec1 = (recsOfRecos == null ? monarcRecsList : recsOfRecos)
+                        .computeIfAbsent(newReco.getUuid(), k -> new MonarcRecs(newReco));
+                rec1.addParentInstance(entry.getKey().toString());
+            }
+        }
+    }
+
+    /**
+     * Function to extract data from the "recs" field in some given instance.
+     * The "recs" field holds all the recommendations that were not implemented
+     * in any of the threats inside the instance.
+     * 
+     * @param entry The "instance" from which the "recs" parameter should be
+     *              extracted from.
+     */
+    private void extractRecs(Map.Entry<?, ?> entry) {
+        Object recs = ((Map<?, ?>) entry.getValue()).get("recs");
+        if (recs == null || recs instanceof Collection)
+            return;
+
+        // For each recommendation
+        for (Map.Entry<?, ?> rec : ((Map<?, ?>) recs).entrySet()) {
+            Object duedate = ((Map<?, ?>) rec.getValue()).get("duedate");
+            Map<?, ?> recEntry = (Map<?, ?>) rec.getValue();
+
+            if (monarcRecsList.containsKey(recEntry.get("uuid").toString())) {
+                monarcRecsList.get(recEntry.get("uuid").toString()).addParentInstance(entry.getKey().toString());
+                continue;
+            }
+            MonarcDuedate newDuedate;
+
+            if (duedate == null || duedate instanceof Collection) {
+                newDuedate = null;
+            } else {
+                newDuedate = new MonarcDuedate(text(((Map<?, ?>) duedate).get("date"), ""),
+                        (int) ((Map<?, ?>) duedate).get("timezone_type"),
+                        text(((Map<?, ?>) duedate).get("timezone"), ""));
+            }
+
+            MonarcRecs newRec = new MonarcRecs(text(recEntry.get("uuid"), ""),
+                    text(recEntry.get("recommandationSet"), ""),
+                    text(recEntry.get("code"), ""),
+                    text(recEntry.get("description"), ""),
+                    (int) (recEntry.get("importance")),
+                    text(recEntry.get("comment"), ""),
+                    (int) (recEntry.get("status")),
+                    text(recEntry.get("responsable"), ""),
+                    newDuedate,
+                    (int) recEntry.get("counterTreated"));
+
+            newRec.addParentInstance(entry.getKey().toString());
+
+            this.monarcRecsList.put(newRec.getUuid() + "", newRec);
+        }
+    }
+
+    /**
+     * Function to extract data from the "recsSet" field in the instance at hand.
+     * This element holds only the uuid of the recommendation sets and the label
+     * for them.
+     * 
+     * This function populates a Hash Map with all the RecSets in the JSON file,
+     * in which the UUID acts as key and the MonarcRecSets java object corresponding
+     * to the recSets element in the instance object.
+     * 
+     * @param entry The "instance" from which the "recs" parameter should be
+     *              extracted from.
+     */
+    private void extractRecSets(Map.Entry<?, ?> entry) {
+        Object recSets = ((Map<?, ?>) entry.getValue()).get("recSets");
+        if (recSets == null || recSets instanceof Collection)
+            return;
+
+        // For each recommendation set
+        for (Map.Entry<?, ?> recSet : ((Map<?, ?>) recSets).entrySet()) {
+            Map<?, ?> recSetEntry = (Map<?, ?>) recSet.getValue();
+
+            if (this.monarcRecSetsList.keySet().contains(((Map<?, ?>) recSet.getValue()).get("uuid").toString())) {
+                this.monarcRecSetsList.get(recSetEntry.get("uuid").toString())
+                        .addParentInstance(entry.getKey().toString());
+            } else {
+                MonarcRecSets newRecset = new MonarcRecSets(text(recSetEntry.get("uuid"), ""),
+                        text(recSetEntry.get("label1"), ""),
+                        text(recSetEntry.get("label2"), ""),
+                        text(recSetEntry.get("label3"), ""),
+                        text(recSetEntry.get("label4"), ""));
+
+                newRecset.addParentInstance(entry.getKey().toString());
+                this.monarcRecSetsList.put(newRecset.getUuid(), newRecset);
+            }
+        }
+    }
+
+    /**
+     * Helper function to extract the risks from the Monarc JSON file and create a
+     * HashMap populated with the Java representation of such data.
+     * 
+     * In this case, the key is the risk ID and the value is the Java object
+     * containing
+     * the risk information.
+     * 
+     * @param entry The "instance" from which the "recs" parameter should be
+     *              extracted from.
+     */
+    private void extractRisks(Map.Entry<?, ?> entry, MonarcInstance parent) {
+        // If there are no risks, abort execution.
+
+        Object risks = ((Map<?, ?>) entry.getValue()).get("risks");
+        if (risks == null || risks instanceof Collection)
+            return;
+
+        // For each risk
+        for (Map.Entry<?, ?> risk : ((Map<?, ?>) risks).entrySet()) {
+            Map<?, ?> riskEntry = (Map<?, ?>) risk.getValue();
+
+            final MonarcRisks existingRisk = this.monarcRiskList.get((int) riskEntry.get("id"));
+            if (existingRisk != null) {
+                existingRisk.addParentInstance(entry.getKey().toString());
+                continue;
+            }
+
+            MonarcRisks monarcRisks = new MonarcRisks((int) ((Map<?, ?>) risk.getValue()).get("id"),
+                    (int) ((Map<?, ?>) risk.getValue()).get("specific"),
+                    (int) ((Map<?, ?>) risk.getValue()).get("mh"),
+                    (int) ((Map<?, ?>) risk.getValue()).get("threatRate"),
+                    (int) ((Map<?, ?>) risk.getValue()).get("vulnerabilityRate"),
+                    (int) ((Map<?, ?>) risk.getValue()).get("kindOfMeasure"),
+                    (int) ((Map<?, ?>) risk.getValue()).get("reductionAmount"),
+                    text(((Map<?, ?>) risk.getValue()).get("comment"), ""),
+                    text(((Map<?, ?>) risk.getValue()).get("commentAfter"), ""),
+                    (int) ((Map<?, ?>) risk.getValue()).get("riskC"),
+                    (int) ((Map<?, ?>) risk.getValue()).get("riskI"),
+                    (int) ((Map<?, ?>) risk.getValue()).get("riskD"),
+                    (int) ((Map<?, ?>) risk.getValue()).get("cacheMaxRisk"),
+                    (int) ((Map<?, ?>) risk.getValue()).get("cacheTargetedRisk"),
+                    intern(((Map<?, ?>) risk.getValue()).get("amv").toString()),
+                    intern(((Map<?, ?>) risk.getValue()).get("threat").toString()),
+                    intern(((Map<?, ?>) risk.getValue()).get("vulnerability").toString()),
+                    intern(((Map<?, ?>) risk.getValue()).get("context").toString()),
+                    intern(((Map<?, ?>) risk.getValue()).get("riskOwner").toString()));
+
+            monarcRisks.addParentInstance(entry.getKey().toString());
+
+            parent.addRisks(monarcRisks);
+
+            monarcRiskList.put(monarcRisks.getId(), monarcRisks);
+            if (risksRead != null)
+                risksRead.add(monarcRisks);
+        }
+    }
+
+    /**
+     * Helper function to extract the vulnerabilities from the Monarc JSON file and
+     * create a HashMap populated with the Java representation of such data.
+     * 
+     * In this case, the key is the risk ID and the value is the Java object
+     * containing
+     * the risk information.
+     * 
+     * @param entry The "instance" from which the "recs" parameter should be
+     *              extracted from.
+     */
+    private void extractVulnerabilities(Map.Entry<?, ?> entry, MonarcInstance parent) {
+
+        Map<?, ?> vulnerabilitiesData = (Map<?, ?>) entry.getValue();
+
+        Object vuls = vulnerabilitiesData.get("vuls");
+        if (vuls == null || vuls instanceof Collection)
+            return;
+
+        // For each vulnerability
+        for (Map.Entry<?, ?> vul : ((Map<?, ?>) vuls).entrySet()) {
+            Map<?, ?> vulnerabilityEntry = (Map<?, ?>) vul.getValue();
+
+            if (this.monarcVulnerabilityList.keySet().contains(vulnerabilityEntry.get("uuid").toString())) {
+                this.monarcVulnerabilityList.get(vulnerabilityEntry.get("uuid").toString())
+                        .addParentInstance(entry.getKey().toString());
+                continue;
+            }
+
+            MonarcVulnerabilities monarcVulnerabilities = new MonarcVulnerabilities(
+                    intern(vulnerabilityEntry.get("uuid").toString()),
+                    text(vulnerabilityEntry.get("label1"), ""),
+                    text(vulnerabilityEntry.get("label2"), ""),
+                    text(vulnerabilityEntry.get("label3"), ""),
+                    text(vulnerabilityEntry.get("label4"), ""),
+                    text(vulnerabilityEntry.get("description1"), ""),
+                    text(vulnerabilityEntry.get("description2"), ""),
+                    text(vulnerabilityEntry.get("description3"), ""),
+                    text(vulnerabilityEntry.get("description4"), ""),
+                    (int) vulnerabilityEntry.get("status"),
+                    (int) vulnerabilityEntry.get("mode"),
+                    intern(vulnerabilityEntry.get("code").toString()));
+
+            monarcVulnerabilities.addParentInstance(entry.getKey().toString());
+
+            parent.addVulnerabilities(monarcVulnerabilities);
+
+            this.monarcVulnerabilityList.put(monarcVulnerabilities.getUuid(), monarcVulnerabilities);
+        }
+    }
+
+    /**
+     * Helper function to extract the threats from the Monarc JSON file and create a
+     * HashMap populated with the Java representation of such data enconded in a
+     * MonarcThreats object.
+     * 
+     * In this case, the key is the threat UUID and the value is the Java object
+     * containing the threat information.
+     * 
+     * @param entry
+     */
+    private void extractThreats(Map.Entry<?, ?> entry, MonarcInstance parent) {
+
+        Object threats = ((Map<?, ?>) entry.getValue()).get("threats");
+
+        if (threats == null || threats instanceof Collection)
+            return;
+
+        // For each vulnerability
+        for (Map.Entry<?, ?> threat : ((Map<?, ?>) threats).entrySet()) {
+            Map<?, ?> threatEntry = (Map<?, ?>) threat.getValue();
+            if (this.monarcThreatList.keySet().contains(threatEntry.get("uuid").toString())) {
+                this.monarcThreatList.get(threatEntry.get("uuid").toString())
+                        .addParentInstance(entry.getKey().toString());
+                continue;
+            }
+
+            MonarcThreats monarcThreats = new MonarcThreats(intern(threatEntry.get("uuid").toString()),
+                    text(threatEntry.get("comment"), ""),
+                    text(threatEntry.get("code"), ""),
+                    text(threatEntry.get("label1"), ""),
+                    text(threatEntry.get("label2"), ""),
+                    text(threatEntry.get("label3"), ""),
+                    text(threatEntry.get("label4"), ""),
+                    text(threatEntry.get("description1"), ""),
+                    text(threatEntry.get("description2"), ""),
+                    text(threatEntry.get("description3"), ""),
+                    text(threatEntry.get("description4"), ""),
+                    (int) threatEntry.get("status"),
+                    (int) threatEntry.get("mode"),
+                    (int) threatEntry.get("trend"),
+                    (int) threatEntry.get("qualification"),
+                    (int) threatEntry.get("c"),
+                    (int) threatEntry.get("i"),
+                    (int) threatEntry.get("a"),
+                    (int) threatEntry.get("theme"));
+
+            monarcThreats.addParentInstance(entry.getKey().toString());
+
+            parent.addThreats(monarcThreats);
+
+            this.monarcThreatList.put(monarcThreats.getUuid(), monarcThreats);
+        }
+    }
+
+    /**
+     * Helper function to extract the threats inside the "method" element
+     * from the Monarc JSON file and create a HashMap populated with the
+     * Java representation of such data.
+     * 
+     * @param entry The monarc threat element in the ANR Monarc JSON element
+     *              inside the method tag
+     */
+    private void extractAMVThreats(Object data) {
+
+        if (!(data instanceof Map))
+            return;
+
+        Map<?, ?> entry = ((Map<?, ?>) data);
+        Object threats = ((Map<?, ?>) entry).get("threats");
+
+        if (!(threats instanceof Map))
+            return;
+
+        // For each threat
+        for (Map.Entry<?, ?> threat : ((Map<?, ?>) threats).entrySet()) {
+            Map<?, ?> threatEntry = (Map<?, ?>) threat.getValue();
+
+            if (((Map<?, ?>) threats).containsValue(threatEntry.get("uuid")))
+                continue;
+
+            MonarcThreatTheme theme = new MonarcThreatTheme((int) ((Map<?, ?>) threatEntry.get("theme")).get("id"),
+                    text(((Map<?, ?>) threatEntry.get("theme")).get("label2"), ""),
+                    text(((Map<?, ?>) threatEntry.get("theme")).get("label1"), ""),
+                    text(((Map<?, ?>) threatEntry.get("theme")).get("label3"), ""),
+                    text(((Map<?, ?>) threatEntry.get("theme")).get("label4"), ""));
+
+            MonarcAMVThreats monarcAMVThreats = new MonarcAMVThreats(text(threatEntry.get("uuid"), ""),
+                    text(threatEntry.get("label1"), ""),
+                    text(threatEntry.get("label2"), ""),
+                    text(threatEntry.get("label3"), ""),
+                    text(threatEntry.get("label4"), ""),
+                    text(threatEntry.get("description1"), ""),
+                    text(threatEntry.get("description2"), ""),
+                    text(threatEntry.get("description3"), ""),
+                    text(threatEntry.get("description4"), ""),
+                    text(threatEntry.get("code"), ""),
+                    (int) threatEntry.get("trend"),
+                    (int) threatEntry.get("qualification"),
+                    (int) threatEntry.get("c"),
+                    (int) threatEntry.get("i"),
+                    (int) threatEntry.get("a"),
+                    text(threatEntry.get("comment"), null),
+                    theme);
+
+            this.monarcAMVThreatList.put(monarcAMVThreats.getUuid(), monarcAMVThreats);
+        }
+
+    }
+
+    /**
+     * Helper function to extract the threats inside the "method" element
+     * from the Monarc JSON file and create a HashMap populated with the
+     * Java representation of such data.
+     * 
+     * @param entry The monarc threat element in the ANR Monarc JSON element
+     *              inside the method tag
+     */
+    private void extractObject(Map.Entry<?, ?> entry) {
+        Map<?, ?> object = (Map<?, ?>) ((Map<?, ?>) entry.getValue()).get("object");
+
+        if (object == null)
+            return;
+
+        MonarcAsset newAsset = extractAssets(object, entry.getKey().toString());
+
+        if (this.monarcObjectsList.keySet().contains(((Map<?, ?>) object.get("object")).get("uuid").toString())) {
+            this.monarcObjectsList.get(((Map<?, ?>) object.get("object")).get("uuid").toString())
+                    .addParentInstance(entry.getKey().toString());
+        } else {
+
+            MonarcObject newObject = new MonarcObject(
+                    intern(((Map<?, ?>) object.get("object")).get("uuid").toString()),
+                    (int) ((Map<?, ?>) object.get("object")).get("mode"),
+                    (int) ((Map<?, ?>) object.get("object")).get("scope"),
+                    text(((Map<?, ?>) object.get("object")).get("name1"), ""),
+                    text(((Map<?, ?>) object.get("object")).get("name2"), ""),
+                    text(((Map<?, ?>) object.get("object")).get("name3"), ""),
+                    text(((Map<?, ?>) object.get("object")).get("name4"), ""),
+                    text(((Map<?, ?>) object.get("object")).get("label1"), ""),
+                    text(((Map<?, ?>) object.get("object")).get("label2"), ""),
+                    text(((Map<?, ?>) object.get("object")).get("label3"), ""),
+                    text(((Map<?, ?>) object.get("object")).get("label4"), ""),
+                    (int) ((Map<?, ?>) object.get("object")).get("disponibility"),
+                    (int) ((Map<?, ?>) object.get("object")).get("position"),
+                    (int) ((Map<?, ?>) object.get("object")).get("category"),
+                    newAsset);
+
+            Map<?, ?> categories = (Map<?, ?>) ((Map<?, ?>) object).get("categories");
+
+            for (Map.Entry<?, ?> category : categories.entrySet()) {
+                newObject.addCategory(new MonarcCategories((int) ((Map<?, ?>) category.getValue()).get("id"),
+                        text(((Map<?, ?>) category.getValue()).get("label1"), ""),
+                        text(((Map<?, ?>) category.getValue()).get("label2"), ""),
+                        text(((Map<?, ?>) category.getValue()).get("label3"), ""),
+                        text(((Map<?, ?>) category.getValue()).get("label4"), ""),
+                        (Integer) ((Map<?, ?>) category.getValue()).get("parent")));
+            }
+            newObject.addParentInstance(entry.getKey().toString());
+            this.monarcObjectsList.put(newObject.getUuid(), newObject);
+        }
+    }
+
+    /**
+     * Helper function to extract assets from inside the "object" element
+     * from the Monarc JSON file and create a HashMap populated with the
+     * Java representation of such data.
+     * 
+     * @param entry      The monarc object element in the ANR Monarc JSON element
+     *                   inside the method tag.
+     * @param parentCode The code of the parent of the asset to be extracted.
+     */
+    private MonarcAsset extractAssets(Map<?, ?> object, String parentCode) {
+        Map<?, ?> asset = (Map<?, ?>) ((Map<?, ?>) object).get("asset");
+
+        if (asset == null)
+            return null;
+
+        extractThemes(asset, parentCode);
+
+        MonarcAsset newAsset;
+
+        if (this.monarcAssetList.keySet().contains(((Map<?, ?>) asset.get("asset")).get("code").toString())) {
+            this.monarcAssetList.get(((Map<?, ?>) asset.get("asset")).get("code").toString())
+                    .addParentInstance(parentCode);
+            newAsset = this.monarcAssetList.get(((Map<?, ?>) asset.get("asset")).get("code").toString());
+        } else {
+            newAsset = new MonarcAsset(intern(((Map<?, ?>) asset.get("asset")).get("uuid").toString()),
+                    text(((Map<?, ?>) asset.get("asset")).get("label1"), ""),
+                    text(((Map<?, ?>) asset.get("asset")).get("label2"), ""),
+                    text(((Map<?, ?>) asset.get("asset")).get("label3"), ""),
+                    text(((Map<?, ?>) asset.get("asset")).get("label4"), ""),
+                    text(((Map<?, ?>) asset.get("asset")).get("description1"), ""),
+                    text(((Map<?, ?>) asset.get("asset")).get("description2"), ""),
+                    text(((Map<?, ?>) asset.get("asset")).get("description3"), ""),
+                    text(((Map<?, ?>) asset.get("asset")).get("description4"), ""),
+                    (int) ((Map<?, ?>) asset.get("asset")).get("status"),
+                    (int) ((Map<?, ?>) asset.get("asset")).get("mode"),
+                    (int) ((Map<?, ?>) asset.get("asset")).get("type"),
+                    intern(((Map<?, ?>) asset.get("asset")).get("code").toString()));
+
+            newAsset.addParentInstance(parentCode);
+
+            this.monarcAssetList.put(newAsset.getCode(), newAsset);
+        }
+
+        return newAsset;
+    }
+
+    /**
+     * Helper function to extract themes from inside the "asset" element
+     * from the Monarc JSON file and create a HashMap populated with the
+     * Java representation of such data.
+     * 
+     * @param entry      The monarc object element in the ANR Monarc JSON element
+     *                   inside the method tag
+     * @param parentCode The code of the parent element to the theme.
+     */
+    private List<MonarcThemes> extractThemes(Map<?, ?> asset, String parentCode) {
+        Object themes = ((Map<?, ?>) asset).get("themes");
+
+        if (themes == null || themes instanceof Collection)
+            return Collections.emptyList();
+
+        final Map<String, Map<String, Object>> myThemes = (Map<String, Map<String, Object>>) themes;
+
+        for (Map<String, Object> theme : myThemes.values()) {
+            if (this.monarcThemesList.containsKey(theme.get("id") + "")) {
+                this.monarcThemesList.get(theme.get("id").toString())
+                        .addParentInstance(parentCode);
+            } else {
+                MonarcThemes newTheme = new MonarcThemes((int) theme.get("id"),
+                        text(theme.get("label1"), ""),
+                        text(theme.get("label2"), ""),
+                        text(theme.get("label3"), ""),
+                        text(theme.get("label4"), ""));
+
+                newTheme.addParentInstance(parentCode);
+
+                monarcThemesList.put(newTheme.getId() + "", newTheme);
+            }
+
+        }
+        return null;
+    }
+
+    /**
+     * Helper function to extract the AMVs from the Monarc JSON file and create a
+     * List populated
+     * with the Java representation of such data.
+     * 
+     * @param entry
+     */
+    private void extractAMVs(Map.Entry<?, ?> entry, MonarcInstance parent) {
+
+        Object amvs = ((Map<?, ?>) entry.getValue()).get("amvs");
+
+        if (amvs == null || amvs instanceof Collection)
+            return;
+
+        // For each vulnerability
+        for (Map.Entry<?, ?> amv : ((Map<?, ?>) amvs).entrySet()) {
+
+            Map<?, ?> amvEntry = (Map<?, ?>) amv.getValue();
+
+            if (this.monarcAMVList.containsKey(amvEntry.get("uuid").toString())) {
+                this.monarcAMVList.get(amvEntry.get("uuid").toString()).addParentInstance(entry.getKey().toString());
+                continue;
+            }
+
+            MonarcAMV monarcAMVs = new MonarcAMV(text(amvEntry.get("uuid"), ""),
+                    text(amvEntry.get("threat"), ""),
+                    text(amvEntry.get("asset"), ""),
+                    text(amvEntry.get("vulnerability"), ""),
+                    (int) amvEntry.get("status"));
+
+            monarcAMVs.addParentInstance(entry.getKey().toString());
+
+            parent.addAMVs(monarcAMVs);
+
+            Object measureList = amvEntry.get("measures");
+            if (measureList == null)
+                monarcAMVs.setMeasureList(new HashSet<>());
+            else
+                monarcAMVs.setMeasureList(
+                        ((Collection<String>) measureList).stream().map(this::intern).collect(Collectors.toSet()));
+            // Read from the file, not changed
+            monarcAMVs.clearModified();
+
+            this.monarcAMVList.put(monarcAMVs.getUuid(), monarcAMVs);
+        }
+
+    }
+
+    private void extractANRScales(Object data) {
+
+        if (!(data instanceof Map))
+            return;
+
+        Map<?, ?> entry = ((Map<?, ?>) data);
+        for (Map.Entry monarcAMV : entry.entrySet()) {
+            scales.put(monarcAMV.getKey().toString(),
+                    new MonarcScales((int) ((Map<String, ?>) monarcAMV.getValue()).get("id"),
+                            (int) ((Map<String, ?>) monarcAMV.getValue()).get("min"),
+                            (int) ((Map<String, ?>) monarcAMV.getValue()).get("max"),
+                            (int) ((Map<String, ?>) monarcAMV.getValue()).get("type")));
+        }
+
+        this.monarcANR.setScales(scales);
+    }
+
+    private void extractANRScalesComment(Object data) {
+        if (!(data instanceof Map))
+            return;
+
+        Map<?, ?> entry = ((Map<?, ?>) data);
+        for (Map.Entry monarcANRScalesComment : entry.entrySet()) {
+            MonarcScales newMonarcScales = scales
+                    .get(((Map<?, Integer>) ((Map) monarcANRScalesComment.getValue()).get("scale")).get("type") + "");
+
+            var newMonarcANRScalesComment = new MonarcScalesComments(
+                    (int) ((Map<String, ?>) monarcANRScalesComment.getValue()).get("id"),
+                    (int) ((Map<String, ?>) monarcANRScalesComment.getValue()).get("scaleIndex"),
+                    (int) ((Map<String, ?>) monarcANRScalesComment.getValue()).get("scaleValue"),
+                    intern(((Map<String, ?>) monarcANRScalesComment.getValue()).get("comment1").toString()),
+                    intern(((Map<String, ?>) monarcANRScalesComment.getValue()).get("comment2").toString()),
+                    intern(((Map<String, ?>) monarcANRScalesComment.getValue()).get("comment3").toString()),
+                    intern(((Map<String, ?>) monarcANRScalesComment.getValue()).get("comment4").toString()),
+                    newMonarcScales, ((Map<String, ?>) monarcANRScalesComment.getValue()).get("scaleImpactType"));
+
+            scalesComments.put(monarcANRScalesComment.getKey().toString(), newMonarcANRScalesComment);
+
+        }
+
+        this.monarcANR.setScalesComments(scalesComments);
+    }
+
+    private void extractSoaScaleComment(Object data) {
+        if (!(data instanceof Map))
+            return;
+
+        Map<?, ?> entry = ((Map<?, ?>) data);
+        for (Map.Entry monarcAMV : entry.entrySet()) {
+            soaScaleComment.put(monarcAMV.getKey().toString(),
+                    new MonarcSoaScaleComment(Integer.parseInt((String) monarcAMV.getKey()),
+                            (int) ((Map<String, ?>) monarcAMV.getValue()).get("scaleIndex"),
+                            (boolean) ((Map<String, ?>) monarcAMV.getValue()).get("isHidden"),
+                            text(((Map<String, ?>) monarcAMV.getValue()).get("colour"), ""),
+                            text(((Map<String, ?>) monarcAMV.getValue()).get("comment"), "")));
+        }
+
+        this.monarcANR.setSoaScaleComment(soaScaleComment);
+    }
+
+    // endregion
+
+    // region Concurrent access
+
+    /**
+     * Runs several reads of the database against the same state: the functions
+     * changing the database wait until the query is done, and the query sees
+     * none of their changes.
+     * 
+     * Each search function of the database is consistent on its own, and can be
+     * called from many threads: the searches share the read lock, and only wait
+     * for the changes. A query is only needed to combine the results of several
+     * of them, for instance the risks of the AMVs found for a threat.
+     * 
+     * The query must not change the database, through its functions or through
+     * the setters of its objects, and must not run another query.
+     * 
+     * @param query The reads to run, given this database
+     * @return The result of the query
+     */
+    public <T> T query(Function<? super MonarcDatabase, ? extends T> query) {
+        materializeAll();
+        if (writer == Thread.currentThread())
+            return query.apply(this);
+
+        final long stamp = lock.readLock();
+        try {
+            return query.apply(this);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Runs several changes of the database at once: the search functions and
+     * the queries of the other threads see the database either before or after
+     * all the changes, and the other changes wait until these are done.
+     * 
+     * The functions of the database changing it (createOrUpdate, removeIf,
+     * setSoaScaleComments, the exports...) and the setters of its objects (risks,
+     * consequences, recommendations...) already hold the write lock, each one on
+     * its own: this function is only needed so that the other threads do not see
+     * some of the changes without the others.
+     * 
+     * @param changes The changes to make, given this database
+     */
+    public void update(Consumer<? super MonarcDatabase> changes) {
+        materializeAll();
+        final long stamp = lockWrite();
+        try {
+            changes.accept(this);
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Reads the database under the read lock, which the threads searching it
+     * share.
+     * 
+     * @param reader The function reading the database
+     * @return The value read
+     */
+    private <T> T read(Supplier<T> reader) {
+        if (writer == Thread.currentThread())
+            return reader.get();
+
+        final long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Takes the write lock, unless the current thread already holds it.
+     * 
+     * @return The stamp to give to {@link #unlockWrite(long)}
+     */
+    private long lockWrite() {
+        if (writer == Thread.currentThread())
+            return 0;
+        final long stamp = lock.writeLock();
+        writer = Thread.currentThread();
+        return stamp;
+    }
+
+    private void unlockWrite(long stamp) {
+        if (stamp == 0)
+            return;
+        writer = null;
+        lock.unlockWrite(stamp);
+    }
+
+    // endregion
+
+    // Region Instance search methods
+
+    /**
+     * Returns the instances at the top of the tree, which have no parent. The
+     * subtrees of a database opened by {@link #openLazy(String)} are not read.
+     * 
+     * @return The root instances, in the order of the file
+     */
+    public List<MonarcInstance> getRootInstances() {
+        return read(() -> this.monarcData.values().stream().filter(instance -> instance.getParent() == 0)
+                .collect(Collectors.toList()));
+    }
+
+    public List<MonarcInstance> getAllMonarcInstances() {
+        materializeAll();
+        return read(() -> this.monarcData.values().stream().collect(Collectors.toList()));
+    }
+
+    /**
+     * Search the instances by name, in all the languages, ignoring the case.
+     * 
+     * @param name The name to search, the surrounding spaces being ignored
+     * @return The instances having this name in one of the languages
+     */
+    public List<MonarcInstance> searchInstanceByName(String name) {
+        materializeAll();
+        return read(() -> searchIgnoringCase(instancesByName, name));
+    }
+
+    /**
+     * Search the instances by name in one language, ignoring the case and the
+     * surrounding spaces.
+     * 
+     * @param name         The name to search
+     * @param languageCode The language code, from 1 to 4
+     * @return The instances having this name, or null if the name is null
+     */
+    public List<MonarcInstance> searchInstanceByName(String name, int languageCode) {
+        materializeAll();
+        return read(() -> name == null ? null : instancesByName.get(languageCode, MonarcTextMatch.TRIMMED, name));
+    }
+
+    /**
+     * Search the instances by label, in all the languages, ignoring the case.
+     * 
+     * @param label The label to search, the surrounding spaces being ignored
+     * @return The instances having this label in one of the languages
+     */
+    public List<MonarcInstance> searchInstanceByLabel(String label) {
+        materializeAll();
+        return read(() -> searchIgnoringCase(instancesByLabel, label));
+    }
+
+    /**
+     * Search the instances by label in one language, ignoring the case and the
+     * surrounding spaces.
+     * 
+     * @param label        The label to search
+     * @param languageCode The language code, from 1 to 4
+     * @return The instances having this label, or null if the label is null
+     */
+    public List<MonarcInstance> searchInstanceByLabel(String label, int languageCode) {
+        materializeAll();
+        return read(() -> label == null ? null : instancesByLabel.get(languageCode, MonarcTextMatch.TRIMMED, label));
+    }
+
+    /**
+     * Retrives all assets
+     */
+    public List<MonarcAsset> getAllAssets() {
+        return read(() -> this.monarcAssetList.values().stream().collect(Collectors.toList()));
+    }
+
+    /**
+     * Search the assets by label, in all the languages, ignoring the case.
+     * 
+     * @param label The label to search, the surrounding spaces being ignored
+     * @return The assets having this label in one of the languages
+     */
+    public List<MonarcAsset> searchAssetByLabel(String label) {
+        return read(() -> searchIgnoringCase(assetsByLabel, label));
+    }
+
+    /**
+     * Search the assets by label in one language, ignoring the case and the
+     * surrounding spaces.
+     * 
+     * @param label        The label to search
+     * @param languageCode The language code, from 1 to 4
+     * @return The assets having this label
+     */
+    public List<MonarcAsset> searchAssetByLabel(String label, int languageCode) {
+        return read(() -> assetsByLabel.get(languageCode, MonarcTextMatch.TRIMMED, label));
+    }
+
+    /**
+     * Searches a text in all the languages of an index, ignoring its case. The
+     * searched text is trimmed, and an empty text matches nothing.
+     */
+    private static <V> List<V> searchIgnoringCase(MonarcTextIndex<V> index, String text) {
+        final String trimmed = text == null ? "" : text.trim();
+        return trimmed.isEmpty() ? new ArrayList<>()
+                : index.getInAllLanguages(MonarcTextMatch.IGNORE_CASE, trimmed);
+    }
+
+    public List<MonarcConsequences> getAllMonarcConsequences() {
+        materializeAll();
+        return read(() -> this.monarcData.values().stream().flatMap(e -> e.getConsequences().values().stream())
+                .collect(Collectors.toList()));
+    }
+
+    public int getMaxConsequencesId() {
+        materializeAll();
+        return read(() -> this.monarcData.values().stream()
+                .flatMapToInt(e -> e.getConsequences().values().stream().mapToInt(MonarcConsequences::getId)).max()
+                .orElse(0));
+    }
+
+    // region Risk search methods
+
+    public List<MonarcRisks> searchRiskByInstanceId(int id) {
+        materializeInstance(id);
+        return read(() -> risksByInstance.get(id));
+    }
+
+    /**
+     * Search the risks extracted from the Monarc JSON file according to its ID.
+     * This method returns only one object, as the
+     * ID is a unique field to reference a risk.
+     * 
+     * @param riskID The ID of the risk in the database
+     * @return The MonarcRisks object relative to the searched risk
+     */
+    public MonarcRisks searchRiskByID(int riskID) {
+        materializeAll();
+        return read(() -> monarcRiskList.get(riskID));
+    }
+
+    /**
+     * Search the risks extracted from the Monarc JSON file related to a certain
+     * AMV. This method returns multiple objects, as
+     * one AMV may relate to multiple risks.
+     * 
+     * @param amv The amv UUID
+     * @return A List with MonarcRisks related to a single risk UUID
+     */
+    public List<MonarcRisks> searchRiskByAMV(String amv) {
+        materializeAll();
+        return read(() -> risksByAMV.get(amv));
+    }
+
+    /**
+     * Search the risks extracted from the Monarc JSON file related to a certain
+     * threat. This method returns multiple objects, as
+     * one threat may relate to multiple risks.
+     * 
+     * @param threat The threat UUID
+     * @return A List with MonarcRisks related to a single threat UUID
+     */
+    public List<MonarcRisks> searchRiskByThreat(String threat) {
+        materializeAll();
+        return read(() -> risksByThreat.get(threat));
+    }
+
+    /**
+     * Search the risks extracted from the Monarc JSON file related to a certain
+     * vulnerability. This method returns multiple objects, as
+     * one vulnerability may relate to multiple risks.
+     * 
+     * @param vulnerability The vulnerability UUID
+     * @return A List with MonarcRisks related to a single vulnerability UUID
+     */
+    public List<MonarcRisks> searchRiskByVulnerability(String vulnerability) {
+        materializeAll();
+        return read(() -> risksByVulnerability.get(vulnerability));
+    }
+
+    /**
+     * Searches the risks with the highest cached value among the ones matching
+     * the filters of the search, highest first.
+     * 
+     * The values of the risks are computed first if they changed. The risks are
+     * then read from the smallest index matching a filter (AMV, threat,
+     * vulnerability or subtree), or from all the risks, and only the best ones
+     * are kept, in a heap holding at most the number of risks asked for: the
+     * search takes a time in O(n log k) for n risks read, and never sorts them.
+     * 
+     * @param search The number of risks, the value they are ranked by and the
+     *               filters
+     * @return The risks found, empty if the instance of the subtree is unknown
+     *         or cannot be reached from the upper levels of the tree
+     */
+    public List<MonarcRisks> searchTopRisks(MonarcTopRisks search) {
+        refreshRiskValues();
+        return read(() -> {
+            Collection<MonarcRisks> candidates = monarcRiskList.values();
+            if (search.amv != null)
+                candidates = smallest(candidates, risksByAMV.view(search.amv));
+            if (search.threat != null)
+                candidates = smallest(candidates, risksByThreat.view(search.threat));
+            if (search.vulnerability != null)
+                candidates = smallest(candidates, risksByVulnerability.view(search.vulnerability));
+
+            // No more risks than the candidates can be kept, whatever the limit
+            final MonarcRiskHeap top = new MonarcRiskHeap(Math.min(search.limit, candidates.size()));
+            if (search.instanceId == 0) {
+                for (MonarcRisks risk : candidates)
+                    offer(top, search, risk, null);
+                return topRisks(top);
+            }
+
+            final List<MonarcInstance> instances = riskEngine.subtree(search.instanceId);
+            if (instances == null)
+                return new ArrayList<>();
+            final MonarcIntSet subtree = new MonarcIntSet();
+            int subtreeRisks = 0;
+            for (MonarcInstance instance : instances) {
+                subtree.add(instance.getId());
+                subtreeRisks += risksByInstance.view(instance.getId()).size();
+            }
+            if (subtreeRisks < candidates.size()) {
+                // A risk may belong to several instances of the subtree
+                final MonarcIntSet offered = new MonarcIntSet();
+                for (MonarcInstance instance : instances) {
+                    for (MonarcRisks risk : risksByInstance.view(instance.getId())) {
+                        if (offered.add(risk.getId()))
+                            offer(top, search, risk, null);
+                    }
+                }
+            } else {
+                for (MonarcRisks risk : candidates)
+                    offer(top, search, risk, subtree);
+            }
+            return topRisks(top);
+        });
+    }
+
+    private static Collection<MonarcRisks> smallest(Collection<MonarcRisks> candidates, List<MonarcRisks> found) {
+        return found.size() < candidates.size() ? found : candidates;
+    }
+
+    /**
+     * Offers a risk to the heap if it matches the search.
+     * 
+     * @param subtree The IDs of the instances of the subtree, or null if the risk
+     *                is known to belong to it
+     */
+    private static void offer(MonarcRiskHeap top, MonarcTopRisks search, MonarcRisks risk, MonarcIntSet subtree) {
+        final int value = search.value(risk);
+        if (value < 0 || !search.matches(risk))
+            return;
+        if (subtree != null) {
+            boolean found = false;
+            for (int instanceId : MonarcInstanceIds.instanceIds(risk.getParentInstanceId()))
+                found |= subtree.contains(instanceId);
+            if (!found)
+                return;
+        }
+        top.offer(value, risk.getId(), risk.getId());
+    }
+
+    private List<MonarcRisks> topRisks(MonarcRiskHeap top) {
+        final int[] ids = top.drain();
+        final List<MonarcRisks> risks = new ArrayList<>(ids.length);
+        for (int id : ids)
+            risks.add(monarcRiskList.get(id));
+        return risks;
+    }
+
+    // endregion
+
+    // region Risk statistics
+
+    /**
+     * Returns the statistics of the risks of an instance: the highest C, I and D
+     * values of its consequences, the number of risks, the highest and the sum
+     * of their cached values, and the number of risks above the thresholds of
+     * the method.
+     * 
+     * The statistics are kept with the instances, and are only computed again
+     * for the instances whose consequences or risks changed since the last
+     * call, as {@link #refreshDependencyValues()} does.
+     * 
+     * @param instanceId The ID of the instance
+     * @return The statistics, or null if the instance is unknown or cannot be
+     *         reached from the upper levels of the tree
+     */
+    public MonarcRiskStats getRiskStats(int instanceId) {
+        return riskStats(() -> {
+            final MonarcInstance instance = monarcData.get(instanceId);
+            return instance == null ? null : instance.getRiskStats();
+        });
+    }
+
+    /**
+     * Returns the statistics of the risks of an instance and of all the instances
+     * below it, as {@link #getRiskStats(int)}.
+     * 
+     * @param instanceId The ID of the instance
+     * @return The statistics, or null if the instance is unknown or cannot be
+     *         reached from the upper levels of the tree
+     */
+    public MonarcRiskStats getSubtreeRiskStats(int instanceId) {
+        return riskStats(() -> {
+            final MonarcInstance instance = monarcData.get(instanceId);
+            return instance == null ? null : instance.getSubtreeRiskStats();
+        });
+    }
+
+    /**
+     * Returns the statistics of the risks of all the instances, as
+     * {@link #getRiskStats(int)}.
+     * 
+     * @return The statistics
+     */
+    public MonarcRiskStats getRiskStats() {
+        return riskStats(riskEngine::getTotalStats);
+    }
+
+    private MonarcRiskStats riskStats(Supplier<MonarcRiskStats> stats) {
+        refreshRiskValues();
+        return read(stats);
+    }
+
+    /**
+     * Computes the values affected by the changes, as
+     * {@link #refreshDependencyValues()}, only taking the write lock if there
+     * are changes.
+     */
+    private void refreshRiskValues() {
+        materializeAll();
+        if (!read(riskEngine::isUpToDate)) {
+            final long stamp = lockWrite();
+            try {
+                riskEngine.update();
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Builds the heat maps and threshold counts of the risks of all the
+     * instances, with the top risks of each instance.
+     * 
+     * @param topN The number of top risks kept for each instance
+     * @return The report
+     * @see #report(int, int, Executor)
+     */
+    public MonarcRiskReport report(int topN) {
+        return report(0, topN, null);
+    }
+
+    /**
+     * Builds the heat maps and threshold counts of the risks of an instance and
+     * of the instances below it, with the top risks of each instance.
+     * 
+     * @param instanceId The ID of the instance, or 0 for all the instances
+     * @param topN       The number of top risks kept for each instance
+     * @return The report, or null if the instance is unknown or cannot be
+     *         reached from the upper levels of the tree
+     * @see #report(int, int, Executor)
+     */
+    public MonarcRiskReport report(int instanceId, int topN) {
+        return report(instanceId, topN, null);
+    }
+
+    /**
+     * Builds the heat maps and threshold counts of the risks of an instance and
+     * of the instances below it, with the top risks of each instance, in a single
+     * pass over their risks.
+     * 
+     * The values of the risks are computed first if they changed. The instances
+     * are then split in slices reported by the executor, if any, and the reports
+     * of the slices are added up. Other threads can search the database
+     * meanwhile, but the changes wait until the report is built.
+     * 
+     * @param instanceId The ID of the instance, or 0 for all the instances
+     * @param topN       The number of top risks kept for each instance
+     * @param executor   The executor reporting the slices of instances, or null
+     *                   to report them in the calling thread
+     * @return The report, or null if the instance is unknown or cannot be
+     *         reached from the upper levels of the tree
+     * @see MonarcRiskReport
+     */
+    public MonarcRiskReport report(int instanceId, int topN, Executor executor) {
+        if (topN < 0)
+            throw new IllegalArgumentException("Negative number of top risks: " + topN);
+        refreshRiskValues();
+        return query(database -> {
+            final List<MonarcInstance> subtree = riskEngine.subtree(instanceId);
+            if (subtree == null)
+                return null;
+            final int threshold1 = riskEngine.getThreshold1();
+            final int threshold2 = riskEngine.getThreshold2();
+            if (executor == null)
+                return report(subtree, threshold1, threshold2, topN);
+
+            final List<CompletableFuture<MonarcRiskReport>> slices = new ArrayList<>();
+            for (int from = 0; from < subtree.size(); from += REPORT_SLICE) {
+                final List<MonarcInstance> slice = subtree.subList(from,
+                        Math.min(from + REPORT_SLICE, subtree.size()));
+                slices.add(CompletableFuture.supplyAsync(() -> report(slice, threshold1, threshold2, topN),
+                        executor));
+            }
+            final MonarcRiskReport report = new MonarcRiskReport(threshold1, threshold2);
+            for (CompletableFuture<MonarcRiskReport> slice : slices) {
+                try {
+                    report.add(slice.join());
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof RuntimeException)
+                        throw (RuntimeException) e.getCause();
+                    throw e;
+                }
+            }
+            return report;
+        });
+    }
+
+    private MonarcRiskReport report(List<MonarcInstance> instances, int threshold1, int threshold2, int topN) {
+        final MonarcRiskReport report = new MonarcRiskReport(threshold1, threshold2);
+        final MonarcRiskHeap top = new MonarcRiskHeap(topN);
+        for (MonarcInstance instance : instances)
+            report.add(instance, risksByInstance.view(instance.getId()), top);
+        return report;
+    }
+
+    // endregion
+
+    // region Risk queries
+
+    /**
+     * Searches the risks matching all the criteria of a query.
+     * 
+     * Each criterion is first looked up in the indexes of the database, giving
+     * the risks matching it, or an estimate of their number when it has to be
+     * checked risk by risk (kind of measure, filter of the risks). The risks of
+     * the most selective criterion are read first, as a bitmap of their IDs.
+     * The next criteria, from the most selective to the least, either
+     * intersect this bitmap with the bitmap of their own risks, or check each
+     * risk left when there are fewer of them. The search stops as soon as no
+     * risk is left.
+     * 
+     * The filters of the query may be called again if the database is changed
+     * during the search, so they must have no side effect.
+     * 
+     * @param query The criteria of the risks
+     * @return The risks found, by ID
+     * @see MonarcRiskQuery
+     */
+    public List<MonarcRisks> searchRisks(MonarcRiskQuery query) {
+        if (query.criteria().stream().anyMatch(criterion -> criterion.kind == MonarcRiskQuery.Kind.SUBTREE))
+            refreshRiskValues();
+        else
+            materializeAll();
+        return read(() -> {
+            final BitSet found = findRisks(query);
+            final List<MonarcRisks> risks = new ArrayList<>(found.cardinality());
+            for (int id = found.nextSetBit(0); id >= 0; id = found.nextSetBit(id + 1))
+                risks.add(monarcRiskList.get(id));
+            return risks;
+        });
+    }
+
+    /**
+     * The risks matching a criterion of a query.
+     */
+    private static final class Probe {
+        // The risks matching the criterion, possibly more than once, or null if
+        // the criterion must be checked risk by risk
+        private final List<List<MonarcRisks>> postings;
+        private final int estimate;
+        private final Predicate<MonarcRisks> test;
+
+        private Probe(List<List<MonarcRisks>> postings, int estimate, Predicate<MonarcRisks> test) {
+            this.postings = postings;
+            this.estimate = estimate;
+            this.test = test;
+        }
+
+        private static Probe of(List<List<MonarcRisks>> postings, Predicate<MonarcRisks> test) {
+            int estimate = 0;
+            for (List<MonarcRisks> risks : postings)
+                estimate += risks.size();
+            return new Probe(postings, estimate, test);
+        }
+
+        private BitSet bits() {
+            final BitSet bits = new BitSet();
+            for (List<MonarcRisks> risks : postings) {
+                for (MonarcRisks risk : risks)
+                    bits.set(risk.getId());
+            }
+            return bits;
+        }
+    }
+
+    private BitSet findRisks(MonarcRiskQuery query) {
+        final List<Probe> probes = new ArrayList<>();
+        for (MonarcRiskQuery.Criterion criterion : query.criteria())
+            probes.add(probe(criterion));
+        probes.sort(Comparator.comparingInt(probe -> probe.estimate));
+
+        BitSet found = null;
+        for (Probe probe : probes) {
+            if (found == null) {
+                found = probe.postings != null ? probe.bits() : scan(monarcRiskList.values(), probe.test);
+            } else if (probe.postings != null && probe.estimate <= found.cardinality()) {
+                found.and(probe.bits());
+            } else {
+                for (int id = found.nextSetBit(0); id >= 0; id = found.nextSetBit(id + 1)) {
+                    if (!probe.test.test(monarcRiskList.get(id)))
+                        found.clear(id);
+                }
+            }
+            if (found.isEmpty())
+                return found;
+        }
+        return found != null ? found : scan(monarcRiskList.values(), risk -> true);
+    }
+
+    private static BitSet scan(Collection<MonarcRisks> risks, Predicate<MonarcRisks> test) {
+        final BitSet bits = new BitSet();
+        for (MonarcRisks risk : risks) {
+            if (test.test(risk))
+                bits.set(risk.getId());
+        }
+        return bits;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Probe probe(MonarcRiskQuery.Criterion criterion) {
+        switch (criterion.kind) {
+        case THREAT:
+            return Probe.of(Collections.singletonList(risksByThreat.view(criterion.uuid)),
+                    risk -> criterion.uuid.equals(risk.getThreat()));
+        case VULNERABILITY:
+            return Probe.of(Collections.singletonList(risksByVulnerability.view(criterion.uuid)),
+                    risk -> criterion.uuid.equals(risk.getVulnerability()));
+        case AMV:
+            return Probe.of(Collections.singletonList(risksByAMV.view(criterion.uuid)),
+                    risk -> criterion.uuid.equals(risk.getAmv()));
+        case ASSET:
+            return amvsProbe(amvsByAsset.view(criterion.uuid));
+        case MEASURE:
+            return amvsProbe(amvsByMeasure.view(criterion.uuid));
+        case INSTANCE:
+            return instancesProbe(Collections.singletonList(criterion.value));
+        case SUBTREE: {
+            final List<MonarcInstance> subtree = riskEngine.subtree(criterion.value);
+            final List<Integer> ids = new ArrayList<>();
+            if (subtree != null)
+                subtree.forEach(instance -> ids.add(instance.getId()));
+            return instancesProbe(ids);
+        }
+        case KIND_OF_MEASURE:
+            return new Probe(null, monarcRiskList.size(), risk -> risk.getKindOfMeasure() == criterion.value);
+        case NOT_KIND_OF_MEASURE:
+            return new Probe(null, monarcRiskList.size(), risk -> risk.getKindOfMeasure() != criterion.value);
+        case RISKS:
+            return new Probe(null, monarcRiskList.size(), (Predicate<MonarcRisks>) criterion.predicate);
+        case AMVS: {
+            final Predicate<MonarcAMV> filter = (Predicate<MonarcAMV>) criterion.predicate;
+            final List<MonarcAMV> amvs = new ArrayList<>();
+            for (MonarcAMV amv : monarcAMVList.values()) {
+                if (filter.test(amv))
+                    amvs.add(amv);
+            }
+            return amvsProbe(amvs);
+        }
+        case THREATS: {
+            final Predicate<MonarcThreats> filter = (Predicate<MonarcThreats>) criterion.predicate;
+            final Set<String> threats = new HashSet<>();
+            final List<List<MonarcRisks>> postings = new ArrayList<>();
+            for (MonarcThreats threat : monarcThreatList.values()) {
+                if (filter.test(threat) && threats.add(threat.getUuid()))
+                    postings.add(risksByThreat.view(threat.getUuid()));
+            }
+            return Probe.of(postings, risk -> threats.contains(risk.getThreat()));
+        }
+        case VULNERABILITIES: {
+            final Predicate<MonarcVulnerabilities> filter = (Predicate<MonarcVulnerabilities>) criterion.predicate;
+            final Set<String> vulnerabilities = new HashSet<>();
+            final List<List<MonarcRisks>> postings = new ArrayList<>();
+            for (MonarcVulnerabilities vulnerability : monarcVulnerabilityList.values()) {
+                if (filter.test(vulnerability) && vulnerabilities.add(vulnerability.getUuid()))
+                    postings.add(risksByVulnerability.view(vulnerability.getUuid()));
+            }
+            return Probe.of(postings, risk -> vulnerabilities.contains(risk.getVulnerability()));
+        }
+        case MEASURES: {
+            final Predicate<MonarcMeasures> filter = (Predicate<MonarcMeasures>) criterion.predicate;
+            final Set<MonarcAMV> amvs = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (MonarcMeasures measure : monarcMeasures.values()) {
+                if (filter.test(measure))
+                    amvs.addAll(amvsByMeasure.view(measure.getUuid()));
+            }
+            return amvsProbe(amvs);
+        }
+        case INSTANCES: {
+            final Predicate<MonarcInstance> filter = (Predicate<MonarcInstance>) criterion.predicate;
+            final List<Integer> ids = new ArrayList<>();
+            for (MonarcInstance instance : monarcData.values()) {
+                if (filter.test(instance))
+                    ids.add(instance.getId());
+            }
+            return instancesProbe(ids);
+        }
+        default:
+            throw new IllegalArgumentException("Unknown criterion: " + criterion.kind);
+        }
+    }
+
+    /**
+     * @return The probe of the risks of the given AMVs.
+     */
+    private Probe amvsProbe(Collection<MonarcAMV> amvs) {
+        final Set<String> uuids = new HashSet<>();
+        final List<List<MonarcRisks>> postings = new ArrayList<>();
+        for (MonarcAMV amv : amvs) {
+            if (uuids.add(amv.getUuid()))
+                postings.add(risksByAMV.view(amv.getUuid()));
+        }
+        return Probe.of(postings, risk -> uuids.contains(risk.getAmv()));
+    }
+
+    /**
+     * @return The probe of the risks held by the given instances.
+     */
+    private Probe instancesProbe(Collection<Integer> instanceIds) {
+        final MonarcIntSet ids = new MonarcIntSet();
+        final List<List<MonarcRisks>> postings = new ArrayList<>();
+        for (int instanceId : instanceIds) {
+            if (ids.add(instanceId))
+                postings.add(risksByInstance.view(instanceId));
+        }
+        return Probe.of(postings, risk -> {
+            for (int instanceId : MonarcInstanceIds.instanceIds(risk.getParentInstanceId())) {
+                if (ids.contains(instanceId))
+                    return true;
+            }
+            return false;
+        });
+    }
+
+    // endregion
+
+    public List<MonarcThreats> searchThreatByInstanceId(int id) {
+        return read(() -> threatsByInstance.get(id));
+    }
+
+    // region Threat search methods
+    /**
+     * Search the threats extracted from the Monarc JSON by the label field. This
+     * method returns the MonarcThreat object relative to
+     * the label, which is unique to the record.
+     * 
+     * @param label        The string of the label to be searched
+     * @param languageCode A numerical code of the language in which to search: 1 -
+     *                     label1 (usually French); 2 - Label2 (usually English); 3
+     *                     - Label3 (usually German); 4 - Label4 (usually
+     *                     Luxembourgish)
+     * @return The object that represents the threat found in the search. If more
+     *         than one is found, the first one will be returned.
+     */
+    public MonarcThreats searchThreatByLabel(String label, int languageCode) {
+        return read(() -> threatsByLabel.first(languageCode, MonarcTextMatch.EXACT, label));
+    }
+
+    /**
+     * Search the threats extracted from the Monarc JSON by the description field.
+     * This method returns the MonarcThreat object relative to
+     * the description, which is unique to the record.
+     * 
+     * @param description  The string of the description to be searched
+     * @param languageCode A numerical code of the language in which to search: 1 -
+     *                     label1 (usually French); 2 - Label2 (usually English); 3
+     *                     - Label3 (usually German); 4 - Label4 (usually
+     *                     Luxembourgish)
+     * @return The object that represents the threat found in the search. If more
+     *         than one is found, the first one will be returned.
+     */
+    public MonarcThreats searchThreatByDescription(String description, int languageCode) {
+        return read(() -> threatsByDescription.first(languageCode, MonarcTextMatch.EXACT, description));
+    }
+
+    /**
+     * Search all the threats having a label in a language.
+     * 
+     * @param label        The string of the label to be searched
+     * @param languageCode A numerical code of the language in which to search,
+     *                     from 1 to 4
+     * @param match        How the label is compared: exactly, ignoring the case,
+     *                     or ignoring the case and the surrounding spaces
+     * @return The threats found, in no particular order
+     */
+    public List<MonarcThreats> searchThreatsByLabel(String label, int languageCode, MonarcTextMatch match) {
+        return read(() -> threatsByLabel.get(languageCode, match, label));
+    }
+
+    /**
+     * Search all the threats having a description in a language.
+     * 
+     * @param description  The string of the description to be searched
+     * @param languageCode A numerical code of the language in which to search,
+     *                     from 1 to 4
+     * @param match        How the description is compared: exactly, ignoring the
+     *                     case, or ignoring the case and the surrounding spaces
+     * @return The threats found, in no particular order
+     */
+    public List<MonarcThreats> searchThreatsByDescription(String description, int languageCode,
+            MonarcTextMatch match) {
+        return read(() -> threatsByDescription.get(languageCode, match, description));
+    }
+
+    /**
+     * Search the threats whose label or description, in any language, is the
+     * most similar to a text. The texts are compared by their trigrams, ignoring
+     * the case, the accents and the punctuation, so that slightly different
+     * wordings of the same threat are found.
+     * 
+     * @param text  The text to be searched
+     * @param limit The maximum number of threats to return
+     * @return The threats found, the most similar first, with their score
+     */
+    public List<MonarcFuzzyMatch<MonarcThreats>> searchSimilarThreats(String text, int limit) {
+        return read(() -> threatsBySimilarity.search(text, 0, limit));
+    }
+
+    /**
+     * Search the threats whose label or description in a language is the most
+     * similar to a text.
+     * 
+     * @param text         The text to be searched
+     * @param languageCode A numerical code of the language in which to search,
+     *                     from 1 to 4
+     * @param limit        The maximum number of threats to return
+     * @return The threats found, the most similar first, with their score
+     * @see #searchSimilarThreats(String, int)
+     */
+    public List<MonarcFuzzyMatch<MonarcThreats>> searchSimilarThreats(String text, int languageCode, int limit) {
+        return read(() -> languageCode < 1 ? new ArrayList<>() : threatsBySimilarity.search(text, languageCode, limit));
+    }
+
+    public MonarcScales searchScaleByType(final int type) {
+        return read(() -> this.scales.values().stream().filter(e -> e.getType() == type).findAny().orElse(null));
+    }
+
+    /**
+     * Search the threats extracted from the Monarc JSON by the code field. This
+     * method returns the MonarcThreat object relative to
+     * the code, which is unique to the record.
+     * 
+     * @param code The code string to be searched
+     * @return The object that represents the threat found in the search. If more
+     *         than one is found, the first one will be returned.
+     */
+    public MonarcThreats searchThreatByCode(String code) {
+        return read(() -> threatsByCode.first(code));
+    }
+
+    /**
+     * Search the threats extracted from the Monarc JSON by the uuid field. This
+     * method returns the MonarcThreat object relative to
+     * the uuid, which is unique to the record.
+     * 
+     * @param uuid The uuid string to be searched
+     * @return The object that represents the threat found in the search. If more
+     *         than one is found, the first one will be returned.
+     */
+    public MonarcThreats searchThreatByUUID(String uuid) {
+        return read(() -> uuid == null ? null : monarcThreatList.get(uuid));
+    }
+
+    /**
+     * Search the threats extracted from the Monarc JSON related to a single
+     * vulnerability. This method returns a list populated with MonarcThreat
+     * objects relative to a MonarcVulnerability
+     * 
+     * @param vulnerability The vulnerability to be searched
+     * @return A list with all the MonarcThreats related to the MonarcVulnerability
+     *         passed as argument
+     */
+    public List<MonarcThreats> getAllThreatsForVulnerability(MonarcVulnerabilities vulnerability) {
+        return read(() -> {
+            List<MonarcThreats> queryResult = new ArrayList<>();
+
+            // Get all the AMVs associated with a vulnerability
+            List<MonarcAMV> queryAMVs = searchAMVByVulnerability(vulnerability.getUuid());
+
+            // Get the threats from the AMVs and add to a list
+            for (MonarcAMV monarcAMV : queryAMVs) {
+                queryResult.add(searchThreatByUUID(monarcAMV.getThreat()));
+            }
+
+            // Return the list
+            return queryResult.stream().filter(Objects::nonNull).filter(distinctByKey(MonarcThreats::getUuid))
+                    .collect(Collectors.toList());
+        });
+    }
+    // endregion
+
+    // region AMV search methods
+
+    public List<MonarcAMV> searchAMVByInstanceId(int id) {
+        return read(() -> amvsByInstance.get(id));
+    }
+
+    /**
+     * Search the AMV extracted from the Monarc JSON by the uuid field. This method
+     * returns the MonarcAMV object relative to
+     * the uuid, which is unique to the record.
+     * 
+     * @param uuid The uuid string to be searched
+     * @return The object that represents the threat found in the search. If more
+     *         than one is found, the first one will be returned.
+     */
+    public MonarcAMV searchAMVByUUID(String uuid) {
+        return read(() -> uuid == null ? null : monarcAMVList.get(uuid));
+    }
+
+    /**
+     * Search the threats extracted from the Monarc JSON related to a single threat
+     * code. This method returns a list populated with MonarcAMV
+     * objects relative to a single threat
+     * 
+     * @param threat The threat uuid to be searched
+     * @return
+     */
+    public List<MonarcAMV> searchAMVByThreat(String threat) {
+        return read(() -> amvsByThreat.get(threat));
+    }
+
+    /**
+     * Search the threats extracted from the Monarc JSON related to a single
+     * vulnerability code. This method returns a list populated with MonarcAMV
+     * objects relative to a single vulnerability
+     * 
+     * @param vulnerability The vulnerability uuid to be searched
+     * @return A list with all the MonarcAMV objects related to the
+     *         MonarcVulnerability passed as argument
+     */
+    public List<MonarcAMV> searchAMVByVulnerability(String vulnerability) {
+        return read(() -> amvsByVulnerability.get(vulnerability));
+    }
+
+    /**
+     * Search the threats extracted from the Monarc JSON related to a single asset
+     * code. This method returns a list populated with MonarcAMV
+     * objects relative to a single asset.
+     * 
+     * @param asset The asset uuid to be searched
+     * @return A list with all the MonarcAMV objects related to the
+     *         MonarcVulnerability passed as argument
+     */
+    public List<MonarcAMV> searchAMVByAsset(String asset) {
+        return read(() -> amvsByAsset.get(asset));
+    }
+    // endregion
+
+    public List<MonarcVulnerabilities> searchVulnerabilityByInstanceId(int id) {
+        return read(() -> vulnerabilitiesByInstance.get(id));
+    }
+
+    // region Vulnerabilities search methods
+    /**
+     * Search the vulnerabilities extracted from the Monarc JSON by the label field.
+     * This method returns the MonarcVulnerability object relative to
+     * the label, which is unique to the record.
+     * 
+     * @param label        The string of the label to be searched
+     * @param languageCode A numerical code of the language in which to search: 1 -
+     *                     label1 (usually French); 2 - Label2 (usually English); 3
+     *                     - Label3 (usually German); 4 - Label4 (usually
+     *                     Luxembourgish)
+     * @return The object that represents the vulnerability found in the search. If
+     *         more than one is found, the first one will be returned.
+     */
+    public MonarcVulnerabilities searchVulnerabilityByLabel(String label, int languageCode) {
+        return read(() -> vulnerabilitiesByLabel.first(languageCode, MonarcTextMatch.EXACT, label));
+    }
+
+    /**
+     * Search the vulnerabilities extracted from the Monarc JSON by the description
+     * field. This method returns the MonarcVulnerability object relative to
+     * the description, which is unique to the record.
+     * 
+     * @param description  The string of the description to be searched
+     * @param languageCode A numerical code of the language in which to search: 1 -
+     *                     label1 (usually French); 2 - Label2 (usually English); 3
+     *                     - Label3 (usually German); 4 - Label4 (usually
+     *                     Luxembourgish)
+     * @return The object that represents the vulnerability found in the search. If
+     *         more than one is found, the first one will be returned.
+     */
+    public MonarcVulnerabilities searchVulnerabilityByDescription(String description, int languageCode) {
+        return read(() -> vulnerabilitiesByDescription.first(languageCode, MonarcTextMatch.EXACT, description));
+    }
+
+    /**
+     * Search all the vulnerabilities having a label in a language.
+     * 
+     * @param label        The string of the label to be searched
+     * @param languageCode A numerical code of the language in which to search,
+     *                     from 1 to 4
+     * @param match        How the label is compared: exactly, ignoring the case,
+     *                     or ignoring the case and the surrounding spaces
+     * @return The vulnerabilities found, in no particular order
+     */
+    public List<MonarcVulnerabilities> searchVulnerabilitiesByLabel(String label, int languageCode,
+            MonarcTextMatch match) {
+        return read(() -> vulnerabilitiesByLabel.get(languageCode, match, label));
+    }
+
+    /**
+     * Search all the vulnerabilities having a description in a language.
+     * 
+     * @param description  The string of the description to be searched
+     * @param languageCode A numerical code of the language in which to search,
+     *                     from 1 to 4
+     * @param match        How the description is compared: exactly, ignoring the
+     *                     case, or ignoring the case and the surrounding spaces
+     * @return The vulnerabilities found, in no particular order
+     */
+    public List<MonarcVulnerabilities> searchVulnerabilitiesByDescription(String description, int languageCode,
+            MonarcTextMatch match) {
+        return read(() -> vulnerabilitiesByDescription.get(languageCode, match, description));
+    }
+
+    /**
+     * Search the vulnerabilities whose label or description, in any language, is
+     * the most similar to a text. The texts are compared by their trigrams,
+     * ignoring the case, the accents and the punctuation, so that slightly
+     * different wordings of the same vulnerability are found.
+     * 
+     * @param text  The text to be searched
+     * @param limit The maximum number of vulnerabilities to return
+     * @return The vulnerabilities found, the most similar first, with their score
+     */
+    public List<MonarcFuzzyMatch<MonarcVulnerabilities>> searchSimilarVulnerabilities(String text, int limit) {
+        return read(() -> vulnerabilitiesBySimilarity.search(text, 0, limit));
+    }
+
+    /**
+     * Search the vulnerabilities whose label or description in a language is the
+     * most similar to a text.
+     * 
+     * @param text         The text to be searched
+     * @param languageCode A numerical code of the language in which to search,
+     *                     from 1 to 4
+     * @param limit        The maximum number of vulnerabilities to return
+     * @return The vulnerabilities found, the most similar first, with their score
+     * @see #searchSimilarVulnerabilities(String, int)
+     */
+    public List<MonarcFuzzyMatch<MonarcVulnerabilities>> searchSimilarVulnerabilities(String text,
+            int languageCode, int limit) {
+        return read(() -> languageCode < 1 ? new ArrayList<>()
+                : vulnerabilitiesBySimilarity.search(text, languageCode, limit));
+    }
+
+    /**
+     * Search the vulnerabilities extracted from the Monarc JSON by the code field.
+     * This method returns the MonarcVulnerability object relative to
+     * the code, which is unique to the record.
+     * 
+     * @param code The code string to be searched
+     * @return The object that represents the vulnerability found in the search. If
+     *         more than one is found, the first one will be returned.
+     */
+    public MonarcVulnerabilities searchVulnerabilityByCode(String code) {
+        return read(() -> vulnerabilitiesByCode.first(code));
+    }
+
+    /**
+     * Search the vulnerabilities extracted from the Monarc JSON by the uuid field.
+     * This method returns the MonarcVulnerability object relative to
+     * the uuid, which is unique to the record.
+     * 
+     * @param uuid The UUID string to be searched
+     * @return The object that represents the vulnerability found in the search. If
+     *         more than one is found, the first one will be returned.
+     */
+    public MonarcVulnerabilities searchVulnerabilityByUUID(String uuid) {
+        return read(() -> uuid == null ? null : monarcVulnerabilityList.get(uuid));
+    }
+
+    public MonarcReferentials searchReferentialsByUUID(String uuid) {
+        return read(() -> uuid == null ? null : monarcReferentials.get(uuid));
+    }
+
+    public MonarcMeasures searchMeasuresByUUID(String uuid) {
+        return read(() -> uuid == null ? null : monarcMeasures.get(uuid));
+    }
+
+    public MonarcMeasures searchMeasuresByReferentialLabelAndCode(String label, String code) {
+        return read(() -> {
+            final MonarcReferentials referentials = searchReferentialByLabel(label);
+            return referentials == null ? null
+                    : measuresByCode.view(code).stream()
+                            .filter(e -> e.getReferential().equals(referentials.getUuid()))
+                            .findAny().orElse(null);
+        });
+    }
+
+    public List<MonarcMeasures> searchMeasuresByCode(String code) {
+        return read(() -> measuresByCode.get(code));
+    }
+
+    public List<MonarcSoaCategories> searchSoaCategoriesByReferential(String referential) {
+        return read(() -> monarcSoaCategories.stream().filter(o -> referential.equals(o.getReferential()))
+                .collect(Collectors.toList()));
+    }
+
+    public List<MonarcSoa> searchSoaByMeasureID(String measureId) {
+        return read(() -> soasByMeasureId.get(measureId));
+    }
+
+    public MonarcReferentials searchReferentialByLabel(String label) {
+        return read(() -> monarcReferentials.values().stream().filter(o -> o.isNameMatch(label)).findAny()
+                .orElse(null));
+    }
+
+    public List<MonarcMeasures> searchMeasuresByReferentialLabel(String label) {
+        return read(() -> {
+            final MonarcReferentials referentials = searchReferentialByLabel(label);
+            return referentials == null ? Collections.emptyList()
+                    : measuresByReferential.get(referentials.getUuid());
+        });
+    }
+
+    public List<MonarcSoa> getAllMonarcSoas() {
+        return monarcSoa;
+    }
+
+    public List<MonarcSoaScaleComment> getMonarcSoaScalesComments() {
+        return read(() -> new ArrayList<>(soaScaleCommentsByIndex));
+    }
+
+    public void setSoaScaleComments(List<MonarcSoaScaleComment> soaScaleComments) {
+        final long stamp = lockWrite();
+        try {
+            this.soaScaleComment = soaScaleComments.stream()
+                    .sorted((e1, e2) -> Integer.compare(e1.getScaleIndex(), e2.getScaleIndex()))
+                    .collect(Collectors.toMap(e -> e.getId() + "", Function.identity(), (e1, e2) -> e1));
+            this.monarcANR.setSoaScaleComment(this.soaScaleComment);
+            this.soaScaleCommentsByIndex = sortSoaScaleComments(this.soaScaleComment.values());
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    public MonarcRecSets searchRecSetsByLabel(String label) {
+        return read(() -> this.monarcRecSetsList.values().stream().filter(e -> e.isNameMatch(label)).findAny()
+                .orElse(null));
+    }
+
+    public List<MonarcRecs> searchRecsByRecSetsLabel(String label) {
+        return read(() -> {
+            final MonarcRecSets recSets = searchRecSetsByLabel(label);
+            if (recSets == null)
+                return Collections.emptyList();
+            return recsByRecommandationSet.get(recSets.getUuid());
+        });
+    }
+
+    public void removeIf(Predicate<? super MonarcRecs> filter) {
+        materializeAll();
+        final long stamp = lockWrite();
+        try {
+            final Set<MonarcRecs> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+            final MonarcIntSet instances = new MonarcIntSet();
+            for (Iterator<MonarcRecs> iterator = this.monarcRecsList.values().iterator(); iterator.hasNext();) {
+                final MonarcRecs recs = iterator.next();
+                if (!filter.test(recs))
+                    continue;
+                iterator.remove();
+                removed.add(recs);
+                for (int id : MonarcInstanceIds.instanceIds(recs.getParentInstanceId()))
+                    instances.add(id);
+            }
+            removeRecs(removed, instances);
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Implements a recommendation for a risk: the recommendation is added to the
+     * recos of the instances of the risk.
+     * 
+     * @param riskId The ID of the risk
+     * @param recs   The recommendation
+     * @return The recommendation implemented, created the first time
+     * @see #apply(MonarcRecsBatch)
+     */
+    public MonarcRecos createOrUpdate(int riskId, MonarcRecs recs) {
+        materializeAll();
+        final long stamp = lockWrite();
+        try {
+            final MonarcIntSet instances = new MonarcIntSet();
+            final RecsLinks links = new RecsLinks(new MonarcRecsBatchSummary(), instances);
+            final MonarcRecos recos = links.link(new LinkedRisk(riskId, monarcRiskList.get(riskId)), recs);
+            links.index();
+            markInstancesModified(instances);
+            return recos;
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Search the recommendations implemented for a risk.
+     * 
+     * @param riskId The ID of the risk
+     * @return A list with the MonarcRecos related to the risk
+     */
+    public List<MonarcRecos> searchRecosByRisk(int riskId) {
+        return read(() -> {
+            final Map<String, MonarcRecos> recos = this.recosByRisk.get(riskId + "");
+            return recos == null ? new ArrayList<>() : new ArrayList<>(recos.values());
+        });
+    }
+
+    public MonarcMethod getMethod() {
+        return this.monarcANR.getMethod();
+    }
+
+    public MonarcANR getANR() {
+        return this.monarcANR;
+    }
+
+    // endregion
+
+    // region Recommendation batches
+
+    /**
+     * Applies many changes of the recommendations at once, for instance the
+     * recommendations of a migration.
+     * 
+     * Each change only looks up the recommendations and risks it names, each risk
+     * once for the whole batch. The recos created are indexed once, with all the
+     * instances of their risks, the recommendations removed are removed from the
+     * indexes in a single pass over each of them, and the instances holding the
+     * recommendations changed are then updated once, whatever the number of
+     * changes made to their recommendations. Unlike
+     * {@link #removeIf(Predicate)}, the removals do not go through all the
+     * recommendations.
+     * 
+     * @param batch The changes to apply, in their order
+     * @return What the batch changed
+     */
+    public MonarcRecsBatchSummary apply(MonarcRecsBatch batch) {
+        materializeAll();
+        final long stamp = lockWrite();
+        try {
+            final MonarcRecsBatchSummary summary = new MonarcRecsBatchSummary();
+            final MonarcIntSet instances = new MonarcIntSet();
+            final Set<MonarcRecs> removedRecs = Collections.newSetFromMap(new IdentityHashMap<>());
+            final Set<MonarcRecos> removedRecos = Collections.newSetFromMap(new IdentityHashMap<>());
+            final RecsLinks links = new RecsLinks(summary, instances);
+
+            for (MonarcRecsBatch.Operation operation : batch.operations()) {
+                switch (operation.kind) {
+                case LINK:
+                    links.link(operation.riskId, operation.recs);
+                    break;
+                case UNLINK:
+                    final MonarcRecos recos = unlink(operation.riskId, operation.uuid, summary, instances);
+                    if (recos != null)
+                        removedRecos.add(recos);
+                    break;
+                case REMOVE:
+                    final MonarcRecs recs = monarcRecsList.remove(operation.uuid);
+                    if (recs == null) {
+                        summary.unchanged++;
+                        break;
+                    }
+                    summary.recsRemoved++;
+                    removedRecs.add(recs);
+                    for (int id : MonarcInstanceIds.instanceIds(recs.getParentInstanceId()))
+                        instances.add(id);
+                    break;
+                }
+            }
+
+            links.index();
+            if (!removedRecos.isEmpty())
+                recosByInstance.removeIf(removedRecos::contains);
+            removeRecs(removedRecs, instances);
+            summary.instances = instances.size();
+            return summary;
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes recommendations, already removed from the database, from the
+     * indexes and from the instances holding them, in a single pass over each
+     * index and over the given instances only. The instances are marked as
+     * changed.
+     * 
+     * @param removed   The removed recommendations
+     * @param instances The IDs of the instances holding them, or changed
+     *                  otherwise
+     */
+    private void removeRecs(Set<MonarcRecs> removed, MonarcIntSet instances) {
+        if (!removed.isEmpty()) {
+            recsByRecommandationSet.removeIf(removed::contains);
+            recsByInstance.removeIf(removed::contains);
+        }
+        for (PrimitiveIterator.OfInt ids = instances.iterator(); ids.hasNext();) {
+            final MonarcInstance instance = monarcData.get(ids.nextInt());
+            if (instance == null)
+                continue;
+            if (!removed.isEmpty())
+                instance.getRecs().values().removeIf(removed::contains);
+            instance.markModified();
+        }
+    }
+
+    /**
+     * Implements recommendations for risks, creating them in the recos the first
+     * time. Each risk is looked up once, and the recos created are indexed once,
+     * with all their parent instances, when {@link #index()} is called: the
+     * parents added to them meanwhile are not followed by the index one at a
+     * time.
+     */
+    private final class RecsLinks {
+
+        private final MonarcRecsBatchSummary summary;
+        private final MonarcIntSet instances;
+        // The risks linked so far, created by the first link given a risk ID
+        private MonarcIntMap<LinkedRisk> risks;
+        private final List<MonarcRecos> created = new ArrayList<>();
+
+        /**
+         * @param instances The IDs of the changed instances, to which the
+         *                  instances of the risks are added
+         */
+        RecsLinks(MonarcRecsBatchSummary summary, MonarcIntSet instances) {
+            this.summary = summary;
+            this.instances = instances;
+        }
+
+        /**
+         * Implements a recommendation for a risk, looking the risk up once for all
+         * the links.
+         * 
+         * @return The recommendation implemented
+         */
+        MonarcRecos link(int riskId, MonarcRecs recs) {
+            if (risks == null)
+                risks = new MonarcIntMap<>();
+            LinkedRisk risk = risks.get(riskId);
+            if (risk == null) {
+                risk = new LinkedRisk(riskId, monarcRiskList.get(riskId));
+                risks.put(riskId, risk);
+            }
+            return link(risk, recs);
+        }
+
+        /**
+         * Implements a recommendation for a risk.
+         * 
+         * @return The recommendation implemented
+         */
+        MonarcRecos link(LinkedRisk risk, MonarcRecs recs) {
+            MonarcRecos recos = monarcRecosList.get(recs.getUuid());
+            if (recos == null) {
+                recos = new MonarcRecos(recs);
+                recos.setChanges(MonarcDatabase.this::write);
+                monarcRecosList.put(recos.getUuid(), recos);
+                created.add(recos);
+                summary.created++;
+            }
+            // The write lock is held
+            if (!recos.getRelatedRisks().add(risk.key)) {
+                summary.unchanged++;
+                return recos;
+            }
+
+            recos.markModified();
+            summary.linked++;
+            recosByRisk.computeIfAbsent(risk.key, k -> new HashMap<>()).put(recos.getUuid(), recos);
+
+            // Exported in the recos of the instances of the risk
+            for (String parent : risk.parents)
+                recos.addParentInstance(parent);
+            if (!risk.changed) {
+                for (int id : risk.instanceIds)
+                    instances.add(id);
+                risk.changed = true;
+            }
+            return recos;
+        }
+
+        /**
+         * Indexes the recos created by the links, unless they were removed since.
+         */
+        void index() {
+            for (MonarcRecos recos : created) {
+                if (monarcRecosList.get(recos.getUuid()) == recos)
+                    recosByInstance.add(recos);
+            }
+            created.clear();
+        }
+    }
+
+    /**
+     * A risk linked to recommendations, with its parent instances.
+     */
+    private static final class LinkedRisk {
+
+        private final String key;
+        private final String[] parents;
+        private final int[] instanceIds;
+        // Set once the instances of the risk are counted as changed
+        private boolean changed;
+
+        LinkedRisk(int riskId, MonarcRisks risk) {
+            this.key = Integer.toString(riskId);
+            this.parents = risk == null ? new String[0] : risk.getParentInstanceId().toArray(new String[0]);
+            this.instanceIds = risk == null ? new int[0] : MonarcInstanceIds.instanceIds(risk.getParentInstanceId());
+        }
+    }
+
+    /**
+     * Removes a risk from the risks a recommendation is implemented for.
+     * 
+     * @param instances The IDs of the changed instances, to which the instances
+     *                  of the recommendation are added
+     * @return The recommendation if it is no longer implemented for any risk and
+     *         was removed from the recos, null otherwise
+     */
+    private MonarcRecos unlink(int riskId, String uuid, MonarcRecsBatchSummary summary, MonarcIntSet instances) {
+        final String riskKey = riskId + "";
+        final MonarcRecos recos = monarcRecosList.get(uuid);
+        if (recos == null || !recos.removeRelatedRisk(riskKey)) {
+            summary.unchanged++;
+            return null;
+        }
+
+        recos.markModified();
+        summary.unlinked++;
+        final Map<String, MonarcRecos> riskRecos = recosByRisk.get(riskKey);
+        if (riskRecos != null && riskRecos.remove(uuid) != null && riskRecos.isEmpty())
+            recosByRisk.remove(riskKey);
+        for (int id : MonarcInstanceIds.instanceIds(recos.getParentInstanceId()))
+            instances.add(id);
+
+        if (!recos.getRelatedRisks().isEmpty())
+            return null;
+        monarcRecosList.remove(uuid);
+        summary.recosRemoved++;
+        return recos;
+    }
+
+    // endregion
+
+    // region Comparison
+
+    /**
+     * Compares this database with a newer version of it, for instance the next
+     * export of the same ANR.
+     * 
+     * The instances, risks and consequences are matched by ID, and the threats,
+     * vulnerabilities, AMVs, measures and recommendations by UUID. An object of
+     * both databases is changed if one of its fields, as written in the Monarc
+     * JSON file, has another value. The fields of an instance are the ones of
+     * its "instance" element.
+     * 
+     * @param newer The newer database
+     * @return The objects added, removed and changed in the newer database
+     * @see MonarcDiff
+     */
+    public MonarcDiff diff(MonarcDatabase newer) {
+        materializeAll();
+        newer.materializeAll();
+
+        return read(() -> newer.read(() -> {
+            final MonarcDiff diff = new MonarcDiff();
+            diff.compare(MonarcEntityType.INSTANCE, monarcData, newer.monarcData, MonarcInstance::getInstance);
+            diff.compare(MonarcEntityType.RISK, monarcRiskList, newer.monarcRiskList, Function.identity());
+            diff.compare(MonarcEntityType.CONSEQUENCE, consequencesById(), newer.consequencesById(),
+                    Function.identity());
+            diff.compare(MonarcEntityType.THREAT, monarcThreatList, newer.monarcThreatList, Function.identity());
+            diff.compare(MonarcEntityType.VULNERABILITY, monarcVulnerabilityList, newer.monarcVulnerabilityList,
+                    Function.identity());
+            diff.compare(MonarcEntityType.AMV, monarcAMVList, newer.monarcAMVList, Function.identity());
+            diff.compare(MonarcEntityType.MEASURE, monarcMeasures, newer.monarcMeasures, Function.identity());
+            diff.compare(MonarcEntityType.RECOMMENDATION, monarcRecsList, newer.monarcRecsList,
+                    Function.identity());
+            return diff;
+        }));
+    }
+
+    private Map<Integer, MonarcConsequences> consequencesById() {
+        final MonarcIntMap<MonarcConsequences> consequences = new MonarcIntMap<>();
+        for (MonarcInstance instance : monarcData.values()) {
+            for (MonarcConsequences consequence : instance.getConsequences().values())
+                consequences.put(consequence.getId(), consequence);
+        }
+        return consequences;
+    }
+
+    // endregion
+
+    // region Merge
+
+    /**
+     * Merges several ANRs into one Monarc JSON file, and loads it.
+     * 
+     * The instances of all the databases are written, in order. An instance,
+     * risk or consequence keeps its ID unless a database merged before holds
+     * one with the same ID, in which case it gets a new ID, greater than all the
+     * IDs of the databases, and the parent and root instances and the
+     * recommendations of the risks referring to it are updated. The threats,
+     * vulnerabilities, AMVs, measures, referentials and threats of the method
+     * with the same UUID are merged, the first database holding one of them
+     * giving its values. The other sections of the file (scales, method,
+     * metadata...) are the ones of the first database.
+     * 
+     * The IDs of the operational risks, themes and scales are kept as they are.
+     * The values of each database are brought up to date first, as before any
+     * export: the C, I and D values and the cached risk values affected by its
+     * changes are computed, as {@link #refreshDependencyValues()} does. The
+     * databases are not changed otherwise, and their changes, including these
+     * values, are still tracked for the next {@link #saveChangesToJSON(String)}.
+     * 
+     * @param outputPath The path of the file to write
+     * @param databases  The databases to merge
+     * @return The merged database, loaded from the written file
+     * @throws IOException
+     */
+    public static MonarcDatabase merge(String outputPath, MonarcDatabase... databases) throws IOException {
+        return merge(outputPath, Arrays.asList(databases));
+    }
+
+    /**
+     * Merges several ANRs into one Monarc JSON file, and loads it, as
+     * {@link #merge(String, MonarcDatabase...)}.
+     * 
+     * @param outputPath The path of the file to write
+     * @param databases  The databases to merge
+     * @return The merged database, loaded from the written file
+     * @throws IOException
+     */
+    public static MonarcDatabase merge(String outputPath, List<MonarcDatabase> databases) throws IOException {
+        if (databases.isEmpty())
+            throw new IllegalArgumentException("No database to merge");
+        int maxInstanceId = 0;
+        int maxRiskId = 0;
+        int maxConsequenceId = 0;
+        for (MonarcDatabase database : databases) {
+            database.materializeAll();
+            maxInstanceId = Math.max(maxInstanceId, database.read(() -> database.monarcData.keySet().stream()
+                    .mapToInt(Integer::intValue).max().orElse(0)));
+            maxRiskId = Math.max(maxRiskId, database.read(() -> database.monarcRiskList.keySet().stream()
+                    .mapToInt(Integer::intValue).max().orElse(0)));
+            maxConsequenceId = Math.max(maxConsequenceId, database.getMaxConsequencesId());
+        }
+        MonarcJsonWriter.write(Paths.get(outputPath), false,
+                new MonarcMerge(databases, maxInstanceId, maxRiskId, maxConsequenceId));
+        return new MonarcDatabase(outputPath, null, MonarcStringPool.create());
+    }
+
+    /**
+     * Gives the ANR element, as exported, to the merge, after computing the
+     * values affected by the changes. The changes made since the last export are
+     * still tracked afterwards.
+     */
+    void export(MonarcMerge.AnrConsumer consumer) throws IOException {
+        materializeAll();
+        final long stamp = lockWrite();
+        try {
+            consumer.accept(prepareExport());
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    // endregion
+
+    // region JSON update functions
+
+    /**
+     * Does nothing. This function has never changed the database: it only went
+     * through the instances of the file looking for their threats.
+     * 
+     * @param threatUUID The UUID of the threat
+     * @param newValue   The new value of the threat
+     * @deprecated Set the qualification of the threat with
+     *             {@link MonarcThreats#setQualification(int)} and the threat
+     *             rate of its risks, found with
+     *             {@link #searchRiskByThreat(String)}, with
+     *             {@link MonarcRisks#setThreatRate(int)}, within
+     *             {@link #update(Consumer)}.
+     */
+    @Deprecated
+    public void updateThreatValue(String threatUUID, String newValue) {
+    }
+
+    /**
+     * Writes the Monarc JSON file this database was loaded from to a new file,
+     * as it was before any change. The source file is copied token by token, so
+     * it is never held in memory as a whole.
+     * 
+     * The source file is read again when this function is called, it is not
+     * kept in memory since the database was loaded: if the file was changed
+     * since, the new file is written, and if it was deleted, an IOException is
+     * thrown. A database restored from a snapshot has no source file, an
+     * IOException is thrown as well.
+     * 
+     * @param outputPath The path of the file to write
+     * @throws IOException
+     */
+    public void saveMapToJson(String outputPath) throws IOException {
+        materializeAll();
+        MonarcJsonWriter.write(Paths.get(outputPath), false, (mapper, generator) -> {
+            try (JsonParser parser = openSource()) {
+                parser.nextToken();
+                generator.copyCurrentStructure(parser);
+            }
+        });
+    }
+
+    /**
+     * Exports the database as a Monarc JSON file.
+     * 
+     * The JSON is streamed to a temporary file which replaces the output file
+     * once complete, so a failed export never leaves a truncated file behind.
+     * 
+     * @param outputPath The path of the file to write
+     * @throws IOException
+     */
+    public void saveInstancesToJSON(String outputPath) throws IOException {
+        saveInstancesToJSON(outputPath, false);
+    }
+
+    /**
+     * Exports the database as a Monarc JSON file, optionally compressed with
+     * gzip.
+     * 
+     * @param outputPath The path of the file to write
+     * @param compress   true to compress the file with gzip
+     * @throws IOException
+     * @see #saveInstancesToJSON(String)
+     */
+    public void saveInstancesToJSON(String outputPath, boolean compress) throws IOException {
+        final long stamp = lockWrite();
+        try {
+            MonarcJsonWriter.write(Paths.get(outputPath), compress, MonarcJsonWriter.value(prepareExport()));
+            exported();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Exports the database as Monarc JSON, streamed in UTF-8 to the given
+     * output. The output is flushed but not closed.
+     * 
+     * @param out The stream to write to
+     * @throws IOException
+     */
+    public void saveInstancesToJSON(OutputStream out) throws IOException {
+        final long stamp = lockWrite();
+        try {
+            MonarcJsonWriter.write(out, MonarcJsonWriter.value(prepareExport()));
+            exported();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Exports the database as Monarc JSON, streamed in UTF-8 to the given
+     * channel. The channel is not closed.
+     * 
+     * @param channel The channel to write to
+     * @throws IOException
+     */
+    public void saveInstancesToJSON(WritableByteChannel channel) throws IOException {
+        saveInstancesToJSON(Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Writes a snapshot of the database to a binary Smile file, which is
+     * restored with {@link #loadSnapshot(String)} without reading the Monarc
+     * JSON format again.
+     * 
+     * @param outputPath The path of the file to write
+     * @throws IOException
+     * @see #saveSnapshot(String, MonarcSnapshotFormat)
+     */
+    public void saveSnapshot(String outputPath) throws IOException {
+        saveSnapshot(outputPath, MonarcSnapshotFormat.SMILE);
+    }
+
+    /**
+     * Writes a snapshot of the database to a binary file.
+     * 
+     * The snapshot holds the objects of the database as they are, with the tree
+     * of instances written as the IDs of the children of each instance, behind a
+     * header with the version of the database model
+     * ({@link MonarcInstance#MONARC_DATABASE_VERSION}). A snapshot can only be
+     * restored by the same version.
+     * 
+     * Saving a snapshot does not change the database: the values computed from
+     * the changes made since the last computation are not brought up to date, the
+     * snapshot holds them as they are and the restored database computes them
+     * again, and the changes are still tracked for the next
+     * {@link #saveChangesToJSON(String)}.
+     * 
+     * @param outputPath The path of the file to write
+     * @param format     The binary encoding of the file
+     * @throws IOException
+     */
+    public void saveSnapshot(String outputPath, MonarcSnapshotFormat format) throws IOException {
+        materializeAll();
+        final long stamp = lockWrite();
+        try {
+            final MonarcSnapshot.Model model = new MonarcSnapshot.Model();
+            model.themes = monarcThemesList;
+            model.threats = monarcThreatList;
+            model.amvThreats = monarcAMVThreatList;
+            model.vulnerabilities = monarcVulnerabilityList;
+            model.referentials = monarcReferentials;
+            model.measures = monarcMeasures;
+            model.amvs = monarcAMVList;
+            model.assets = monarcAssetList;
+            model.objects = monarcObjectsList;
+            model.scales = scales;
+            model.scalesComments = scalesComments;
+            model.soaScaleComment = soaScaleComment;
+            model.soaCategories = monarcSoaCategories;
+            model.soas = monarcSoa;
+            model.operationalRiskScales = monarcOperationalRiskScales;
+            model.recSets = monarcRecSetsList;
+            model.recs = monarcRecsList;
+            model.recos = monarcRecosList;
+            model.risks = monarcRiskList;
+            model.instances = monarcData;
+            model.children = new HashMap<>();
+            for (MonarcInstance instance : monarcData.values()) {
+                if (!instance.getChildren().isEmpty())
+                    model.children.put(instance.getId(),
+                            instance.getChildren().keySet().stream().mapToInt(Integer::intValue).toArray());
+            }
+            model.anr = monarcANR;
+            model.exportedTree = exportedTree;
+            MonarcSnapshot.write(Paths.get(outputPath), format, model);
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Writes the changes made to the instances since the database was loaded or
+     * last exported, as a JSON Patch (RFC 6902) of the file it was loaded from
+     * or last exported to. Exporting the changes only takes a time proportional
+     * to the number of changed instances, instead of the whole ANR.
+     * 
+     * The values changed through the setters of the instances, consequences,
+     * risks, threats, vulnerabilities, AMVs, recommendations and recommendation
+     * sets are tracked, as well as the values computed from them by
+     * {@link #refreshDependencyValues()}, which is called first. The values are
+     * computed when the file is loaded and the changes are tracked from them: a
+     * value of the file that was out of date is not a change, and a database
+     * exported unchanged writes an empty patch. Each instance
+     * holding one of the changed objects is replaced, except for its children. If
+     * instances were added, removed or moved, the whole "instances" element is
+     * replaced. The patch also replaces the "method" element if one of its
+     * threats changed.
+     * 
+     * Objects moved to other instances through their parent instance IDs, and the
+     * changes made to the other sections of the file, are not tracked: use
+     * {@link #saveInstancesToJSON(String)} after such changes.
+     * 
+     * The changes are no longer tracked once written, the next patch applies to
+     * the file patched with this one.
+     * 
+     * @param outputPath The path of the patch to write
+     * @return The number of replaced elements, 0 if nothing changed
+     * @throws IOException
+     */
+    public int saveChangesToJSON(String outputPath) throws IOException {
+        final long stamp = lockWrite();
+        try {
+            final MonarcJsonPatch patch = prepareChanges();
+            MonarcJsonWriter.write(Paths.get(outputPath), false, patch);
+            exported();
+            return patch.size();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Writes the changes made to the instances since the database was loaded or
+     * last exported, as {@link #saveChangesToJSON(String)}, streamed in UTF-8 to
+     * the given output. The output is flushed but not closed.
+     * 
+     * @param out The stream to write to
+     * @return The number of replaced elements, 0 if nothing changed
+     * @throws IOException
+     */
+    public int saveChangesToJSON(OutputStream out) throws IOException {
+        final long stamp = lockWrite();
+        try {
+            final MonarcJsonPatch patch = prepareChanges();
+            MonarcJsonWriter.write(out, patch);
+            exported();
+            return patch.size();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Updates the computed values and finds the elements of the exported file
+     * to replace.
+     * 
+     * @return The patch replacing the changed elements
+     */
+    private MonarcJsonPatch prepareChanges() {
+        final MonarcANR anr = prepareExport();
+        final MonarcJsonPatch patch = new MonarcJsonPatch();
+
+        if (!Arrays.equals(exportedTree, instanceTree()))
+            patch.replace("/instances", anr.getInstances());
+        else {
+            final MonarcIntSet modified = modifiedInstances();
+            for (MonarcInstance instance : monarcData.values()) {
+                if (modified.contains(instance.getId()))
+                    patch.replaceSections(exportPath(instance), instance);
+            }
+        }
+
+        if (monarcAMVThreatList.values().stream().anyMatch(MonarcAMVThreats::isModified))
+            patch.replace("/method", anr.getMethod());
+        return patch;
+    }
+
+    /**
+     * @return The IDs of the instances holding an object changed since the last
+     *         export
+     */
+    private MonarcIntSet modifiedInstances() {
+        final MonarcIntSet modified = new MonarcIntSet();
+        for (MonarcInstance instance : monarcData.values()) {
+            if (instance.isModified()
+                    || instance.getConsequences().values().stream().anyMatch(MonarcConsequences::isModified))
+                modified.add(instance.getId());
+        }
+        addModified(modified, monarcRiskList.values(), MonarcRisks::isModified, MonarcRisks::getParentInstanceId);
+        addModified(modified, monarcThreatList.values(), MonarcThreats::isModified,
+                MonarcThreats::getParentInstanceId);
+        addModified(modified, monarcVulnerabilityList.values(), MonarcVulnerabilities::isModified,
+                MonarcVulnerabilities::getParentInstanceId);
+        addModified(modified, monarcAMVList.values(), MonarcAMV::isModified, MonarcAMV::getParentInstanceId);
+        addModified(modified, monarcRecsList.values(), MonarcRecs::isModified, MonarcRecs::getParentInstanceId);
+        addModified(modified, monarcRecosList.values(), MonarcRecos::isModified, MonarcRecos::getParentInstanceId);
+        addModified(modified, monarcRecSetsList.values(), MonarcRecSets::isModified,
+                MonarcRecSets::getParentInstanceId);
+        return modified;
+    }
+
+    private static <T> void addModified(MonarcIntSet modified, Collection<T> objects, Predicate<T> isModified,
+            Function<T, Collection<String>> parents) {
+        for (T object : objects) {
+            if (isModified.test(object)) {
+                for (int id : MonarcInstanceIds.instanceIds(parents.apply(object)))
+                    modified.add(id);
+            }
+        }
+    }
+
+    private void markInstancesModified(MonarcIntSet ids) {
+        for (PrimitiveIterator.OfInt iterator = ids.iterator(); iterator.hasNext();) {
+            final MonarcInstance instance = monarcData.get(iterator.nextInt());
+            if (instance != null)
+                instance.markModified();
+        }
+    }
+
+    /**
+     * @return The JSON pointer of the element of an instance in the exported
+     *         file, below the elements of its ancestors
+     */
+    private String exportPath(MonarcInstance instance) {
+        final Deque<Integer> ids = new ArrayDeque<>();
+        for (MonarcInstance element = instance; element != null; element = element.getParent() == 0 ? null
+                : monarcData.get(element.getParent()))
+            ids.push(element.getId());
+        final StringBuilder path = new StringBuilder("/instances/").append(ids.pop());
+        while (!ids.isEmpty())
+            path.append("/children/").append(ids.pop());
+        return path.toString();
+    }
+
+    /**
+     * @return The ID and the parent ID of each instance, in the order of the
+     *         instances
+     */
+    private int[] instanceTree() {
+        final int[] tree = new int[monarcData.size() * 2];
+        int i = 0;
+        for (MonarcInstance instance : monarcData.values()) {
+            tree[i++] = instance.getId();
+            tree[i++] = instance.getParent();
+        }
+        return tree;
+    }
+
+    /**
+     * Starts tracking the changes again, from the state just exported.
+     */
+    private void exported() {
+        for (MonarcInstance instance : monarcData.values()) {
+            instance.clearModified();
+            instance.getConsequences().values().forEach(MonarcConsequences::clearModified);
+        }
+        monarcRiskList.values().forEach(MonarcRisks::clearModified);
+        monarcThreatList.values().forEach(MonarcThreats::clearModified);
+        monarcVulnerabilityList.values().forEach(MonarcVulnerabilities::clearModified);
+        monarcAMVList.values().forEach(MonarcAMV::clearModified);
+        monarcRecsList.values().forEach(MonarcRecs::clearModified);
+        monarcRecosList.values().forEach(MonarcRecos::clearModified);
+        monarcRecSetsList.values().forEach(MonarcRecSets::clearModified);
+        monarcAMVThreatList.values().forEach(MonarcAMVThreats::clearModified);
+        exportedTree = instanceTree();
+    }
+
+    /**
+     * Computes the values of the file just read, as they are before each
+     * export, and starts tracking the changes from them. The values of the file
+     * differing from the computed ones are not changes made to the database, a
+     * database exported right after being loaded writes an empty patch.
+     */
+    private void exportedWhenLoaded() {
+        riskEngine.update();
+        exported();
+    }
+
+    /**
+     * Updates the computed values and rebuilds the tree of instances with all
+     * the objects they hold, as they are exported.
+     * 
+     * @return The ANR element to export
+     */
+    private MonarcANR prepareExport() {
+        materializeAll();
+        // The index of the objects does not follow their parent instances, which
+        // are kept in a list
+        this.objectsByInstance.build(monarcObjectsList.values());
+
+        this.riskEngine.update();
+
+        return exportTree();
+    }
+
+    /**
+     * Rebuilds the tree of instances with all the objects they hold, as they are
+     * exported, without computing the values.
+     * 
+     * @return The ANR element to export
+     */
+    private MonarcANR exportTree() {
+        for (MonarcInstance instanceElement : monarcData.values()) {
+            final int instanceId = instanceElement.getId();
+
+            List<MonarcAMV> instanceAMVs = amvsByInstance.get(instanceId);
+            List<MonarcVulnerabilities> instanceVulnerabilities = vulnerabilitiesByInstance.get(instanceId);
+            List<MonarcThreats> instanceThreats = threatsByInstance.get(instanceId);
+            List<MonarcRisks> instanceRisks = risksByInstance.get(instanceId);
+            List<MonarcThemes> instanceThemes = themesByInstance.get(instanceId);
+            List<MonarcRecSets> instanceRecSets = recSetsByInstance.get(instanceId);
+
+            Map<String, MonarcRecs> instanceRecs = recsByInstance.view(instanceId).stream()
+                    .collect(Collectors.toMap(MonarcRecs::getUuid, Function.identity()));
+
+            // Recos of the instance by ID of the instance risks they are related to
+            final Set<String> instanceRiskIds = instanceRisks.stream().map(e -> e.getId() + "")
+                    .collect(Collectors.toSet());
+            Map<String, Map<String, MonarcRecos>> finalInstanceRecos = new HashMap<>();
+
+            for (MonarcRecos recos : recosByInstance.view(instanceId)) {
+                for (String riskId : recos.getRelatedRisks()) {
+                    if (instanceRiskIds.contains(riskId))
+                        finalInstanceRecos.computeIfAbsent(riskId, k -> new HashMap<>()).put(recos.getUuid(), recos);
+                }
+            }
+
+            finalInstanceRecos.values().stream().flatMap(e -> e.values().stream())
+                    .forEach(v -> instanceRecs.remove(v.getUuid()));
+
+            instanceElement.addAllThreats(instanceThreats);
+            instanceElement.addAllVulnerabilities(instanceVulnerabilities);
+            instanceElement.addALLAMVs(instanceAMVs);
+            instanceElement.addAllRisks(instanceRisks);
+            instanceElement.addAllRecSets(instanceRecSets);
+            instanceElement.addAllRecs(instanceRecs.values());
+            instanceElement.addAllRecos(finalInstanceRecos);
+
+            MonarcObject objectToAdd = objectsByInstance.first(instanceId);
+            if (objectToAdd != null) {
+                objectToAdd.getAsset().addAllAMVs(instanceAMVs);
+                objectToAdd.getAsset().addAllThreats(instanceThreats);
+                objectToAdd.getAsset().addAllVulnerabilities(instanceVulnerabilities);
+                objectToAdd.getAsset().addAllThemes(instanceThemes);
+            }
+            instanceElement.addObject(objectToAdd);
+
+        }
+
+        // Add all the threats to their parent instances
+        for (MonarcThreats threat : monarcThreatList.values()) {
+            for (int parentInstance : MonarcInstanceIds.instanceIds(threat.getParentInstanceId())) {
+                monarcData.get(parentInstance).addThreats(threat);
+            }
+        }
+
+        // Rebuild the tree of instances from their parent IDs, the upper levels of
+        // the tree being the instances that do not have a parent.
+        Map<Integer, MonarcInstance> newInstacesTree = buildInstancesTree();
+
+        this.monarcANR.setInstances(newInstacesTree);
+        this.monarcANR.getMethod().setMethodThreat(monarcAMVThreatList);
+
+        return this.monarcANR;
+    }
+
+    /**
+     * Adds to the given instance all its descendants, found by their parent ID.
+     * 
+     * @param treeBase  The upper levels of the tree, not used
+     * @param newParent The instance whose branches should be populated
+     * @deprecated The tree of instances is built again from the parent IDs by
+     *             every export, see {@link #saveInstancesToJSON(String)}
+     */
+    @Deprecated
+    public void populateTree(Map<Integer, MonarcInstance> treeBase, MonarcInstance newParent) {
+        materializeAll();
+        final long stamp = lockWrite();
+        try {
+            populateTree(newParent, getChildrenByParent(), new HashSet<>());
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Builds the tree of instances from their parent IDs, in a time linear in
+     * the number of instances.
+     * 
+     * Every instance is reached from exactly one parent. An instance whose
+     * parent does not exist, or which is part of a cycle of parents, can never
+     * be reached from the upper levels of the tree. Such instances are skipped:
+     * they are only exported as the child of the instance they were read under
+     * in the file, if any.
+     * 
+     * @return The upper levels of the tree, by instance ID
+     */
+    private Map<Integer, MonarcInstance> buildInstancesTree() {
+        final Map<Integer, List<MonarcInstance>> childrenByParent = getChildrenByParent();
+        final Map<Integer, MonarcInstance> tree = new HashMap<>();
+        final Set<Integer> linked = new HashSet<>(monarcData.size());
+
+        for (MonarcInstance instance : childrenByParent.getOrDefault(0, Collections.emptyList())) {
+            tree.put(instance.getId(), instance);
+            populateTree(instance, childrenByParent, linked);
+        }
+
+        return tree;
+    }
+
+    /**
+     * Groups the instances by their parent ID, in a single pass.
+     * 
+     * @return The children of each instance, by parent ID. Upper level instances
+     *         are under the ID 0.
+     */
+    private Map<Integer, List<MonarcInstance>> getChildrenByParent() {
+        final Map<Integer, List<MonarcInstance>> childrenByParent = new HashMap<>();
+        for (MonarcInstance instance : monarcData.values())
+            childrenByParent.computeIfAbsent(instance.getParent(), k -> new ArrayList<>()).add(instance);
+        return childrenByParent;
+    }
+
+    /**
+     * Links all the descendants of an instance to their parent, without
+     * recursion so that deep trees cannot overflow the stack.
+     * 
+     * @param root             The instance whose branches should be populated
+     * @param childrenByParent The children of each instance, by parent ID
+     * @param linked           The IDs of the instances already in the tree,
+     *                         updated by this function
+     */
+    private void populateTree(MonarcInstance root, Map<Integer, List<MonarcInstance>> childrenByParent,
+            Set<Integer> linked) {
+        final Deque<MonarcInstance> pending = new ArrayDeque<>();
+        linked.add(root.getId());
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            final MonarcInstance parent = pending.pop();
+            for (MonarcInstance child : childrenByParent.getOrDefault(parent.getId(), Collections.emptyList())) {
+                // Each instance is linked once, so that a cycle of parents cannot be followed
+                // endlessly
+                if (!linked.add(child.getId()))
+                    continue;
+                parent.addChild(child);
+                pending.push(child);
+            }
+        }
+    }
+
+    public void createNewAssetFile(MonarcObject newObject, String outputPath) throws IOException {
+        materializeAll();
+        MonarcJsonWriter.write(Paths.get(outputPath), false, MonarcJsonWriter.value(newObject));
+    }
+
+    /**
+     * Computes the C, I and D values of all the instances, from their
+     * consequences and their parents, and the cached values of all the risks
+     * (cacheMaxRisk and cacheTargetedRisk) from the values of their instances.
+     * 
+     * The computation goes once through the instances and once through the
+     * risks. Afterwards, the changes made to the C, I, D values of the
+     * consequences and to the rates of the risks are tracked, and
+     * {@link #refreshDependencyValues()} only computes what they affect.
+     */
+    public void uppdateDependencyValue() {
+        materializeAll();
+        final long stamp = lockWrite();
+        try {
+            riskEngine.computeAll();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Computes the values affected by the changes made to the C, I, D values of
+     * the consequences and to the rates, kind of measure and instances of the
+     * risks since the last computation: the instances below the changed
+     * consequences and the risks of the instances whose values changed.
+     * 
+     * All the values are computed if instances, consequences or risks have been
+     * added or removed, as far as {@link #buildIndexes()} has been called since.
+     * This is done before every export.
+     */
+    public void refreshDependencyValues() {
+        materializeAll();
+        final long stamp = lockWrite();
+        try {
+            riskEngine.update();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    // endregion
+}
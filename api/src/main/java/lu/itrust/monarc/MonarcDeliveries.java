@@ -14,6 +14,12 @@ public class MonarcDeliveries {
     private String respSmile;
     private String summaryEvalRisk;
 
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcDeliveries() {
+    }
+
     /**
      * Constructs a Monarc delivery with the specified attributes.
      *
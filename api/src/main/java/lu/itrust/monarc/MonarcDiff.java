@@ -0,0 +1,180 @@
+package lu.itrust.monarc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The differences between two databases, for instance two successive exports
+ * of the same ANR.
+ *
+ * The objects of each type are matched by their ID or UUID (see
+ * {@link MonarcEntityType}), through the maps of the databases, and an object
+ * is changed if it is not written the same way in the Monarc JSON file. Each
+ * object is written once, and the two versions of an object are only read
+ * back field by field when they are written differently, so the comparison
+ * takes a time proportional to the size of the databases.
+ *
+ * Only the values of the objects themselves are compared: an object moved to
+ * other instances, without any other change, is not changed.
+ *
+ * @see MonarcDatabase#diff(MonarcDatabase)
+ */
+public final class MonarcDiff {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final List<MonarcChange> changes = new ArrayList<>();
+    private final Map<MonarcEntityType, List<MonarcChange>> changesByType = new EnumMap<>(MonarcEntityType.class);
+
+    MonarcDiff() {
+    }
+
+    /**
+     * Compares the objects of one type.
+     *
+     * @param type    The type of the objects.
+     * @param before  The objects of the older database, by ID or UUID.
+     * @param after   The objects of the newer database, by ID or UUID.
+     * @param content The function giving the values of an object, as written in
+     *                the Monarc JSON file.
+     */
+    <K, V> void compare(MonarcEntityType type, Map<K, V> before, Map<K, V> after,
+            Function<? super V, ?> content) {
+        for (Map.Entry<K, V> entry : before.entrySet()) {
+            final V newEntity = after.get(entry.getKey());
+            if (newEntity == null) {
+                add(new MonarcChange(type, MonarcChange.Kind.REMOVED, entry.getKey(), entry.getValue(), null,
+                        Collections.emptyList()));
+                continue;
+            }
+            if (newEntity == entry.getValue())
+                continue;
+
+            final byte[] oldContent = write(content.apply(entry.getValue()));
+            final byte[] newContent = write(content.apply(newEntity));
+            if (Arrays.equals(oldContent, newContent))
+                continue;
+            // Written differently, but the fields may only be in another order
+            final List<MonarcFieldChange> fieldChanges = fieldChanges(read(oldContent), read(newContent));
+            if (!fieldChanges.isEmpty())
+                add(new MonarcChange(type, MonarcChange.Kind.CHANGED, entry.getKey(), entry.getValue(), newEntity,
+                        fieldChanges));
+        }
+
+        for (Map.Entry<K, V> entry : after.entrySet()) {
+            if (!before.containsKey(entry.getKey()))
+                add(new MonarcChange(type, MonarcChange.Kind.ADDED, entry.getKey(), null, entry.getValue(),
+                        Collections.emptyList()));
+        }
+    }
+
+    private void add(MonarcChange change) {
+        changes.add(change);
+        changesByType.computeIfAbsent(change.getType(), k -> new ArrayList<>()).add(change);
+    }
+
+    private static byte[] write(Object content) {
+        try {
+            return MAPPER.writeValueAsBytes(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static JsonNode read(byte[] content) {
+        try {
+            return MAPPER.readTree(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return The fields of the old object whose value changed or which were
+     *         removed, then the fields added to the new object.
+     */
+    private static List<MonarcFieldChange> fieldChanges(JsonNode oldContent, JsonNode newContent) {
+        final List<MonarcFieldChange> fieldChanges = new ArrayList<>();
+        for (Iterator<Map.Entry<String, JsonNode>> fields = oldContent.fields(); fields.hasNext();) {
+            final Map.Entry<String, JsonNode> field = fields.next();
+            final JsonNode newValue = newContent.get(field.getKey());
+            if (!Objects.equals(field.getValue(), newValue))
+                fieldChanges.add(new MonarcFieldChange(field.getKey(), field.getValue(), newValue));
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> fields = newContent.fields(); fields.hasNext();) {
+            final Map.Entry<String, JsonNode> field = fields.next();
+            if (!oldContent.has(field.getKey()))
+                fieldChanges.add(new MonarcFieldChange(field.getKey(), null, field.getValue()));
+        }
+        return fieldChanges;
+    }
+
+    /**
+     * @return True if the databases hold the same objects, with the same values.
+     */
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * @return The objects added, removed or changed, by type of object in the
+     *         order of {@link MonarcEntityType}.
+     */
+    public List<MonarcChange> getChanges() {
+        return Collections.unmodifiableList(changes);
+    }
+
+    /**
+     * @param type The type of the objects.
+     * @return The objects of the given type added, removed or changed.
+     */
+    public List<MonarcChange> getChanges(MonarcEntityType type) {
+        final List<MonarcChange> typeChanges = changesByType.get(type);
+        return typeChanges == null ? Collections.emptyList() : Collections.unmodifiableList(typeChanges);
+    }
+
+    /**
+     * @param type The type of the objects.
+     * @param kind Whether the objects were added, removed or changed.
+     * @return The objects of the given type added, removed or changed.
+     */
+    public List<MonarcChange> getChanges(MonarcEntityType type, MonarcChange.Kind kind) {
+        final List<MonarcChange> typeChanges = new ArrayList<>();
+        for (MonarcChange change : getChanges(type)) {
+            if (change.getKind() == kind)
+                typeChanges.add(change);
+        }
+        return typeChanges;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder summary = new StringBuilder();
+        for (MonarcEntityType type : MonarcEntityType.values()) {
+            final List<MonarcChange> typeChanges = getChanges(type);
+            if (typeChanges.isEmpty())
+                continue;
+            final int[] counts = new int[MonarcChange.Kind.values().length];
+            for (MonarcChange change : typeChanges)
+                counts[change.getKind().ordinal()]++;
+            if (summary.length() > 0)
+                summary.append(", ");
+            summary.append(type).append(": ").append(counts[MonarcChange.Kind.ADDED.ordinal()]).append(" added, ")
+                    .append(counts[MonarcChange.Kind.REMOVED.ordinal()]).append(" removed, ")
+                    .append(counts[MonarcChange.Kind.CHANGED.ordinal()]).append(" changed");
+        }
+        return summary.length() == 0 ? "no changes" : summary.toString();
+    }
+}
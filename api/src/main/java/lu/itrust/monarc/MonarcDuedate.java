@@ -8,6 +8,12 @@ public class MonarcDuedate {
     private int timezone_type;
     private String timezone;
 
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcDuedate() {
+    }
+
     /**
      * Constructs a MonarcDuedate object with the specified date, timezone type, and timezone.
      *
@@ -0,0 +1,48 @@
+package lu.itrust.monarc;
+
+/**
+ * The Monarc objects compared by {@link MonarcDatabase#diff(MonarcDatabase)},
+ * with the field identifying each of them across databases.
+ */
+public enum MonarcEntityType {
+
+    /**
+     * The instances, identified by ID.
+     */
+    INSTANCE,
+
+    /**
+     * The information risks of the instances, identified by ID.
+     */
+    RISK,
+
+    /**
+     * The consequences of the instances, identified by ID.
+     */
+    CONSEQUENCE,
+
+    /**
+     * The threats, identified by UUID.
+     */
+    THREAT,
+
+    /**
+     * The vulnerabilities, identified by UUID.
+     */
+    VULNERABILITY,
+
+    /**
+     * The AMVs, identified by UUID.
+     */
+    AMV,
+
+    /**
+     * The measures, identified by UUID.
+     */
+    MEASURE,
+
+    /**
+     * The recommendations, identified by UUID.
+     */
+    RECOMMENDATION
+}
@@ -0,0 +1,49 @@
+package lu.itrust.monarc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A field of a Monarc object whose value differs between two databases.
+ *
+ * @see MonarcChange#getFieldChanges()
+ */
+public final class MonarcFieldChange {
+
+    private final String field;
+    private final JsonNode oldValue;
+    private final JsonNode newValue;
+
+    MonarcFieldChange(String field, JsonNode oldValue, JsonNode newValue) {
+        this.field = field;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    /**
+     * @return The name of the field, as written in the Monarc JSON file.
+     */
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * @return The value of the field in the older database, or null if the
+     *         object had no such field.
+     */
+    public JsonNode getOldValue() {
+        return oldValue;
+    }
+
+    /**
+     * @return The value of the field in the newer database, or null if the
+     *         object has no such field anymore.
+     */
+    public JsonNode getNewValue() {
+        return newValue;
+    }
+
+    @Override
+    public String toString() {
+        return field + ": " + oldValue + " -> " + newValue;
+    }
+}
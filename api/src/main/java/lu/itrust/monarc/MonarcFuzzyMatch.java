@@ -0,0 +1,55 @@
+package lu.itrust.monarc;
+
+/**
+ * An object found by a similarity search, with the text that matched and how
+ * similar it is to the searched text.
+ *
+ * @param <T> The type of the object found.
+ * @see MonarcDatabase#searchSimilarThreats(String, int)
+ */
+public final class MonarcFuzzyMatch<T> {
+
+    private final T element;
+    private final double score;
+    private final int language;
+    private final String text;
+
+    MonarcFuzzyMatch(T element, double score, int language, String text) {
+        this.element = element;
+        this.score = score;
+        this.language = language;
+        this.text = text;
+    }
+
+    /**
+     * @return The object found.
+     */
+    public T getElement() {
+        return element;
+    }
+
+    /**
+     * Returns the similarity between the searched text and the matched text,
+     * from 0 (nothing in common) to 1 (same words, ignoring the case, the
+     * accents and the punctuation).
+     *
+     * @return The similarity score.
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * @return The language code of the matched text, from 1 to 4.
+     */
+    public int getLanguage() {
+        return language;
+    }
+
+    /**
+     * @return The label or description of the object that matched.
+     */
+    public String getText() {
+        return text;
+    }
+}
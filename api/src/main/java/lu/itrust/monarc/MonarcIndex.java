@@ -0,0 +1,222 @@
+package lu.itrust.monarc;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Hash index over the Monarc objects of the database, grouping them by one of
+ * their fields so that they can be searched without going through all of
+ * them. An object can have several keys, for instance all the instances it
+ * belongs to.
+ *
+ * The keys of an object are read when the object is added to the index. If the
+ * indexed field of an object is changed afterwards, the index must be built
+ * again, except for the indexes by instance which follow the parent instances
+ * of their objects.
+ *
+ * @param <K> The type of the indexed field.
+ * @param <V> The type of the indexed objects.
+ */
+class MonarcIndex<K, V> {
+
+    private final Function<? super V, ? extends Collection<? extends K>> keysExtractor;
+    private final Map<K, List<V>> entries;
+    // Called when an object is added to or removed from the index
+    private Consumer<? super V> attach = value -> {
+    };
+    private Consumer<? super V> detach = value -> {
+    };
+
+    private MonarcIndex(Function<? super V, ? extends Collection<? extends K>> keysExtractor) {
+        this.keysExtractor = keysExtractor;
+        this.entries = new HashMap<>();
+    }
+
+    /**
+     * Constructs an empty index of the objects by one of their fields.
+     *
+     * @param <K>          The type of the indexed field.
+     * @param <V>          The type of the indexed objects.
+     * @param keyExtractor The function returning the indexed field of an object.
+     * @return The new index.
+     */
+    static <K, V> MonarcIndex<K, V> of(Function<? super V, ? extends K> keyExtractor) {
+        return new MonarcIndex<>(value -> {
+            final K key = keyExtractor.apply(value);
+            return key == null ? Collections.<K>emptyList() : Collections.singletonList(key);
+        });
+    }
+
+    /**
+     * Constructs an empty index of the objects by a field having several values.
+     *
+     * @param <K>           The type of the indexed field.
+     * @param <V>           The type of the indexed objects.
+     * @param keysExtractor The function returning the values of the indexed field
+     *                      of an object, without duplicates.
+     * @return The new index.
+     */
+    static <K, V> MonarcIndex<K, V> ofAll(Function<? super V, ? extends Collection<? extends K>> keysExtractor) {
+        return new MonarcIndex<>(keysExtractor);
+    }
+
+    /**
+     * Constructs an empty index of the objects by the IDs of the instances they
+     * belong to.
+     *
+     * When a parent instance is added to or removed from an indexed object, the
+     * object is added to or removed from the objects of this instance only. The
+     * change is given to the changes function, which runs it, for instance once
+     * it holds the lock guarding the index. An object whose parent instances are
+     * not kept as a {@link MonarcInstanceIds} is not followed.
+     *
+     * @param <V>             The type of the indexed objects.
+     * @param parentInstances The function returning the parent instance IDs of an
+     *                        object, as strings.
+     * @param changes         The function running the changes of the index
+     *                        following the parent instances of an object.
+     * @return The new index.
+     * @see MonarcInstanceIds#setListener(Collection, MonarcInstanceIds.Listener)
+     */
+    static <V> MonarcIndex<Integer, V> byInstance(Function<? super V, ? extends Collection<String>> parentInstances,
+            Consumer<Runnable> changes) {
+        final MonarcIndex<Integer, V> index = new MonarcIndex<>(value -> {
+            final int[] parents = MonarcInstanceIds.instanceIds(parentInstances.apply(value));
+            final List<Integer> keys = new ArrayList<>(parents.length);
+            for (int parent : parents)
+                keys.add(parent);
+            return keys;
+        });
+        index.attach = value -> MonarcInstanceIds.setListener(parentInstances.apply(value),
+                new MonarcInstanceIds.Listener() {
+
+                    @Override
+                    public void added(int instanceId) {
+                        changes.accept(() -> index.add(instanceId, value));
+                    }
+
+                    @Override
+                    public void removed(int instanceId) {
+                        changes.accept(() -> index.remove(instanceId, value));
+                    }
+                });
+        index.detach = value -> MonarcInstanceIds.setListener(parentInstances.apply(value), null);
+        return index;
+    }
+
+    /**
+     * Replaces the content of the index by the given objects. Objects sharing the
+     * same key are kept in the order of the collection.
+     *
+     * @param values The objects to index.
+     */
+    void build(Collection<? extends V> values) {
+        for (List<V> indexed : entries.values())
+            indexed.forEach(detach);
+        entries.clear();
+        for (V value : values)
+            add(value);
+    }
+
+    /**
+     * Adds an object to the index. Objects without key are not indexed.
+     *
+     * @param value The object to add.
+     */
+    void add(V value) {
+        for (K key : keysExtractor.apply(value)) {
+            if (key != null)
+                add(key, value);
+        }
+        attach.accept(value);
+    }
+
+    /**
+     * Adds an object to the objects of one key only.
+     *
+     * @param key   The key.
+     * @param value The object to add.
+     */
+    void add(K key, V value) {
+        entries.computeIfAbsent(key, k -> new ArrayList<>(1)).add(value);
+    }
+
+    /**
+     * Removes an object from the index.
+     *
+     * @param value The object to remove.
+     */
+    void remove(V value) {
+        detach.accept(value);
+        for (K key : keysExtractor.apply(value)) {
+            if (key != null)
+                remove(key, value);
+        }
+    }
+
+    /**
+     * Removes an object from the objects of one key only.
+     *
+     * @param key   The key.
+     * @param value The object to remove.
+     */
+    void remove(K key, V value) {
+        final List<V> values = entries.get(key);
+        if (values != null && values.remove(value) && values.isEmpty())
+            entries.remove(key);
+    }
+
+    /**
+     * Removes all the objects matching the filter from the index.
+     *
+     * @param filter The filter of the objects to remove.
+     */
+    void removeIf(Predicate<? super V> filter) {
+        entries.values().removeIf(values -> values.removeIf(value -> {
+            if (!filter.test(value))
+                return false;
+            detach.accept(value);
+            return true;
+        }) && values.isEmpty());
+    }
+
+    /**
+     * Returns the first object added with the given key.
+     *
+     * @param key The key to search.
+     * @return The object found, or null if there is none.
+     */
+    V first(Object key) {
+        final List<V> values = key == null ? null : entries.get(key);
+        return values == null ? null : values.get(0);
+    }
+
+    /**
+     * Returns a new list with all the objects having the given key.
+     *
+     * @param key The key to search.
+     * @return The objects found, in the order they were added.
+     */
+    List<V> get(Object key) {
+        final List<V> values = key == null ? null : entries.get(key);
+        return values == null ? new ArrayList<>() : new ArrayList<>(values);
+    }
+
+    /**
+     * Returns the objects having the given key, without copying them.
+     *
+     * @param key The key to search.
+     * @return A read-only view of the objects found.
+     */
+    List<V> view(Object key) {
+        final List<V> values = key == null ? null : entries.get(key);
+        return values == null ? Collections.emptyList() : Collections.unmodifiableList(values);
+    }
+}
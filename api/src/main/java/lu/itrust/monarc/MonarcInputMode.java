@@ -0,0 +1,26 @@
+package lu.itrust.monarc;
+
+/**
+ * How a Monarc JSON file is read by a MonarcDatabase.
+ *
+ * @see MonarcDatabase#MonarcDatabase(String, java.util.concurrent.Executor,
+ *      MonarcStringPool, MonarcInputMode)
+ * @see MonarcDatabase#openLazy(String, MonarcInputMode)
+ */
+public enum MonarcInputMode {
+
+    /**
+     * The file is read through a buffered file stream, which copies it from the
+     * page cache of the system to a buffer of the parser.
+     */
+    BUFFERED,
+
+    /**
+     * The file is mapped in memory, in chunks of at most 1 GB, and a
+     * non-blocking parser reads it from the mapping itself, without copying it
+     * to a buffer nor making a system call for each read. Each subtree of a
+     * database opened lazily is read by opening and mapping the file again, from
+     * the position of the subtree. Best suited to very large exports.
+     */
+    MAPPED
+}
@@ -33,6 +33,8 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -49,6 +51,12 @@ public class MonarcInstance {
     private Map<String, MonarcMeasures> measures;
     private List<MonarcRisksop> risksop;
     private Map<String, MonarcRecSets> recSets;
+    // Set when a value is changed through a setter, cleared when the database is
+    // exported
+    private boolean modified;
+    // Runs the changes of the setters under the write lock of the database
+    // holding the instance, null until it is attached to the database
+    private Consumer<Runnable> changes;
     
     /**
      * The structures recos and recs work together when defining recommendations implemented to one given threat
@@ -124,6 +132,20 @@ public class MonarcInstance {
     private Map<Integer, MonarcRisks> risks;
     private List<MonarcAnrMetadatasOnInstances> anrMetadatasOnInstances;
     private List<MonarcAnrMetadatasOnInstances> instancesMetadatas;
+    // Reads the sections and the children of a root instance loaded lazily, null
+    // once they are read
+    private volatile Runnable materializer;
+    // Statistics of the risks of the instance and of its subtree, computed by the
+    // risk engine
+    private MonarcRiskStats riskStats;
+    private MonarcRiskStats subtreeRiskStats;
+
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcInstance() {
+        this.children = new MonarcIntMap<>();
+    }
 
     /**
      * Constructor that represents an instance inside a Monarc JSON file
@@ -163,12 +185,12 @@ public class MonarcInstance {
         this.type = "instance";
         this.monarc_version = MONARC_DATABASE_VERSION;
         this.with_eval = true;
-        this.consequences = new HashMap<>();
-        this.children = new HashMap<>();
+        this.consequences = new MonarcIntMap<>();
+        this.children = new MonarcIntMap<>();
         this.threats = new HashMap<>();
         this.AMVs = new HashMap<>();
         this.vulnerabilities = new HashMap<>();
-        this.risks = new HashMap<>();
+        this.risks = new MonarcIntMap<>();
         this.instance = new HashMap<>();
         instance.put("id", id);
         instance.put("name1", name1);
@@ -202,6 +224,33 @@ public class MonarcInstance {
         this.recs = new HashMap<>();
     }
 
+    /**
+     * Sets the function reading the sections and the children of this instance
+     * the first time one of them is accessed.
+     * 
+     * @param materializer The function reading the instance, or null once it is
+     *                     read
+     */
+    void setMaterializer(Runnable materializer) {
+        this.materializer = materializer;
+    }
+
+    /**
+     * @return False if the sections and the children of this instance, loaded by
+     *         {@link MonarcDatabase#openLazy(String)}, have not been read from the
+     *         file yet.
+     */
+    @JsonIgnore
+    public boolean isMaterialized() {
+        return materializer == null;
+    }
+
+    private void materialize() {
+        final Runnable materializer = this.materializer;
+        if (materializer != null)
+            materializer.run();
+    }
+
     // region Getters and Setters
 
     public String getType() {
@@ -221,6 +270,7 @@ public class MonarcInstance {
     }
 
     public MonarcObject getObject() {
+        materialize();
         return object;
     }
 
@@ -229,22 +279,27 @@ public class MonarcInstance {
     }
 
     public Map<Integer, MonarcRisks> getRisks() {
+        materialize();
         return risks;
     }
 
     public Map<String, MonarcAMV> getAMVs() {
+        materialize();
         return AMVs;
     }
 
     public Map<String, MonarcThreats> getThreats() {
+        materialize();
         return threats;
     }
 
     public Map<String, MonarcVulnerabilities> getVuls() {
+        materialize();
         return vulnerabilities;
     }
 
     public Map<String, MonarcMeasures> getMeasures() {
+        materialize();
         return measures;
     }
 
@@ -253,22 +308,27 @@ public class MonarcInstance {
     }
 
     public Map<String, MonarcRecSets> getRecSets() {
+        materialize();
         return recSets;
     }
 
     public Map<String, Map<String, MonarcRecos>> getRecos() {
+        materialize();
         return recos;
     }
 
     public Map<String, MonarcRecs> getRecs() {
+        materialize();
         return recs;
     }
 
     public Map<Integer, MonarcConsequences> getConsequences() {
+        materialize();
         return consequences;
     }
 
     public Map<Integer, MonarcInstance> getChildren() {
+        materialize();
         return children;
     }
 
@@ -384,32 +444,39 @@ public class MonarcInstance {
 
     @JsonIgnore
     public void setC(int value) {
-        instance.put("c", value);
+        set("c", value);
     }
 
     @JsonIgnore
     public void setI(int value) {
-        instance.put("i", value);
+        set("i", value);
     }
 
     @JsonIgnore
     public void setD(int value) {
-        instance.put("d", value);
+        set("d", value);
     }
 
     @JsonIgnore
     public void setCh(boolean value) {
-        instance.put("ch", value ? 1 : 0);
+        set("ch", value ? 1 : 0);
     }
 
     @JsonIgnore
     public void setIh(boolean value) {
-        instance.put("ih", value ? 1 : 0);
+        set("ih", value ? 1 : 0);
     }
 
     @JsonIgnore
     public void setDh(boolean value) {
-        instance.put("dh", value ? 1 : 0);
+        set("dh", value ? 1 : 0);
+    }
+
+    private void set(String key, Object value) {
+        change(() -> {
+            if (!Objects.equals(instance.put(key, value), value))
+                modified = true;
+        });
     }
 
     @JsonIgnore
@@ -538,8 +605,12 @@ public class MonarcInstance {
         final String clsName = name == null ? "" : name.trim();
         if (clsName.isEmpty())
             return false;
-        return instance.entrySet().stream().anyMatch(e -> e.getKey().startsWith("label") && e.getValue() != null
-                && clsName.equalsIgnoreCase(e.getValue().toString()));
+        for (int i = 1; i <= 4; i++) {
+            final Object value = instance.get("label" + i);
+            if (value != null && clsName.equalsIgnoreCase(value.toString()))
+                return true;
+        }
+        return false;
     }
 
     public String getName(int i) {
@@ -550,11 +621,71 @@ public class MonarcInstance {
         final String clsName = name == null ? "" : name.trim();
         if (clsName.isEmpty())
             return false;
-        return instance.entrySet().stream().anyMatch(e -> e.getKey().startsWith("name") && e.getValue() != null
-                && clsName.equalsIgnoreCase(e.getValue().toString()));
+        for (int i = 1; i <= 4; i++) {
+            final Object value = instance.get("name" + i);
+            if (value != null && clsName.equalsIgnoreCase(value.toString()))
+                return true;
+        }
+        return false;
     }
 
     public void addMeasure(MonarcMeasures newMeasure) {
         measures.put(newMeasure.uuid, newMeasure);
     }
+
+    /**
+     * Attaches the instance to the database holding it, see
+     * MonarcDatabase#update.
+     *
+     * @param changes Runs a change under the write lock of the database.
+     */
+    void setChanges(Consumer<Runnable> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Changes the instance under the write lock of the database, if it is
+     * attached to one.
+     */
+    private void change(Runnable change) {
+        if (changes == null)
+            change.run();
+        else
+            changes.accept(change);
+    }
+
+    /**
+     * @return True if a value of the instance was changed since the database
+     *         was loaded or last exported.
+     */
+    boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Marks the instance as changed, for the changes not made through a setter.
+     */
+    void markModified() {
+        modified = true;
+    }
+
+    void clearModified() {
+        modified = false;
+    }
+
+    MonarcRiskStats getRiskStats() {
+        return riskStats;
+    }
+
+    void setRiskStats(MonarcRiskStats riskStats) {
+        this.riskStats = riskStats;
+    }
+
+    MonarcRiskStats getSubtreeRiskStats() {
+        return subtreeRiskStats;
+    }
+
+    void setSubtreeRiskStats(MonarcRiskStats subtreeRiskStats) {
+        this.subtreeRiskStats = subtreeRiskStats;
+    }
 }
@@ -0,0 +1,227 @@
+package lu.itrust.monarc;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+
+/**
+ * The parent instance IDs of a Monarc object, as a set of strings.
+ *
+ * The parents are given and returned as strings, but they are almost always
+ * instance IDs, so they are kept as ints in a {@link MonarcIntSet} instead of
+ * one String per parent. The few parents that are not written as an int (the
+ * object UUIDs of the consequences, the parent codes of the assets and
+ * themes...) are kept as strings beside them.
+ *
+ * Going through the set as strings creates a String per instance ID, the
+ * database and the risk engine read the IDs with {@link #instanceIds(Collection)}
+ * instead.
+ *
+ * Once the object is indexed by instance, the database is told when an
+ * instance ID is added or removed, see
+ * {@link #setListener(Collection, Listener)}.
+ */
+final class MonarcInstanceIds extends AbstractSet<String> {
+
+    // Returned by parse() for a string that is not written as an int
+    private static final long NOT_AN_ID = Long.MIN_VALUE;
+
+    private final MonarcIntSet ids = new MonarcIntSet();
+    // The parents that are not instance IDs, null until there is one
+    private Set<String> others;
+    // Told when an instance ID is added or removed, null until the object is
+    // indexed
+    private Listener listener;
+
+    /**
+     * Told when an instance ID is added to or removed from the parents of an
+     * object.
+     */
+    interface Listener {
+
+        /**
+         * @param instanceId The instance ID added to the parents.
+         */
+        void added(int instanceId);
+
+        /**
+         * @param instanceId The instance ID removed from the parents.
+         */
+        void removed(int instanceId);
+    }
+
+    /**
+     * Constructs an empty set.
+     */
+    MonarcInstanceIds() {
+    }
+
+    /**
+     * Constructs a set holding the given parents.
+     *
+     * @param parents The parents to copy.
+     */
+    MonarcInstanceIds(Collection<String> parents) {
+        addAll(parents);
+    }
+
+    /**
+     * Returns the instance IDs of a collection of parents. The parents that are
+     * not instance IDs are left out.
+     *
+     * @param parents The parent instance IDs of an object.
+     * @return The instance IDs, as ints.
+     */
+    static int[] instanceIds(Collection<String> parents) {
+        if (parents instanceof MonarcInstanceIds)
+            return ((MonarcInstanceIds) parents).ids.toArray();
+        final int[] ids = new int[parents.size()];
+        int size = 0;
+        for (String parent : parents) {
+            final long id = parse(parent);
+            if (id != NOT_AN_ID)
+                ids[size++] = (int) id;
+        }
+        return size == ids.length ? ids : Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Sets the listener told when an instance ID is added to or removed from a
+     * collection of parents, if they are kept as a MonarcInstanceIds. The
+     * parents that are not instance IDs are not told.
+     *
+     * @param parents  The parent instance IDs of an object.
+     * @param listener The listener to tell, or null.
+     */
+    static void setListener(Collection<String> parents, Listener listener) {
+        if (parents instanceof MonarcInstanceIds)
+            ((MonarcInstanceIds) parents).listener = listener;
+    }
+
+    private boolean added(int id) {
+        if (!ids.add(id))
+            return false;
+        if (listener != null)
+            listener.added(id);
+        return true;
+    }
+
+    private boolean removed(int id) {
+        if (!ids.remove(id))
+            return false;
+        if (listener != null)
+            listener.removed(id);
+        return true;
+    }
+
+    /**
+     * @return The value of the string if it is the usual representation of an
+     *         int (no sign, no leading zero, no space...), so that the string can
+     *         be given back with {@link Integer#toString(int)}, or
+     *         {@link #NOT_AN_ID} otherwise.
+     */
+    private static long parse(Object value) {
+        if (!(value instanceof String))
+            return NOT_AN_ID;
+        final String text = (String) value;
+        final int length = text.length();
+        final int start = length > 0 && text.charAt(0) == '-' ? 1 : 0;
+        if (length == start || length - start > 10 || text.charAt(start) == '0' && length - start > 1
+                || start == 1 && text.charAt(1) == '0')
+            return NOT_AN_ID;
+        long id = 0;
+        for (int i = start; i < length; i++) {
+            final char c = text.charAt(i);
+            if (c < '0' || c > '9')
+                return NOT_AN_ID;
+            id = id * 10 + (c - '0');
+        }
+        if (start == 1)
+            id = -id;
+        return id < Integer.MIN_VALUE || id > Integer.MAX_VALUE ? NOT_AN_ID : id;
+    }
+
+    @Override
+    public int size() {
+        return ids.size() + (others == null ? 0 : others.size());
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        final long id = parse(o);
+        return id != NOT_AN_ID ? ids.contains((int) id) : others != null && others.contains(o);
+    }
+
+    @Override
+    public boolean add(String parent) {
+        final long id = parse(parent);
+        if (id != NOT_AN_ID)
+            return added((int) id);
+        if (others == null)
+            others = new HashSet<>(2);
+        return others.add(parent);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        final long id = parse(o);
+        return id != NOT_AN_ID ? removed((int) id) : others != null && others.remove(o);
+    }
+
+    @Override
+    public void clear() {
+        others = null;
+        if (listener == null) {
+            ids.clear();
+            return;
+        }
+        for (int id : ids.toArray())
+            removed(id);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        final PrimitiveIterator.OfInt idIterator = ids.iterator();
+        final Iterator<String> otherIterator = others == null ? Collections.emptyIterator() : others.iterator();
+        return new Iterator<String>() {
+
+            private Iterator<?> last;
+            private int lastId;
+
+            @Override
+            public boolean hasNext() {
+                return idIterator.hasNext() || otherIterator.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if (idIterator.hasNext()) {
+                    last = idIterator;
+                    lastId = idIterator.nextInt();
+                    return Integer.toString(lastId);
+                }
+                if (otherIterator.hasNext()) {
+                    last = otherIterator;
+                    return otherIterator.next();
+                }
+                throw new NoSuchElementException();
+            }
+
+            @Override
+            public void remove() {
+                if (last == null)
+                    throw new IllegalStateException();
+                last.remove();
+                if (last == idIterator && listener != null)
+                    listener.removed(lastId);
+                last = null;
+            }
+        };
+    }
+}
@@ -0,0 +1,447 @@
+package lu.itrust.monarc;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Map from int keys to objects, used in place of the hash maps of the model
+ * keyed by the ID of the instances, risks and consequences.
+ *
+ * The keys are not boxed and there is no entry object per mapping: the keys
+ * and values are stored in two arrays, in the order they were added, and an
+ * open addressing table gives the position of each key in these arrays. A map
+ * of n objects takes about 16 bytes per object instead of about 50 for a
+ * {@link java.util.HashMap} with Integer keys.
+ *
+ * The map iterates in the order the keys were added, like a
+ * {@link java.util.LinkedHashMap}. It is a regular {@link Map} of Integer keys
+ * (Jackson serializes it as any other map), the int methods only avoid the
+ * boxing. Null keys are not supported.
+ *
+ * @param <V> The type of the values.
+ */
+class MonarcIntMap<V> extends AbstractMap<Integer, V> {
+
+    private static final int MIN_CAPACITY = 4;
+
+    // Marks the positions of the removed keys in the values
+    private static final Object REMOVED = new Object();
+
+    // Position + 1 of the key of each slot in the arrays, 0 for a free slot and
+    // -1 for the slot of a removed key
+    private int[] slots;
+    private int[] keys;
+    private Object[] values;
+    // Number of positions used in the arrays, including the removed keys
+    private int end;
+    private int size;
+    private int modCount;
+
+    private Set<Map.Entry<Integer, V>> entrySet;
+    private Set<Integer> keySet;
+    private Collection<V> valueCollection;
+
+    /**
+     * Constructs an empty map.
+     */
+    MonarcIntMap() {
+        this(0);
+    }
+
+    /**
+     * Constructs an empty map holding the given number of keys without resizing.
+     *
+     * @param expectedSize The expected number of keys.
+     */
+    MonarcIntMap(int expectedSize) {
+        allocate(expectedSize <= 0 ? 0 : capacityFor(expectedSize));
+    }
+
+    // region Int methods
+
+    /**
+     * @param key The key to search.
+     * @return The value of the key, or null if the map does not contain it.
+     */
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        final int position = position(key);
+        return position < 0 ? null : (V) values[position];
+    }
+
+    /**
+     * @param key The key to search.
+     * @return True if the map contains the key.
+     */
+    boolean containsKey(int key) {
+        return position(key) >= 0;
+    }
+
+    /**
+     * Associates a value to a key.
+     *
+     * @param key   The key.
+     * @param value The value.
+     * @return The previous value of the key, or null if the map did not contain
+     *         it.
+     */
+    @SuppressWarnings("unchecked")
+    V put(int key, V value) {
+        final int position = position(key);
+        if (position >= 0) {
+            final V previous = (V) values[position];
+            values[position] = value;
+            return previous;
+        }
+
+        if (end == keys.length)
+            allocate(size >= keys.length / 2 ? Math.max(keys.length * 2, MIN_CAPACITY) : keys.length);
+
+        int slot = hash(key) & (slots.length - 1);
+        while (slots[slot] > 0)
+            slot = (slot + 1) & (slots.length - 1);
+        keys[end] = key;
+        values[end] = value;
+        slots[slot] = ++end;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key The key to remove.
+     * @return The value of the key, or null if the map did not contain it.
+     */
+    @SuppressWarnings("unchecked")
+    V remove(int key) {
+        final int slot = slot(key);
+        if (slot < 0)
+            return null;
+        final int position = slots[slot] - 1;
+        final V previous = (V) values[position];
+        slots[slot] = -1;
+        values[position] = REMOVED;
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    // endregion
+    // region Map methods
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Integer ? get(((Integer) key).intValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && containsKey(((Integer) key).intValue());
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return put(key.intValue(), value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof Integer ? remove(((Integer) key).intValue()) : null;
+    }
+
+    @Override
+    public void clear() {
+        if (end == 0)
+            return;
+        Arrays.fill(slots, 0);
+        Arrays.fill(values, 0, end, null);
+        end = 0;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super Integer, ? super V> action) {
+        final int expectedModCount = modCount;
+        for (int position = 0; position < end; position++) {
+            if (values[position] != REMOVED)
+                action.accept(keys[position], (V) values[position]);
+        }
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<Integer, V>>() {
+                @Override
+                public Iterator<Map.Entry<Integer, V>> iterator() {
+                    return new Positions<Map.Entry<Integer, V>>() {
+                        @Override
+                        Map.Entry<Integer, V> get(int position) {
+                            return new Entry(position);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public void clear() {
+                    MonarcIntMap.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    @Override
+    public Set<Integer> keySet() {
+        if (keySet == null) {
+            keySet = new AbstractSet<Integer>() {
+                @Override
+                public Iterator<Integer> iterator() {
+                    return new Positions<Integer>() {
+                        @Override
+                        Integer get(int position) {
+                            return keys[position];
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public boolean contains(Object key) {
+                    return containsKey(key);
+                }
+
+                @Override
+                public boolean remove(Object key) {
+                    if (!containsKey(key))
+                        return false;
+                    MonarcIntMap.this.remove(key);
+                    return true;
+                }
+
+                @Override
+                public void clear() {
+                    MonarcIntMap.this.clear();
+                }
+            };
+        }
+        return keySet;
+    }
+
+    @Override
+    public Collection<V> values() {
+        if (valueCollection == null) {
+            valueCollection = new AbstractCollection<V>() {
+                @Override
+                public Iterator<V> iterator() {
+                    return new Positions<V>() {
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        V get(int position) {
+                            return (V) values[position];
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public void clear() {
+                    MonarcIntMap.this.clear();
+                }
+            };
+        }
+        return valueCollection;
+    }
+
+    // endregion
+
+    /**
+     * @return The position of the key in the arrays, or -1 if the map does not
+     *         contain it.
+     */
+    private int position(int key) {
+        final int slot = slot(key);
+        return slot < 0 ? -1 : slots[slot] - 1;
+    }
+
+    /**
+     * @return The slot of the key, or -1 if the map does not contain it.
+     */
+    private int slot(int key) {
+        final int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+        for (int position; (position = slots[slot]) != 0; slot = (slot + 1) & mask) {
+            if (position > 0 && keys[position - 1] == key)
+                return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * Moves the keys and values to arrays of the given capacity, leaving out the
+     * removed keys. The table has twice as many slots as the arrays have
+     * positions, so that it is never more than half full.
+     */
+    private void allocate(int capacity) {
+        final int[] oldKeys = keys;
+        final Object[] oldValues = values;
+        final int oldEnd = end;
+
+        slots = new int[Math.max(capacity * 2, 1)];
+        keys = new int[capacity];
+        values = new Object[capacity];
+        end = 0;
+        for (int position = 0; position < oldEnd; position++) {
+            if (oldValues[position] == REMOVED)
+                continue;
+            int slot = hash(oldKeys[position]) & (slots.length - 1);
+            while (slots[slot] != 0)
+                slot = (slot + 1) & (slots.length - 1);
+            keys[end] = oldKeys[position];
+            values[end] = oldValues[position];
+            slots[slot] = ++end;
+        }
+    }
+
+    private static int capacityFor(int size) {
+        return Math.max(Integer.highestOneBit(size - 1) << 1, MIN_CAPACITY);
+    }
+
+    /**
+     * Spreads the consecutive IDs over the table (Fibonacci hashing).
+     */
+    static int hash(int key) {
+        final int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Iterates over the positions of the keys that are not removed.
+     */
+    private abstract class Positions<T> implements Iterator<T> {
+
+        private int next = skipRemoved(0);
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        abstract T get(int position);
+
+        private int skipRemoved(int position) {
+            while (position < end && values[position] == REMOVED)
+                position++;
+            return position;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < end;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (next >= end)
+                throw new NoSuchElementException();
+            last = next;
+            next = skipRemoved(next + 1);
+            return get(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            MonarcIntMap.this.remove(keys[last]);
+            expectedModCount = modCount;
+            last = -1;
+        }
+    }
+
+    /**
+     * A key of the map and its value, changing the map when its value is set.
+     */
+    private final class Entry implements Map.Entry<Integer, V> {
+
+        private final int key;
+        private V value;
+
+        @SuppressWarnings("unchecked")
+        private Entry(int position) {
+            this.key = keys[position];
+            this.value = (V) values[position];
+        }
+
+        @Override
+        public Integer getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            final V previous = this.value;
+            this.value = value;
+            put(key, value);
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            final Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return Integer.valueOf(key).equals(e.getKey()) && Objects.equals(value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Integer.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+}
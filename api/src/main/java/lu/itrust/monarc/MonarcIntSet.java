@@ -0,0 +1,225 @@
+package lu.itrust.monarc;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Set of int values, such as the IDs of the instances an object belongs to.
+ *
+ * As in {@link MonarcIntMap}, the values are stored in an array in the order
+ * they were added. Most objects belong to a few instances only, so small sets
+ * are searched by going through this array, and an open addressing table
+ * giving the position of each value is only built once the set grows over
+ * {@value #LINEAR_SEARCH} values.
+ */
+final class MonarcIntSet {
+
+    private static final int LINEAR_SEARCH = 8;
+    private static final int MIN_CAPACITY = 2;
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] elements = EMPTY;
+    // Position + 1 of the value of each slot, 0 for a free slot and -1 for the
+    // slot of a removed value, null while the set is searched linearly
+    private int[] slots;
+    // The positions of the removed values, null until a value is removed
+    private BitSet removed;
+    // Number of positions used in the array, including the removed values
+    private int end;
+    private int size;
+    private int modCount;
+
+    /**
+     * @return The number of values in the set.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param value The value to search.
+     * @return True if the set contains the value.
+     */
+    boolean contains(int value) {
+        return position(value) >= 0;
+    }
+
+    /**
+     * Adds a value to the set.
+     *
+     * @param value The value to add.
+     * @return True if the set did not contain the value.
+     */
+    boolean add(int value) {
+        if (position(value) >= 0)
+            return false;
+
+        if (end == elements.length)
+            allocate(size >= elements.length / 2 ? Math.max(elements.length * 2, MIN_CAPACITY) : elements.length);
+
+        elements[end] = value;
+        end++;
+        if (slots != null) {
+            int slot = MonarcIntMap.hash(value) & (slots.length - 1);
+            while (slots[slot] > 0)
+                slot = (slot + 1) & (slots.length - 1);
+            slots[slot] = end;
+        }
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Removes a value from the set.
+     *
+     * @param value The value to remove.
+     * @return True if the set contained the value.
+     */
+    boolean remove(int value) {
+        final int position = position(value);
+        if (position < 0)
+            return false;
+        if (slots != null)
+            slots[slot(value)] = -1;
+        if (removed == null)
+            removed = new BitSet(end);
+        removed.set(position);
+        size--;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Removes all the values.
+     */
+    void clear() {
+        if (end == 0)
+            return;
+        if (slots != null)
+            Arrays.fill(slots, 0);
+        removed = null;
+        end = 0;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * @return The values of the set, in the order they were added.
+     */
+    int[] toArray() {
+        if (removed == null)
+            return Arrays.copyOf(elements, end);
+        final int[] array = new int[size];
+        for (int position = 0, i = 0; position < end; position++) {
+            if (!removed.get(position))
+                array[i++] = elements[position];
+        }
+        return array;
+    }
+
+    /**
+     * @return An iterator over the values, in the order they were added, which
+     *         supports the removal of the values.
+     */
+    PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+
+            private int next = skipRemoved(0);
+            private int last = -1;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public int nextInt() {
+                if (modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                if (next >= end)
+                    throw new NoSuchElementException();
+                last = next;
+                next = skipRemoved(next + 1);
+                return elements[last];
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0)
+                    throw new IllegalStateException();
+                if (modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                MonarcIntSet.this.remove(elements[last]);
+                expectedModCount = modCount;
+                last = -1;
+            }
+        };
+    }
+
+    private int skipRemoved(int position) {
+        return removed == null || position >= end ? position : Math.min(removed.nextClearBit(position), end);
+    }
+
+    /**
+     * @return The position of the value in the array, or -1 if the set does not
+     *         contain it.
+     */
+    private int position(int value) {
+        if (slots == null) {
+            for (int position = 0; position < end; position++) {
+                if (elements[position] == value && (removed == null || !removed.get(position)))
+                    return position;
+            }
+            return -1;
+        }
+        final int slot = slot(value);
+        return slot < 0 ? -1 : slots[slot] - 1;
+    }
+
+    /**
+     * @return The slot of the value, or -1 if the set does not contain it.
+     */
+    private int slot(int value) {
+        final int mask = slots.length - 1;
+        int slot = MonarcIntMap.hash(value) & mask;
+        for (int position; (position = slots[slot]) != 0; slot = (slot + 1) & mask) {
+            if (position > 0 && elements[position - 1] == value)
+                return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * Moves the values to an array of the given capacity, leaving out the removed
+     * values, and builds the table of the slots if the set is too large to be
+     * searched linearly.
+     */
+    private void allocate(int capacity) {
+        final int[] oldElements = elements;
+        final BitSet oldRemoved = removed;
+        final int oldEnd = end;
+
+        elements = new int[capacity];
+        slots = capacity > LINEAR_SEARCH ? new int[capacity * 2] : null;
+        removed = null;
+        end = 0;
+        for (int position = 0; position < oldEnd; position++) {
+            if (oldRemoved != null && oldRemoved.get(position))
+                continue;
+            elements[end] = oldElements[position];
+            end++;
+            if (slots != null) {
+                int slot = MonarcIntMap.hash(oldElements[position]) & (slots.length - 1);
+                while (slots[slot] != 0)
+                    slot = (slot + 1) & (slots.length - 1);
+                slots[slot] = end;
+            }
+        }
+    }
+}
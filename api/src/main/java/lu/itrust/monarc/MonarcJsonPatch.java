@@ -0,0 +1,111 @@
+package lu.itrust.monarc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JSON Patch (RFC 6902) replacing the parts of a Monarc JSON file changed
+ * since it was written, written by
+ * {@link MonarcDatabase#saveChangesToJSON(String)}.
+ *
+ * A changed instance is replaced section by section ("instance", "risks",
+ * "recs"...), without its "children" section, so that the instances below it
+ * are not written again. The sections are written by "add" operations, which
+ * replace a section of the file and add the sections the file left out (a file
+ * exported by MONARC may not have the "measures" or "amvs" of an instance). The
+ * other values are written by "replace" operations.
+ */
+final class MonarcJsonPatch implements MonarcJsonWriter.JsonContent {
+
+    // Writes the sections of an instance without its children
+    private static final ObjectMapper SECTIONS_MAPPER = new ObjectMapper()
+            .addMixIn(MonarcInstance.class, WithoutChildren.class);
+
+    @JsonIgnoreProperties("children")
+    private abstract static class WithoutChildren {
+    }
+
+    private static final class Replacement {
+        private final String path;
+        private final Object value;
+        private final boolean sections;
+
+        private Replacement(String path, Object value, boolean sections) {
+            this.path = path;
+            this.value = value;
+            this.sections = sections;
+        }
+    }
+
+    private final List<Replacement> replacements = new ArrayList<>();
+
+    /**
+     * Replaces the value at the given path.
+     *
+     * @param path  The JSON pointer of the value.
+     * @param value The new value.
+     */
+    void replace(String path, Object value) {
+        replacements.add(new Replacement(path, value, false));
+    }
+
+    /**
+     * Replaces the sections of an instance, except for its children.
+     *
+     * @param path     The JSON pointer of the instance element.
+     * @param instance The changed instance.
+     */
+    void replaceSections(String path, MonarcInstance instance) {
+        replacements.add(new Replacement(path, instance, true));
+    }
+
+    /**
+     * @return The number of replaced values, counting an instance once.
+     */
+    int size() {
+        return replacements.size();
+    }
+
+    @Override
+    public void writeTo(ObjectMapper mapper, JsonGenerator generator) throws IOException {
+        generator.writeStartArray();
+        for (Replacement replacement : replacements) {
+            if (!replacement.sections) {
+                write(generator, "replace", replacement.path, mapper, replacement.value);
+                continue;
+            }
+            final JsonNode sections = SECTIONS_MAPPER.valueToTree(replacement.value);
+            for (Iterator<Map.Entry<String, JsonNode>> fields = sections.fields(); fields.hasNext();) {
+                final Map.Entry<String, JsonNode> section = fields.next();
+                write(generator, "add", replacement.path + "/" + escape(section.getKey()), mapper,
+                        section.getValue());
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    private static void write(JsonGenerator generator, String op, String path, ObjectMapper mapper, Object value)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("op", op);
+        generator.writeStringField("path", path);
+        generator.writeFieldName("value");
+        mapper.writeValue(generator, value);
+        generator.writeEndObject();
+    }
+
+    /**
+     * @return The key escaped as a reference token of a JSON pointer (RFC 6901).
+     */
+    static String escape(String key) {
+        return key.replace("~", "~0").replace("/", "~1");
+    }
+}
@@ -0,0 +1,136 @@
+package lu.itrust.monarc;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes the Java objects of the database as Monarc JSON, streaming them to
+ * the output through a UTF-8 generator instead of building the whole document
+ * in memory first. The binary snapshots are written the same way, with the
+ * mapper of their format.
+ */
+final class MonarcJsonWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Content written to a JSON generator.
+     */
+    @FunctionalInterface
+    interface JsonContent {
+        void writeTo(ObjectMapper mapper, JsonGenerator generator) throws IOException;
+    }
+
+    private MonarcJsonWriter() {
+    }
+
+    /**
+     * Content serializing a single Java object.
+     *
+     * @param value The object to serialize.
+     * @return The content.
+     */
+    static JsonContent value(Object value) {
+        return (mapper, generator) -> mapper.writeValue(generator, value);
+    }
+
+    /**
+     * Writes the content to a stream, in UTF-8. The stream is flushed but not
+     * closed.
+     *
+     * @param out     The stream to write to.
+     * @param content The content to write.
+     * @throws IOException
+     */
+    static void write(OutputStream out, JsonContent content) throws IOException {
+        write(out, MAPPER, content);
+    }
+
+    /**
+     * Writes the content to a stream with the format of the given mapper. The
+     * stream is flushed but not closed.
+     *
+     * @param out     The stream to write to.
+     * @param mapper  The mapper of the format to write.
+     * @param content The content to write.
+     * @throws IOException
+     */
+    static void write(OutputStream out, ObjectMapper mapper, JsonContent content) throws IOException {
+        try (JsonGenerator generator = mapper.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            content.writeTo(mapper, generator);
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the content to a file, in UTF-8, optionally compressed with gzip.
+     *
+     * The content is written to a temporary file next to the target, which is
+     * then renamed to the target. The target file is therefore either left
+     * untouched or entirely replaced, never partially written.
+     *
+     * @param path     The file to write.
+     * @param compress true to compress the file with gzip.
+     * @param content  The content to write.
+     * @throws IOException
+     */
+    static void write(Path path, boolean compress, JsonContent content) throws IOException {
+        write(path, MAPPER, compress, content);
+    }
+
+    /**
+     * Writes the content to a file with the format of the given mapper,
+     * optionally compressed with gzip, replacing the file only once complete.
+     *
+     * @param path     The file to write.
+     * @param mapper   The mapper of the format to write.
+     * @param compress true to compress the file with gzip.
+     * @param content  The content to write.
+     * @throws IOException
+     * @see #write(Path, boolean, JsonContent)
+     */
+    static void write(Path path, ObjectMapper mapper, boolean compress, JsonContent content) throws IOException {
+        final Path target = path.toAbsolutePath();
+        final Path temp = target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try (OutputStream file = Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE);
+                    OutputStream out = compress ? new GZIPOutputStream(file, BUFFER_SIZE)
+                            : new BufferedOutputStream(file, BUFFER_SIZE)) {
+                write(out, mapper, content);
+            }
+            move(temp, target);
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException | RuntimeException deleteError) {
+                // The write error is the one to report
+                e.addSuppressed(deleteError);
+            }
+            throw e;
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
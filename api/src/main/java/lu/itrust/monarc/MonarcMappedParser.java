@@ -0,0 +1,185 @@
+package lu.itrust.monarc;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.core.async.NonBlockingInputFeeder;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Parser reading a file mapped in memory, for {@link MonarcInputMode#MAPPED}.
+ *
+ * The mapping is given as it is to a non-blocking parser, which reads the
+ * bytes from the mapping itself: unlike the parsers reading a stream, nothing
+ * is copied to a buffer of the parser.
+ *
+ * A mapping cannot be larger than 2 GB, so the file is mapped in chunks. The
+ * non-blocking parser returns {@link JsonToken#NOT_AVAILABLE} once it has read
+ * a chunk, the next one is then mapped and given to it, so that this parser
+ * can be used as any other parser, by the data binding too. Only the chunk
+ * being read is referenced by the parser, the previous ones are unmapped when
+ * they are garbage collected.
+ */
+final class MonarcMappedParser extends JsonParserDelegate {
+
+    static final long CHUNK_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final ByteBufferFeeder feeder;
+    // The non-blocking parser cannot be used by the data binding itself
+    private ObjectCodec codec;
+    private final long size;
+    private final long chunkSize;
+    // Position in the file of the next chunk to map
+    private long next;
+
+    private MonarcMappedParser(JsonParser parser, FileChannel channel, long offset, long chunkSize)
+            throws IOException {
+        super(parser);
+        this.channel = channel;
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        this.size = channel.size();
+        this.chunkSize = chunkSize;
+        this.next = Math.min(offset, size);
+    }
+
+    /**
+     * Maps a file from the given position.
+     *
+     * @param path   The file to read.
+     * @param offset The position in the file of the first byte to read.
+     * @return The parser reading the file.
+     * @throws IOException if the file cannot be opened.
+     */
+    static JsonParser open(Path path, long offset) throws IOException {
+        return open(path, offset, CHUNK_SIZE);
+    }
+
+    static JsonParser open(Path path, long offset, long chunkSize) throws IOException {
+        if (offset < 0)
+            throw new IllegalArgumentException("Negative offset: " + offset);
+        final ObjectMapper mapper = new ObjectMapper();
+        final JsonParser parser = mapper.getFactory().createNonBlockingByteBufferParser();
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            final MonarcMappedParser mapped = new MonarcMappedParser(parser, channel, offset, chunkSize);
+            mapped.setCodec(mapper);
+            return mapped;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps the next chunk of the file and gives it to the non-blocking parser,
+     * or tells it that the end of the file has been reached.
+     */
+    private void feed() throws IOException {
+        if (next >= size) {
+            feeder.endOfInput();
+            return;
+        }
+        final long length = Math.min(chunkSize, size - next);
+        feeder.feedInput(channel.map(FileChannel.MapMode.READ_ONLY, next, length));
+        next += length;
+    }
+
+    @Override
+    public ObjectCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    public void setCodec(ObjectCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public boolean canParseAsync() {
+        // The chunks are given by this parser, which blocks until it has a token
+        return false;
+    }
+
+    @Override
+    public NonBlockingInputFeeder getNonBlockingInputFeeder() {
+        return null;
+    }
+
+    @Override
+    public JsonLocation currentTokenLocation() {
+        return tokenLocation(delegate.currentTokenLocation());
+    }
+
+    @Override
+    @Deprecated
+    public JsonLocation getTokenLocation() {
+        return tokenLocation(delegate.currentTokenLocation());
+    }
+
+    /**
+     * Returns the position of the first byte of the current token. The
+     * non-blocking parser gives the position of the byte following it. The ends
+     * of the objects and arrays, which it does not locate reliably, are returned
+     * as given: only the starts of the values are looked up by the database.
+     */
+    private JsonLocation tokenLocation(JsonLocation location) {
+        final JsonToken token = currentToken();
+        if (token == null || token.isStructEnd() || location.getByteOffset() <= 0)
+            return location;
+        return new JsonLocation(location.contentReference(), location.getByteOffset() - 1, -1,
+                location.getLineNr(), location.getColumnNr() - 1);
+    }
+
+    @Override
+    public JsonToken nextToken() throws IOException {
+        JsonToken token = delegate.nextToken();
+        while (token == JsonToken.NOT_AVAILABLE) {
+            feed();
+            token = delegate.nextToken();
+        }
+        return token;
+    }
+
+    @Override
+    public JsonToken nextValue() throws IOException {
+        final JsonToken token = nextToken();
+        return token == JsonToken.FIELD_NAME ? nextToken() : token;
+    }
+
+    @Override
+    public JsonParser skipChildren() throws IOException {
+        // The non-blocking parser would stop at the end of the chunk
+        final JsonToken token = currentToken();
+        if (token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY)
+            return this;
+        int open = 1;
+        while (open > 0) {
+            final JsonToken next = nextToken();
+            if (next == null)
+                break;
+            if (next.isStructStart())
+                open++;
+            else if (next.isStructEnd())
+                open--;
+        }
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            delegate.close();
+        } finally {
+            channel.close();
+        }
+    }
+}
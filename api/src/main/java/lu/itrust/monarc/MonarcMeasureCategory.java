@@ -11,6 +11,12 @@ public class MonarcMeasureCategory {
     private String label4;
     private int status;
     
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcMeasureCategory() {
+    }
+
     /**
      * Constructs a new MonarcMeasureCategory object with the specified parameters.
      * 
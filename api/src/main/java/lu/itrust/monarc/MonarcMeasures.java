@@ -18,6 +18,12 @@ public class MonarcMeasures {
     String label4;
     Integer status;
 
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcMeasures() {
+    }
+
     /**
      * Constructs a MonarcMeasures object with the specified parameters.
      * 
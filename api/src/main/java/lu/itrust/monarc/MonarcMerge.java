@@ -0,0 +1,271 @@
+package lu.itrust.monarc;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Several ANRs merged into one Monarc JSON file, written by
+ * {@link MonarcDatabase#merge(String, List)}.
+ *
+ * The root instances of each ANR are written one after the other, each one
+ * read back as a JSON tree to rewrite its IDs, so that only one of them is held
+ * in memory at a time. An instance, risk or consequence keeps its ID unless an
+ * ANR merged before used it, in which case it gets a new ID, greater than all
+ * the IDs of the ANRs, and the references to it (parent and root instances,
+ * recos by risk ID) are rewritten. The threats, vulnerabilities and AMVs held
+ * by the instances are merged by UUID when the file is loaded.
+ *
+ * The referentials, measures and soas, the links between measures, the soa
+ * categories and the threats of the method are merged by UUID (measure UUID
+ * for the soas), the first ANR holding one of them giving its values. The
+ * other sections (scales, method, metadata...) are the ones of the first ANR.
+ */
+final class MonarcMerge implements MonarcJsonWriter.JsonContent {
+
+    // Writes the sections of the ANR without its instances
+    private static final ObjectMapper SECTIONS_MAPPER = new ObjectMapper()
+            .addMixIn(MonarcANR.class, WithoutInstances.class);
+
+    @JsonIgnoreProperties("instances")
+    private abstract static class WithoutInstances {
+    }
+
+    @FunctionalInterface
+    interface AnrConsumer {
+        void accept(MonarcANR anr) throws IOException;
+    }
+
+    /**
+     * The IDs of one kind of object (instances, risks or consequences) across
+     * the ANRs.
+     */
+    private static final class Ids {
+        private final MonarcIntSet used = new MonarcIntSet();
+        private int next;
+        // ID in the merged file of the objects of the current ANR
+        private final MonarcIntMap<Integer> remapped = new MonarcIntMap<>();
+
+        private Ids(int maxId) {
+            this.next = maxId + 1;
+        }
+
+        /**
+         * @return The ID of the object of the current ANR in the merged file.
+         */
+        private int get(int id) {
+            final Integer newId = remapped.get(id);
+            if (newId != null)
+                return newId;
+            if (used.add(id)) {
+                remapped.put(id, (Integer) id);
+                return id;
+            }
+            remapped.put(id, (Integer) next);
+            used.add(next);
+            return next++;
+        }
+
+        private void nextANR() {
+            remapped.clear();
+        }
+    }
+
+    private final List<MonarcDatabase> databases;
+    private final Ids instanceIds;
+    private final Ids riskIds;
+    private final Ids consequenceIds;
+
+    private ObjectNode sections;
+    private final Map<String, JsonNode> referentials = new LinkedHashMap<>();
+    private final Map<String, JsonNode> measures = new LinkedHashMap<>();
+    private final Set<JsonNode> measuresMeasures = new LinkedHashSet<>();
+    private final Set<JsonNode> soacategories = new LinkedHashSet<>();
+    private final Map<String, JsonNode> soas = new LinkedHashMap<>();
+    private final Map<String, JsonNode> methodThreats = new LinkedHashMap<>();
+
+    /**
+     * @param databases       The databases to merge, in order
+     * @param maxInstanceId   The greatest instance ID of the databases
+     * @param maxRiskId       The greatest risk ID of the databases
+     * @param maxConsequenceId The greatest consequence ID of the databases
+     */
+    MonarcMerge(List<MonarcDatabase> databases, int maxInstanceId, int maxRiskId, int maxConsequenceId) {
+        this.databases = databases;
+        this.instanceIds = new Ids(maxInstanceId);
+        this.riskIds = new Ids(maxRiskId);
+        this.consequenceIds = new Ids(maxConsequenceId);
+    }
+
+    @Override
+    public void writeTo(ObjectMapper mapper, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        for (MonarcDatabase database : databases) {
+            database.export(anr -> {
+                final ObjectNode anrSections = SECTIONS_MAPPER.valueToTree(anr);
+                if (sections == null) {
+                    sections = anrSections;
+                    // The instances come right after the header of the file
+                    for (String field : new String[] { "type", "monarc_version", "export_datetime" }) {
+                        final JsonNode value = sections.remove(field);
+                        if (value != null) {
+                            generator.writeFieldName(field);
+                            mapper.writeTree(generator, value);
+                        }
+                    }
+                    generator.writeFieldName("instances");
+                    generator.writeStartObject();
+                }
+
+                for (MonarcInstance root : anr.getInstances().values()) {
+                    final ObjectNode element = mapper.valueToTree(root);
+                    generator.writeFieldName(Integer.toString(remapTree(element)));
+                    mapper.writeTree(generator, element);
+                }
+                instanceIds.nextANR();
+                riskIds.nextANR();
+                consequenceIds.nextANR();
+
+                mergeSections(anrSections);
+            });
+        }
+        if (sections == null)
+            throw new IllegalArgumentException("No database to merge");
+        generator.writeEndObject();
+
+        sections.set("referentials", object(referentials));
+        sections.set("measures", object(measures));
+        sections.set("measuresMeasures", array(measuresMeasures));
+        sections.set("soacategories", array(soacategories));
+        sections.set("soas", array(soas.values()));
+        final JsonNode method = sections.get("method");
+        if (method instanceof ObjectNode)
+            ((ObjectNode) method).set("threats", object(methodThreats));
+        for (Iterator<Map.Entry<String, JsonNode>> fields = sections.fields(); fields.hasNext();) {
+            final Map.Entry<String, JsonNode> field = fields.next();
+            generator.writeFieldName(field.getKey());
+            mapper.writeTree(generator, field.getValue());
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Rewrites the IDs of a root instance and of its descendants, with their
+     * risks and consequences, going through the tree without recursion.
+     *
+     * @param root The element of the root instance
+     * @return The new ID of the root instance
+     */
+    private int remapTree(ObjectNode root) {
+        final int rootId = instanceIds.get(root.path("instance").path("id").asInt());
+        final Deque<ObjectNode> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            final ObjectNode element = pending.pop();
+            final JsonNode instance = element.get("instance");
+            if (instance instanceof ObjectNode)
+                remapInstance((ObjectNode) instance);
+
+            rekey(element, "risks", riskIds, true);
+            rekey(element, "recos", riskIds, false);
+            rekey(element, "consequences", consequenceIds, true);
+            rekey(element, "children", instanceIds, false);
+
+            final JsonNode children = element.get("children");
+            if (children instanceof ObjectNode) {
+                for (JsonNode child : children) {
+                    if (child instanceof ObjectNode)
+                        pending.push((ObjectNode) child);
+                }
+            }
+        }
+        return rootId;
+    }
+
+    private void remapInstance(ObjectNode instance) {
+        instance.put("id", instanceIds.get(instance.path("id").asInt()));
+        for (String reference : new String[] { "parent", "root" }) {
+            final int id = instance.path(reference).asInt();
+            if (id != 0)
+                instance.put(reference, instanceIds.get(id));
+        }
+    }
+
+    /**
+     * Replaces the keys of an element holding objects by ID with their new IDs.
+     *
+     * @param element  The element holding the objects
+     * @param field    The name of the objects
+     * @param ids      The IDs of the objects
+     * @param hasId    True if each object also holds its ID
+     */
+    private static void rekey(ObjectNode element, String field, Ids ids, boolean hasId) {
+        final JsonNode objects = element.get(field);
+        if (!(objects instanceof ObjectNode) || objects.isEmpty())
+            return;
+
+        final ObjectNode rekeyed = JsonNodeFactory.instance.objectNode();
+        for (Iterator<Map.Entry<String, JsonNode>> entries = objects.fields(); entries.hasNext();) {
+            final Map.Entry<String, JsonNode> entry = entries.next();
+            final int id = ids.get(Integer.parseInt(entry.getKey()));
+            if (hasId && entry.getValue() instanceof ObjectNode)
+                ((ObjectNode) entry.getValue()).put("id", id);
+            rekeyed.set(Integer.toString(id), entry.getValue());
+        }
+        element.set(field, rekeyed);
+    }
+
+    private void mergeSections(ObjectNode anr) {
+        putAll(referentials, anr.get("referentials"), entry -> entry.getKey());
+        putAll(measures, anr.get("measures"), entry -> entry.getKey());
+        putAll(methodThreats, anr.path("method").get("threats"), entry -> entry.getKey());
+        final JsonNode anrSoas = anr.get("soas");
+        if (anrSoas != null) {
+            for (JsonNode soa : anrSoas)
+                soas.putIfAbsent(soa.path("measure_id").asText(), soa);
+        }
+        final JsonNode links = anr.get("measuresMeasures");
+        if (links != null)
+            links.forEach(measuresMeasures::add);
+        final JsonNode categories = anr.get("soacategories");
+        if (categories != null)
+            categories.forEach(soacategories::add);
+    }
+
+    private static void putAll(Map<String, JsonNode> target, JsonNode objects,
+            Function<Map.Entry<String, JsonNode>, String> key) {
+        if (objects == null)
+            return;
+        for (Iterator<Map.Entry<String, JsonNode>> entries = objects.fields(); entries.hasNext();) {
+            final Map.Entry<String, JsonNode> entry = entries.next();
+            target.putIfAbsent(key.apply(entry), entry.getValue());
+        }
+    }
+
+    private static ObjectNode object(Map<String, JsonNode> objects) {
+        final ObjectNode node = JsonNodeFactory.instance.objectNode();
+        objects.forEach(node::set);
+        return node;
+    }
+
+    private static JsonNode array(Iterable<JsonNode> values) {
+        final List<JsonNode> list = new ArrayList<>();
+        values.forEach(list::add);
+        return JsonNodeFactory.instance.arrayNode().addAll(list);
+    }
+}
@@ -22,6 +22,12 @@ public class MonarcObject {
     private List<MonarcObject> children;
     private List<String> parentInstanceId;
 
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcObject() {
+    }
+
     /**
      * Constructs a MonarcObject with the specified parameters.
      *
@@ -11,6 +11,12 @@ public class MonarcOperationalRiskScaleComments {
     private String commentTranslationKey;
     private MonarcTranslation translation;
     
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcOperationalRiskScaleComments() {
+    }
+
     /**
      * Constructs a new MonarcOperationalRiskScaleComments object.
      * 
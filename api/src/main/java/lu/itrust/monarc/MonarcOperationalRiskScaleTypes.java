@@ -12,6 +12,12 @@ public class MonarcOperationalRiskScaleTypes {
     private MonarcTranslation translation;
     private List<MonarcOperationalRiskScaleComments> operationalRiskScaleComments;
     
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcOperationalRiskScaleTypes() {
+    }
+
     /**
      * Constructs a new MonarcOperationalRiskScaleTypes object with the specified parameters.
      * 
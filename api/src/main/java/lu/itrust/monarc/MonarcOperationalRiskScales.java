@@ -13,6 +13,12 @@ public class MonarcOperationalRiskScales {
     private List<MonarcOperationalRiskScaleTypes> operationalRiskScaleTypes;
     private List<MonarcOperationalRiskScaleComments> operationalRiskScaleComments;
     
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcOperationalRiskScales() {
+    }
+
     /**
      * Constructs a new MonarcOperationalRiskScales object with the specified parameters.
      * 
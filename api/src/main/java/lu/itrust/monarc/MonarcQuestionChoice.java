@@ -11,6 +11,12 @@ public class MonarcQuestionChoice {
     private String label4;
     private int position;
 
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcQuestionChoice() {
+    }
+
     /**
      * Constructs a MonarcQuestionChoice object with the specified parameters.
      *
@@ -15,6 +15,12 @@ public class MonarcQuestions {
     private int multichoice;
     private int position;
 
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcQuestions() {
+    }
+
     /**
      * Constructs a Monarc question with the specified parameters.
      *
@@ -1,8 +1,9 @@
 package lu.itrust.monarc;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
@@ -17,7 +18,19 @@ public class MonarcRecSets {
     private String label3;
     private String label4;
     private Set<String> parentInstanceId;
+    // Set when a value is changed through a setter, cleared when the database is
+    // exported
+    private boolean modified;
+    // Runs the changes of the setters under the write lock of the database
+    // holding the recommendation set, null until it is attached to the database
+    private Consumer<Runnable> changes;
     
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcRecSets() {
+    }
+
     /**
      * Constructs a new MonarcRecSets object with the specified UUID and labels.
      * @param uuid the UUID of the recSets object
@@ -32,7 +45,7 @@ public class MonarcRecSets {
         this.label2 = label2;
         this.label3 = label3;
         this.label4 = label4;
-        this.parentInstanceId = new HashSet<>();
+        this.parentInstanceId = new MonarcInstanceIds();
     }
 
     /**
@@ -65,7 +78,11 @@ public class MonarcRecSets {
      * @param uuid the UUID to set
      */
     public void setUuid(String uuid) {
-        this.uuid = uuid;
+        change(() -> {
+            if (!Objects.equals(this.uuid, uuid))
+                modified = true;
+            this.uuid = uuid;
+        });
     }
 
     /**
@@ -81,7 +98,11 @@ public class MonarcRecSets {
      * @param label1 the first label to set
      */
     public void setLabel1(String label1) {
-        this.label1 = label1;
+        change(() -> {
+            if (!Objects.equals(this.label1, label1))
+                modified = true;
+            this.label1 = label1;
+        });
     }
 
     /**
@@ -97,7 +118,11 @@ public class MonarcRecSets {
      * @param label2 the second label to set
      */
     public void setLabel2(String label2) {
-        this.label2 = label2;
+        change(() -> {
+            if (!Objects.equals(this.label2, label2))
+                modified = true;
+            this.label2 = label2;
+        });
     }
 
     /**
@@ -113,7 +138,11 @@ public class MonarcRecSets {
      * @param label3 the third label to set
      */
     public void setLabel3(String label3) {
-        this.label3 = label3;
+        change(() -> {
+            if (!Objects.equals(this.label3, label3))
+                modified = true;
+            this.label3 = label3;
+        });
     }
 
     /**
@@ -129,7 +158,11 @@ public class MonarcRecSets {
      * @param label4 the fourth label to set
      */
     public void setLabel4(String label4) {
-        this.label4 = label4;
+        change(() -> {
+            if (!Objects.equals(this.label4, label4))
+                modified = true;
+            this.label4 = label4;
+        });
     }
 
     /**
@@ -151,4 +184,37 @@ public class MonarcRecSets {
         else
             return clsName.equalsIgnoreCase(label4);
     }
+
+    /**
+     * Attaches the recommendation set to the database holding it, see
+     * MonarcDatabase#update.
+     *
+     * @param changes Runs a change under the write lock of the database.
+     */
+    void setChanges(Consumer<Runnable> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Changes the recommendation set under the write lock of the database, if
+     * it is attached to one.
+     */
+    private void change(Runnable change) {
+        if (changes == null)
+            change.run();
+        else
+            changes.accept(change);
+    }
+
+    /**
+     * @return True if a value of the recommendation set was changed since the
+     *         database was loaded or last exported.
+     */
+    boolean isModified() {
+        return modified;
+    }
+
+    void clearModified() {
+        modified = false;
+    }
 }
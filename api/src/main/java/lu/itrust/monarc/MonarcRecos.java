@@ -14,6 +14,12 @@ public class MonarcRecos extends MonarcRecs{
     private Set<String> relatedRisk = new HashSet<>();
     private String commentAfter = "";
 
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcRecos() {
+    }
+
     public MonarcRecos(String uuid, String recommandationSet, String code, String description, int importance,
             String comment, int status, String responsable, MonarcDuedate duedate, int counterTreated, String commentAfter, String ownerRisk) {
         super(uuid, recommandationSet, code, description, importance, comment, status, responsable, duedate, counterTreated);
@@ -30,7 +36,12 @@ public class MonarcRecos extends MonarcRecs{
     
     public void addRelatedRisk(String relatedRiskId)
     {
-        relatedRisk.add(relatedRiskId);
+        change(() -> relatedRisk.add(relatedRiskId));
+    }
+
+    public boolean removeRelatedRisk(String relatedRiskId)
+    {
+        return relatedRisk.remove(relatedRiskId);
     }
 
     @JsonIgnore
@@ -44,6 +55,6 @@ public class MonarcRecos extends MonarcRecs{
     }
 
     public void setCommentAfter(String commentAfter) {
-        this.commentAfter = commentAfter;
+        change(() -> this.commentAfter = commentAfter);
     }
 }
@@ -1,8 +1,9 @@
 package lu.itrust.monarc;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
@@ -22,6 +23,18 @@ public class MonarcRecs {
     private MonarcDuedate duedate;
     private int counterTreated;
     private Set<String> parentInstanceId;
+    // Set when a value is changed through a setter, cleared when the database is
+    // exported
+    private boolean modified;
+    // Runs the changes of the setters under the write lock of the database
+    // holding the recommendation, null until it is attached to the database
+    private Consumer<Runnable> changes;
+
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    MonarcRecs() {
+    }
 
     /**
      * Constructs a new MonarcRecs object with the specified parameters.
@@ -49,7 +62,7 @@ public class MonarcRecs {
         this.responsable = responsable;
         this.duedate = duedate;
         this.counterTreated = counterTreated;
-        this.parentInstanceId = new HashSet<>();
+        this.parentInstanceId = new MonarcInstanceIds();
     }
 
     /**
@@ -96,7 +109,11 @@ public class MonarcRecs {
      * @param uuid The UUID of the recommendation.
      */
     public void setUuid(String uuid) {
-        this.uuid = uuid;
+        change(() -> {
+            if (!Objects.equals(this.uuid, uuid))
+                modified = true;
+            this.uuid = uuid;
+        });
     }
 
     /**
@@ -114,7 +131,11 @@ public class MonarcRecs {
      * @param recommandationSet The recommendation set.
      */
     public void setRecommandationSet(String recommandationSet) {
-        this.recommandationSet = recommandationSet;
+        change(() -> {
+            if (!Objects.equals(this.recommandationSet, recommandationSet))
+                modified = true;
+            this.recommandationSet = recommandationSet;
+        });
     }
 
     /**
@@ -132,7 +153,11 @@ public class MonarcRecs {
      * @param code The code of the recommendation.
      */
     public void setCode(String code) {
-        this.code = code;
+        change(() -> {
+            if (!Objects.equals(this.code, code))
+                modified = true;
+            this.code = code;
+        });
     }
 
     /**
@@ -150,7 +175,11 @@ public class MonarcRecs {
      * @param description The description of the recommendation.
      */
     public void setDescription(String description) {
-        this.description = description;
+        change(() -> {
+            if (!Objects.equals(this.description, description))
+                modified = true;
+            this.description = description;
+        });
     }
 
     /**
@@ -168,7 +197,11 @@ public class MonarcRecs {
      * @param importance The importance of the recommendation.
      */
     public void setImportance(int importance) {
-        this.importance = importance;
+        change(() -> {
+            if (this.importance != importance)
+                modified = true;
+            this.importance = importance;
+        });
     }
 
     /**
@@ -186,7 +219,11 @@ public class MonarcRecs {
      * @param comment The comment for the recommendation.
      */
     public void setComment(String comment) {
-        this.comment = comment;
+        change(() -> {
+            if (!Objects.equals(this.comment, comment))
+                modified = true;
+            this.comment = comment;
+        });
     }
 
     /**
@@ -204,7 +241,11 @@ public class MonarcRecs {
      * @param status The status of the recommendation.
      */
     public void setStatus(int status) {
-        this.status = status;
+        change(() -> {
+            if (this.status != status)
+                modified = true;
+            this.status = status;
+        });
     }
 
     /**
@@ -222,7 +263,11 @@ public class MonarcRecs {
      * @param responsable The responsible person for the recommendation.
      */
     public void setResponsable(String responsable) {
-        this.responsable = responsable;
+        change(() -> {
+            if (!Objects.equals(this.responsable, responsable))
+                modified = true;
+            this.responsable = responsable;
+        });
     }
 
     /**
@@ -240,7 +285,11 @@ public class MonarcRecs {
      * @param duedate The due date of the recommendation.
      */
     public void setDuedate(MonarcDuedate duedate) {
-        this.duedate = duedate;
+        change(() -> {
+            if (!Objects.equals(this.duedate, duedate))
+                modified = true;
+            this.duedate = duedate;
+        });
     }
 
     /**
@@ -258,7 +307,50 @@ public class MonarcRecs {
      * @param counterTreated The counter for treated instances of the recommendation.
      */
     public void setCounterTreated(int counterTreated) {
-        this.counterTreated = counterTreated;
+        change(() -> {
+            if (this.counterTreated != counterTreated)
+                modified = true;
+            this.counterTreated = counterTreated;
+        });
     }
 
+    /**
+     * Attaches the recommendation to the database holding it, see
+     * MonarcDatabase#update.
+     *
+     * @param changes Runs a change under the write lock of the database.
+     */
+    void setChanges(Consumer<Runnable> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Changes the recommendation under the write lock of the database, if it is
+     * attached to one.
+     */
+    void change(Runnable change) {
+        if (changes == null)
+            change.run();
+        else
+            changes.accept(change);
+    }
+
+    /**
+     * @return True if a value of the recommendation was changed since the
+     *         database was loaded or last exported.
+     */
+    boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Marks the recommendation as changed, for the changes not made through a setter.
+     */
+    void markModified() {
+        modified = true;
+    }
+
+    void clearModified() {
+        modified = false;
+    }
 }
@@ -0,0 +1,87 @@
+package lu.itrust.monarc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Changes of the recommendations of a database, applied at once by
+ * {@link MonarcDatabase#apply(MonarcRecsBatch)}: recommendations implemented
+ * for risks ("recos"), links between them and the risks removed, and
+ * recommendations removed.
+ *
+ * The changes are applied in the order they were added.
+ */
+public final class MonarcRecsBatch {
+
+    enum Kind {
+        LINK, UNLINK, REMOVE
+    }
+
+    static final class Operation {
+        final Kind kind;
+        final int riskId;
+        final MonarcRecs recs;
+        final String uuid;
+
+        private Operation(Kind kind, int riskId, MonarcRecs recs, String uuid) {
+            this.kind = kind;
+            this.riskId = riskId;
+            this.recs = recs;
+            this.uuid = uuid;
+        }
+    }
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    /**
+     * Implements a recommendation for a risk, as
+     * {@link MonarcDatabase#createOrUpdate(int, MonarcRecs)}.
+     *
+     * @param riskId The ID of the risk.
+     * @param recs   The recommendation.
+     * @return This batch.
+     */
+    public MonarcRecsBatch link(int riskId, MonarcRecs recs) {
+        Objects.requireNonNull(recs, "recs");
+        operations.add(new Operation(Kind.LINK, riskId, recs, recs.getUuid()));
+        return this;
+    }
+
+    /**
+     * Removes a risk from the risks a recommendation is implemented for. A
+     * recommendation implemented for no risk anymore is removed from the recos.
+     *
+     * @param riskId The ID of the risk.
+     * @param uuid   The UUID of the recommendation.
+     * @return This batch.
+     */
+    public MonarcRecsBatch unlink(int riskId, String uuid) {
+        operations.add(new Operation(Kind.UNLINK, riskId, null, Objects.requireNonNull(uuid, "uuid")));
+        return this;
+    }
+
+    /**
+     * Removes a recommendation from the database and from its instances, as
+     * {@link MonarcDatabase#removeIf(java.util.function.Predicate)}.
+     *
+     * @param uuid The UUID of the recommendation.
+     * @return This batch.
+     */
+    public MonarcRecsBatch remove(String uuid) {
+        operations.add(new Operation(Kind.REMOVE, 0, null, Objects.requireNonNull(uuid, "uuid")));
+        return this;
+    }
+
+    /**
+     * @return The number of changes in the batch.
+     */
+    public int size() {
+        return operations.size();
+    }
+
+    List<Operation> operations() {
+        return Collections.unmodifiableList(operations);
+    }
+}
@@ -0,0 +1,78 @@
+package lu.itrust.monarc;
+
+/**
+ * What a {@link MonarcRecsBatch} changed in a database.
+ *
+ * @see MonarcDatabase#apply(MonarcRecsBatch)
+ */
+public final class MonarcRecsBatchSummary {
+
+    int created;
+    int linked;
+    int unlinked;
+    int recosRemoved;
+    int recsRemoved;
+    int unchanged;
+    int instances;
+
+    MonarcRecsBatchSummary() {
+    }
+
+    /**
+     * @return The number of recommendations implemented for a first risk.
+     */
+    public int getCreated() {
+        return created;
+    }
+
+    /**
+     * @return The number of links added between a recommendation and a risk.
+     */
+    public int getLinked() {
+        return linked;
+    }
+
+    /**
+     * @return The number of links removed between a recommendation and a risk.
+     */
+    public int getUnlinked() {
+        return unlinked;
+    }
+
+    /**
+     * @return The number of recommendations no longer implemented for any risk.
+     */
+    public int getRecosRemoved() {
+        return recosRemoved;
+    }
+
+    /**
+     * @return The number of recommendations removed from the database.
+     */
+    public int getRecsRemoved() {
+        return recsRemoved;
+    }
+
+    /**
+     * @return The number of changes without effect, linking a recommendation to
+     *         a risk it was already linked to, or unlinking or removing an
+     *         unknown one.
+     */
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * @return The number of instances whose recommendations changed.
+     */
+    public int getInstances() {
+        return instances;
+    }
+
+    @Override
+    public String toString() {
+        return created + " created, " + linked + " linked, " + unlinked + " unlinked, " + recosRemoved
+                + " recos removed, " + recsRemoved + " recs removed, " + unchanged + " unchanged, " + instances
+                + " instances";
+    }
+}
@@ -13,6 +13,12 @@ public class MonarcReferentials {
     private String label3;
     private String label4;
 
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcReferentials() {
+    }
+
     /**
      * Constructs a new MonarcReferentials object with the specified UUID and labels.
      *
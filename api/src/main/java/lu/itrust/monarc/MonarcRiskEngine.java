@@ -0,0 +1,443 @@
+package lu.itrust.monarc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Computes the C, I and D values of the instances and the cached risk values
+ * (cacheMaxRisk and cacheTargetedRisk) of their risks.
+ *
+ * The values of an instance are the highest values of its consequences. When
+ * an instance has no consequence for one of the criteria, it inherits the value
+ * of its parent. The risks take the highest impact of their instance.
+ *
+ * After a full computation, the consequences and risks of the instances notify
+ * the engine when their C, I, D values or their rates change. The next update
+ * then only recomputes the instances below the changed consequences, and the
+ * risks of the instances whose values actually changed.
+ *
+ * The engine also keeps the statistics of the risks of each instance and of
+ * its subtree ({@link MonarcRiskStats}). After an update, the statistics of the
+ * instances whose consequences or risks were computed again are rebuilt, then
+ * rolled up to their ancestors only.
+ */
+final class MonarcRiskEngine {
+
+    private final MonarcIntMap<MonarcInstance> instances;
+    private final MonarcIntMap<MonarcRisks> risks;
+    private final Supplier<Map<Integer, List<MonarcInstance>>> childrenByParent;
+    private final Function<Integer, List<MonarcRisks>> risksByInstance;
+    private final Supplier<MonarcMethod> method;
+
+    // The tree of the last full computation, null when it must be done again
+    private Map<Integer, List<MonarcInstance>> tree;
+    private final Set<MonarcInstance> reachable = identitySet();
+    // Position of the reachable instances in the tree, the parents first
+    private final Map<MonarcInstance, Integer> positions = new IdentityHashMap<>();
+    private final Map<MonarcConsequences, MonarcInstance> consequenceOwners = new IdentityHashMap<>();
+
+    private final Set<MonarcInstance> dirtyInstances = identitySet();
+    private final Set<MonarcRisks> dirtyRisks = identitySet();
+
+    // The instances whose statistics must be rebuilt
+    private final Set<MonarcInstance> staleStats = identitySet();
+    private int threshold1;
+    private int threshold2;
+    private MonarcRiskStats totalStats;
+
+    /**
+     * @param instances        The instances of the database, by ID.
+     * @param risks            The risks of the database, by ID.
+     * @param childrenByParent Groups the instances by parent ID, the upper
+     *                         levels being under the ID 0.
+     * @param risksByInstance  Returns the risks of an instance, by instance ID.
+     * @param method           Returns the method holding the thresholds.
+     */
+    MonarcRiskEngine(MonarcIntMap<MonarcInstance> instances, MonarcIntMap<MonarcRisks> risks,
+            Supplier<Map<Integer, List<MonarcInstance>>> childrenByParent,
+            Function<Integer, List<MonarcRisks>> risksByInstance, Supplier<MonarcMethod> method) {
+        this.instances = instances;
+        this.risks = risks;
+        this.childrenByParent = childrenByParent;
+        this.risksByInstance = risksByInstance;
+        this.method = method;
+    }
+
+    /**
+     * Forgets the tree of instances, so that the next update computes all the
+     * values again. To be called when instances, consequences or risks are
+     * added or removed.
+     */
+    void invalidate() {
+        tree = null;
+    }
+
+    /**
+     * Computes the values of all the instances and risks, in a single pass over
+     * the tree of instances followed by a single pass over the risks, then the
+     * statistics of all the instances.
+     *
+     * Instances that cannot be reached from the upper levels of the tree, and
+     * the risks that only belong to them, are left untouched.
+     */
+    void computeAll() {
+        tree = childrenByParent.get();
+        reachable.clear();
+        positions.clear();
+        consequenceOwners.clear();
+        dirtyInstances.clear();
+        dirtyRisks.clear();
+
+        final Deque<MonarcInstance> pending = new ArrayDeque<>(tree.getOrDefault(0, Collections.emptyList()));
+        while (!pending.isEmpty()) {
+            final MonarcInstance instance = pending.pop();
+            // A cycle of parents cannot be followed endlessly
+            if (!reachable.add(instance))
+                continue;
+            positions.put(instance, positions.size());
+            for (MonarcConsequences consequence : instance.getConsequences().values()) {
+                consequenceOwners.put(consequence, instance);
+                consequence.setRiskEngine(this);
+            }
+            computeInstance(instance);
+            pending.addAll(tree.getOrDefault(instance.getId(), Collections.emptyList()));
+        }
+
+        for (MonarcRisks risk : risks.values()) {
+            risk.setRiskEngine(this);
+            computeRisk(risk);
+        }
+
+        computeAllStats();
+    }
+
+    /**
+     * Brings the values up to date with the changes notified since the last
+     * computation, or computes all of them if the tree has been invalidated.
+     */
+    void update() {
+        if (tree == null) {
+            computeAll();
+            return;
+        }
+
+        final Set<MonarcInstance> changed = identitySet();
+        for (MonarcInstance instance : dirtyInstances)
+            computeSubtree(instance, changed);
+
+        final Set<MonarcRisks> outdated = identitySet();
+        outdated.addAll(dirtyRisks);
+        for (MonarcInstance instance : changed)
+            outdated.addAll(risksByInstance.apply(instance.getId()));
+        for (MonarcRisks risk : outdated) {
+            computeRisk(risk);
+            for (int instanceId : MonarcInstanceIds.instanceIds(risk.getParentInstanceId())) {
+                final MonarcInstance instance = instances.get(instanceId);
+                if (instance != null && reachable.contains(instance))
+                    staleStats.add(instance);
+            }
+        }
+
+        dirtyInstances.clear();
+        dirtyRisks.clear();
+
+        if (threshold1 != threshold("seuil1") || threshold2 != threshold("seuil2"))
+            computeAllStats();
+        else
+            rollUpStats();
+    }
+
+    /**
+     * @return True if the values and the statistics take all the changes into
+     *         account, so that {@link #update()} has nothing to do.
+     */
+    boolean isUpToDate() {
+        return tree != null && dirtyInstances.isEmpty() && dirtyRisks.isEmpty()
+                && threshold1 == threshold("seuil1") && threshold2 == threshold("seuil2");
+    }
+
+    /**
+     * @return The statistics of the risks of all the instances, null before the
+     *         first computation.
+     */
+    MonarcRiskStats getTotalStats() {
+        return totalStats;
+    }
+
+    /**
+     * @return The first threshold of the method the statistics were computed
+     *         with.
+     */
+    int getThreshold1() {
+        return threshold1;
+    }
+
+    /**
+     * @return The second threshold of the method the statistics were computed
+     *         with.
+     */
+    int getThreshold2() {
+        return threshold2;
+    }
+
+    /**
+     * Returns an instance and the instances below it, as of the last
+     * computation, the parents before their children.
+     *
+     * @param instanceId The ID of the instance, or 0 for all the instances.
+     * @return The instances, or null if the instance cannot be reached from the
+     *         upper levels of the tree.
+     */
+    List<MonarcInstance> subtree(int instanceId) {
+        if (instanceId == 0)
+            return Arrays.asList(ordered());
+        final MonarcInstance root = instances.get(instanceId);
+        if (root == null || !positions.containsKey(root))
+            return null;
+
+        final List<MonarcInstance> subtree = new ArrayList<>();
+        final Deque<MonarcInstance> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            final MonarcInstance instance = pending.pop();
+            subtree.add(instance);
+            for (MonarcInstance child : tree.getOrDefault(instance.getId(), Collections.emptyList())) {
+                if (positions.containsKey(child))
+                    pending.push(child);
+            }
+        }
+        return subtree;
+    }
+
+    /**
+     * Notifies that a C, I or D value of a consequence changed.
+     *
+     * @param consequence The changed consequence.
+     */
+    void consequenceChanged(MonarcConsequences consequence) {
+        final MonarcInstance owner = consequenceOwners.get(consequence);
+        if (owner != null)
+            dirtyInstances.add(owner);
+    }
+
+    /**
+     * Notifies that a rate or the kind of measure of a risk changed.
+     *
+     * @param risk The changed risk.
+     */
+    void riskChanged(MonarcRisks risk) {
+        dirtyRisks.add(risk);
+    }
+
+    /**
+     * Computes the values of an instance, then of its descendants for as long as
+     * the values they inherit change.
+     *
+     * @param root    The instance to compute.
+     * @param changed The instances whose values changed, updated by this function.
+     */
+    private void computeSubtree(MonarcInstance root, Set<MonarcInstance> changed) {
+        final Deque<MonarcInstance> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            final MonarcInstance instance = pending.pop();
+            if (!reachable.contains(instance) || !computeInstance(instance))
+                continue;
+            changed.add(instance);
+            pending.addAll(tree.getOrDefault(instance.getId(), Collections.emptyList()));
+        }
+    }
+
+    /**
+     * Computes the C, I and D values of an instance from its consequences and its
+     * parent.
+     *
+     * @param instance The instance to compute.
+     * @return true if one of the values changed.
+     */
+    private boolean computeInstance(MonarcInstance instance) {
+        // The values may be missing from the file, so they are not read as int
+        final Object c = instance.getInstance().get("c");
+        final Object i = instance.getInstance().get("i");
+        final Object d = instance.getInstance().get("d");
+
+        int newC = -1;
+        int newI = -1;
+        int newD = -1;
+        for (MonarcConsequences consequence : instance.getConsequences().values()) {
+            newC = Math.max(newC, consequence.getC());
+            newI = Math.max(newI, consequence.getI());
+            newD = Math.max(newD, consequence.getD());
+        }
+
+        instance.setCh(newC == -1);
+        instance.setIh(newI == -1);
+        instance.setDh(newD == -1);
+        // The risks are added once they are computed
+        instance.setRiskStats(new MonarcRiskStats(newC, newI, newD));
+        staleStats.add(instance);
+
+        final MonarcInstance parent = instance.getParent() == 0 ? null : instances.get(instance.getParent());
+        if (parent != null) {
+            if (newC == -1)
+                newC = parent.getC();
+            if (newI == -1)
+                newI = parent.getI();
+            if (newD == -1)
+                newD = parent.getD();
+        }
+
+        instance.setC(newC);
+        instance.setI(newI);
+        instance.setD(newD);
+
+        return !Objects.equals(c, newC) || !Objects.equals(i, newI) || !Objects.equals(d, newD);
+    }
+
+    /**
+     * Computes the cached values of a risk from the highest impact of the
+     * instances it belongs to.
+     *
+     * @param risk The risk to compute.
+     */
+    private void computeRisk(MonarcRisks risk) {
+        boolean found = false;
+        int maxImpact = Integer.MIN_VALUE;
+        for (int instanceId : MonarcInstanceIds.instanceIds(risk.getParentInstanceId())) {
+            final MonarcInstance instance = instances.get(instanceId);
+            if (instance == null || !reachable.contains(instance))
+                continue;
+            found = true;
+            maxImpact = Math.max(maxImpact, Math.max(instance.getC(), Math.max(instance.getI(), instance.getD())));
+        }
+        if (!found)
+            return;
+
+        // A risk whose impact or rates are not evaluated is not evaluated either, the
+        // product of two -1 rates would make it positive
+        if (maxImpact < 0 || risk.getThreatRate() < 0 || risk.getVulnerabilityRate() < 0) {
+            risk.setCacheMaxRisk(-1);
+            risk.setCacheTargetedRisk(-1);
+            return;
+        }
+
+        risk.setCacheMaxRisk(Math.max(maxImpact * risk.getVulnerabilityRate() * risk.getThreatRate(), -1));
+        if (risk.getKindOfMeasure() == 3)// accept
+            risk.setCacheTargetedRisk(risk.getCacheMaxRisk());
+        else {
+            risk.setCacheTargetedRisk(Math.max(Math.min(
+                    maxImpact * Math.max(risk.getVulnerabilityRate() - risk.getReductionAmount(), 0)
+                            * risk.getThreatRate(),
+                    risk.getCacheMaxRisk()), -1));
+        }
+    }
+
+    /**
+     * Builds the statistics of all the reachable instances, the children before
+     * their parents.
+     */
+    private void computeAllStats() {
+        threshold1 = threshold("seuil1");
+        threshold2 = threshold("seuil2");
+        final MonarcInstance[] ordered = ordered();
+        for (MonarcInstance instance : ordered)
+            computeStats(instance);
+        for (int i = ordered.length - 1; i >= 0; i--)
+            computeSubtreeStats(ordered[i]);
+        computeTotalStats();
+        staleStats.clear();
+    }
+
+    /**
+     * @return The reachable instances, the parents before their children.
+     */
+    private MonarcInstance[] ordered() {
+        final MonarcInstance[] ordered = new MonarcInstance[positions.size()];
+        positions.forEach((instance, position) -> ordered[position] = instance);
+        return ordered;
+    }
+
+    /**
+     * Builds the statistics of the instances whose consequences or risks were
+     * computed again, then the statistics of the subtrees holding them, the
+     * children before their parents.
+     */
+    private void rollUpStats() {
+        if (staleStats.isEmpty())
+            return;
+
+        final Set<MonarcInstance> subtrees = identitySet();
+        for (MonarcInstance instance : staleStats) {
+            computeStats(instance);
+            // The ancestors of an instance already added are added as well
+            for (MonarcInstance current = instance; current != null && subtrees.add(current);)
+                current = current.getParent() == 0 ? null : instances.get(current.getParent());
+        }
+        final List<MonarcInstance> ordered = new ArrayList<>(subtrees.size());
+        for (MonarcInstance instance : subtrees) {
+            if (positions.containsKey(instance))
+                ordered.add(instance);
+        }
+        ordered.sort(Comparator.comparing(positions::get, Comparator.reverseOrder()));
+        for (MonarcInstance instance : ordered)
+            computeSubtreeStats(instance);
+        computeTotalStats();
+        staleStats.clear();
+    }
+
+    /**
+     * Builds the statistics of an instance from the highest C, I and D values of
+     * its consequences and from its risks.
+     */
+    private void computeStats(MonarcInstance instance) {
+        final MonarcRiskStats consequences = instance.getRiskStats();
+        final MonarcRiskStats stats = new MonarcRiskStats(consequences.maxC, consequences.maxI,
+                consequences.maxD);
+        for (MonarcRisks risk : risksByInstance.apply(instance.getId()))
+            stats.addRisk(risk, threshold1, threshold2);
+        instance.setRiskStats(stats);
+    }
+
+    private void computeSubtreeStats(MonarcInstance instance) {
+        final MonarcRiskStats stats = instance.getRiskStats().copy();
+        for (MonarcInstance child : tree.getOrDefault(instance.getId(), Collections.emptyList())) {
+            if (positions.containsKey(child))
+                stats.add(child.getSubtreeRiskStats());
+        }
+        instance.setSubtreeRiskStats(stats);
+    }
+
+    private void computeTotalStats() {
+        final MonarcRiskStats stats = new MonarcRiskStats(-1, -1, -1);
+        for (MonarcInstance root : tree.getOrDefault(0, Collections.emptyList())) {
+            if (positions.containsKey(root))
+                stats.add(root.getSubtreeRiskStats());
+        }
+        totalStats = stats;
+    }
+
+    /**
+     * @return The threshold of the method, or no threshold if it is missing.
+     */
+    private int threshold(String name) {
+        final MonarcMethod monarcMethod = method.get();
+        final Integer threshold = monarcMethod == null || monarcMethod.getThresholds() == null ? null
+                : monarcMethod.getThresholds().get(name);
+        return threshold == null ? Integer.MAX_VALUE : threshold;
+    }
+
+    private static <T> Set<T> identitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+}
@@ -0,0 +1,120 @@
+package lu.itrust.monarc;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the risks with the highest values among the ones offered, up to a
+ * given number, in a binary heap of primitive values. Offering n risks takes a
+ * time in O(n log k) for k risks kept, and the risks are never copied to a
+ * list to be sorted.
+ *
+ * Each risk is kept as its value, its ID and an int given by the caller, for
+ * instance its position in a list. Risks with the same value are ranked by ID.
+ *
+ * The heap grows with the risks kept, a capacity above the number of risks
+ * offered (for instance Integer.MAX_VALUE for all of them) takes no more
+ * memory than the risks.
+ */
+final class MonarcRiskHeap {
+
+    private final int capacity;
+    // The value in the upper half, the inverted ID in the lower one, so that the
+    // lowest key is the risk to drop first
+    private long[] keys;
+    private int[] payloads;
+    private int size;
+
+    /**
+     * @param capacity The number of risks kept.
+     */
+    MonarcRiskHeap(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Negative number of risks: " + capacity);
+        this.capacity = capacity;
+        this.keys = new long[Math.min(capacity, 16)];
+        this.payloads = new int[keys.length];
+    }
+
+    /**
+     * Offers a risk, kept if it is among the highest ones offered so far.
+     *
+     * @param value   The value of the risk.
+     * @param id      The ID of the risk.
+     * @param payload The int kept with the risk.
+     */
+    void offer(int value, int id, int payload) {
+        final long key = ((long) value << 32) | (0xFFFFFFFFL - (id & 0xFFFFFFFFL));
+        if (size < capacity) {
+            if (size == keys.length) {
+                final int length = (int) Math.min(capacity, 2L * size);
+                keys = Arrays.copyOf(keys, length);
+                payloads = Arrays.copyOf(payloads, length);
+            }
+            keys[size] = key;
+            payloads[size] = payload;
+            siftUp(size++);
+        } else if (capacity > 0 && key > keys[0]) {
+            keys[0] = key;
+            payloads[0] = payload;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * @return The number of risks kept.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Empties the heap, returning the ints kept with the risks, the highest risk
+     * first.
+     *
+     * @return The ints kept with the risks.
+     */
+    int[] drain() {
+        final int[] drained = new int[size];
+        while (size > 0) {
+            drained[size - 1] = payloads[0];
+            size--;
+            keys[0] = keys[size];
+            payloads[0] = payloads[size];
+            siftDown(0);
+        }
+        return drained;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            if (keys[parent] <= keys[index])
+                return;
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            final int left = 2 * index + 1;
+            if (left >= size)
+                return;
+            final int right = left + 1;
+            final int lowest = right < size && keys[right] < keys[left] ? right : left;
+            if (keys[index] <= keys[lowest])
+                return;
+            swap(index, lowest);
+            index = lowest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        final long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        final int payload = payloads[i];
+        payloads[i] = payloads[j];
+        payloads[j] = payload;
+    }
+}
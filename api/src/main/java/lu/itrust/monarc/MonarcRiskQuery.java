@@ -0,0 +1,195 @@
+package lu.itrust.monarc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Search of the risks matching several criteria on the risks and on the AMVs,
+ * threats, vulnerabilities, measures and instances they are linked to, run by
+ * {@link MonarcDatabase#searchRisks(MonarcRiskQuery)}. A risk is found if it
+ * matches all the criteria.
+ *
+ * For instance, the risks of an asset for the threats of a theme, not
+ * accepted:
+ *
+ * <pre>
+ * db.searchRisks(new MonarcRiskQuery().asset(assetUuid).threatTheme(themeId).notKindOfMeasure(3));
+ * </pre>
+ *
+ * The criteria are not checked in the order they were added: the database
+ * first reads the risks matching the most selective one from its indexes,
+ * then intersects them with the risks of the next ones.
+ */
+public final class MonarcRiskQuery {
+
+    enum Kind {
+        THREAT, VULNERABILITY, AMV, ASSET, MEASURE, INSTANCE, SUBTREE, KIND_OF_MEASURE, NOT_KIND_OF_MEASURE, RISKS,
+        AMVS, THREATS, VULNERABILITIES, MEASURES, INSTANCES
+    }
+
+    static final class Criterion {
+        final Kind kind;
+        final String uuid;
+        final int value;
+        final Predicate<?> predicate;
+
+        private Criterion(Kind kind, String uuid, int value, Predicate<?> predicate) {
+            this.kind = kind;
+            this.uuid = uuid;
+            this.value = value;
+            this.predicate = predicate;
+        }
+    }
+
+    private final List<Criterion> criteria = new ArrayList<>();
+
+    /**
+     * @param threat The UUID of the threat of the risks.
+     * @return This query.
+     */
+    public MonarcRiskQuery threat(String threat) {
+        return add(Kind.THREAT, Objects.requireNonNull(threat, "threat"), 0, null);
+    }
+
+    /**
+     * @param vulnerability The UUID of the vulnerability of the risks.
+     * @return This query.
+     */
+    public MonarcRiskQuery vulnerability(String vulnerability) {
+        return add(Kind.VULNERABILITY, Objects.requireNonNull(vulnerability, "vulnerability"), 0, null);
+    }
+
+    /**
+     * @param amv The UUID of the AMV of the risks.
+     * @return This query.
+     */
+    public MonarcRiskQuery amv(String amv) {
+        return add(Kind.AMV, Objects.requireNonNull(amv, "amv"), 0, null);
+    }
+
+    /**
+     * @param asset The UUID of the asset of the AMVs of the risks.
+     * @return This query.
+     */
+    public MonarcRiskQuery asset(String asset) {
+        return add(Kind.ASSET, Objects.requireNonNull(asset, "asset"), 0, null);
+    }
+
+    /**
+     * @param instanceId The ID of an instance holding the risks.
+     * @return This query.
+     */
+    public MonarcRiskQuery instance(int instanceId) {
+        return add(Kind.INSTANCE, null, instanceId, null);
+    }
+
+    /**
+     * Only keeps the risks of an instance and of the instances below it.
+     *
+     * @param instanceId The ID of the instance.
+     * @return This query.
+     */
+    public MonarcRiskQuery subtree(int instanceId) {
+        return add(Kind.SUBTREE, null, instanceId, null);
+    }
+
+    /**
+     * @param kindOfMeasure The kind of measure of the risks (3 for accepted).
+     * @return This query.
+     */
+    public MonarcRiskQuery kindOfMeasure(int kindOfMeasure) {
+        return add(Kind.KIND_OF_MEASURE, null, kindOfMeasure, null);
+    }
+
+    /**
+     * @param kindOfMeasure A kind of measure the risks must not have.
+     * @return This query.
+     */
+    public MonarcRiskQuery notKindOfMeasure(int kindOfMeasure) {
+        return add(Kind.NOT_KIND_OF_MEASURE, null, kindOfMeasure, null);
+    }
+
+    /**
+     * @param themeId The ID of the theme of the threats of the risks.
+     * @return This query.
+     */
+    public MonarcRiskQuery threatTheme(int themeId) {
+        return threats(threat -> threat.getThemeID() == themeId);
+    }
+
+    /**
+     * @param measure The UUID of a measure of the AMVs of the risks.
+     * @return This query.
+     */
+    public MonarcRiskQuery measure(String measure) {
+        return add(Kind.MEASURE, Objects.requireNonNull(measure, "measure"), 0, null);
+    }
+
+    /**
+     * Only keeps the risks matching a filter. The filter is only given the risks
+     * matching the criteria found more selective.
+     *
+     * @param filter The filter of the risks.
+     * @return This query.
+     */
+    public MonarcRiskQuery risks(Predicate<? super MonarcRisks> filter) {
+        return add(Kind.RISKS, null, 0, Objects.requireNonNull(filter, "filter"));
+    }
+
+    /**
+     * @param filter The filter of the AMVs of the risks.
+     * @return This query.
+     */
+    public MonarcRiskQuery amvs(Predicate<? super MonarcAMV> filter) {
+        return add(Kind.AMVS, null, 0, Objects.requireNonNull(filter, "filter"));
+    }
+
+    /**
+     * @param filter The filter of the threats of the risks.
+     * @return This query.
+     */
+    public MonarcRiskQuery threats(Predicate<? super MonarcThreats> filter) {
+        return add(Kind.THREATS, null, 0, Objects.requireNonNull(filter, "filter"));
+    }
+
+    /**
+     * @param filter The filter of the vulnerabilities of the risks.
+     * @return This query.
+     */
+    public MonarcRiskQuery vulnerabilities(Predicate<? super MonarcVulnerabilities> filter) {
+        return add(Kind.VULNERABILITIES, null, 0, Objects.requireNonNull(filter, "filter"));
+    }
+
+    /**
+     * Only keeps the risks of the AMVs having one of the measures matching a
+     * filter.
+     *
+     * @param filter The filter of the measures.
+     * @return This query.
+     */
+    public MonarcRiskQuery measures(Predicate<? super MonarcMeasures> filter) {
+        return add(Kind.MEASURES, null, 0, Objects.requireNonNull(filter, "filter"));
+    }
+
+    /**
+     * Only keeps the risks held by one of the instances matching a filter.
+     *
+     * @param filter The filter of the instances.
+     * @return This query.
+     */
+    public MonarcRiskQuery instances(Predicate<? super MonarcInstance> filter) {
+        return add(Kind.INSTANCES, null, 0, Objects.requireNonNull(filter, "filter"));
+    }
+
+    private MonarcRiskQuery add(Kind kind, String uuid, int value, Predicate<?> predicate) {
+        criteria.add(new Criterion(kind, uuid, value, predicate));
+        return this;
+    }
+
+    List<Criterion> criteria() {
+        return Collections.unmodifiableList(criteria);
+    }
+}
@@ -0,0 +1,308 @@
+package lu.itrust.monarc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Heat maps and threshold counts of the risks of an ANR or of a subtree of
+ * instances, built by {@link MonarcDatabase#report(int, int)}.
+ *
+ * Each risk of each instance is counted once for the instance, with the
+ * impact of the instance (its highest C, I or D value) and the likelihood of
+ * the risk (its threat rate times its vulnerability rate, or its vulnerability
+ * rate less the reduction amount for the targeted risk). The risks whose
+ * impact or rates are not evaluated are only counted as not evaluated.
+ *
+ * The cached values of the risks (cacheMaxRisk and cacheTargetedRisk) are
+ * sorted in three buckets by the "seuil1" and "seuil2" thresholds of the
+ * method: low up to the first threshold, medium up to the second one, high
+ * above.
+ */
+public final class MonarcRiskReport {
+
+    private static final int LOW = 0;
+    private static final int MEDIUM = 1;
+    private static final int HIGH = 2;
+
+    private final int threshold1;
+    private final int threshold2;
+    // Counts by impact, then by likelihood, each row grown as needed
+    private int[][] matrix = new int[0][];
+    private int[][] targetedMatrix = new int[0][];
+    private final int[] buckets = new int[3];
+    private final int[] targetedBuckets = new int[3];
+    private int notEvaluated;
+    private int targetedNotEvaluated;
+    private int instanceCount;
+    private int riskCount;
+    private final MonarcIntMap<List<MonarcRisks>> topRisks = new MonarcIntMap<>();
+
+    MonarcRiskReport(int threshold1, int threshold2) {
+        this.threshold1 = threshold1;
+        this.threshold2 = threshold2;
+    }
+
+    /**
+     * Adds the risks of an instance to the report.
+     *
+     * @param instance The instance.
+     * @param risks    The risks of the instance.
+     * @param top      The heap keeping the top risks of the instance, empty.
+     */
+    void add(MonarcInstance instance, List<MonarcRisks> risks, MonarcRiskHeap top) {
+        instanceCount++;
+        final int impact = Math.max(instance.getC(), Math.max(instance.getI(), instance.getD()));
+        for (int index = 0; index < risks.size(); index++) {
+            final MonarcRisks risk = risks.get(index);
+            riskCount++;
+
+            final int threatRate = risk.getThreatRate();
+            final int vulnerabilityRate = risk.getVulnerabilityRate();
+            if (impact >= 0 && threatRate >= 0 && vulnerabilityRate >= 0) {
+                matrix = add(matrix, impact, threatRate * vulnerabilityRate, 1);
+                final int targeted = risk.getKindOfMeasure() == 3 ? vulnerabilityRate// accept
+                        : Math.max(vulnerabilityRate - risk.getReductionAmount(), 0);
+                targetedMatrix = add(targetedMatrix, impact, threatRate * targeted, 1);
+            }
+
+            final int value = risk.getCacheMaxRisk();
+            if (value < 0)
+                notEvaluated++;
+            else
+                buckets[bucket(value)]++;
+            final int targetedValue = risk.getCacheTargetedRisk();
+            if (targetedValue < 0)
+                targetedNotEvaluated++;
+            else
+                targetedBuckets[bucket(targetedValue)]++;
+
+            // Not evaluated risks are not top risks, as in searchTopRisks
+            if (value >= 0)
+                top.offer(value, risk.getId(), index);
+        }
+
+        if (top.size() > 0) {
+            final int[] indexes = top.drain();
+            final List<MonarcRisks> instanceTop = new ArrayList<>(indexes.length);
+            for (int index : indexes)
+                instanceTop.add(risks.get(index));
+            topRisks.put(instance.getId(), instanceTop);
+        }
+    }
+
+    /**
+     * Adds the counts of a report on other instances to this one.
+     *
+     * @param other The report to add.
+     */
+    void add(MonarcRiskReport other) {
+        matrix = add(matrix, other.matrix);
+        targetedMatrix = add(targetedMatrix, other.targetedMatrix);
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] += other.buckets[i];
+            targetedBuckets[i] += other.targetedBuckets[i];
+        }
+        notEvaluated += other.notEvaluated;
+        targetedNotEvaluated += other.targetedNotEvaluated;
+        instanceCount += other.instanceCount;
+        riskCount += other.riskCount;
+        topRisks.putAll(other.topRisks);
+    }
+
+    private int bucket(int value) {
+        return value <= threshold1 ? LOW : value <= threshold2 ? MEDIUM : HIGH;
+    }
+
+    private static int[][] add(int[][] matrix, int impact, int likelihood, int count) {
+        if (impact >= matrix.length) {
+            matrix = Arrays.copyOf(matrix, impact + 1);
+            for (int i = 0; i < matrix.length; i++) {
+                if (matrix[i] == null)
+                    matrix[i] = new int[0];
+            }
+        }
+        if (likelihood >= matrix[impact].length)
+            matrix[impact] = Arrays.copyOf(matrix[impact], Math.max(likelihood + 1, 2 * matrix[impact].length));
+        matrix[impact][likelihood] += count;
+        return matrix;
+    }
+
+    private static int[][] add(int[][] matrix, int[][] other) {
+        for (int impact = 0; impact < other.length; impact++) {
+            for (int likelihood = 0; likelihood < other[impact].length; likelihood++) {
+                if (other[impact][likelihood] != 0)
+                    matrix = add(matrix, impact, likelihood, other[impact][likelihood]);
+            }
+        }
+        return matrix;
+    }
+
+    private static int[][] copy(int[][] matrix) {
+        int width = 0;
+        for (int[] row : matrix) {
+            for (int likelihood = row.length - 1; likelihood >= width; likelihood--) {
+                if (row[likelihood] != 0) {
+                    width = likelihood + 1;
+                    break;
+                }
+            }
+        }
+        final int[][] copy = new int[matrix.length][];
+        for (int impact = 0; impact < matrix.length; impact++)
+            copy[impact] = Arrays.copyOf(matrix[impact], width);
+        return copy;
+    }
+
+    private static int count(int[][] matrix, int impact, int likelihood) {
+        return impact < 0 || impact >= matrix.length || likelihood < 0 || likelihood >= matrix[impact].length ? 0
+                : matrix[impact][likelihood];
+    }
+
+    /**
+     * @return The first threshold (seuil1) the risks were sorted with.
+     */
+    public int getThreshold1() {
+        return threshold1;
+    }
+
+    /**
+     * @return The second threshold (seuil2) the risks were sorted with.
+     */
+    public int getThreshold2() {
+        return threshold2;
+    }
+
+    /**
+     * @return The number of instances in the report.
+     */
+    public int getInstanceCount() {
+        return instanceCount;
+    }
+
+    /**
+     * @return The number of risks in the report, counted once for each instance
+     *         holding them.
+     */
+    public int getRiskCount() {
+        return riskCount;
+    }
+
+    /**
+     * Returns the heat map of the risks: the number of risks for each impact and
+     * likelihood (threat rate times vulnerability rate).
+     *
+     * @return The counts, by impact then by likelihood.
+     */
+    public int[][] getMatrix() {
+        return copy(matrix);
+    }
+
+    /**
+     * Returns the heat map of the targeted risks, as {@link #getMatrix()} with
+     * the vulnerability rates less the reduction amounts, except for the
+     * accepted risks.
+     *
+     * @return The counts, by impact then by likelihood.
+     */
+    public int[][] getTargetedMatrix() {
+        return copy(targetedMatrix);
+    }
+
+    /**
+     * @param impact     The impact.
+     * @param likelihood The threat rate times the vulnerability rate.
+     * @return The number of risks with this impact and likelihood.
+     */
+    public int getCount(int impact, int likelihood) {
+        return count(matrix, impact, likelihood);
+    }
+
+    /**
+     * @param impact     The impact.
+     * @param likelihood The threat rate times the targeted vulnerability rate.
+     * @return The number of targeted risks with this impact and likelihood.
+     */
+    public int getTargetedCount(int impact, int likelihood) {
+        return count(targetedMatrix, impact, likelihood);
+    }
+
+    /**
+     * @return The number of risks whose cacheMaxRisk is up to the first
+     *         threshold.
+     */
+    public int getLow() {
+        return buckets[LOW];
+    }
+
+    /**
+     * @return The number of risks whose cacheMaxRisk is above the first threshold
+     *         and up to the second one.
+     */
+    public int getMedium() {
+        return buckets[MEDIUM];
+    }
+
+    /**
+     * @return The number of risks whose cacheMaxRisk is above the second
+     *         threshold.
+     */
+    public int getHigh() {
+        return buckets[HIGH];
+    }
+
+    /**
+     * @return The number of risks whose cacheMaxRisk is not evaluated.
+     */
+    public int getNotEvaluated() {
+        return notEvaluated;
+    }
+
+    /**
+     * @return The number of risks whose cacheTargetedRisk is up to the first
+     *         threshold.
+     */
+    public int getTargetedLow() {
+        return targetedBuckets[LOW];
+    }
+
+    /**
+     * @return The number of risks whose cacheTargetedRisk is above the first
+     *         threshold and up to the second one.
+     */
+    public int getTargetedMedium() {
+        return targetedBuckets[MEDIUM];
+    }
+
+    /**
+     * @return The number of risks whose cacheTargetedRisk is above the second
+     *         threshold.
+     */
+    public int getTargetedHigh() {
+        return targetedBuckets[HIGH];
+    }
+
+    /**
+     * @return The number of risks whose cacheTargetedRisk is not evaluated.
+     */
+    public int getTargetedNotEvaluated() {
+        return targetedNotEvaluated;
+    }
+
+    /**
+     * @param instanceId The ID of an instance of the report.
+     * @return The risks of the instance with the highest cacheMaxRisk, the
+     *         highest first, leaving out the ones not evaluated.
+     */
+    public List<MonarcRisks> getTopRisks(int instanceId) {
+        final List<MonarcRisks> risks = topRisks.get(instanceId);
+        return risks == null ? Collections.emptyList() : Collections.unmodifiableList(risks);
+    }
+
+    @Override
+    public String toString() {
+        return instanceCount + " instances, " + riskCount + " risks, " + buckets[LOW] + " low, " + buckets[MEDIUM]
+                + " medium, " + buckets[HIGH] + " high, " + notEvaluated + " not evaluated";
+    }
+}
@@ -0,0 +1,153 @@
+package lu.itrust.monarc;
+
+/**
+ * Statistics of the risks of an instance, or of all the instances below it,
+ * kept up to date by the database as the consequences and risks change.
+ *
+ * The thresholds are the "seuil1" and "seuil2" thresholds of the method. A risk
+ * held by several instances is counted once for each of them. The risks whose
+ * cached values were not evaluated (-1) are counted, but are not part of the
+ * sums.
+ *
+ * @see MonarcDatabase#getRiskStats(int)
+ * @see MonarcDatabase#getSubtreeRiskStats(int)
+ */
+public final class MonarcRiskStats {
+
+    int maxC;
+    int maxI;
+    int maxD;
+    int riskCount;
+    int maxRisk = -1;
+    long sumRisk;
+    int maxTargetedRisk = -1;
+    long sumTargetedRisk;
+    int aboveThreshold1;
+    int aboveThreshold2;
+
+    MonarcRiskStats(int maxC, int maxI, int maxD) {
+        this.maxC = maxC;
+        this.maxI = maxI;
+        this.maxD = maxD;
+    }
+
+    /**
+     * @return A copy of these statistics, to add others to.
+     */
+    MonarcRiskStats copy() {
+        final MonarcRiskStats copy = new MonarcRiskStats(maxC, maxI, maxD);
+        copy.add(this);
+        return copy;
+    }
+
+    void addRisk(MonarcRisks risk, int threshold1, int threshold2) {
+        riskCount++;
+        final int risk1 = risk.getCacheMaxRisk();
+        if (risk1 >= 0) {
+            maxRisk = Math.max(maxRisk, risk1);
+            sumRisk += risk1;
+            if (risk1 > threshold1)
+                aboveThreshold1++;
+            if (risk1 > threshold2)
+                aboveThreshold2++;
+        }
+        final int targeted = risk.getCacheTargetedRisk();
+        if (targeted >= 0) {
+            maxTargetedRisk = Math.max(maxTargetedRisk, targeted);
+            sumTargetedRisk += targeted;
+        }
+    }
+
+    void add(MonarcRiskStats other) {
+        maxC = Math.max(maxC, other.maxC);
+        maxI = Math.max(maxI, other.maxI);
+        maxD = Math.max(maxD, other.maxD);
+        riskCount += other.riskCount;
+        maxRisk = Math.max(maxRisk, other.maxRisk);
+        sumRisk += other.sumRisk;
+        maxTargetedRisk = Math.max(maxTargetedRisk, other.maxTargetedRisk);
+        sumTargetedRisk += other.sumTargetedRisk;
+        aboveThreshold1 += other.aboveThreshold1;
+        aboveThreshold2 += other.aboveThreshold2;
+    }
+
+    /**
+     * @return The highest C value of the consequences, -1 if there is none.
+     */
+    public int getMaxC() {
+        return maxC;
+    }
+
+    /**
+     * @return The highest I value of the consequences, -1 if there is none.
+     */
+    public int getMaxI() {
+        return maxI;
+    }
+
+    /**
+     * @return The highest D value of the consequences, -1 if there is none.
+     */
+    public int getMaxD() {
+        return maxD;
+    }
+
+    /**
+     * @return The number of risks.
+     */
+    public int getRiskCount() {
+        return riskCount;
+    }
+
+    /**
+     * @return The highest cacheMaxRisk of the risks, -1 if none is evaluated.
+     */
+    public int getMaxRisk() {
+        return maxRisk;
+    }
+
+    /**
+     * @return The sum of the cacheMaxRisk of the evaluated risks.
+     */
+    public long getSumRisk() {
+        return sumRisk;
+    }
+
+    /**
+     * @return The highest cacheTargetedRisk of the risks, -1 if none is
+     *         evaluated.
+     */
+    public int getMaxTargetedRisk() {
+        return maxTargetedRisk;
+    }
+
+    /**
+     * @return The sum of the cacheTargetedRisk of the evaluated risks.
+     */
+    public long getSumTargetedRisk() {
+        return sumTargetedRisk;
+    }
+
+    /**
+     * @return The number of risks whose cacheMaxRisk is above the first
+     *         threshold (seuil1).
+     */
+    public int getAboveThreshold1() {
+        return aboveThreshold1;
+    }
+
+    /**
+     * @return The number of risks whose cacheMaxRisk is above the second
+     *         threshold (seuil2).
+     */
+    public int getAboveThreshold2() {
+        return aboveThreshold2;
+    }
+
+    @Override
+    public String toString() {
+        return "C " + maxC + ", I " + maxI + ", D " + maxD + ", " + riskCount + " risks, max " + maxRisk + ", sum "
+                + sumRisk + ", targeted max " + maxTargetedRisk + ", targeted sum " + sumTargetedRisk + ", "
+                + aboveThreshold1 + " above seuil1, " + aboveThreshold2 + " above seuil2";
+    }
+}
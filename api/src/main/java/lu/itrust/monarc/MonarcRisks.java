@@ -0,0 +1,418 @@
+package lu.itrust.monarc;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Represents a Monarc Risk.
+ */
+/**
+ * Represents a Monarc Risk.
+ */
+public class MonarcRisks {
+    private int id;
+    private int specific;
+    private int mh;
+    private int threatRate;
+    private int vulnerabilityRate;
+    private int kindOfMeasure;
+    private int reductionAmount;
+    private String comment;
+    private String commentAfter;
+    private int riskC;
+    private int riskI;
+    private int riskD;
+    private int cacheMaxRisk;
+    private int cacheTargetedRisk;
+    private String amv;
+    private String threat;
+    private String vulnerability;
+    private String context;
+    private String riskOwner;
+    private Set<String> parentInstanceId;
+    private MonarcRiskEngine riskEngine;
+    // Set when a value is changed through a setter, cleared when the database is
+    // exported
+    private boolean modified;
+    // Runs the changes of the setters under the write lock of the database
+    // holding the risk, null until it is attached to the database
+    private Consumer<Runnable> changes;
+
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcRisks() {
+    }
+
+    /**
+     * Represents a Monarc Risk.
+     */
+    public MonarcRisks(int id,
+            int specific,
+            int mh,
+            int threatRate,
+            int vulnerabilityRate,
+            int kindOfMeasure,
+            int reductionAmount,
+            String comment,
+            String commentAfter,
+            int riskC,
+            int riskI,
+            int riskD,
+            int cacheMaxRisk,
+            int cacheTargetedRisk,
+            String amv,
+            String threat,
+            String vulnerability,
+            String context,
+            String riskOwner) {
+        this.id = id;
+        this.specific = specific;
+        this.mh = mh;
+        this.threatRate = threatRate;
+        this.vulnerabilityRate = vulnerabilityRate;
+        this.kindOfMeasure = kindOfMeasure;
+        this.reductionAmount = reductionAmount;
+        this.comment = comment;
+        this.commentAfter = commentAfter;
+        this.riskC = riskC;
+        this.riskI = riskI;
+        this.riskD = riskD;
+        this.cacheMaxRisk = cacheMaxRisk;
+        this.cacheTargetedRisk = cacheTargetedRisk;
+        this.amv = amv;
+        this.threat = threat;
+        this.vulnerability = vulnerability;
+        this.context = context;
+        this.riskOwner = riskOwner;
+        parentInstanceId = new MonarcInstanceIds();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getSpecific() {
+        return specific;
+    }
+
+    public int getMh() {
+        return mh;
+    }
+
+    public int getThreatRate() {
+        return threatRate;
+    }
+
+    public int getVulnerabilityRate() {
+        return vulnerabilityRate;
+    }
+
+    public int getKindOfMeasure() {
+        return kindOfMeasure;
+    }
+
+    public int getReductionAmount() {
+        return reductionAmount;
+    }
+
+    public String getComment() {
+        return comment;
+    }
+
+    public String getCommentAfter() {
+        return commentAfter;
+    }
+
+    public int getRiskC() {
+        return riskC;
+    }
+
+    public int getRiskI() {
+        return riskI;
+    }
+
+    public int getRiskD() {
+        return riskD;
+    }
+
+    public int getCacheMaxRisk() {
+        return cacheMaxRisk;
+    }
+
+    public int getCacheTargetedRisk() {
+        return cacheTargetedRisk;
+    }
+
+    public String getAmv() {
+        return amv;
+    }
+
+    public String getThreat() {
+        return threat;
+    }
+
+    public String getVulnerability() {
+        return vulnerability;
+    }
+
+    public String getContext() {
+        return context;
+    }
+
+    public String getRiskOwner() {
+        return riskOwner;
+    }
+
+    public void setId(int id) {
+        change(() -> {
+            if (this.id != id)
+                modified = true;
+            this.id = id;
+        });
+    }
+
+    public void setSpecific(int specific) {
+        change(() -> {
+            if (this.specific != specific)
+                modified = true;
+            this.specific = specific;
+        });
+    }
+
+    public void setMh(int mh) {
+        change(() -> {
+            if (this.mh != mh)
+                modified = true;
+            this.mh = mh;
+        });
+    }
+
+    public void setThreatRate(int threatRate) {
+        change(() -> {
+            final boolean changed = this.threatRate != threatRate;
+            this.threatRate = threatRate;
+            this.updateMh();
+            if (changed) {
+                modified = true;
+                if (riskEngine != null)
+                    riskEngine.riskChanged(this);
+            }
+        });
+    }
+
+    public void setVulnerabilityRate(int vulnerabilityRate) {
+        change(() -> {
+            final boolean changed = this.vulnerabilityRate != vulnerabilityRate;
+            this.vulnerabilityRate = vulnerabilityRate;
+            this.updateMh();
+            if (changed) {
+                modified = true;
+                if (riskEngine != null)
+                    riskEngine.riskChanged(this);
+            }
+        });
+    }
+
+    public void setKindOfMeasure(int kindOfMeasure) {
+        change(() -> {
+            final boolean changed = this.kindOfMeasure != kindOfMeasure;
+            this.kindOfMeasure = kindOfMeasure;
+            if (changed) {
+                modified = true;
+                if (riskEngine != null)
+                    riskEngine.riskChanged(this);
+            }
+        });
+    }
+
+    public void setReductionAmount(int reductionAmount) {
+        change(() -> {
+            final boolean changed = this.reductionAmount != reductionAmount;
+            this.reductionAmount = reductionAmount;
+            if (changed) {
+                modified = true;
+                if (riskEngine != null)
+                    riskEngine.riskChanged(this);
+            }
+        });
+    }
+
+    public void setComment(String comment) {
+        change(() -> {
+            if (!Objects.equals(this.comment, comment))
+                modified = true;
+            this.comment = comment;
+        });
+    }
+
+    public void setCommentAfter(String commentAfter) {
+        change(() -> {
+            if (!Objects.equals(this.commentAfter, commentAfter))
+                modified = true;
+            this.commentAfter = commentAfter;
+        });
+    }
+
+    public void setRiskC(int riskC) {
+        change(() -> {
+            if (this.riskC != riskC)
+                modified = true;
+            this.riskC = riskC;
+        });
+    }
+
+    public void setRiskI(int riskI) {
+        change(() -> {
+            if (this.riskI != riskI)
+                modified = true;
+            this.riskI = riskI;
+        });
+    }
+
+    public void setRiskD(int riskD) {
+        change(() -> {
+            if (this.riskD != riskD)
+                modified = true;
+            this.riskD = riskD;
+        });
+    }
+
+    public void setCacheMaxRisk(int cacheMaxRisk) {
+        change(() -> {
+            if (this.cacheMaxRisk != cacheMaxRisk)
+                modified = true;
+            this.cacheMaxRisk = cacheMaxRisk;
+        });
+    }
+
+    public void setCacheTargetedRisk(int cacheTargetedRisk) {
+        change(() -> {
+            if (this.cacheTargetedRisk != cacheTargetedRisk)
+                modified = true;
+            this.cacheTargetedRisk = cacheTargetedRisk;
+        });
+    }
+
+    public void setAmv(String amv) {
+        change(() -> {
+            if (!Objects.equals(this.amv, amv))
+                modified = true;
+            this.amv = amv;
+        });
+    }
+
+    public void setThreat(String threat) {
+        change(() -> {
+            if (!Objects.equals(this.threat, threat))
+                modified = true;
+            this.threat = threat;
+        });
+    }
+
+    public void setVulnerability(String vulnerability) {
+        change(() -> {
+            if (!Objects.equals(this.vulnerability, vulnerability))
+                modified = true;
+            this.vulnerability = vulnerability;
+        });
+    }
+
+    public void setContext(String context) {
+        change(() -> {
+            if (!Objects.equals(this.context, context))
+                modified = true;
+            this.context = context;
+        });
+    }
+
+    public void setRiskOwner(String riskOwner) {
+        change(() -> {
+            if (!Objects.equals(this.riskOwner, riskOwner))
+                modified = true;
+            this.riskOwner = riskOwner;
+        });
+    }
+
+    public void setParentInstanceId(Set<String> parentInstanceId) {
+        change(() -> {
+            // Copied first, as it may be the set of this object. The set is kept, so
+            // that the database is still told when its parents change.
+            final Set<String> parents = new MonarcInstanceIds(parentInstanceId);
+            this.parentInstanceId.clear();
+            this.parentInstanceId.addAll(parents);
+            if (riskEngine != null)
+                riskEngine.riskChanged(this);
+        });
+    }
+
+    public void addParentInstance(String parentInstance) {
+        if (parentInstanceId.add(parentInstance) && riskEngine != null)
+            riskEngine.riskChanged(this);
+    }
+
+    /**
+        * Returns the collection of parent instance IDs.
+        *
+        * @return the collection of parent instance IDs
+        */
+    @JsonIgnore
+    public Collection<String> getParentInstanceId() {
+        return parentInstanceId;
+    }
+
+    /**
+     * Sets the engine to notify when a value the cached risks depend on changes.
+     * 
+     * @param riskEngine The engine computing the risk.
+     */
+    void setRiskEngine(MonarcRiskEngine riskEngine) {
+        this.riskEngine = riskEngine;
+    }
+
+    /**
+     * Updates the value of 'mh' based on the vulnerability rate and threat rate.
+     * If either the vulnerability rate or the threat rate is greater than -1, 'mh' is set to 0.
+     * Otherwise, 'mh' is set to -1.
+     */
+    @JsonIgnore
+    protected void updateMh() {
+        setMh(getVulnerabilityRate() > -1 || getThreatRate() > -1 ? 0 : -1);
+    }
+
+    /**
+     * Attaches the risk to the database holding it, see MonarcDatabase#update.
+     *
+     * @param changes Runs a change under the write lock of the database.
+     */
+    void setChanges(Consumer<Runnable> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Changes the risk under the write lock of the database, if it is attached
+     * to one.
+     */
+    private void change(Runnable change) {
+        if (changes == null)
+            change.run();
+        else
+            changes.accept(change);
+    }
+
+    /**
+     * @return True if a value of the risk was changed since the database was
+     *         loaded or last exported.
+     */
+    boolean isModified() {
+        return modified;
+    }
+
+    void clearModified() {
+        modified = false;
+    }
+}
@@ -15,6 +15,12 @@ public class MonarcScaleImpactType {
     private int position;
     private int scale;
 
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcScaleImpactType() {
+    }
+
     /**
      * Constructs a MonarcScaleImpactType object with the specified parameters.
      *
@@ -9,6 +9,12 @@ public class MonarcScales {
     private int max;
     private int type;
     
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcScales() {
+    }
+
     /**
      * Constructs a new Monarc scale with the specified properties.
      * 
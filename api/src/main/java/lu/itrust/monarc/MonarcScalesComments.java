@@ -16,6 +16,12 @@ public class MonarcScalesComments {
     @JsonInclude(value = Include.NON_NULL)
     private Object scaleImpactType;
 
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcScalesComments() {
+    }
+
     public MonarcScalesComments(Integer id, Integer scaleIndex, Integer scaleValue, String comment1, String comment2,
             String comment3, String comment4, MonarcScales scale) {
         this.id = id;
@@ -0,0 +1,223 @@
+package lu.itrust.monarc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.ObjectIdGenerators;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.annotation.SimpleObjectIdResolver;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyName;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
+import com.fasterxml.jackson.databind.introspect.AnnotatedField;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.NopAnnotationIntrospector;
+import com.fasterxml.jackson.databind.introspect.ObjectIdInfo;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+
+/**
+ * Reads and writes the snapshots of a MonarcDatabase.
+ *
+ * A snapshot is a binary file holding two values: a header identifying the
+ * file and the version of the database model, followed by the model itself
+ * (see {@link Model}). The objects of the model are written field by field,
+ * ignoring the annotations of the JSON export, each of them once: an object
+ * held by several maps, for instance a risk held by the database and by its
+ * instances, is written the first time it is met and referred to by a number
+ * afterwards. The model is restored as it was written, it is not extracted
+ * again from the Monarc JSON format.
+ */
+final class MonarcSnapshot {
+
+    static final String FORMAT = "monarc-snapshot";
+
+    // Every Smile document starts with ":)\n"
+    private static final byte[] SMILE_SIGNATURE = { ':', ')', '\n' };
+
+    // Classes held by fields declared as Object, which are written in full each
+    // time: a reference to an object written before would be read back as a
+    // number
+    private static final Set<Class<?>> VALUES = new HashSet<>(
+            Arrays.asList(MonarcMeasureCategory.class, MonarcReferentials.class, MonarcScaleImpactType.class));
+
+    // Fields computed or set again once the model is restored
+    private static final Set<Class<?>> DERIVED = new HashSet<>(
+            Arrays.asList(MonarcRiskEngine.class, MonarcRiskStats.class, Runnable.class, Consumer.class));
+
+    private static final Map<MonarcSnapshotFormat, ObjectMapper> MAPPERS = new EnumMap<>(
+            MonarcSnapshotFormat.class);
+
+    static {
+        for (MonarcSnapshotFormat format : MonarcSnapshotFormat.values())
+            MAPPERS.put(format, modelMapper(format));
+    }
+
+    /**
+     * The objects of a database, as they are written to a snapshot. The
+     * children of the instances are not written with them but by ID of their
+     * parent, in {@link #children}, so that the tree is not written as nested
+     * values however deep it is.
+     */
+    static final class Model {
+        Map<String, MonarcThemes> themes;
+        Map<String, MonarcThreats> threats;
+        Map<String, MonarcAMVThreats> amvThreats;
+        Map<String, MonarcVulnerabilities> vulnerabilities;
+        Map<String, MonarcReferentials> referentials;
+        Map<String, MonarcMeasures> measures;
+        Map<String, MonarcAMV> amvs;
+        Map<String, MonarcAsset> assets;
+        Map<String, MonarcObject> objects;
+        Map<String, MonarcScales> scales;
+        Map<String, MonarcScalesComments> scalesComments;
+        Map<String, MonarcSoaScaleComment> soaScaleComment;
+        List<MonarcSoaCategories> soaCategories;
+        List<MonarcSoa> soas;
+        Map<String, MonarcOperationalRiskScales> operationalRiskScales;
+        Map<String, MonarcRecSets> recSets;
+        Map<String, MonarcRecs> recs;
+        Map<String, MonarcRecos> recos;
+        MonarcIntMap<MonarcRisks> risks;
+        MonarcIntMap<MonarcInstance> instances;
+        // IDs of the children of each instance having children, by ID of the
+        // instance
+        Map<Integer, int[]> children;
+        MonarcANR anr;
+        int[] exportedTree;
+    }
+
+    private MonarcSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of a database to a file. The file is written to a
+     * temporary file first, as for the JSON exports.
+     *
+     * @param path   The file to write.
+     * @param format The binary encoding of the file.
+     * @param model  The objects of the database.
+     * @throws IOException
+     */
+    static void write(Path path, MonarcSnapshotFormat format, Model model) throws IOException {
+        MonarcJsonWriter.write(path, MAPPERS.get(format), false, (mapper, generator) -> {
+            generator.writeStartObject();
+            generator.writeStringField("format", FORMAT);
+            generator.writeStringField("version", MonarcInstance.MONARC_DATABASE_VERSION);
+            generator.writeEndObject();
+            mapper.writeValue(generator, model);
+        });
+    }
+
+    /**
+     * Reads a snapshot.
+     *
+     * @param path The snapshot file.
+     * @return The objects of the database.
+     * @throws IOException if the file is not a snapshot, or was written for
+     *                     another version of the database model.
+     */
+    static Model read(Path path) throws IOException {
+        final MonarcSnapshotFormat format = detect(path);
+        final ObjectMapper mapper = MAPPERS.get(format);
+        try (JsonParser parser = mapper.createParser(path.toFile())) {
+            final Map<?, ?> header = parser.nextToken() == JsonToken.START_OBJECT
+                    ? format.getMapper().readValue(parser, Map.class)
+                    : null;
+            if (header == null || !FORMAT.equals(header.get("format")))
+                throw new IOException("Invalid Monarc snapshot, the header is missing: " + path);
+            if (!MonarcInstance.MONARC_DATABASE_VERSION.equals(header.get("version")))
+                throw new IOException("Monarc snapshot written for version " + header.get("version")
+                        + " of the database, expected " + MonarcInstance.MONARC_DATABASE_VERSION + ": " + path);
+            parser.nextToken();
+            return mapper.readValue(parser, Model.class);
+        }
+    }
+
+    /**
+     * Finds out the encoding of a snapshot from its first bytes.
+     *
+     * @param path The snapshot file.
+     * @return The encoding of the file.
+     * @throws IOException
+     */
+    static MonarcSnapshotFormat detect(Path path) throws IOException {
+        final byte[] start = new byte[SMILE_SIGNATURE.length];
+        int read = 0;
+        try (InputStream in = Files.newInputStream(path)) {
+            for (int count; read < start.length && (count = in.read(start, read, start.length - read)) != -1;)
+                read += count;
+        }
+        for (int i = 0; i < start.length; i++) {
+            if (i >= read || start[i] != SMILE_SIGNATURE[i])
+                return MonarcSnapshotFormat.CBOR;
+        }
+        return MonarcSnapshotFormat.SMILE;
+    }
+
+    /**
+     * Creates the mapper writing the model with the given encoding: the fields
+     * of the objects are written, with the class of each object whose class is
+     * not known from its field, and the objects of the database are identified
+     * so that the objects they share are restored once.
+     */
+    private static ObjectMapper modelMapper(MonarcSnapshotFormat format) {
+        final ObjectMapper mapper = format.getMapper().copy();
+        mapper.setAnnotationIntrospector(new ModelIntrospector());
+        mapper.setVisibility(PropertyAccessor.ALL, Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
+        mapper.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+        mapper.activateDefaultTyping(BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType(MonarcSnapshot.class.getPackage().getName() + ".")
+                .allowIfSubType("java.util.")
+                .allowIfSubType("java.lang.")
+                .build(), ObjectMapper.DefaultTyping.NON_FINAL);
+        return mapper;
+    }
+
+    /**
+     * Ignores the annotations of the JSON export, and identifies the objects of
+     * the database.
+     */
+    private static final class ModelIntrospector extends NopAnnotationIntrospector {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final PropertyName ID = PropertyName.construct("@id");
+
+        @Override
+        public ObjectIdInfo findObjectIdInfo(Annotated annotated) {
+            final Class<?> type = annotated.getRawType();
+            if (!(annotated instanceof AnnotatedClass) || type == Model.class || VALUES.contains(type)
+                    || Map.class.isAssignableFrom(type) || Collection.class.isAssignableFrom(type)
+                    || !type.getName().startsWith(MonarcSnapshot.class.getPackage().getName() + "."))
+                return null;
+            return new ObjectIdInfo(ID, Object.class, ObjectIdGenerators.IntSequenceGenerator.class,
+                    SimpleObjectIdResolver.class);
+        }
+
+        @Override
+        public boolean hasIgnoreMarker(AnnotatedMember member) {
+            if (!(member instanceof AnnotatedField))
+                return false;
+            final Field field = ((AnnotatedField) member).getAnnotated();
+            return DERIVED.contains(field.getType())
+                    || field.getDeclaringClass() == MonarcInstance.class && field.getName().equals("children");
+        }
+    }
+}
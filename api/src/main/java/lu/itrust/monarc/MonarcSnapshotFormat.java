@@ -0,0 +1,36 @@
+package lu.itrust.monarc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * Binary encodings available for the snapshots of a MonarcDatabase.
+ *
+ * @see MonarcDatabase#saveSnapshot(String, MonarcSnapshotFormat)
+ */
+public enum MonarcSnapshotFormat {
+
+    /**
+     * Smile, the binary JSON format of Jackson. Repeated field names and short
+     * strings are written once and referred to afterwards, which makes it the
+     * most compact of the two.
+     */
+    SMILE(new ObjectMapper(new SmileFactory().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES))),
+
+    /**
+     * CBOR (RFC 8949), readable by most languages.
+     */
+    CBOR(new ObjectMapper(new CBORFactory()));
+
+    private final ObjectMapper mapper;
+
+    private MonarcSnapshotFormat(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    ObjectMapper getMapper() {
+        return mapper;
+    }
+}
@@ -25,6 +25,12 @@ public class MonarcSoa {
     @JsonInclude(value = Include.NON_NULL)
     private Integer soaScaleComment;
 
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcSoa() {
+    }
+
     public MonarcSoa(String remarks, String evidences, String actions, String measureId, Integer eX, Integer lR,
             Integer cO, Integer bR, Integer bP, Integer rRA, Integer soaScaleComment) {
         this.remarks = remarks;
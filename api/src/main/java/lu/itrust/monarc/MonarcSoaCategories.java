@@ -12,6 +12,12 @@ public class MonarcSoaCategories {
     private String label4;
     private int status;
     
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcSoaCategories() {
+    }
+
     /**
      * Constructs a new MonarcSoaCategories object with the specified referential, labels, and status.
      * 
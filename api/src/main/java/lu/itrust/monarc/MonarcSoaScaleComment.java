@@ -15,6 +15,12 @@ public class MonarcSoaScaleComment {
     private String colour;
     private String comment;
 
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcSoaScaleComment() {
+    }
+
     /**
      * Constructs a MonarcSoaScaleComment object with the specified parameters.
      *
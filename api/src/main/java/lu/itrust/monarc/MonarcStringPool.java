@@ -0,0 +1,146 @@
+package lu.itrust.monarc;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of the strings read from a Monarc JSON file, so that equal strings
+ * share a single instance.
+ *
+ * The same uuids, codes, labels and translation keys are repeated for every
+ * instance holding a threat, a vulnerability, a measure or a consequence, and
+ * the JSON parser creates a new string for each of them. The extractors of
+ * {@link MonarcDatabase} give every string they keep to the pool, which returns
+ * the first equal string it was given instead.
+ *
+ * By default each load uses a new pool, dropped once the file is loaded. A pool
+ * can also be given to several loads, for instance a weak pool, which does not
+ * keep alive the strings no longer used by the databases. A bounded pool stops
+ * adding strings once it holds its maximum number of strings, but still returns
+ * the strings it holds.
+ *
+ * The pool is thread-safe, so that it can be used by a parallel load.
+ *
+ * @see MonarcDatabase#MonarcDatabase(String, java.util.concurrent.Executor,
+ *      MonarcStringPool)
+ */
+public final class MonarcStringPool {
+
+    private final boolean weak;
+    private final int maxSize;
+    // The string itself for a strong pool, a weak reference to it for a weak pool
+    private final Map<String, Object> strings;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    private MonarcStringPool(boolean weak, int maxSize) {
+        if (maxSize < 0)
+            throw new IllegalArgumentException("The maximum size of the pool cannot be negative: " + maxSize);
+        this.weak = weak;
+        this.maxSize = maxSize;
+        this.strings = weak ? new WeakHashMap<>() : new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @return A new pool keeping all the strings it is given.
+     */
+    public static MonarcStringPool create() {
+        return new MonarcStringPool(false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxSize The maximum number of strings kept by the pool.
+     * @return A new pool keeping at most the given number of strings.
+     */
+    public static MonarcStringPool create(int maxSize) {
+        return new MonarcStringPool(false, maxSize);
+    }
+
+    /**
+     * @param maxSize The maximum number of strings kept by the pool.
+     * @return A new pool referring weakly to at most the given number of strings,
+     *         which are removed from the pool once they are no longer used.
+     */
+    public static MonarcStringPool weak(int maxSize) {
+        return new MonarcStringPool(true, maxSize);
+    }
+
+    /**
+     * Returns the string of the pool equal to the given string. The given string
+     * is added to the pool if there is none, and if the pool is not full.
+     *
+     * @param value The string to share.
+     * @return The string of the pool, the given string if the pool does not hold
+     *         an equal one, or null if the string is null.
+     */
+    public String intern(String value) {
+        if (value == null)
+            return null;
+        lookups.increment();
+        final String pooled = weak ? internWeak(value) : internStrong(value);
+        if (pooled != value) {
+            duplicates.increment();
+            bytesSaved.add(sizeOf(value));
+        }
+        return pooled;
+    }
+
+    /**
+     * @return The number of strings given to the pool and the memory saved so
+     *         far.
+     */
+    public MonarcStringPoolStats getStats() {
+        final int size;
+        if (weak) {
+            synchronized (strings) {
+                size = strings.size();
+            }
+        } else
+            size = strings.size();
+        return new MonarcStringPoolStats(lookups.sum(), size, duplicates.sum(), bytesSaved.sum());
+    }
+
+    private String internStrong(String value) {
+        final Object pooled = strings.get(value);
+        if (pooled != null)
+            return (String) pooled;
+        if (strings.size() >= maxSize)
+            return value;
+        final Object previous = strings.putIfAbsent(value, value);
+        return previous == null ? value : (String) previous;
+    }
+
+    private String internWeak(String value) {
+        synchronized (strings) {
+            final WeakReference<?> reference = (WeakReference<?>) strings.get(value);
+            final Object pooled = reference == null ? null : reference.get();
+            if (pooled != null)
+                return (String) pooled;
+            if (strings.size() < maxSize)
+                strings.put(value, new WeakReference<>(value));
+            return value;
+        }
+    }
+
+    /**
+     * Estimates the memory taken by a string and its array of bytes, with
+     * compressed references: 24 bytes for the string, 16 bytes for the header of
+     * the array, and one byte per character (two if the string is not Latin-1),
+     * rounded up to 8 bytes.
+     */
+    private static long sizeOf(String value) {
+        int bytesPerChar = 1;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return 24 + ((16L + (long) value.length() * bytesPerChar + 7) & ~7L);
+    }
+}
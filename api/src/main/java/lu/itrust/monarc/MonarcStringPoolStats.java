@@ -0,0 +1,60 @@
+package lu.itrust.monarc;
+
+/**
+ * The use of a {@link MonarcStringPool}: how many strings it was given, how
+ * many it replaced by an equal string already pooled, and the memory this
+ * saved.
+ *
+ * @see MonarcDatabase#getStringPoolStats()
+ */
+public final class MonarcStringPoolStats {
+
+    private final long lookups;
+    private final int pooledStrings;
+    private final long duplicates;
+    private final long bytesSaved;
+
+    MonarcStringPoolStats(long lookups, int pooledStrings, long duplicates, long bytesSaved) {
+        this.lookups = lookups;
+        this.pooledStrings = pooledStrings;
+        this.duplicates = duplicates;
+        this.bytesSaved = bytesSaved;
+    }
+
+    /**
+     * @return The number of strings given to the pool.
+     */
+    public long getLookups() {
+        return lookups;
+    }
+
+    /**
+     * @return The number of distinct strings held by the pool.
+     */
+    public int getPooledStrings() {
+        return pooledStrings;
+    }
+
+    /**
+     * @return The number of strings replaced by an equal string of the pool.
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Returns an estimate of the memory taken by the strings replaced by an equal
+     * string of the pool, which can be reclaimed by the garbage collector.
+     *
+     * @return The memory saved, in bytes.
+     */
+    public long getBytesSaved() {
+        return bytesSaved;
+    }
+
+    @Override
+    public String toString() {
+        return lookups + " strings, " + pooledStrings + " pooled, " + duplicates + " duplicates, " + bytesSaved
+                + " bytes saved";
+    }
+}
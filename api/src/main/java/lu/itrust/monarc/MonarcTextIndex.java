@@ -0,0 +1,132 @@
+package lu.itrust.monarc;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Hash index over the Monarc objects by a text translated in the four
+ * languages of MONARC (label1 to label4, description1 to description4...).
+ *
+ * The objects can be searched in one language or in all of them, by exact
+ * text, ignoring the case, or ignoring the case and the surrounding spaces.
+ * Each combination has its own index, built the first time it is searched, so
+ * that only the searches actually used take memory.
+ *
+ * As for {@link MonarcIndex}, the index must be built again if an indexed text
+ * is changed on an object.
+ *
+ * @param <V> The type of the indexed objects.
+ */
+final class MonarcTextIndex<V> {
+
+    private static final int LANGUAGES = 4;
+
+    // Position of the index of the texts in all the languages
+    private static final int ALL_LANGUAGES = 0;
+
+    private final BiFunction<? super V, Integer, String> text;
+    private List<V> values = Collections.emptyList();
+    // By match and language, null until searched
+    private final List<MonarcIndex<String, V>> indexes;
+
+    private MonarcTextIndex(BiFunction<? super V, Integer, String> text) {
+        this.text = text;
+        this.indexes = new ArrayList<>(Collections.nCopies(MonarcTextMatch.values().length * (LANGUAGES + 1), null));
+    }
+
+    /**
+     * Constructs an empty index of the objects by a translated text.
+     *
+     * @param <V>  The type of the indexed objects.
+     * @param text The function returning the text of an object in a language,
+     *             from 1 to 4, or null if it has none.
+     * @return The new index.
+     */
+    static <V> MonarcTextIndex<V> of(BiFunction<? super V, Integer, String> text) {
+        return new MonarcTextIndex<>(text);
+    }
+
+    /**
+     * Replaces the content of the index by the given objects.
+     *
+     * @param values The objects to index.
+     */
+    synchronized void build(Collection<? extends V> values) {
+        this.values = new ArrayList<>(values);
+        Collections.fill(indexes, null);
+    }
+
+    /**
+     * Returns the first indexed object whose text matches in a language.
+     *
+     * @param language The language code, from 1 to 4.
+     * @param match    How the texts are compared.
+     * @param text     The searched text.
+     * @return The object found, or null if there is none.
+     */
+    V first(int language, MonarcTextMatch match, String text) {
+        final MonarcIndex<String, V> index = text == null || !isLanguage(language) ? null : index(language, match);
+        return index == null ? null : index.first(match.normalize(text));
+    }
+
+    /**
+     * Returns a new list with all the indexed objects whose text matches in a
+     * language.
+     *
+     * @param language The language code, from 1 to 4.
+     * @param match    How the texts are compared.
+     * @param text     The searched text.
+     * @return The objects found, in the order they were indexed.
+     */
+    List<V> get(int language, MonarcTextMatch match, String text) {
+        final MonarcIndex<String, V> index = text == null || !isLanguage(language) ? null : index(language, match);
+        return index == null ? new ArrayList<>() : index.get(match.normalize(text));
+    }
+
+    /**
+     * Returns a new list with all the indexed objects whose text matches in any
+     * of the languages. An object matching in several languages is only returned
+     * once.
+     *
+     * @param match How the texts are compared.
+     * @param text  The searched text.
+     * @return The objects found, in the order they were indexed.
+     */
+    List<V> getInAllLanguages(MonarcTextMatch match, String text) {
+        return text == null ? new ArrayList<>() : index(ALL_LANGUAGES, match).get(match.normalize(text));
+    }
+
+    private static boolean isLanguage(int language) {
+        return language >= 1 && language <= LANGUAGES;
+    }
+
+    private synchronized MonarcIndex<String, V> index(int language, MonarcTextMatch match) {
+        final int position = match.ordinal() * (LANGUAGES + 1) + language;
+        MonarcIndex<String, V> index = indexes.get(position);
+        if (index == null) {
+            index = language == ALL_LANGUAGES ? MonarcIndex.ofAll(value -> texts(value, match))
+                    : MonarcIndex.of(value -> {
+                        final String valueText = text.apply(value, language);
+                        return valueText == null ? null : match.normalize(valueText);
+                    });
+            index.build(values);
+            indexes.set(position, index);
+        }
+        return index;
+    }
+
+    private Set<String> texts(V value, MonarcTextMatch match) {
+        final Set<String> texts = new LinkedHashSet<>(LANGUAGES);
+        for (int language = 1; language <= LANGUAGES; language++) {
+            final String valueText = text.apply(value, language);
+            if (valueText != null)
+                texts.add(match.normalize(valueText));
+        }
+        return texts;
+    }
+}
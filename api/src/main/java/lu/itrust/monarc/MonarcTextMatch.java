@@ -0,0 +1,61 @@
+package lu.itrust.monarc;
+
+/**
+ * How a searched text is compared to the labels, descriptions and names of the
+ * Monarc objects.
+ *
+ * @see MonarcDatabase#searchThreatsByLabel(String, int, MonarcTextMatch)
+ */
+public enum MonarcTextMatch {
+
+    /**
+     * The texts must be equal.
+     */
+    EXACT {
+        @Override
+        String normalize(String text) {
+            return text;
+        }
+    },
+
+    /**
+     * The texts must be equal, ignoring the case, as with
+     * {@link String#equalsIgnoreCase(String)}.
+     */
+    IGNORE_CASE {
+        @Override
+        String normalize(String text) {
+            return foldCase(text);
+        }
+    },
+
+    /**
+     * The texts must be equal once the leading and trailing spaces are removed,
+     * ignoring the case.
+     */
+    TRIMMED {
+        @Override
+        String normalize(String text) {
+            return foldCase(text.trim());
+        }
+    };
+
+    /**
+     * Returns the form of a text under which it is indexed: two texts match if
+     * their normalized forms are equal.
+     *
+     * @param text The text to normalize, not null.
+     * @return The normalized text.
+     */
+    abstract String normalize(String text);
+
+    /**
+     * Folds the case of a text, character by character, the way
+     * {@link String#equalsIgnoreCase(String)} compares them.
+     */
+    private static String foldCase(String text) {
+        final StringBuilder folded = new StringBuilder(text.length());
+        text.codePoints().forEach(e -> folded.appendCodePoint(Character.toLowerCase(Character.toUpperCase(e))));
+        return folded.toString();
+    }
+}
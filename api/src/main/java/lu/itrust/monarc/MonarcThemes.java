@@ -1,7 +1,6 @@
 package lu.itrust.monarc;
 
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Set;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -17,6 +16,12 @@ public class MonarcThemes {
     private String label4;
     private Set<String> parentInstanceId;
     
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcThemes() {
+    }
+
     /**
      * Constructs a MonarcThemes object with the specified parameters.
      * 
@@ -32,7 +37,7 @@ public class MonarcThemes {
         this.label2 = label2;
         this.label3 = label3;
         this.label4 = label4;
-        parentInstanceId = new HashSet<>();
+        parentInstanceId = new MonarcInstanceIds();
     }
     
     /**
@@ -15,6 +15,12 @@ public class MonarcThreatTheme {
     private String label3;
     private String label4;
     
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcThreatTheme() {
+    }
+
     /**
      * Constructs a new MonarcThreatTheme object with the specified properties.
      * 
@@ -1,7 +1,6 @@
 package lu.itrust.monarc;
 
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Set;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -17,6 +16,12 @@ public class MonarcThreats extends MonarcAMVThreats {
     private Set<String> parentInstanceId;
     private int localTheme;
 
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcThreats() {
+    }
+
     MonarcThreats(String uuid,
             String comment,
             String code,
@@ -41,7 +46,7 @@ public class MonarcThreats extends MonarcAMVThreats {
 
         this.status = status;
         this.mode = mode;
-        this.parentInstanceId = new HashSet<>();
+        this.parentInstanceId = new MonarcInstanceIds();
         localTheme = theme;
     }
 
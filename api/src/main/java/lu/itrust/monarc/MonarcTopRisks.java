@@ -0,0 +1,104 @@
+package lu.itrust.monarc;
+
+/**
+ * Search of the risks with the highest cached value, run by
+ * {@link MonarcDatabase#searchTopRisks(MonarcTopRisks)}: the highest
+ * cacheMaxRisk, or cacheTargetedRisk, among the risks matching all the
+ * filters given.
+ *
+ * The risks whose value is not evaluated (-1) are left out. Risks with the
+ * same value are ranked by ID.
+ */
+public final class MonarcTopRisks {
+
+    final int limit;
+    boolean targeted;
+    String threat;
+    String vulnerability;
+    String amv;
+    int instanceId;
+    Integer kindOfMeasure;
+
+    /**
+     * @param limit The number of risks to return.
+     */
+    public MonarcTopRisks(int limit) {
+        if (limit < 0)
+            throw new IllegalArgumentException("Negative number of risks: " + limit);
+        this.limit = limit;
+    }
+
+    /**
+     * Ranks the risks by cacheTargetedRisk instead of cacheMaxRisk.
+     *
+     * @return This search.
+     */
+    public MonarcTopRisks targeted() {
+        this.targeted = true;
+        return this;
+    }
+
+    /**
+     * @param threat The UUID of the threat of the risks.
+     * @return This search.
+     */
+    public MonarcTopRisks threat(String threat) {
+        this.threat = threat;
+        return this;
+    }
+
+    /**
+     * @param vulnerability The UUID of the vulnerability of the risks.
+     * @return This search.
+     */
+    public MonarcTopRisks vulnerability(String vulnerability) {
+        this.vulnerability = vulnerability;
+        return this;
+    }
+
+    /**
+     * @param amv The UUID of the AMV of the risks.
+     * @return This search.
+     */
+    public MonarcTopRisks amv(String amv) {
+        this.amv = amv;
+        return this;
+    }
+
+    /**
+     * Only keeps the risks of an instance and of the instances below it.
+     *
+     * @param instanceId The ID of the instance.
+     * @return This search.
+     */
+    public MonarcTopRisks subtree(int instanceId) {
+        this.instanceId = instanceId;
+        return this;
+    }
+
+    /**
+     * @param kindOfMeasure The kind of measure of the risks (3 for accepted).
+     * @return This search.
+     */
+    public MonarcTopRisks kindOfMeasure(int kindOfMeasure) {
+        this.kindOfMeasure = kindOfMeasure;
+        return this;
+    }
+
+    /**
+     * @return The cached value the risk is ranked by.
+     */
+    int value(MonarcRisks risk) {
+        return targeted ? risk.getCacheTargetedRisk() : risk.getCacheMaxRisk();
+    }
+
+    /**
+     * @return True if the risk matches the filters, except for the subtree.
+     */
+    boolean matches(MonarcRisks risk) {
+        return (threat == null || threat.equals(risk.getThreat()))
+                && (vulnerability == null || vulnerability.equals(risk.getVulnerability()))
+                && (amv == null || amv.equals(risk.getAmv()))
+                && (kindOfMeasure == null || kindOfMeasure == risk.getKindOfMeasure());
+    }
+}
@@ -10,6 +10,12 @@ public class MonarcTranslation {
     private String lang;
     private String value;
     
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcTranslation() {
+    }
+
     /**
      * Constructs a new MonarcTranslation object with the specified key, language, and value.
      * 
@@ -0,0 +1,236 @@
+package lu.itrust.monarc;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Similarity index over the translated texts of the Monarc objects, to find
+ * the objects whose label or description is close to a text without comparing
+ * it to all of them.
+ *
+ * The texts are normalized (lower case, no accent, no punctuation) and cut
+ * into trigrams: each word, preceded by two spaces and followed by one, gives
+ * all its sequences of three characters. The index keeps, for each trigram,
+ * the texts containing it. A search only goes through the texts sharing at
+ * least one trigram with the searched text, and scores them by the number of
+ * trigrams they share over the number of trigrams of both texts (Jaccard
+ * similarity).
+ *
+ * The index is built the first time it is searched, from the objects given to
+ * {@link #build(Collection)}.
+ *
+ * @param <V> The type of the indexed objects.
+ */
+final class MonarcTrigramIndex<V> {
+
+    private static final int LANGUAGES = 4;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final List<BiFunction<? super V, Integer, String>> texts;
+    private List<V> values = Collections.emptyList();
+    private Trigrams trigrams;
+
+    private MonarcTrigramIndex(List<BiFunction<? super V, Integer, String>> texts) {
+        this.texts = texts;
+    }
+
+    /**
+     * Constructs an empty index of the objects by their label and description.
+     *
+     * @param <V>         The type of the indexed objects.
+     * @param label       The function returning the label of an object in a
+     *                    language, from 1 to 4.
+     * @param description The function returning the description of an object in
+     *                    a language, from 1 to 4.
+     * @return The new index.
+     */
+    static <V> MonarcTrigramIndex<V> of(BiFunction<? super V, Integer, String> label,
+            BiFunction<? super V, Integer, String> description) {
+        return new MonarcTrigramIndex<>(Arrays.asList(label, description));
+    }
+
+    /**
+     * Replaces the content of the index by the given objects.
+     *
+     * @param values The objects to index.
+     */
+    synchronized void build(Collection<? extends V> values) {
+        this.values = new ArrayList<>(values);
+        this.trigrams = null;
+    }
+
+    /**
+     * Returns the objects whose texts are the most similar to a text.
+     *
+     * @param text     The searched text.
+     * @param language The language code of the texts to compare, from 1 to 4, or
+     *                 0 for all the languages.
+     * @param limit    The maximum number of objects to return.
+     * @return The objects sharing trigrams with the text, the most similar first,
+     *         each with the score of its most similar text.
+     */
+    List<MonarcFuzzyMatch<V>> search(String text, int language, int limit) {
+        if (text == null || limit <= 0 || language < 0 || language > LANGUAGES)
+            return new ArrayList<>();
+        return trigrams().search(text, language, limit);
+    }
+
+    private synchronized Trigrams trigrams() {
+        if (trigrams == null)
+            trigrams = new Trigrams();
+        return trigrams;
+    }
+
+    /**
+     * Returns the words of a text, in lower case, without accents and without
+     * punctuation.
+     */
+    private static String normalize(String text) {
+        final String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        final String letters = MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+        return SEPARATORS.matcher(letters).replaceAll(" ").trim();
+    }
+
+    /**
+     * Returns the distinct trigrams of a text, each packed in a long.
+     */
+    private static Set<Long> trigrams(String text) {
+        final Set<Long> trigrams = new LinkedHashSet<>();
+        final String normalized = normalize(text);
+        if (normalized.isEmpty())
+            return trigrams;
+        for (String word : normalized.split(" ")) {
+            final String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16)
+                        | padded.charAt(i + 2));
+            }
+        }
+        return trigrams;
+    }
+
+    /**
+     * The texts of the objects and their trigrams. A text is identified by its
+     * position in the arrays.
+     */
+    private final class Trigrams {
+
+        private final int[] owners;
+        private final byte[] languages;
+        private final String[] sources;
+        private final int[] sizes;
+        private final Map<Long, int[]> postings;
+
+        private Trigrams() {
+            final List<String> texts = new ArrayList<>();
+            final List<Integer> owners = new ArrayList<>();
+            final List<Integer> languages = new ArrayList<>();
+            for (int value = 0; value < values.size(); value++) {
+                for (BiFunction<? super V, Integer, String> function : MonarcTrigramIndex.this.texts) {
+                    for (int language = 1; language <= LANGUAGES; language++) {
+                        final String text = function.apply(values.get(value), language);
+                        if (text == null || text.isBlank())
+                            continue;
+                        texts.add(text);
+                        owners.add(value);
+                        languages.add(language);
+                    }
+                }
+            }
+
+            this.owners = owners.stream().mapToInt(Integer::intValue).toArray();
+            this.languages = new byte[texts.size()];
+            this.sources = texts.toArray(new String[0]);
+            this.sizes = new int[texts.size()];
+
+            final Map<Long, List<Integer>> builder = new HashMap<>();
+            for (int id = 0; id < sources.length; id++) {
+                this.languages[id] = languages.get(id).byteValue();
+                final Set<Long> trigrams = trigrams(sources[id]);
+                sizes[id] = trigrams.size();
+                for (Long trigram : trigrams)
+                    builder.computeIfAbsent(trigram, k -> new ArrayList<>()).add(id);
+            }
+            this.postings = new HashMap<>(builder.size() * 4 / 3 + 1);
+            builder.forEach((k, v) -> postings.put(k, v.stream().mapToInt(Integer::intValue).toArray()));
+        }
+
+        private List<MonarcFuzzyMatch<V>> search(String text, int language, int limit) {
+            final Set<Long> searched = trigrams(text);
+            if (searched.isEmpty())
+                return new ArrayList<>();
+
+            // Number of trigrams shared with each text, only for the texts reached
+            final Map<Integer, Integer> shared = new HashMap<>();
+            for (Long trigram : searched) {
+                final int[] ids = postings.get(trigram);
+                if (ids == null)
+                    continue;
+                for (int id : ids) {
+                    if (language == 0 || languages[id] == language)
+                        shared.merge(id, 1, Integer::sum);
+                }
+            }
+
+            // Best text of each object
+            final Map<Integer, Candidate> best = new HashMap<>();
+            shared.forEach((id, count) -> {
+                final double score = (double) count / (searched.size() + sizes[id] - count);
+                best.merge(owners[id], new Candidate(id, score),
+                        (e1, e2) -> Candidate.BEST_FIRST.compare(e1, e2) <= 0 ? e1 : e2);
+            });
+
+            // The worst of the kept candidates at the head, to be replaced first
+            final PriorityQueue<Candidate> top = new PriorityQueue<>(Math.min(limit, best.size()) + 1,
+                    Candidate.BEST_FIRST.reversed());
+            for (Candidate candidate : best.values()) {
+                top.add(candidate);
+                if (top.size() > limit)
+                    top.poll();
+            }
+
+            final List<Candidate> sorted = new ArrayList<>(top);
+            sorted.sort(Candidate.BEST_FIRST);
+            final List<MonarcFuzzyMatch<V>> matches = new ArrayList<>(sorted.size());
+            for (Candidate candidate : sorted) {
+                matches.add(new MonarcFuzzyMatch<>(values.get(owners[candidate.id]), candidate.score,
+                        languages[candidate.id], sources[candidate.id]));
+            }
+            return matches;
+        }
+    }
+
+    /**
+     * A text found by a search. Between equal scores, the first indexed text
+     * comes first, so that the results do not depend on the order of the hash
+     * maps.
+     */
+    private static final class Candidate {
+
+        private static final Comparator<Candidate> BEST_FIRST = Comparator
+                .comparingDouble((Candidate e) -> -e.score).thenComparingInt(e -> e.id);
+
+        private final int id;
+        private final double score;
+
+        private Candidate(int id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package lu.itrust.monarc;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
@@ -23,6 +24,18 @@ public class MonarcVulnerabilities {
     private int mode;
     private String code;
     private Set<String> parentInstanceId;
+    // Set when a value is changed through a setter, cleared when the database is
+    // exported
+    private boolean modified;
+    // Runs the changes of the setters under the write lock of the database
+    // holding the vulnerability, null until it is attached to the database
+    private Consumer<Runnable> changes;
+
+    /**
+     * Constructor restoring the object from a snapshot, see MonarcSnapshot.
+     */
+    private MonarcVulnerabilities() {
+    }
 
     /**
      * Constructs a MonarcVulnerabilities object with the specified parameters.
@@ -56,7 +69,7 @@ public class MonarcVulnerabilities {
         this.status = status;
         this.mode = mode;
         this.code = code;
-        parentInstanceId = new HashSet<>();
+        parentInstanceId = new MonarcInstanceIds();
     }
 
     /**
@@ -173,7 +186,11 @@ public class MonarcVulnerabilities {
      * @param uuid the UUID of the vulnerability
      */
     public void setUuid(String uuid) {
-        this.uuid = uuid;
+        change(() -> {
+            if (!Objects.equals(this.uuid, uuid))
+                modified = true;
+            this.uuid = uuid;
+        });
     }
 
     /**
@@ -182,7 +199,11 @@ public class MonarcVulnerabilities {
      * @param label1 the first label of the vulnerability
      */
     public void setLabel1(String label1) {
-        this.label1 = label1;
+        change(() -> {
+            if (!Objects.equals(this.label1, label1))
+                modified = true;
+            this.label1 = label1;
+        });
     }
 
     /**
@@ -191,7 +212,11 @@ public class MonarcVulnerabilities {
      * @param label2 the second label of the vulnerability
      */
     public void setLabel2(String label2) {
-        this.label2 = label2;
+        change(() -> {
+            if (!Objects.equals(this.label2, label2))
+                modified = true;
+            this.label2 = label2;
+        });
     }
 
     /**
@@ -200,7 +225,11 @@ public class MonarcVulnerabilities {
      * @param label3 the third label of the vulnerability
      */
     public void setLabel3(String label3) {
-        this.label3 = label3;
+        change(() -> {
+            if (!Objects.equals(this.label3, label3))
+                modified = true;
+            this.label3 = label3;
+        });
     }
 
     /**
@@ -209,7 +238,11 @@ public class MonarcVulnerabilities {
      * @param label4 the fourth label of the vulnerability
      */
     public void setLabel4(String label4) {
-        this.label4 = label4;
+        change(() -> {
+            if (!Objects.equals(this.label4, label4))
+                modified = true;
+            this.label4 = label4;
+        });
     }
 
     /**
@@ -218,7 +251,11 @@ public class MonarcVulnerabilities {
      * @param description1 the first description of the vulnerability
      */
     public void setDescription1(String description1) {
-        this.description1 = description1;
+        change(() -> {
+            if (!Objects.equals(this.description1, description1))
+                modified = true;
+            this.description1 = description1;
+        });
     }
 
     /**
@@ -227,7 +264,11 @@ public class MonarcVulnerabilities {
      * @param description2 the second description of the vulnerability
      */
     public void setDescription2(String description2) {
-        this.description2 = description2;
+        change(() -> {
+            if (!Objects.equals(this.description2, description2))
+                modified = true;
+            this.description2 = description2;
+        });
     }
 
     /**
@@ -236,7 +277,11 @@ public class MonarcVulnerabilities {
      * @param description3 the third description of the vulnerability
      */
     public void setDescription3(String description3) {
-        this.description3 = description3;
+        change(() -> {
+            if (!Objects.equals(this.description3, description3))
+                modified = true;
+            this.description3 = description3;
+        });
     }
 
     /**
@@ -245,7 +290,11 @@ public class MonarcVulnerabilities {
      * @param description4 the fourth description of the vulnerability
      */
     public void setDescription4(String description4) {
-        this.description4 = description4;
+        change(() -> {
+            if (!Objects.equals(this.description4, description4))
+                modified = true;
+            this.description4 = description4;
+        });
     }
 
     /**
@@ -254,7 +303,11 @@ public class MonarcVulnerabilities {
      * @param status the status of the vulnerability
      */
     public void setStatus(int status) {
-        this.status = status;
+        change(() -> {
+            if (this.status != status)
+                modified = true;
+            this.status = status;
+        });
     }
 
     /**
@@ -263,7 +316,11 @@ public class MonarcVulnerabilities {
      * @param mode the mode of the vulnerability
      */
     public void setMode(int mode) {
-        this.mode = mode;
+        change(() -> {
+            if (this.mode != mode)
+                modified = true;
+            this.mode = mode;
+        });
     }
 
     /**
@@ -272,16 +329,26 @@ public class MonarcVulnerabilities {
      * @param code the code of the vulnerability
      */
     public void setCode(String code) {
-        this.code = code;
+        change(() -> {
+            if (!Objects.equals(this.code, code))
+                modified = true;
+            this.code = code;
+        });
     }
 
     /**
-     * Sets the parent instance IDs of the vulnerability.
+     * Sets the parent instance IDs of the vulnerability. The IDs are copied.
      *
      * @param parentInstanceId the parent instance IDs of the vulnerability
      */
     public void setParentInstanceId(Set<String> parentInstanceId) {
-        this.parentInstanceId = parentInstanceId;
+        change(() -> {
+            // Copied first, as it may be the set of this object. The set is kept, so
+            // that the database is still told when its parents change.
+            final Set<String> parents = new MonarcInstanceIds(parentInstanceId);
+            this.parentInstanceId.clear();
+            this.parentInstanceId.addAll(parents);
+        });
     }
 
     /**
@@ -344,4 +411,37 @@ public class MonarcVulnerabilities {
                 return null;
         }
     }
+
+    /**
+     * Attaches the vulnerability to the database holding it, see
+     * MonarcDatabase#update.
+     *
+     * @param changes Runs a change under the write lock of the database.
+     */
+    void setChanges(Consumer<Runnable> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Changes the vulnerability under the write lock of the database, if it is
+     * attached to one.
+     */
+    private void change(Runnable change) {
+        if (changes == null)
+            change.run();
+        else
+            changes.accept(change);
+    }
+
+    /**
+     * @return True if a value of the vulnerability was changed since the
+     *         database was loaded or last exported.
+     */
+    boolean isModified() {
+        return modified;
+    }
+
+    void clearModified() {
+        modified = false;
+    }
 }
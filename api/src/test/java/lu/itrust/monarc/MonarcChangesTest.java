@@ -0,0 +1,112 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Changes written as a JSON Patch of the file a database was loaded from.
+ */
+class MonarcChangesTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void unchangedDatabaseWritesAnEmptyPatch(@TempDir Path directory) throws Exception {
+        // The cached values of the file are out of date
+        final JsonNode file = MAPPER.readTree(new File(MonarcSamples.samplePath()));
+        final List<JsonNode> pending = new ArrayList<>();
+        pending.add(file.path("instances"));
+        while (!pending.isEmpty()) {
+            for (JsonNode element : pending.remove(pending.size() - 1)) {
+                for (JsonNode risk : element.path("risks"))
+                    ((ObjectNode) risk).put("cacheMaxRisk", 77);
+                pending.add(element.path("children"));
+            }
+        }
+        final File stale = directory.resolve("stale.json").toFile();
+        MAPPER.writeValue(stale, file);
+
+        final MonarcDatabase database = new MonarcDatabase(stale.getPath());
+        assertEquals(0, database.saveChangesToJSON(directory.resolve("patch.json").toString()));
+        assertEquals(0, MAPPER.readTree(directory.resolve("patch.json").toFile()).size());
+    }
+
+    @Test
+    void patchedFileHoldsTheChangedDatabase(@TempDir Path directory) throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        final MonarcInstance instance = database.getAllMonarcInstances().get(0);
+        final MonarcConsequences consequence = instance.getConsequences().values().iterator().next();
+        consequence.setC(consequence.getC() == 3 ? 2 : 3);
+        final MonarcRisks risk = MonarcSamples.risks(database).values().iterator().next();
+        risk.setVulnerabilityRate(risk.getVulnerabilityRate() == 2 ? 1 : 2);
+        risk.setComment("Changed");
+        final MonarcThreats threat = database.searchThreatByUUID(risk.getThreat());
+        threat.setQualification(4);
+        for (MonarcRisks threatRisk : database.searchRiskByThreat(threat.getUuid()))
+            threatRisk.setThreatRate(4);
+
+        final Path patch = directory.resolve("patch.json");
+        assertTrue(database.saveChangesToJSON(patch.toString()) > 0);
+
+        final JsonNode file = MAPPER.readTree(new File(MonarcSamples.samplePath()));
+        apply(file, MAPPER.readTree(patch.toFile()));
+        final File patched = directory.resolve("patched.json").toFile();
+        MAPPER.writeValue(patched, file);
+
+        final MonarcDiff diff = database.diff(new MonarcDatabase(patched.getPath()));
+        assertTrue(diff.isEmpty(), diff::toString);
+        assertEquals(0, database.saveChangesToJSON(patch.toString()));
+    }
+
+    @Test
+    void instancesWithAMissingParentDoNotStopTheExport(@TempDir Path directory) throws Exception {
+        final JsonNode file = MAPPER.readTree(new File(MonarcSamples.samplePath()));
+        final JsonNode root = file.path("instances").elements().next();
+        final JsonNode detached = root.path("children").elements().next();
+        ((ObjectNode) detached.path("instance")).put("parent", 999999);
+        final File orphan = directory.resolve("orphan.json").toFile();
+        MAPPER.writeValue(orphan, file);
+
+        final MonarcDatabase database = new MonarcDatabase(orphan.getPath());
+        final Path export = directory.resolve("export.json");
+        database.saveInstancesToJSON(export.toString());
+
+        // The instance is still exported under the one it was read from
+        final JsonNode exported = MAPPER.readTree(export.toFile()).path("instances")
+                .path(root.path("instance").path("id").asText()).path("children")
+                .path(detached.path("instance").path("id").asText());
+        assertEquals(999999, exported.path("instance").path("parent").asInt());
+    }
+
+    /**
+     * Applies the operations of a patch on the members of objects to a
+     * document, as RFC 6902 does.
+     */
+    private static void apply(JsonNode document, JsonNode patch) {
+        for (JsonNode operation : patch) {
+            final String op = operation.path("op").asText();
+            final String path = operation.path("path").asText();
+            final int last = path.lastIndexOf('/');
+            final JsonNode parent = document.at(path.substring(0, last));
+            final String key = path.substring(last + 1).replace("~1", "/").replace("~0", "~");
+            assertTrue(parent.isObject(), path);
+            if (op.equals("replace"))
+                assertTrue(parent.has(key), path);
+            else
+                assertEquals("add", op, path);
+            ((ObjectNode) parent).set(key, operation.path("value"));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.StampedLock;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Searches, queries and changes of a database shared between threads.
+ */
+class MonarcConcurrencyTest {
+
+    @Test
+    void settersWaitForTheQueries() throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        final MonarcRisks risk = MonarcSamples.risks(database).values().iterator().next();
+        final CountDownLatch reading = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Thread[] setter = new Thread[1];
+            final Future<?> change = executor.submit(() -> {
+                setter[0] = Thread.currentThread();
+                await(reading);
+                risk.setComment("Changed");
+            });
+            final List<String> comments = database.query(d -> {
+                final List<String> read = new ArrayList<>();
+                read.add(d.searchRiskByID(risk.getId()).getComment());
+                reading.countDown();
+                // The setter waits for the query
+                while (setter[0] == null || !(LockSupport.getBlocker(setter[0]) instanceof StampedLock))
+                    Thread.onSpinWait();
+                read.add(d.searchRiskByID(risk.getId()).getComment());
+                return read;
+            });
+            change.get(10, TimeUnit.SECONDS);
+
+            assertEquals(comments.get(0), comments.get(1));
+            assertFalse("Changed".equals(comments.get(0)));
+            assertEquals("Changed", database.searchRiskByID(risk.getId()).getComment());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void queriesSeeTheChangesOfAnUpdateTogether() throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        final MonarcRisks risk = MonarcSamples.risks(database).values().iterator().next();
+        final MonarcConsequences consequence = database.getAllMonarcConsequences().get(0);
+        database.update(d -> {
+            risk.setComment("0");
+            risk.setCommentAfter("0");
+        });
+
+        final AtomicBoolean done = new AtomicBoolean();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Integer>> readers = new ArrayList<>();
+            for (int thread = 0; thread < 3; thread++) {
+                readers.add(executor.submit(() -> {
+                    int reads = 0;
+                    while (!done.get() || reads == 0) {
+                        final String[] comments = database.query(d -> new String[] {
+                                d.searchRiskByID(risk.getId()).getComment(),
+                                d.searchRiskByID(risk.getId()).getCommentAfter() });
+                        assertEquals(comments[0], comments[1]);
+                        assertNotNull(database.searchThreatByUUID(risk.getThreat()));
+                        assertEquals(database.searchRiskByThreat(risk.getThreat()).size(),
+                                database.searchRiskByThreat(risk.getThreat()).size());
+                        assertNotNull(database.getRiskStats());
+                        reads++;
+                    }
+                    return reads;
+                }));
+            }
+            final Future<?> writer = executor.submit(() -> {
+                for (int i = 1; i <= 200; i++) {
+                    final String comment = Integer.toString(i);
+                    database.update(d -> {
+                        risk.setComment(comment);
+                        risk.setCommentAfter(comment);
+                    });
+                    // Each setter takes the write lock on its own
+                    consequence.setC(i % 2 == 0 ? 2 : 3);
+                    risk.setKindOfMeasure(i % 4);
+                }
+                done.set(true);
+            });
+            writer.get(60, TimeUnit.SECONDS);
+            for (Future<Integer> reader : readers)
+                reader.get(60, TimeUnit.SECONDS);
+        } finally {
+            done.set(true);
+            executor.shutdownNow();
+        }
+
+        assertEquals("200", risk.getComment());
+        assertEquals(2, consequence.getC());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
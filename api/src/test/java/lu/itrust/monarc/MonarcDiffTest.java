@@ -0,0 +1,183 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+/**
+ * Objects added, removed and changed between two databases, matched by ID or
+ * UUID.
+ */
+class MonarcDiffTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // A leaf instance of the sample, and the instance holding it
+    private static final int REMOVED_INSTANCE = 18859;
+    private static final int PARENT_INSTANCE = 18851;
+    private static final int ADDED_RISK = 999999;
+
+    @Test
+    void sameFileHasNoChanges() throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        final MonarcDiff diff = database.diff(MonarcSamples.loadSample());
+
+        assertTrue(diff.isEmpty(), diff::toString);
+        assertTrue(diff.getChanges().isEmpty());
+        assertEquals("no changes", diff.toString());
+        assertTrue(database.diff(database).isEmpty());
+    }
+
+    @Test
+    void changedValuesAreGivenFieldByField() throws Exception {
+        final MonarcDatabase older = MonarcSamples.loadSample();
+        final MonarcDatabase newer = MonarcSamples.loadSample();
+        final MonarcRisks risk = MonarcSamples.risks(newer).values().iterator().next();
+        final String comment = risk.getComment();
+        risk.setComment("Changed");
+        final MonarcConsequences consequence = newer.getAllMonarcConsequences().get(0);
+        final int c = consequence.getC();
+        consequence.setC(c == 3 ? 2 : 3);
+
+        final MonarcDiff diff = older.diff(newer);
+        assertEquals(Collections.singletonList(risk.getId()), keys(diff.getChanges(MonarcEntityType.RISK)));
+        final MonarcChange riskChange = diff.getChanges(MonarcEntityType.RISK).get(0);
+        assertEquals(MonarcChange.Kind.CHANGED, riskChange.getKind());
+        assertSame(risk, riskChange.getNewEntity());
+        assertEquals(risk.getId(), ((MonarcRisks) riskChange.getOldEntity()).getId());
+        assertEquals(1, riskChange.getFieldChanges().size());
+        final MonarcFieldChange field = riskChange.getFieldChanges().get(0);
+        assertEquals("comment", field.getField());
+        assertEquals(comment, field.getOldValue().textValue());
+        assertEquals(TextNode.valueOf("Changed"), field.getNewValue());
+
+        final List<MonarcChange> consequenceChanges = diff.getChanges(MonarcEntityType.CONSEQUENCE);
+        assertEquals(Collections.singletonList(consequence.getId()), keys(consequenceChanges));
+        final MonarcFieldChange cChange = consequenceChanges.get(0).getFieldChanges().stream()
+                .filter(change -> change.getField().equals("c")).findFirst().get();
+        assertEquals(IntNode.valueOf(c), cChange.getOldValue());
+        assertEquals(IntNode.valueOf(consequence.getC()), cChange.getNewValue());
+
+        assertEquals(diff.getChanges().size(),
+                diff.getChanges(MonarcEntityType.RISK).size() + consequenceChanges.size());
+        assertTrue(diff.getChanges(MonarcEntityType.RISK, MonarcChange.Kind.ADDED).isEmpty());
+    }
+
+    @Test
+    void removedAndAddedObjectsAreMatchedByIdentity(@TempDir Path directory) throws Exception {
+        final JsonNode file = MAPPER.readTree(new File(MonarcSamples.samplePath()));
+        final ObjectNode parent = (ObjectNode) find(file.path("instances"), PARENT_INSTANCE);
+        ((ObjectNode) parent.path("children")).remove(String.valueOf(REMOVED_INSTANCE));
+        // A copy of a risk of another instance, with a new ID
+        final ObjectNode sibling = (ObjectNode) parent.path("children").elements().next();
+        final ObjectNode risks = (ObjectNode) sibling.path("risks");
+        final ObjectNode added = risks.elements().next().deepCopy();
+        added.put("id", ADDED_RISK);
+        risks.set(String.valueOf(ADDED_RISK), added);
+        final File changed = directory.resolve("changed.json").toFile();
+        MAPPER.writeValue(changed, file);
+
+        final MonarcDatabase older = MonarcSamples.loadSample();
+        final MonarcDatabase newer = new MonarcDatabase(changed.getPath());
+        final MonarcDiff diff = older.diff(newer);
+
+        final MonarcInstance removed = instance(older, REMOVED_INSTANCE);
+        assertEquals(Collections.singletonList(REMOVED_INSTANCE),
+                keys(diff.getChanges(MonarcEntityType.INSTANCE, MonarcChange.Kind.REMOVED)));
+        final MonarcChange instanceChange = diff.getChanges(MonarcEntityType.INSTANCE).get(0);
+        assertSame(removed, instanceChange.getOldEntity());
+        assertNull(instanceChange.getNewEntity());
+        assertTrue(instanceChange.getFieldChanges().isEmpty());
+
+        final Set<Integer> removedRisks = new HashSet<>();
+        for (MonarcRisks risk : older.searchRiskByInstanceId(REMOVED_INSTANCE))
+            removedRisks.add(risk.getId());
+        assertEquals(removedRisks,
+                new HashSet<>(keys(diff.getChanges(MonarcEntityType.RISK, MonarcChange.Kind.REMOVED))));
+        assertEquals(Collections.singletonList(ADDED_RISK),
+                keys(diff.getChanges(MonarcEntityType.RISK, MonarcChange.Kind.ADDED)));
+        assertEquals(ADDED_RISK, ((MonarcRisks) diff.getChanges(MonarcEntityType.RISK, MonarcChange.Kind.ADDED)
+                .get(0).getNewEntity()).getId());
+
+        final Set<Integer> removedConsequences = new HashSet<>();
+        for (MonarcConsequences consequence : removed.getConsequences().values())
+            removedConsequences.add(consequence.getId());
+        assertEquals(removedConsequences,
+                new HashSet<>(keys(diff.getChanges(MonarcEntityType.CONSEQUENCE, MonarcChange.Kind.REMOVED))));
+
+        // Nothing else changed, the shared objects are still held by other
+        // instances
+        for (MonarcEntityType type : MonarcEntityType.values())
+            assertTrue(diff.getChanges(type, MonarcChange.Kind.CHANGED).isEmpty(), type.toString());
+        assertTrue(diff.getChanges(MonarcEntityType.THREAT).isEmpty());
+        assertEquals("INSTANCE: 0 added, 1 removed, 0 changed, RISK: 1 added, " + removedRisks.size()
+                + " removed, 0 changed, CONSEQUENCE: 0 added, " + removedConsequences.size()
+                + " removed, 0 changed", diff.toString());
+
+        // The other way round
+        final MonarcDiff reverse = newer.diff(older);
+        assertEquals(Collections.singletonList(REMOVED_INSTANCE),
+                keys(reverse.getChanges(MonarcEntityType.INSTANCE, MonarcChange.Kind.ADDED)));
+        assertEquals(Collections.singletonList(ADDED_RISK),
+                keys(reverse.getChanges(MonarcEntityType.RISK, MonarcChange.Kind.REMOVED)));
+        assertEquals(diff.getChanges().size(), reverse.getChanges().size());
+    }
+
+    @Test
+    void changesAreGivenInTheOrderOfTheTypes() throws Exception {
+        final MonarcDatabase older = MonarcSamples.loadSample();
+        final MonarcDatabase newer = MonarcSamples.loadSample();
+        newer.getAllMonarcConsequences().get(0).setC(newer.getAllMonarcConsequences().get(0).getC() == 3 ? 2 : 3);
+        MonarcSamples.risks(newer).values().iterator().next().setComment("Changed");
+
+        final List<MonarcEntityType> types = new ArrayList<>();
+        for (MonarcChange change : older.diff(newer).getChanges())
+            types.add(change.getType());
+        assertEquals(MonarcEntityType.RISK, types.get(0));
+        assertEquals(MonarcEntityType.CONSEQUENCE, types.get(types.size() - 1));
+    }
+
+    private static JsonNode find(JsonNode elements, int instanceId) {
+        for (JsonNode element : elements) {
+            if (element.path("instance").path("id").asInt() == instanceId)
+                return element;
+            final JsonNode child = find(element.path("children"), instanceId);
+            if (child != null)
+                return child;
+        }
+        return null;
+    }
+
+    private static MonarcInstance instance(MonarcDatabase database, int instanceId) {
+        for (MonarcInstance instance : database.getAllMonarcInstances()) {
+            if (instance.getId() == instanceId)
+                return instance;
+        }
+        throw new AssertionError("No instance " + instanceId);
+    }
+
+    private static List<Object> keys(List<MonarcChange> changes) {
+        final List<Object> keys = new ArrayList<>();
+        for (MonarcChange change : changes)
+            keys.add(change.getKey());
+        return keys;
+    }
+}
@@ -0,0 +1,56 @@
+package lu.itrust.monarc;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Streamed extraction of a Monarc JSON file, checked against the extraction of
+ * the file read in memory as a map.
+ */
+class MonarcExtractionTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void streamedExtractionMatchesTheMapExtraction() throws Exception {
+        final Map<?, ?> file = MAPPER.readValue(new File(MonarcSamples.samplePath()), Map.class);
+        MonarcSamples.assertSameModel(MonarcDatabase.extractMap(file), MonarcSamples.loadSample());
+    }
+
+    @Test
+    void childrenBeforeTheInstanceAreExtractedAfterIt(@TempDir Path directory) throws Exception {
+        // The sections of every instance element in the reverse order, "children"
+        // first
+        final JsonNode file = MAPPER.readTree(new File(MonarcSamples.samplePath()));
+        final List<JsonNode> pending = new ArrayList<>();
+        pending.add(file.path("instances"));
+        while (!pending.isEmpty()) {
+            for (JsonNode element : pending.remove(pending.size() - 1)) {
+                final List<String> sections = new ArrayList<>();
+                for (Iterator<String> names = element.fieldNames(); names.hasNext();)
+                    sections.add(0, names.next());
+                final ObjectNode reversed = MAPPER.createObjectNode();
+                for (String section : sections)
+                    reversed.set(section, element.get(section));
+                ((ObjectNode) element).removeAll().setAll(reversed);
+                pending.add(element.path("children"));
+            }
+        }
+        final File reversed = directory.resolve("reversed.json").toFile();
+        MAPPER.writeValue(reversed, file);
+
+        MonarcSamples.assertSameModel(MonarcDatabase.extractMap(MAPPER.readValue(reversed, Map.class)),
+                new MonarcDatabase(reversed.getPath()));
+    }
+}
@@ -0,0 +1,234 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Indexes of the database, and the searches using them once recommendations
+ * are removed or implemented.
+ */
+class MonarcIndexTest {
+
+    @Test
+    void indexKeepsTheObjectsOfAKeyInOrder() {
+        final MonarcIndex<Integer, String> index = MonarcIndex.of(String::length);
+        index.build(Arrays.asList("a", "bb", "c", "dd", "e"));
+
+        assertEquals(Arrays.asList("a", "c", "e"), index.get(1));
+        assertEquals("bb", index.first(2));
+        assertNull(index.first(3));
+        assertTrue(index.get(3).isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> index.view(1).add("f"));
+
+        index.remove("c");
+        assertEquals(Arrays.asList("a", "e"), index.view(1));
+        index.removeIf(value -> value.startsWith("a") || value.startsWith("d"));
+        assertEquals(Collections.singletonList("e"), index.get(1));
+        assertEquals(Collections.singletonList("bb"), index.get(2));
+        index.remove("bb");
+        assertNull(index.first(2));
+
+        index.add("ff");
+        assertEquals(Collections.singletonList("ff"), index.get(2));
+        index.build(Collections.singletonList("g"));
+        assertTrue(index.get(2).isEmpty());
+        assertEquals(Collections.singletonList("g"), index.get(1));
+    }
+
+    @Test
+    void objectsAreIndexedByEachOfTheirKeys() {
+        final MonarcIndex<Character, String> index = MonarcIndex
+                .ofAll(value -> value.chars().mapToObj(c -> (char) c).collect(Collectors.toSet()));
+        index.build(Arrays.asList("ab", "bc", "ca"));
+
+        assertEquals(Arrays.asList("ab", "ca"), index.get('a'));
+        assertEquals(Arrays.asList("ab", "bc"), index.get('b'));
+        index.remove("ab");
+        assertEquals(Collections.singletonList("ca"), index.get('a'));
+        assertEquals(Collections.singletonList("bc"), index.get('b'));
+    }
+
+    @Test
+    void byInstanceIndexFollowsTheParents() {
+        final List<Runnable> changes = new ArrayList<>();
+        final MonarcIndex<Integer, MonarcRecs> index = MonarcIndex.byInstance(MonarcRecs::getParentInstanceId,
+                change -> {
+                    changes.add(change);
+                    change.run();
+                });
+        final MonarcRecs recs = new MonarcRecs("uuid", "set", "code", "description", 1, "", 1, "", null, 0);
+        recs.addParentInstance("1");
+        recs.addParentInstance("2");
+        index.add(recs);
+        assertEquals(Collections.singletonList(recs), index.get(1));
+        assertEquals(Collections.singletonList(recs), index.get(2));
+        assertTrue(changes.isEmpty());
+
+        recs.addParentInstance("3");
+        recs.getParentInstanceId().remove("1");
+        recs.addParentInstance("not an instance");
+        assertEquals(2, changes.size());
+        assertTrue(index.get(1).isEmpty());
+        assertEquals(Collections.singletonList(recs), index.get(3));
+
+        recs.getParentInstanceId().clear();
+        assertTrue(index.get(2).isEmpty());
+        assertTrue(index.get(3).isEmpty());
+
+        // Removed objects are no longer followed
+        recs.addParentInstance("4");
+        assertEquals(Collections.singletonList(recs), index.get(4));
+        index.remove(recs);
+        recs.addParentInstance("5");
+        assertTrue(index.get(4).isEmpty());
+        assertTrue(index.get(5).isEmpty());
+    }
+
+    @Test
+    void instanceSearchesFollowTheParentsOfTheObjects() throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        final List<MonarcInstance> instances = database.getAllMonarcInstances();
+        final List<MonarcRisks> risks = new ArrayList<>(MonarcSamples.risks(database).values());
+        final Random random = new Random(42);
+
+        for (int round = 0; round < 200; round++) {
+            final MonarcRisks risk = risks.get(random.nextInt(risks.size()));
+            final int instanceId = instances.get(random.nextInt(instances.size())).getId();
+            if (random.nextBoolean())
+                risk.addParentInstance(instanceId + "");
+            else
+                risk.getParentInstanceId().remove(instanceId + "");
+
+            final Set<Integer> expected = risks.stream()
+                    .filter(other -> other.getParentInstanceId().contains(instanceId + ""))
+                    .map(MonarcRisks::getId).collect(Collectors.toCollection(TreeSet::new));
+            assertEquals(expected, database.searchRiskByInstanceId(instanceId).stream().map(MonarcRisks::getId)
+                    .collect(Collectors.toCollection(TreeSet::new)), "Round " + round);
+        }
+    }
+
+    @Test
+    void searchesMatchAScanAfterRemoveIf(@TempDir Path directory) throws Exception {
+        final File file = directory.resolve("recs.json").toFile();
+        final List<String> uuids = MonarcSamples.writeSampleWithRecommendations(file, 3, 60);
+        final MonarcDatabase database = new MonarcDatabase(file.getPath());
+        // The recommendations are added to the sets in turn
+        final Map<String, String> sets = new HashMap<>();
+        for (int i = 0; i < uuids.size(); i++)
+            sets.put(uuids.get(i), "Set " + i % 3);
+
+        final Random random = new Random(42);
+        final Set<String> kept = new TreeSet<>(uuids);
+        for (int round = 0; round < 4; round++) {
+            final Set<String> removed = new HashSet<>();
+            for (String uuid : kept) {
+                if (random.nextInt(4) == 0)
+                    removed.add(uuid);
+            }
+            kept.removeAll(removed);
+            database.removeIf(recs -> removed.contains(recs.getUuid()));
+
+            for (int set = 0; set < 3; set++) {
+                final String label = "Set " + set;
+                final Set<String> expected = kept.stream().filter(uuid -> label.equals(sets.get(uuid)))
+                        .collect(Collectors.toCollection(TreeSet::new));
+                assertEquals(expected, uuids(database.searchRecsByRecSetsLabel(label)), "Round " + round);
+            }
+        }
+
+        // The instances only hold the recommendations kept
+        final Path export = directory.resolve("export.json");
+        database.saveInstancesToJSON(export.toString());
+        for (JsonNode element : elements(export)) {
+            final Set<String> recs = new TreeSet<>();
+            element.path("recs").fieldNames().forEachRemaining(recs::add);
+            recs.retainAll(uuids);
+            assertEquals(kept, recs, element.path("instance").path("id").asText());
+        }
+    }
+
+    @Test
+    void searchesMatchAScanAfterCreateOrUpdate(@TempDir Path directory) throws Exception {
+        final File file = directory.resolve("recs.json").toFile();
+        MonarcSamples.writeSampleWithRecommendations(file, 2, 20);
+        final MonarcDatabase database = new MonarcDatabase(file.getPath());
+        final List<MonarcRecs> recs = new ArrayList<>();
+        recs.addAll(database.searchRecsByRecSetsLabel("Set 0"));
+        recs.addAll(database.searchRecsByRecSetsLabel("Set 1"));
+        final List<MonarcRisks> risks = new ArrayList<>(MonarcSamples.risks(database).values());
+
+        final Random random = new Random(42);
+        final Map<Integer, Set<String>> linked = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            final MonarcRisks risk = risks.get(random.nextInt(risks.size()));
+            final MonarcRecs rec = recs.get(random.nextInt(recs.size()));
+            final MonarcRecos recos = database.createOrUpdate(risk.getId(), rec);
+            assertEquals(rec.getUuid(), recos.getUuid());
+            linked.computeIfAbsent(risk.getId(), k -> new TreeSet<>()).add(rec.getUuid());
+        }
+
+        for (MonarcRisks risk : risks) {
+            assertEquals(linked.getOrDefault(risk.getId(), Collections.emptySet()),
+                    uuids(database.searchRecosByRisk(risk.getId())), "Risk " + risk.getId());
+        }
+        // Implemented recommendations stay in their recommendation set
+        assertEquals(recs.size(), database.searchRecsByRecSetsLabel("Set 0").size()
+                + database.searchRecsByRecSetsLabel("Set 1").size());
+
+        // The instances of each risk hold the recommendations implemented for it
+        final Path export = directory.resolve("export.json");
+        database.saveInstancesToJSON(export.toString());
+        for (JsonNode element : elements(export)) {
+            for (Iterator<String> ids = element.path("risks").fieldNames(); ids.hasNext();) {
+                final String riskId = ids.next();
+                final Set<String> recos = new TreeSet<>();
+                element.path("recos").path(riskId).fieldNames().forEachRemaining(recos::add);
+                assertEquals(linked.getOrDefault(Integer.valueOf(riskId), Collections.emptySet()), recos,
+                        "Risk " + riskId + " of instance " + element.path("instance").path("id").asText());
+            }
+        }
+    }
+
+    private static Set<String> uuids(List<? extends MonarcRecs> recs) {
+        return recs.stream().map(MonarcRecs::getUuid).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * @return The instance elements of a Monarc JSON file.
+     */
+    private static List<JsonNode> elements(Path file) throws Exception {
+        final List<JsonNode> elements = new ArrayList<>();
+        final List<JsonNode> pending = new ArrayList<>();
+        pending.add(new ObjectMapper().readTree(file.toFile()).path("instances"));
+        while (!pending.isEmpty()) {
+            for (JsonNode element : pending.remove(pending.size() - 1)) {
+                elements.add(element);
+                pending.add(element.path("children"));
+            }
+        }
+        return elements;
+    }
+}
@@ -0,0 +1,133 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * MonarcIntMap checked against a LinkedHashMap through resizes, removals and
+ * keys added again.
+ */
+class MonarcIntMapTest {
+
+    // Consecutive IDs, far apart IDs, negative and extreme keys
+    static final int[] KEYS;
+
+    static {
+        final List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            keys.add(18850 + i);
+            keys.add(i << 16);
+            keys.add(-i);
+        }
+        keys.add(Integer.MIN_VALUE);
+        keys.add(Integer.MAX_VALUE);
+        KEYS = keys.stream().distinct().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Test
+    void mapMatchesALinkedHashMap() {
+        final Random random = new Random(42);
+        final MonarcIntMap<String> map = new MonarcIntMap<>();
+        final Map<Integer, String> expected = new LinkedHashMap<>();
+
+        for (int round = 0; round < 20000; round++) {
+            final int key = KEYS[random.nextInt(KEYS.length)];
+            final int operation = random.nextInt(10);
+            if (operation < 5) {
+                // Null values are kept apart from the missing keys
+                final String value = random.nextInt(20) == 0 ? null : "v" + round;
+                assertEquals(expected.put(key, value), map.put(key, value), "put " + key);
+            } else if (operation < 9)
+                assertEquals(expected.remove(key), map.remove(key), "remove " + key);
+            else if (random.nextInt(200) == 0) {
+                expected.clear();
+                map.clear();
+            }
+
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+            assertEquals(expected.get(key), map.get(key));
+            assertEquals(expected.size(), map.size());
+            if (round % 500 == 0)
+                assertSameMap(expected, map);
+        }
+        assertSameMap(expected, map);
+    }
+
+    @Test
+    void mapKeepsTheOrderOfTheKeysAddedAgain() {
+        final MonarcIntMap<String> map = new MonarcIntMap<>(2);
+        for (int key = 0; key < 100; key++)
+            map.put(key, "v" + key);
+        for (int key = 0; key < 100; key += 2)
+            map.remove(key);
+        map.put(0, "again");
+        map.put(1, "replaced");
+
+        final List<Integer> keys = new ArrayList<>(map.keySet());
+        assertEquals(51, keys.size());
+        assertEquals(Integer.valueOf(1), keys.get(0));
+        assertEquals(Integer.valueOf(0), keys.get(keys.size() - 1));
+        assertEquals("replaced", map.get(1));
+
+        // Removed through the views
+        assertTrue(map.keySet().remove(3));
+        assertFalse(map.keySet().remove(4));
+        map.values().removeIf(value -> value.equals("v5"));
+        for (Iterator<Map.Entry<Integer, String>> entries = map.entrySet().iterator(); entries.hasNext();) {
+            final Map.Entry<Integer, String> entry = entries.next();
+            if (entry.getKey() == 7)
+                entries.remove();
+            else if (entry.getKey() == 9)
+                entry.setValue("set");
+        }
+        assertNull(map.get(3));
+        assertNull(map.get(5));
+        assertFalse(map.containsKey(7));
+        assertEquals("set", map.get(9));
+        assertEquals(48, map.size());
+
+        // Wrong key types
+        assertNull(map.get("1"));
+        assertFalse(map.containsKey(1L));
+        assertNull(map.remove((Object) "1"));
+    }
+
+    @Test
+    void mapIteratorsFailOnConcurrentChanges() {
+        final MonarcIntMap<String> map = new MonarcIntMap<>();
+        map.put(1, "a");
+        map.put(2, "b");
+
+        final Iterator<Integer> keys = map.keySet().iterator();
+        keys.next();
+        map.put(3, "c");
+        assertThrows(ConcurrentModificationException.class, keys::next);
+        assertThrows(ConcurrentModificationException.class, () -> map.forEach((key, value) -> map.remove(key)));
+
+        final Iterator<String> values = map.values().iterator();
+        assertThrows(IllegalStateException.class, values::remove);
+    }
+
+    private static void assertSameMap(Map<Integer, String> expected, MonarcIntMap<String> map) {
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(map.keySet()));
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()));
+        assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(map.entrySet()));
+        final List<Integer> visited = new ArrayList<>();
+        map.forEach((key, value) -> visited.add(key));
+        assertEquals(new ArrayList<>(expected.keySet()), visited);
+        assertEquals(expected, map);
+    }
+}
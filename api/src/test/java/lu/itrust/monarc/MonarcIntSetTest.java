@@ -0,0 +1,81 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * MonarcIntSet checked against a LinkedHashSet, searched linearly then with a
+ * table, through removals and values added again.
+ */
+class MonarcIntSetTest {
+
+    @Test
+    void setMatchesALinkedHashSet() {
+        final Random random = new Random(42);
+        final MonarcIntSet set = new MonarcIntSet();
+        final Map<Integer, Boolean> expected = new LinkedHashMap<>();
+
+        for (int round = 0; round < 20000; round++) {
+            // Mostly small sets, searched linearly, then larger ones with a table
+            final int bound = round < 5000 ? 12 : MonarcIntMapTest.KEYS.length;
+            final int value = MonarcIntMapTest.KEYS[random.nextInt(bound)];
+            final int operation = random.nextInt(10);
+            if (operation < 5)
+                assertEquals(expected.put(value, true) == null, set.add(value), "add " + value);
+            else if (operation < 9)
+                assertEquals(expected.remove(value) != null, set.remove(value), "remove " + value);
+            else if (random.nextInt(200) == 0) {
+                expected.clear();
+                set.clear();
+            }
+
+            assertEquals(expected.containsKey(value), set.contains(value));
+            assertEquals(expected.size(), set.size());
+            if (round % 250 == 0)
+                assertSameSet(expected, set);
+        }
+        assertSameSet(expected, set);
+    }
+
+    @Test
+    void setIteratorRemovesTheValues() {
+        final MonarcIntSet set = new MonarcIntSet();
+        for (int value = 0; value < 20; value++)
+            set.add(value);
+        for (Iterator<Integer> values = set.iterator(); values.hasNext();) {
+            if (values.next() % 3 != 0)
+                values.remove();
+        }
+        assertEquals("[0, 3, 6, 9, 12, 15, 18]", Arrays.toString(set.toArray()));
+
+        // Added again after the others
+        set.add(1);
+        set.remove(0);
+        set.add(0);
+        assertEquals("[3, 6, 9, 12, 15, 18, 1, 0]", Arrays.toString(set.toArray()));
+
+        final Iterator<Integer> values = set.iterator();
+        values.next();
+        set.add(100);
+        assertThrows(ConcurrentModificationException.class, values::next);
+    }
+
+    private static void assertSameSet(Map<Integer, Boolean> expected, MonarcIntSet set) {
+        final int[] values = expected.keySet().stream().mapToInt(Integer::intValue).toArray();
+        assertEquals(Arrays.toString(values), Arrays.toString(set.toArray()));
+        final List<Integer> iterated = new ArrayList<>();
+        set.iterator().forEachRemaining((int value) -> iterated.add(value));
+        assertEquals(new ArrayList<>(expected.keySet()), iterated);
+    }
+}
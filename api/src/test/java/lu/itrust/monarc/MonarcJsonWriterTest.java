@@ -0,0 +1,90 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Exports streamed by MonarcJsonWriter, checked against the export of the
+ * first versions of the database, which built the whole document as a String.
+ */
+class MonarcJsonWriterTest {
+
+    @Test
+    void exportMatchesTheStringExport(@TempDir Path directory) throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        final Path export = directory.resolve("export.json");
+        database.saveInstancesToJSON(export.toString());
+
+        // The ANR element as prepared by the export
+        final byte[] expected = new ObjectMapper().writeValueAsString(database.getANR())
+                .getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(expected, Files.readAllBytes(export));
+
+        final Path compressed = directory.resolve("export.json.gz");
+        database.saveInstancesToJSON(compressed.toString(), true);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(compressed))) {
+            assertArrayEquals(expected, in.readAllBytes());
+        }
+
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        database.saveInstancesToJSON(stream);
+        assertArrayEquals(expected, stream.toByteArray());
+
+        final ByteArrayOutputStream channel = new ByteArrayOutputStream();
+        database.saveInstancesToJSON(Channels.newChannel(channel));
+        assertArrayEquals(expected, channel.toByteArray());
+    }
+
+    @Test
+    void failedWriteLeavesTheFileUntouched(@TempDir Path directory) throws Exception {
+        final Path file = directory.resolve("export.json");
+        Files.write(file, "{\"previous\":true}".getBytes(StandardCharsets.UTF_8));
+
+        final IOException error = assertThrows(IOException.class,
+                () -> MonarcJsonWriter.write(file, false, (mapper, generator) -> {
+                    generator.writeStartObject();
+                    generator.writeStringField("partial", "value");
+                    throw new IOException("Failed");
+                }));
+        assertEquals("Failed", error.getMessage());
+
+        assertEquals("{\"previous\":true}", Files.readString(file));
+        assertEquals(Collections.singletonList(file), files(directory));
+    }
+
+    @Test
+    void writeReplacesTheFile(@TempDir Path directory) throws Exception {
+        final Path file = directory.resolve("export.json");
+        Files.write(file, "{\"previous\":true}".getBytes(StandardCharsets.UTF_8));
+
+        MonarcJsonWriter.write(file, false, MonarcJsonWriter.value(Collections.singletonMap("next", 1)));
+
+        assertEquals("{\"next\":1}", Files.readString(file));
+        assertEquals(Collections.singletonList(file), files(directory));
+    }
+
+    private static List<Path> files(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+}
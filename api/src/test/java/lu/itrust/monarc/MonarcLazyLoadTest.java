@@ -0,0 +1,156 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Databases opened by {@link MonarcDatabase#openLazy(String)}.
+ */
+class MonarcLazyLoadTest {
+
+    @Test
+    void lazyDatabaseHoldsTheWholeFile() throws Exception {
+        final MonarcDatabase loaded = MonarcSamples.loadSample();
+        final MonarcDatabase lazy = MonarcDatabase.openLazy(MonarcSamples.samplePath());
+
+        assertEquals(loaded.getAllMonarcInstances().size(), lazy.getAllMonarcInstances().size());
+        assertEquals(MonarcSamples.risks(loaded).keySet(), MonarcSamples.risks(lazy).keySet());
+    }
+
+    @Test
+    void subtreeFailingToBeReadIsReadAgain(@TempDir Path directory) throws Exception {
+        final Path file = directory.resolve("sample.json");
+        Files.copy(Paths.get(MonarcSamples.samplePath()), file);
+        final MonarcDatabase lazy = MonarcDatabase.openLazy(file.toString());
+        final MonarcInstance root = lazy.getRootInstances().get(0);
+
+        // The subtrees are read at their position in the file, which no longer holds
+        // them
+        final Path moved = directory.resolve("moved.json");
+        Files.move(file, moved);
+        Files.write(file, new byte[] { ' ' });
+        assertThrows(UncheckedIOException.class, root::getChildren);
+        assertFalse(root.isMaterialized());
+
+        Files.move(moved, file, StandardCopyOption.REPLACE_EXISTING);
+        final int children = root.getChildren().size();
+        assertTrue(root.isMaterialized());
+        assertEquals(MonarcSamples.loadSample().getRootInstances().get(0).getChildren().size(), children);
+        assertEquals(MonarcSamples.loadSample().getAllMonarcInstances().size(), lazy.getAllMonarcInstances().size());
+    }
+
+    @Test
+    void sharedObjectsAreSearchedWithoutReadingTheSubtrees() throws Exception {
+        final MonarcDatabase loaded = MonarcSamples.loadSample();
+        final MonarcDatabase lazy = MonarcDatabase.openLazy(MonarcSamples.samplePath());
+        final MonarcInstance root = lazy.getRootInstances().get(0);
+
+        assertEquals(uuids(loaded.getAllAssets()), uuids(lazy.getAllAssets()));
+        for (MonarcInstance instance : loaded.getAllMonarcInstances()) {
+            final int id = instance.getId();
+            assertEquals(threatIds(loaded.searchThreatByInstanceId(id)),
+                    threatIds(lazy.searchThreatByInstanceId(id)));
+            assertEquals(vulnerabilityIds(loaded.searchVulnerabilityByInstanceId(id)),
+                    vulnerabilityIds(lazy.searchVulnerabilityByInstanceId(id)));
+            assertEquals(amvIds(loaded.searchAMVByInstanceId(id)), amvIds(lazy.searchAMVByInstanceId(id)));
+            for (MonarcThreats threat : loaded.searchThreatByInstanceId(id))
+                assertEquals(threat.getParentInstanceId(),
+                        lazy.searchThreatByUUID(threat.getUuid()).getParentInstanceId());
+        }
+        final MonarcAMV amv = loaded.searchAMVByInstanceId(18852).get(0);
+        assertEquals(amvIds(loaded.searchAMVByThreat(amv.getThreat())),
+                amvIds(lazy.searchAMVByThreat(amv.getThreat())));
+        final MonarcVulnerabilities vulnerability = lazy.searchVulnerabilityByUUID(amv.getVulnerability());
+        assertNotNull(vulnerability);
+        assertEquals(threatIds(loaded.getAllThreatsForVulnerability(vulnerability)),
+                threatIds(lazy.getAllThreatsForVulnerability(vulnerability)));
+
+        assertFalse(root.isMaterialized());
+    }
+
+    @Test
+    void risksOfAnInstanceOnlyReadItsSubtree(@TempDir Path directory) throws Exception {
+        final Path file = directory.resolve("roots.json");
+        writeChildrenAsRoots(file);
+        final MonarcDatabase loaded = new MonarcDatabase(file.toString());
+        final MonarcDatabase lazy = MonarcDatabase.openLazy(file.toString());
+        final List<MonarcInstance> roots = lazy.getRootInstances();
+        assertEquals(3, roots.size());
+
+        // 18898 is a child of the second root
+        assertEquals(riskIds(loaded.searchRiskByInstanceId(18898)), riskIds(lazy.searchRiskByInstanceId(18898)));
+        assertFalse(lazy.searchRiskByInstanceId(18898).isEmpty());
+        assertFalse(roots.get(0).isMaterialized());
+        assertTrue(roots.get(1).isMaterialized());
+        assertFalse(roots.get(2).isMaterialized());
+        assertEquals(riskIds(loaded.searchRiskByInstanceId(18896)), riskIds(lazy.searchRiskByInstanceId(18896)));
+
+        // Reading the subtrees in another order holds the shared objects in the
+        // same instances as a load of the whole file
+        roots.get(2).getChildren();
+        assertFalse(roots.get(0).isMaterialized());
+        lazy.getAllMonarcInstances();
+        MonarcSamples.assertSameModel(loaded, lazy);
+        assertEquals(riskIds(loaded.searchRiskByInstanceId(18852)), riskIds(lazy.searchRiskByInstanceId(18852)));
+    }
+
+    /**
+     * Writes the sample file with the children of its root instance as root
+     * instances.
+     */
+    private static void writeChildrenAsRoots(Path file) throws Exception {
+        final ObjectMapper mapper = new ObjectMapper();
+        final ObjectNode anr = (ObjectNode) mapper.readTree(Paths.get(MonarcSamples.samplePath()).toFile());
+        final ObjectNode instances = (ObjectNode) anr.get("instances");
+        final ObjectNode root = (ObjectNode) instances.elements().next();
+        final ObjectNode children = (ObjectNode) root.get("children");
+        for (Iterator<Map.Entry<String, JsonNode>> fields = children.fields(); fields.hasNext();) {
+            final ObjectNode instance = (ObjectNode) fields.next().getValue().get("instance");
+            instance.put("parent", 0);
+            instance.put("root", 0);
+        }
+        anr.set("instances", children);
+        mapper.writeValue(file.toFile(), anr);
+    }
+
+    private static Set<String> uuids(List<MonarcAsset> assets) {
+        return assets.stream().map(MonarcAsset::getUuid).collect(Collectors.toSet());
+    }
+
+    private static Set<String> threatIds(List<MonarcThreats> threats) {
+        return threats.stream().map(MonarcThreats::getUuid).collect(Collectors.toSet());
+    }
+
+    private static Set<String> vulnerabilityIds(List<MonarcVulnerabilities> vulnerabilities) {
+        return vulnerabilities.stream().map(MonarcVulnerabilities::getUuid).collect(Collectors.toSet());
+    }
+
+    private static Set<String> amvIds(List<MonarcAMV> amvs) {
+        return amvs.stream().map(MonarcAMV::getUuid).collect(Collectors.toSet());
+    }
+
+    private static Set<Integer> riskIds(List<MonarcRisks> risks) {
+        return risks.stream().map(MonarcRisks::getId).collect(Collectors.toSet());
+    }
+}
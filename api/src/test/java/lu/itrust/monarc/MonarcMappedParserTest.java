@@ -0,0 +1,113 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * Files read from their mapping by MonarcMappedParser, in chunks small enough
+ * for tokens, strings and multi-byte characters to be cut between two of them.
+ */
+class MonarcMappedParserTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void valuesAreReadAcrossTheChunks() throws Exception {
+        final Path sample = Paths.get(MonarcSamples.samplePath());
+        final JsonNode expected = MAPPER.readTree(sample.toFile());
+
+        for (long chunkSize : new long[] { 4093, 65536, MonarcMappedParser.CHUNK_SIZE }) {
+            try (JsonParser parser = MonarcMappedParser.open(sample, 0, chunkSize)) {
+                assertEquals(expected, parser.readValueAsTree(), "chunks of " + chunkSize);
+                assertNull(parser.nextToken());
+            }
+        }
+    }
+
+    @Test
+    void tokensAreLocatedAsByAStreamParser() throws Exception {
+        final Path sample = Paths.get(MonarcSamples.samplePath());
+        try (JsonParser expected = MAPPER.createParser(sample.toFile());
+                JsonParser parser = MonarcMappedParser.open(sample, 0, 4093)) {
+            JsonToken token;
+            while ((token = expected.nextToken()) != null) {
+                assertEquals(token, parser.nextToken());
+                // Only the starts of the tokens are located by the non-blocking parser
+                if (!token.isStructEnd())
+                    assertEquals(expected.currentTokenLocation().getByteOffset(),
+                            parser.currentTokenLocation().getByteOffset(), token.toString());
+            }
+            assertNull(parser.nextToken());
+        }
+    }
+
+    @Test
+    void childrenAreSkippedAndBufferedAcrossTheChunks(@TempDir Path directory) throws Exception {
+        final Path file = directory.resolve("file.json");
+        final String json = "{\"skipped\":{\"a\":[1,2,{\"b\":\"été\"}],\"c\":\"€€€\"},"
+                + "\"buffered\":[\"日本\",{\"d\":12345678901}],\"value\":{\"e\":\"ü\"}}";
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+
+        for (long chunkSize = 1; chunkSize <= 16; chunkSize++) {
+            try (JsonParser parser = MonarcMappedParser.open(file, 0, chunkSize)) {
+                assertEquals(JsonToken.START_OBJECT, parser.nextToken());
+                assertEquals("skipped", parser.nextFieldName());
+                parser.nextToken();
+                parser.skipChildren();
+                assertEquals(JsonToken.END_OBJECT, parser.currentToken());
+
+                assertEquals(JsonToken.START_ARRAY, parser.nextValue());
+                final TokenBuffer buffered = parser.readValueAs(TokenBuffer.class);
+                try (JsonParser bufferedParser = buffered.asParser(MAPPER)) {
+                    assertEquals(MAPPER.readTree("[\"日本\",{\"d\":12345678901}]"), bufferedParser.readValueAsTree());
+                }
+
+                assertEquals("value", parser.nextFieldName());
+                parser.nextToken();
+                assertEquals(MAPPER.readTree("{\"e\":\"ü\"}"), parser.readValueAsTree());
+                assertEquals(JsonToken.END_OBJECT, parser.nextToken());
+                assertNull(parser.nextToken());
+            }
+        }
+    }
+
+    @Test
+    void fileIsReadFromTheOffset(@TempDir Path directory) throws Exception {
+        final Path file = directory.resolve("file.json");
+        Files.write(file, "[{\"a\":1},{\"b\":\"é\"}]".getBytes(StandardCharsets.UTF_8));
+
+        try (JsonParser parser = MonarcMappedParser.open(file, 9, 3)) {
+            assertEquals(MAPPER.readTree("{\"b\":\"é\"}"), parser.readValueAsTree());
+        }
+        try (JsonParser parser = MonarcMappedParser.open(file, 100, 3)) {
+            assertNull(parser.nextToken());
+        }
+        assertThrows(IllegalArgumentException.class, () -> MonarcMappedParser.open(file, -1));
+    }
+
+    @Test
+    void databasesReadFromTheMappingAreTheSame() throws Exception {
+        final MonarcDatabase buffered = MonarcSamples.loadSample();
+
+        MonarcSamples.assertSameModel(buffered, new MonarcDatabase(MonarcSamples.samplePath(), null,
+                MonarcStringPool.create(), MonarcInputMode.MAPPED));
+        final MonarcDatabase lazy = MonarcDatabase.openLazy(MonarcSamples.samplePath(), MonarcInputMode.MAPPED);
+        lazy.getAllMonarcInstances();
+        MonarcSamples.assertSameModel(buffered, lazy);
+    }
+}
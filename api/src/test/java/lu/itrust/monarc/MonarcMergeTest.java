@@ -0,0 +1,84 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Merge of several databases into one ANR.
+ */
+class MonarcMergeTest {
+
+    @Test
+    void sampleMergedWithItselfHoldsBothCopies(@TempDir Path directory) throws Exception {
+        final MonarcDatabase sample = MonarcSamples.loadSample();
+        final MonarcDatabase merged = MonarcDatabase.merge(directory.resolve("merged.json").toString(), sample,
+                MonarcSamples.loadSample());
+
+        final Set<Integer> instanceIds = new HashSet<>();
+        for (MonarcInstance instance : merged.getAllMonarcInstances())
+            assertTrue(instanceIds.add(instance.getId()), "Instance " + instance.getId() + " merged twice");
+        assertEquals(2 * sample.getAllMonarcInstances().size(), instanceIds.size());
+        for (MonarcInstance instance : merged.getAllMonarcInstances()) {
+            assertTrue(instance.getParent() == 0 || instanceIds.contains(instance.getParent()),
+                    "Parent of instance " + instance.getId());
+        }
+
+        final Map<Integer, MonarcRisks> risks = MonarcSamples.risks(merged);
+        assertEquals(2 * MonarcSamples.risks(sample).size(), risks.size());
+        for (MonarcRisks risk : risks.values()) {
+            for (int instanceId : MonarcInstanceIds.instanceIds(risk.getParentInstanceId()))
+                assertTrue(instanceIds.contains(instanceId), "Instance of risk " + risk.getId());
+        }
+
+        final Set<Integer> consequenceIds = new HashSet<>();
+        for (MonarcConsequences consequence : merged.getAllMonarcConsequences())
+            assertTrue(consequenceIds.add(consequence.getId()), "Consequence " + consequence.getId() + " merged twice");
+        assertEquals(2 * sample.getAllMonarcConsequences().size(), consequenceIds.size());
+
+        // The threats with the same UUID are merged
+        final Set<String> threats = threatUuids(sample);
+        assertEquals(threats, threatUuids(merged));
+        for (String uuid : threats)
+            assertNotNull(merged.searchThreatByUUID(uuid), uuid);
+    }
+
+    @Test
+    void mergeKeepsTheChangesTracked(@TempDir Path directory) throws Exception {
+        final MonarcDatabase changed = MonarcSamples.loadSample();
+        final MonarcInstance instance = changed.getAllMonarcInstances().get(0);
+        final MonarcConsequences consequence = instance.getConsequences().values().iterator().next();
+        consequence.setC(consequence.getC() == 3 ? 2 : 3);
+
+        final MonarcDatabase merged = MonarcDatabase.merge(directory.resolve("merged.json").toString(), changed,
+                MonarcSamples.loadSample());
+
+        // The values affected by the change are computed before the merge
+        MonarcInstance mergedInstance = null;
+        for (MonarcInstance element : merged.getAllMonarcInstances()) {
+            if (element.getId() == instance.getId())
+                mergedInstance = element;
+        }
+        assertNotNull(mergedInstance);
+        assertEquals(instance.getC(), mergedInstance.getC());
+
+        assertTrue(changed.saveChangesToJSON(directory.resolve("patch.json").toString()) > 0);
+    }
+
+    private static Set<String> threatUuids(MonarcDatabase database) {
+        final Set<String> uuids = new HashSet<>();
+        for (MonarcInstance instance : database.getAllMonarcInstances()) {
+            for (MonarcThreats threat : database.searchThreatByInstanceId(instance.getId()))
+                uuids.add(threat.getUuid());
+        }
+        return uuids;
+    }
+}
@@ -0,0 +1,169 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Files loaded with an executor, checked against the same files loaded by the
+ * calling thread alone.
+ */
+class MonarcParallelLoadTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void parallelLoadMatchesTheSequentialLoad() throws Exception {
+        assertSameLoad(MonarcSamples.samplePath());
+    }
+
+    @Test
+    void objectsSharedAcrossSubtreesAreMergedInFileOrder(@TempDir Path directory) throws Exception {
+        final File file = directory.resolve("synthetic.json").toFile();
+        MonarcSamples.writeSampleWithRecommendations(file, 2, 12);
+        final JsonNode anr = MAPPER.readTree(file);
+
+        // Every element gets the implemented recommendations of the next one, and
+        // one in three a recommendation found in no "recs" section. The sections
+        // of the elements are put in turn before, around and after "children".
+        final List<ObjectNode> elements = new ArrayList<>();
+        final List<JsonNode> pending = new ArrayList<>();
+        pending.add(anr.path("instances"));
+        while (!pending.isEmpty()) {
+            for (JsonNode element : pending.remove(0)) {
+                elements.add((ObjectNode) element);
+                pending.add(element.path("children"));
+            }
+        }
+        final List<JsonNode> recos = new ArrayList<>();
+        for (ObjectNode element : elements)
+            recos.add(element.path("recos").deepCopy());
+        for (int i = 0; i < elements.size(); i++) {
+            final ObjectNode element = elements.get(i);
+            final JsonNode next = recos.get((i + 1) % recos.size());
+            final ObjectNode elementRecos = next.isObject() ? (ObjectNode) next : MAPPER.createObjectNode();
+            final Iterator<String> risks = element.path("risks").fieldNames();
+            if (i % 3 == 0 && risks.hasNext())
+                elementRecos.putObject(risks.next()).set("00000000-0000-4000-8000-00000000c000", reco(i));
+            element.set("recos", elementRecos);
+            reorder(element, i % 3);
+        }
+        MAPPER.writeValue(file, anr);
+
+        assertSameLoad(file.getPath());
+    }
+
+    @Test
+    void sectionsExtractedByAnExecutorMatchTheSequentialLoad(@TempDir Path directory) throws Exception {
+        // The scales comments before the scales, which they depend on
+        final ObjectNode sample = (ObjectNode) MAPPER.readTree(new File(MonarcSamples.samplePath()));
+        final ObjectNode reordered = MAPPER.createObjectNode();
+        reordered.set("scalesComments", sample.remove("scalesComments"));
+        reordered.setAll(sample);
+        final File file = directory.resolve("reordered.json").toFile();
+        MAPPER.writeValue(file, reordered);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (String path : Arrays.asList(MonarcSamples.samplePath(), file.getPath()))
+                assertSame(new MonarcDatabase(path), new MonarcDatabase(path, executor));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Loads a file by the calling thread and with executors, and compares the
+     * databases.
+     */
+    private static void assertSameLoad(String path) throws Exception {
+        final MonarcDatabase expected = new MonarcDatabase(path);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int round = 0; round < 5; round++) {
+                assertSame(expected, new MonarcDatabase(path, pool));
+                assertSame(expected, new MonarcDatabase(path, ForkJoinPool.commonPool()));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertSame(MonarcDatabase expected, MonarcDatabase actual) throws Exception {
+        MonarcSamples.assertSameModel(expected, actual);
+        // The objects are also in the same order, with their parents in the same
+        // order
+        assertEquals(ids(expected.getAllMonarcInstances()), ids(actual.getAllMonarcInstances()));
+        final Map<Integer, MonarcRisks> expectedRisks = MonarcSamples.risks(expected);
+        final Map<Integer, MonarcRisks> actualRisks = MonarcSamples.risks(actual);
+        assertEquals(new ArrayList<>(expectedRisks.keySet()), new ArrayList<>(actualRisks.keySet()));
+        for (Map.Entry<Integer, MonarcRisks> risk : expectedRisks.entrySet()) {
+            assertEquals(new ArrayList<>(risk.getValue().getParentInstanceId()),
+                    new ArrayList<>(actualRisks.get(risk.getKey()).getParentInstanceId()), "Risk " + risk.getKey());
+        }
+        final List<MonarcInstance> instances = actual.getAllMonarcInstances();
+        for (int i = 0; i < instances.size(); i++) {
+            final MonarcInstance instance = expected.getAllMonarcInstances().get(i);
+            final MonarcInstance other = instances.get(i);
+            assertEquals(new ArrayList<>(instance.getRisks().keySet()), new ArrayList<>(other.getRisks().keySet()));
+            assertEquals(new ArrayList<>(instance.getThreats().keySet()),
+                    new ArrayList<>(other.getThreats().keySet()));
+        }
+    }
+
+    private static List<Integer> ids(List<MonarcInstance> instances) {
+        return instances.stream().map(MonarcInstance::getId).collect(Collectors.toList());
+    }
+
+    private static ObjectNode reco(int index) {
+        final ObjectNode reco = MAPPER.createObjectNode();
+        reco.put("uuid", "00000000-0000-4000-8000-00000000c000");
+        reco.put("recommandationSet", "00000000-0000-4000-8000-00000000a000");
+        reco.put("code", "RECO" + index);
+        reco.put("description", "Implemented recommendation " + index);
+        reco.put("importance", 2);
+        reco.putNull("comment");
+        reco.put("status", 1);
+        reco.putNull("responsable");
+        reco.putNull("duedate");
+        reco.put("counterTreated", 0);
+        reco.putNull("commentAfter");
+        return reco;
+    }
+
+    /**
+     * Moves "children" first (0), in the middle of the sections, after the
+     * "instance" section (1), or last (2).
+     */
+    private static void reorder(ObjectNode element, int order) {
+        final JsonNode children = element.remove("children");
+        final List<String> names = new ArrayList<>();
+        element.fieldNames().forEachRemaining(names::add);
+        final int position = order == 0 ? 0 : order == 1 ? names.size() / 2 : names.size();
+        final ObjectNode reordered = MAPPER.createObjectNode();
+        for (int i = 0; i <= names.size(); i++) {
+            if (i == position && children != null)
+                reordered.set("children", children);
+            if (i < names.size())
+                reordered.set(names.get(i), element.get(names.get(i)));
+        }
+        element.removeAll().setAll(reordered);
+    }
+}
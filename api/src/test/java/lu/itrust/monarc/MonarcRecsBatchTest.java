@@ -0,0 +1,113 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Recommendation changes applied in batches, compared with the same changes
+ * made one at a time.
+ */
+class MonarcRecsBatchTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void batchExportsTheSameRecosAsTheSingleCalls(@TempDir Path directory) throws Exception {
+        final File file = directory.resolve("recs.json").toFile();
+        final List<String> uuids = MonarcSamples.writeSampleWithRecommendations(file, 2, 40);
+        final MonarcDatabase single = new MonarcDatabase(file.getPath());
+        final MonarcDatabase batched = new MonarcDatabase(file.getPath());
+        final List<Integer> risks = new ArrayList<>(MonarcSamples.risks(single).keySet());
+
+        final MonarcRecsBatch batch = new MonarcRecsBatch();
+        for (int i = 0; i < 300; i++) {
+            final int riskId = risks.get(i % risks.size());
+            single.createOrUpdate(riskId, recs(uuids.get(i * 7 % uuids.size())));
+            batch.link(riskId, recs(uuids.get(i * 7 % uuids.size())));
+        }
+        // Links already made, a link to a risk that does not exist, and the
+        // removal of the only link of a recommendation created in the batch
+        batch.link(risks.get(0), recs(uuids.get(0)));
+        single.createOrUpdate(999999, recs(uuids.get(1)));
+        batch.link(999999, recs(uuids.get(1)));
+        final String unlinked = "00000000-0000-4000-8000-00000000c000";
+        batch.link(risks.get(2), recs(unlinked)).unlink(risks.get(2), unlinked);
+        single.createOrUpdate(risks.get(2), recs(unlinked));
+        single.apply(new MonarcRecsBatch().unlink(risks.get(2), unlinked));
+
+        final MonarcRecsBatchSummary summary = batched.apply(batch);
+        assertEquals(uuids.size() + 1, summary.getCreated());
+        assertEquals(302, summary.getLinked());
+        assertEquals(1, summary.getUnchanged());
+        assertEquals(1, summary.getUnlinked());
+        assertEquals(1, summary.getRecosRemoved());
+        assertTrue(summary.getInstances() > 0);
+
+        for (int riskId : risks)
+            assertEquals(uuids(single.searchRecosByRisk(riskId)), uuids(batched.searchRecosByRisk(riskId)));
+        assertEquals(export(single, directory.resolve("single.json")),
+                export(batched, directory.resolve("batched.json")));
+    }
+
+    @Test
+    void recosCreatedInABatchBelongToTheInstancesOfTheirRisks(@TempDir Path directory) throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        final MonarcRisks risk = MonarcSamples.risks(database).values().iterator().next();
+        final MonarcRecs recs = recs("00000000-0000-4000-8000-00000000c000");
+
+        final MonarcRecsBatchSummary summary = database.apply(new MonarcRecsBatch().link(risk.getId(), recs));
+        assertEquals(1, summary.getCreated());
+        assertEquals(1, summary.getLinked());
+
+        final MonarcRecos recos = database.searchRecosByRisk(risk.getId()).get(0);
+        assertEquals(recs.getUuid(), recos.getUuid());
+        assertEquals(new ArrayList<>(risk.getParentInstanceId()), new ArrayList<>(recos.getParentInstanceId()));
+
+        // Exported in the recos of the instances of the risk
+        final JsonNode exported = export(database, directory.resolve("export.json"));
+        int found = 0;
+        final List<JsonNode> pending = new ArrayList<>();
+        pending.add(exported.path("instances"));
+        while (!pending.isEmpty()) {
+            for (JsonNode element : pending.remove(pending.size() - 1)) {
+                for (JsonNode risksRecos : element.path("recos")) {
+                    if (risksRecos.has(recs.getUuid()))
+                        found++;
+                }
+                pending.add(element.path("children"));
+            }
+        }
+        assertEquals(risk.getParentInstanceId().size(), found);
+    }
+
+    private static MonarcRecs recs(String uuid) {
+        return new MonarcRecs(uuid, null, "REC", "Recommendation", 1, null, 1, null, null, 0);
+    }
+
+    private static List<String> uuids(List<MonarcRecos> recos) {
+        final List<String> uuids = new ArrayList<>();
+        for (MonarcRecos element : recos)
+            uuids.add(element.getUuid());
+        uuids.sort(null);
+        return uuids;
+    }
+
+    private static JsonNode export(MonarcDatabase database, Path path) throws Exception {
+        database.saveInstancesToJSON(path.toString());
+        final JsonNode exported = MAPPER.readTree(path.toFile());
+        ((ObjectNode) exported).remove("export_datetime");
+        return exported;
+    }
+}
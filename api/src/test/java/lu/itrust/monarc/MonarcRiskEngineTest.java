@@ -0,0 +1,168 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Values computed by the risk engine: C, I and D of the instances and cached
+ * values of the risks.
+ */
+class MonarcRiskEngineTest {
+
+    @Test
+    void unevaluatedRisksStayNotEvaluated() throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        database.uppdateDependencyValue();
+
+        int unevaluated = 0;
+        for (MonarcRisks risk : MonarcSamples.risks(database).values()) {
+            if (risk.getThreatRate() >= 0 && risk.getVulnerabilityRate() >= 0)
+                continue;
+            unevaluated++;
+            assertEquals(-1, risk.getCacheMaxRisk(), "cacheMaxRisk of risk " + risk.getId());
+            assertEquals(-1, risk.getCacheTargetedRisk(), "cacheTargetedRisk of risk " + risk.getId());
+        }
+        assertTrue(unevaluated > 0, "The sample has risks not evaluated");
+    }
+
+    @Test
+    void exportKeepsTheValuesOfTheFile(@TempDir Path directory) throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        final String exported = directory.resolve("export.json").toString();
+        database.saveInstancesToJSON(exported);
+
+        final Map<String, JsonNode> source = MonarcSamples.fileRisks(MonarcSamples.samplePath());
+        final Map<String, JsonNode> export = MonarcSamples.fileRisks(exported);
+        assertEquals(source.keySet(), export.keySet());
+        for (Map.Entry<String, JsonNode> risk : source.entrySet()) {
+            final JsonNode exportedRisk = export.get(risk.getKey());
+            assertEquals(risk.getValue().path("cacheMaxRisk").asInt(), exportedRisk.path("cacheMaxRisk").asInt(),
+                    "cacheMaxRisk of " + risk.getKey());
+            assertEquals(risk.getValue().path("cacheTargetedRisk").asInt(),
+                    exportedRisk.path("cacheTargetedRisk").asInt(), "cacheTargetedRisk of " + risk.getKey());
+        }
+    }
+
+    @Test
+    void riskValuesFollowTheImpactOfTheirInstances() throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        database.uppdateDependencyValue();
+
+        final Map<Integer, MonarcInstance> instances = new LinkedHashMap<>();
+        for (MonarcInstance instance : database.getAllMonarcInstances())
+            instances.put(instance.getId(), instance);
+
+        int evaluated = 0;
+        for (MonarcRisks risk : MonarcSamples.risks(database).values()) {
+            int impact = -1;
+            for (int instanceId : MonarcInstanceIds.instanceIds(risk.getParentInstanceId())) {
+                final MonarcInstance instance = instances.get(instanceId);
+                impact = Math.max(impact, Math.max(instance.getC(), Math.max(instance.getI(), instance.getD())));
+            }
+            if (impact < 0 || risk.getThreatRate() < 0 || risk.getVulnerabilityRate() < 0)
+                continue;
+            evaluated++;
+            final int max = impact * risk.getThreatRate() * risk.getVulnerabilityRate();
+            assertEquals(max, risk.getCacheMaxRisk(), "cacheMaxRisk of risk " + risk.getId());
+            final int targeted = risk.getKindOfMeasure() == 3 ? max
+                    : Math.min(impact * risk.getThreatRate()
+                            * Math.max(risk.getVulnerabilityRate() - risk.getReductionAmount(), 0), max);
+            assertEquals(targeted, risk.getCacheTargetedRisk(), "cacheTargetedRisk of risk " + risk.getId());
+        }
+        assertTrue(evaluated > 0, "The sample has evaluated risks");
+    }
+
+    @Test
+    void incrementalUpdateMatchesFullComputation() throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        database.uppdateDependencyValue();
+        final List<MonarcConsequences> consequences = database.getAllMonarcConsequences();
+        final List<MonarcRisks> risks = new ArrayList<>(MonarcSamples.risks(database).values());
+        final Random random = new Random(42);
+
+        for (int round = 0; round < 50; round++) {
+            for (int change = random.nextInt(5); change >= 0; change--) {
+                final MonarcConsequences consequence = consequences.get(random.nextInt(consequences.size()));
+                final int value = random.nextInt(6) - 1;
+                switch (random.nextInt(3)) {
+                case 0:
+                    consequence.setC(value);
+                    break;
+                case 1:
+                    consequence.setI(value);
+                    break;
+                default:
+                    consequence.setD(value);
+                }
+            }
+            for (int change = random.nextInt(5); change >= 0; change--) {
+                final MonarcRisks risk = risks.get(random.nextInt(risks.size()));
+                switch (random.nextInt(4)) {
+                case 0:
+                    risk.setThreatRate(random.nextInt(6) - 1);
+                    break;
+                case 1:
+                    risk.setVulnerabilityRate(random.nextInt(6) - 1);
+                    break;
+                case 2:
+                    risk.setReductionAmount(random.nextInt(4));
+                    break;
+                default:
+                    risk.setKindOfMeasure(random.nextInt(6));
+                }
+            }
+
+            database.refreshDependencyValues();
+            final List<Integer> incremental = values(database, risks);
+            database.uppdateDependencyValue();
+            assertEquals(values(database, risks), incremental, "Values after round " + round);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void updateThreatValueChangesNothing(@TempDir Path directory) throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        final MonarcRisks risk = MonarcSamples.risks(database).values().iterator().next();
+        final String threat = risk.getThreat();
+        final int qualification = database.searchThreatByUUID(threat).getQualification();
+        final List<Integer> rates = new ArrayList<>();
+        for (MonarcRisks threatRisk : database.searchRiskByThreat(threat))
+            rates.add(threatRisk.getThreatRate());
+
+        database.updateThreatValue(threat, qualification == 3 ? "2" : "3");
+
+        assertEquals(qualification, database.searchThreatByUUID(threat).getQualification());
+        final List<Integer> updated = new ArrayList<>();
+        for (MonarcRisks threatRisk : database.searchRiskByThreat(threat))
+            updated.add(threatRisk.getThreatRate());
+        assertEquals(rates, updated);
+        assertEquals(0, database.saveChangesToJSON(directory.resolve("patch.json").toString()));
+    }
+
+    private static List<Integer> values(MonarcDatabase database, List<MonarcRisks> risks) {
+        final List<Integer> values = new ArrayList<>();
+        for (MonarcInstance instance : database.getAllMonarcInstances()) {
+            values.add(instance.getC());
+            values.add(instance.getI());
+            values.add(instance.getD());
+        }
+        for (MonarcRisks risk : risks) {
+            values.add(risk.getCacheMaxRisk());
+            values.add(risk.getCacheTargetedRisk());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,178 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Risk queries, checked against a scan of all the risks testing each
+ * criterion.
+ */
+class MonarcRiskQueryTest {
+
+    private static final String UNKNOWN = "00000000-0000-0000-0000-000000000000";
+
+    @Test
+    void emptyQueryFindsAllTheRisks() throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        assertEquals(new ArrayList<>(MonarcSamples.risks(database).keySet()).stream().sorted()
+                .collect(Collectors.toList()), ids(database.searchRisks(new MonarcRiskQuery())));
+    }
+
+    @Test
+    void queriesMatchAScanOfTheRisks() throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        final List<MonarcRisks> risks = new ArrayList<>(MonarcSamples.risks(database).values());
+        final List<MonarcInstance> instances = database.getAllMonarcInstances();
+        final Random random = new Random(42);
+
+        int found = 0;
+        for (int round = 0; round < 500; round++) {
+            final MonarcRiskQuery query = new MonarcRiskQuery();
+            final List<Predicate<MonarcRisks>> criteria = new ArrayList<>();
+            final int count = 1 + random.nextInt(4);
+            for (int i = 0; i < count; i++) {
+                final MonarcRisks sample = risks.get(random.nextInt(risks.size()));
+                final MonarcAMV amv = database.searchAMVByUUID(sample.getAmv());
+                final int instanceId = instances.get(random.nextInt(instances.size())).getId();
+                switch (random.nextInt(15)) {
+                case 0: {
+                    final String threat = random.nextInt(10) == 0 ? UNKNOWN : sample.getThreat();
+                    query.threat(threat);
+                    criteria.add(risk -> threat.equals(risk.getThreat()));
+                    break;
+                }
+                case 1: {
+                    final String vulnerability = sample.getVulnerability();
+                    query.vulnerability(vulnerability);
+                    criteria.add(risk -> vulnerability.equals(risk.getVulnerability()));
+                    break;
+                }
+                case 2: {
+                    final String amvUuid = sample.getAmv();
+                    query.amv(amvUuid);
+                    criteria.add(risk -> amvUuid.equals(risk.getAmv()));
+                    break;
+                }
+                case 3: {
+                    final String asset = amv == null ? UNKNOWN : amv.getAsset();
+                    query.asset(asset);
+                    criteria.add(risk -> amvMatches(database, risk, other -> asset.equals(other.getAsset())));
+                    break;
+                }
+                case 4: {
+                    final String measure = amv == null || amv.getMeasures().isEmpty() ? UNKNOWN
+                            : new ArrayList<>(amv.getMeasures()).get(random.nextInt(amv.getMeasures().size()));
+                    query.measure(measure);
+                    criteria.add(risk -> amvMatches(database, risk, other -> other.getMeasures().contains(measure)));
+                    break;
+                }
+                case 5: {
+                    query.instance(instanceId);
+                    final Set<Integer> ids = Collections.singleton(instanceId);
+                    criteria.add(risk -> MonarcSamples.inInstances(risk, ids));
+                    break;
+                }
+                case 6: {
+                    query.subtree(instanceId);
+                    final Set<Integer> ids = MonarcSamples.subtree(database, instanceId);
+                    criteria.add(risk -> MonarcSamples.inInstances(risk, ids));
+                    break;
+                }
+                case 7: {
+                    final int kind = sample.getKindOfMeasure();
+                    query.kindOfMeasure(kind);
+                    criteria.add(risk -> risk.getKindOfMeasure() == kind);
+                    break;
+                }
+                case 8: {
+                    final int kind = sample.getKindOfMeasure();
+                    query.notKindOfMeasure(kind);
+                    criteria.add(risk -> risk.getKindOfMeasure() != kind);
+                    break;
+                }
+                case 9: {
+                    final MonarcThreats threat = database.searchThreatByUUID(sample.getThreat());
+                    final int theme = threat == null ? -1 : threat.getThemeID();
+                    query.threatTheme(theme);
+                    criteria.add(risk -> threatMatches(database, risk, other -> other.getThemeID() == theme));
+                    break;
+                }
+                case 10: {
+                    final int rate = sample.getThreatRate();
+                    query.risks(risk -> risk.getThreatRate() >= rate);
+                    criteria.add(risk -> risk.getThreatRate() >= rate);
+                    break;
+                }
+                case 11: {
+                    final int status = amv == null ? 0 : amv.getStatus();
+                    query.amvs(other -> other.getStatus() == status);
+                    criteria.add(risk -> amvMatches(database, risk, other -> other.getStatus() == status));
+                    break;
+                }
+                case 12: {
+                    final String vulnerability = sample.getVulnerability();
+                    query.vulnerabilities(other -> !other.getUuid().equals(vulnerability));
+                    criteria.add(risk -> {
+                        final MonarcVulnerabilities other = database.searchVulnerabilityByUUID(risk.getVulnerability());
+                        return other != null && !other.getUuid().equals(vulnerability);
+                    });
+                    break;
+                }
+                case 13: {
+                    final char first = (char) ('0' + random.nextInt(10));
+                    final Predicate<MonarcMeasures> filter = measure -> measure.getUuid().charAt(0) == first;
+                    query.measures(filter);
+                    criteria.add(risk -> amvMatches(database, risk, other -> other.getMeasures().stream()
+                            .map(database::searchMeasuresByUUID).anyMatch(measure -> measure != null
+                                    && filter.test(measure))));
+                    break;
+                }
+                default: {
+                    final int parent = instances.get(random.nextInt(instances.size())).getParent();
+                    query.instances(instance -> instance.getParent() == parent);
+                    final Set<Integer> ids = instances.stream().filter(instance -> instance.getParent() == parent)
+                            .map(MonarcInstance::getId).collect(Collectors.toSet());
+                    criteria.add(risk -> MonarcSamples.inInstances(risk, ids));
+                    break;
+                }
+                }
+            }
+
+            final List<Integer> expected = risks.stream()
+                    .filter(risk -> criteria.stream().allMatch(criterion -> criterion.test(risk)))
+                    .map(MonarcRisks::getId).sorted().collect(Collectors.toList());
+            assertEquals(expected, ids(database.searchRisks(query)), "Round " + round);
+            if (!expected.isEmpty())
+                found++;
+        }
+        assertTrue(found > 100, "Too few queries find risks: " + found);
+    }
+
+    private static boolean amvMatches(MonarcDatabase database, MonarcRisks risk, Predicate<MonarcAMV> filter) {
+        final MonarcAMV amv = database.searchAMVByUUID(risk.getAmv());
+        return amv != null && filter.test(amv);
+    }
+
+    private static boolean threatMatches(MonarcDatabase database, MonarcRisks risk,
+            Predicate<MonarcThreats> filter) {
+        final MonarcThreats threat = database.searchThreatByUUID(risk.getThreat());
+        return threat != null && filter.test(threat);
+    }
+
+    private static List<Integer> ids(List<MonarcRisks> risks) {
+        final List<Integer> ids = new ArrayList<>(risks.size());
+        for (MonarcRisks risk : risks)
+            ids.add(risk.getId());
+        return ids;
+    }
+}
@@ -0,0 +1,87 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Heat maps, threshold counts and top risks of the risk reports.
+ */
+class MonarcRiskReportTest {
+
+    private static final int TOP = 5;
+
+    @Test
+    void everyRiskIsCountedOnce() throws Exception {
+        final MonarcRiskReport report = MonarcSamples.loadSample().report(TOP);
+
+        assertEquals(report.getRiskCount(), total(report.getMatrix()) + report.getNotEvaluated());
+        assertEquals(report.getRiskCount(), total(report.getTargetedMatrix()) + report.getTargetedNotEvaluated());
+        assertEquals(report.getRiskCount(),
+                report.getLow() + report.getMedium() + report.getHigh() + report.getNotEvaluated());
+        assertEquals(report.getRiskCount(), report.getTargetedLow() + report.getTargetedMedium()
+                + report.getTargetedHigh() + report.getTargetedNotEvaluated());
+        assertTrue(report.getNotEvaluated() > 0, "The sample has risks not evaluated");
+    }
+
+    @Test
+    void topRisksAreTheHighestEvaluatedOnes() throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        final MonarcRiskReport report = database.report(TOP);
+
+        for (MonarcInstance instance : database.getAllMonarcInstances()) {
+            final List<MonarcRisks> expected = database.searchRiskByInstanceId(instance.getId()).stream()
+                    .filter(risk -> risk.getCacheMaxRisk() >= 0)
+                    .sorted(Comparator.comparingInt(MonarcRisks::getCacheMaxRisk).reversed()
+                            .thenComparingInt(MonarcRisks::getId))
+                    .limit(TOP).collect(Collectors.toList());
+            assertEquals(ids(expected), ids(report.getTopRisks(instance.getId())),
+                    "Top risks of instance " + instance.getId());
+        }
+    }
+
+    @Test
+    void slicedReportMatchesTheSequentialOne() throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        final MonarcRiskReport sequential = database.report(TOP);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final MonarcRiskReport sliced = database.report(0, TOP, executor);
+            assertEquals(sequential.getRiskCount(), sliced.getRiskCount());
+            assertEquals(sequential.getNotEvaluated(), sliced.getNotEvaluated());
+            assertArrayEquals(sequential.getMatrix(), sliced.getMatrix());
+            assertArrayEquals(sequential.getTargetedMatrix(), sliced.getTargetedMatrix());
+            for (MonarcInstance instance : database.getAllMonarcInstances()) {
+                assertEquals(ids(sequential.getTopRisks(instance.getId())),
+                        ids(sliced.getTopRisks(instance.getId())));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static int total(int[][] matrix) {
+        int total = 0;
+        for (int[] row : matrix) {
+            for (int count : row)
+                total += count;
+        }
+        return total;
+    }
+
+    private static List<Integer> ids(List<MonarcRisks> risks) {
+        final List<Integer> ids = new ArrayList<>(risks.size());
+        for (MonarcRisks risk : risks)
+            ids.add(risk.getId());
+        return ids;
+    }
+}
@@ -0,0 +1,131 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Statistics of the risks of the instances and of their subtrees, compared with
+ * the same statistics computed from the consequences and the risks.
+ */
+class MonarcRiskStatsTest {
+
+    private static final int UNKNOWN_INSTANCE = 999999;
+
+    @Test
+    void statsMatchTheConsequencesAndTheRisks() throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        assertStats(database);
+
+        int risks = 0;
+        for (MonarcInstance instance : database.getAllMonarcInstances())
+            risks += database.getRiskStats(instance.getId()).getRiskCount();
+        assertTrue(risks > 0, "The sample has risks");
+        assertNull(database.getRiskStats(UNKNOWN_INSTANCE));
+        assertNull(database.getSubtreeRiskStats(UNKNOWN_INSTANCE));
+    }
+
+    @Test
+    void statsFollowTheChanges() throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        final List<MonarcConsequences> consequences = database.getAllMonarcConsequences();
+        final List<MonarcRisks> risks = new ArrayList<>(MonarcSamples.risks(database).values());
+        final Random random = new Random(7);
+        database.getRiskStats();
+
+        for (int round = 0; round < 20; round++) {
+            for (int change = random.nextInt(4); change >= 0; change--) {
+                final MonarcConsequences consequence = consequences.get(random.nextInt(consequences.size()));
+                switch (random.nextInt(3)) {
+                case 0:
+                    consequence.setC(random.nextInt(6) - 1);
+                    break;
+                case 1:
+                    consequence.setI(random.nextInt(6) - 1);
+                    break;
+                default:
+                    consequence.setD(random.nextInt(6) - 1);
+                }
+            }
+            for (int change = random.nextInt(4); change >= 0; change--) {
+                final MonarcRisks risk = risks.get(random.nextInt(risks.size()));
+                if (random.nextBoolean())
+                    risk.setThreatRate(random.nextInt(6) - 1);
+                else
+                    risk.setVulnerabilityRate(random.nextInt(6) - 1);
+            }
+            assertStats(database);
+        }
+    }
+
+    @Test
+    void statsFollowTheThresholdsOfTheMethod() throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        database.getMethod().getThresholds().put("seuil1", 0);
+        database.getMethod().getThresholds().put("seuil2", Integer.MAX_VALUE);
+
+        final MonarcRiskStats stats = database.getRiskStats();
+        assertEquals(0, stats.getAboveThreshold2());
+        assertTrue(stats.getAboveThreshold1() > 0, stats::toString);
+        assertStats(database);
+    }
+
+    /**
+     * Checks the statistics of every instance, of every subtree and of the whole
+     * database.
+     */
+    private static void assertStats(MonarcDatabase database) {
+        final int threshold1 = threshold(database, "seuil1");
+        final int threshold2 = threshold(database, "seuil2");
+        final Map<Integer, MonarcRiskStats> expected = new HashMap<>();
+        for (MonarcInstance instance : database.getAllMonarcInstances()) {
+            expected.put(instance.getId(), expected(database, instance, threshold1, threshold2));
+            assertStats(expected.get(instance.getId()), database.getRiskStats(instance.getId()),
+                    "Instance " + instance.getId());
+        }
+
+        final MonarcRiskStats total = new MonarcRiskStats(-1, -1, -1);
+        for (MonarcInstance instance : database.getAllMonarcInstances()) {
+            final MonarcRiskStats subtree = new MonarcRiskStats(-1, -1, -1);
+            for (int id : MonarcSamples.subtree(database, instance.getId()))
+                subtree.add(expected.get(id));
+            assertStats(subtree, database.getSubtreeRiskStats(instance.getId()), "Subtree " + instance.getId());
+            if (instance.getParent() == 0)
+                total.add(subtree);
+        }
+        assertStats(total, database.getRiskStats(), "Database");
+    }
+
+    private static MonarcRiskStats expected(MonarcDatabase database, MonarcInstance instance, int threshold1,
+            int threshold2) {
+        int c = -1;
+        int i = -1;
+        int d = -1;
+        for (MonarcConsequences consequence : instance.getConsequences().values()) {
+            c = Math.max(c, consequence.getC());
+            i = Math.max(i, consequence.getI());
+            d = Math.max(d, consequence.getD());
+        }
+        final MonarcRiskStats stats = new MonarcRiskStats(c, i, d);
+        for (MonarcRisks risk : database.searchRiskByInstanceId(instance.getId()))
+            stats.addRisk(risk, threshold1, threshold2);
+        return stats;
+    }
+
+    private static int threshold(MonarcDatabase database, String name) {
+        final Integer threshold = database.getMethod().getThresholds().get(name);
+        return threshold == null ? Integer.MAX_VALUE : threshold;
+    }
+
+    private static void assertStats(MonarcRiskStats expected, MonarcRiskStats actual, String message) {
+        assertEquals(expected.toString(), actual.toString(), message);
+    }
+}
@@ -0,0 +1,252 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Access to the sample file shipped with the API, for the tests.
+ */
+final class MonarcSamples {
+
+    static final String SAMPLE_RESOURCE = "/FileWithScaleComments.json";
+
+    // Fields of MonarcDatabase holding the objects read from the file
+    private static final String[] MODEL_FIELDS = { "monarcData", "monarcRiskList", "monarcVulnerabilityList",
+            "monarcThreatList", "monarcAMVThreatList", "monarcAMVList", "scales", "scalesComments",
+            "soaScaleComment", "monarcObjectsList", "monarcThemesList", "monarcRecsList", "monarcRecosList",
+            "monarcRecSetsList", "monarcReferentials", "monarcMeasures", "monarcSoaCategories", "monarcSoa",
+            "monarcOperationalRiskScales", "monarcAssetList", "monarcANR" };
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+
+    private MonarcSamples() {
+    }
+
+    /**
+     * @return The path of the sample file.
+     */
+    static String samplePath() {
+        try {
+            return Paths.get(MonarcSamples.class.getResource(SAMPLE_RESOURCE).toURI()).toString();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return A database loaded from the sample file.
+     */
+    static MonarcDatabase loadSample() throws Exception {
+        return new MonarcDatabase(samplePath());
+    }
+
+    /**
+     * @return All the risks of the database, each one once, by ID.
+     */
+    static Map<Integer, MonarcRisks> risks(MonarcDatabase database) {
+        final Map<Integer, MonarcRisks> risks = new LinkedHashMap<>();
+        for (MonarcInstance instance : database.getAllMonarcInstances()) {
+            for (MonarcRisks risk : database.searchRiskByInstanceId(instance.getId()))
+                risks.putIfAbsent(risk.getId(), risk);
+        }
+        return risks;
+    }
+
+    /**
+     * @return The IDs of an instance and of the instances below it, found
+     *         through the parents of all the instances.
+     */
+    static Set<Integer> subtree(MonarcDatabase database, int instanceId) {
+        final Set<Integer> subtree = new HashSet<>();
+        subtree.add(instanceId);
+        boolean added = true;
+        while (added) {
+            added = false;
+            for (MonarcInstance instance : database.getAllMonarcInstances()) {
+                if (subtree.contains(instance.getParent()) && subtree.add(instance.getId()))
+                    added = true;
+            }
+        }
+        return subtree;
+    }
+
+    /**
+     * @return True if the risk belongs to one of the instances.
+     */
+    static boolean inInstances(MonarcRisks risk, Set<Integer> instanceIds) {
+        for (int id : MonarcInstanceIds.instanceIds(risk.getParentInstanceId())) {
+            if (instanceIds.contains(id))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads the risks of the instances of a Monarc JSON file.
+     *
+     * @param path The file.
+     * @return The risk elements, by instance ID then risk ID, as
+     *         "instance/risk".
+     */
+    static Map<String, JsonNode> fileRisks(String path) throws Exception {
+        final Map<String, JsonNode> risks = new LinkedHashMap<>();
+        final List<JsonNode> pending = new ArrayList<>();
+        pending.add(new ObjectMapper().readTree(new File(path)).path("instances"));
+        while (!pending.isEmpty()) {
+            for (JsonNode element : pending.remove(pending.size() - 1)) {
+                final String instanceId = element.path("instance").path("id").asText();
+                for (Iterator<Map.Entry<String, JsonNode>> fields = element.path("risks").fields(); fields
+                        .hasNext();) {
+                    final Map.Entry<String, JsonNode> risk = fields.next();
+                    risks.put(instanceId + "/" + risk.getKey(), risk.getValue());
+                }
+                pending.add(element.path("children"));
+            }
+        }
+        return risks;
+    }
+
+    /**
+     * Writes the sample file with recommendations added to every instance, in
+     * the given number of recommendation sets labelled "Set 0", "Set 1"...
+     *
+     * @param file The file to write.
+     * @return The UUIDs of the recommendations added, in order.
+     */
+    static List<String> writeSampleWithRecommendations(File file, int sets, int count) throws Exception {
+        final ObjectMapper mapper = new ObjectMapper();
+        final JsonNode sample = mapper.readTree(new File(samplePath()));
+        final ObjectNode recSets = mapper.createObjectNode();
+        for (int set = 0; set < sets; set++) {
+            final ObjectNode recSet = recSets.putObject(uuid(0xA000 + set));
+            recSet.put("uuid", uuid(0xA000 + set));
+            for (int language = 1; language <= 4; language++)
+                recSet.put("label" + language, "Set " + set);
+        }
+        final List<String> uuids = new ArrayList<>();
+        final ObjectNode recs = mapper.createObjectNode();
+        for (int i = 0; i < count; i++) {
+            final String uuid = uuid(0xB0000 + i);
+            uuids.add(uuid);
+            final ObjectNode rec = recs.putObject(uuid);
+            rec.put("uuid", uuid);
+            rec.put("recommandationSet", uuid(0xA000 + i % sets));
+            rec.put("code", "REC" + i);
+            rec.put("description", "Recommendation " + i);
+            rec.put("importance", 1 + i % 3);
+            rec.putNull("comment");
+            rec.put("status", 1);
+            rec.putNull("responsable");
+            rec.putNull("duedate");
+            rec.put("counterTreated", 0);
+        }
+
+        final List<JsonNode> pending = new ArrayList<>();
+        pending.add(sample.path("instances"));
+        while (!pending.isEmpty()) {
+            for (JsonNode element : pending.remove(pending.size() - 1)) {
+                ((ObjectNode) element).set("recSets", recSets.deepCopy());
+                ((ObjectNode) element).set("recs", recs.deepCopy());
+                pending.add(element.path("children"));
+            }
+        }
+        mapper.writeValue(file, sample);
+        return uuids;
+    }
+
+    private static String uuid(int value) {
+        return String.format("00000000-0000-4000-8000-%012x", value);
+    }
+
+    /**
+     * Checks that two databases hold the same objects: every map and list of
+     * objects read from the file, compared object by object with the parent
+     * instances of each object, and the same tree of instances.
+     */
+    static void assertSameModel(MonarcDatabase expected, MonarcDatabase actual) throws Exception {
+        for (String name : MODEL_FIELDS) {
+            final Field field = MonarcDatabase.class.getDeclaredField(name);
+            field.setAccessible(true);
+            final Map<String, JsonNode> expectedObjects = objects(field.get(expected));
+            final Map<String, JsonNode> actualObjects = objects(field.get(actual));
+            assertEquals(expectedObjects.keySet(), actualObjects.keySet(), name);
+            for (Map.Entry<String, JsonNode> object : expectedObjects.entrySet())
+                assertEquals(object.getValue(), actualObjects.get(object.getKey()), name + " " + object.getKey());
+        }
+
+        assertEquals(instanceIds(expected.getRootInstances()), instanceIds(actual.getRootInstances()));
+        final Map<Integer, List<Integer>> expectedTree = new TreeMap<>();
+        for (MonarcInstance instance : expected.getAllMonarcInstances())
+            expectedTree.put(instance.getId(), instanceIds(instance.getChildren().values()));
+        final Map<Integer, List<Integer>> actualTree = new TreeMap<>();
+        for (MonarcInstance instance : actual.getAllMonarcInstances())
+            actualTree.put(instance.getId(), instanceIds(instance.getChildren().values()));
+        assertEquals(expectedTree, actualTree);
+    }
+
+    /**
+     * @return The objects of a map or list, as JSON by key or position.
+     */
+    private static Map<String, JsonNode> objects(Object model) throws Exception {
+        final Map<String, JsonNode> objects = new TreeMap<>();
+        if (model instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) model).entrySet())
+                objects.put(String.valueOf(entry.getKey()), object(entry.getValue()));
+        } else if (model instanceof List) {
+            final List<?> list = (List<?>) model;
+            for (int i = 0; i < list.size(); i++)
+                objects.put(String.format("%08d", i), object(list.get(i)));
+        } else {
+            final ObjectNode anr = (ObjectNode) object(model);
+            // The time of the load
+            anr.remove("export_datetime");
+            objects.put("", anr);
+        }
+        return objects;
+    }
+
+    /**
+     * @return An object as JSON, with its parent instances when it has some.
+     */
+    private static JsonNode object(Object object) throws Exception {
+        final JsonNode node = MAPPER.valueToTree(object);
+        if (!node.isObject())
+            return node;
+        try {
+            final Collection<?> parents = (Collection<?>) object.getClass().getMethod("getParentInstanceId")
+                    .invoke(object);
+            final ArrayNode sorted = ((ObjectNode) node).putArray("parentInstanceIds");
+            parents.stream().map(String::valueOf).sorted().forEach(sorted::add);
+        } catch (NoSuchMethodException e) {
+            // Not held by instances
+        }
+        return node;
+    }
+
+    private static List<Integer> instanceIds(Collection<MonarcInstance> instances) {
+        final List<Integer> ids = new ArrayList<>();
+        for (MonarcInstance instance : instances)
+            ids.add(instance.getId());
+        return ids;
+    }
+}
@@ -0,0 +1,82 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Snapshots restored without reading the Monarc JSON format again, checked
+ * against the database they were taken from.
+ */
+class MonarcSnapshotTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void restoredDatabaseHoldsTheSameModel(@TempDir Path directory) throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        for (MonarcSnapshotFormat format : MonarcSnapshotFormat.values()) {
+            final Path snapshot = directory.resolve("snapshot." + format);
+            database.saveSnapshot(snapshot.toString(), format);
+            assertEquals(format, MonarcSnapshot.detect(snapshot));
+
+            final MonarcDatabase restored = MonarcDatabase.loadSnapshot(snapshot.toString());
+            MonarcSamples.assertSameModel(database, restored);
+
+            // The objects shared by the maps are restored once
+            final Map<Integer, MonarcRisks> risks = MonarcSamples.risks(restored);
+            for (MonarcInstance instance : restored.getAllMonarcInstances()) {
+                for (MonarcRisks risk : instance.getRisks().values())
+                    assertSame(risks.get(risk.getId()), risk);
+            }
+        }
+    }
+
+    @Test
+    void changesMadeBeforeTheSnapshotAreStillTracked(@TempDir Path directory) throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        final MonarcRisks risk = MonarcSamples.risks(database).values().iterator().next();
+        risk.setComment("Changed");
+        final MonarcInstance instance = database.getAllMonarcInstances().get(0);
+        final MonarcConsequences consequence = instance.getConsequences().values().iterator().next();
+        consequence.setC(consequence.getC() == 3 ? 2 : 3);
+
+        final Path snapshot = directory.resolve("snapshot.smile");
+        database.saveSnapshot(snapshot.toString());
+        final MonarcDatabase restored = MonarcDatabase.loadSnapshot(snapshot.toString());
+
+        final Path expected = directory.resolve("expected.json");
+        final Path actual = directory.resolve("actual.json");
+        assertTrue(database.saveChangesToJSON(expected.toString()) > 0);
+        assertTrue(restored.saveChangesToJSON(actual.toString()) > 0);
+        assertEquals(MAPPER.readTree(expected.toFile()), MAPPER.readTree(actual.toFile()));
+        MonarcSamples.assertSameModel(database, restored);
+
+        // Nothing to copy
+        assertThrows(IOException.class, () -> restored.saveMapToJson(directory.resolve("map.json").toString()));
+    }
+
+    @Test
+    void snapshotOfAnotherVersionIsRejected(@TempDir Path directory) throws Exception {
+        final Map<String, String> header = new LinkedHashMap<>();
+        header.put("format", MonarcSnapshot.FORMAT);
+        header.put("version", "0.0.0");
+        final Path snapshot = directory.resolve("snapshot.cbor");
+        MonarcSnapshotFormat.CBOR.getMapper().writeValue(snapshot.toFile(), header);
+
+        final IOException error = assertThrows(IOException.class,
+                () -> MonarcDatabase.loadSnapshot(snapshot.toString()));
+        assertTrue(error.getMessage().contains("version 0.0.0"), error.getMessage());
+    }
+}
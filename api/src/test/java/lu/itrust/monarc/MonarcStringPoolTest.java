@@ -0,0 +1,166 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Bounds and statistics of MonarcStringPool, strong and weak, and the strings
+ * shared by the loads given the same pool.
+ */
+class MonarcStringPoolTest {
+
+    @Test
+    void equalStringsShareTheFirstInstance() {
+        final MonarcStringPool pool = MonarcStringPool.create();
+        final String first = new String("Fire");
+        final String second = new String("Fire");
+
+        assertSame(first, pool.intern(first));
+        assertSame(first, pool.intern(second));
+        assertNull(pool.intern(null));
+
+        final MonarcStringPoolStats stats = pool.getStats();
+        // The null string is not counted
+        assertEquals(2, stats.getLookups());
+        assertEquals(1, stats.getPooledStrings());
+        assertEquals(1, stats.getDuplicates());
+        // 24 bytes for the string, 16 + 4 rounded up to 24 for the array
+        assertEquals(48, stats.getBytesSaved());
+    }
+
+    @Test
+    void bytesSavedCountTwoBytesPerCharacterOutOfLatin1() {
+        final MonarcStringPool pool = MonarcStringPool.create();
+        pool.intern(new String("éééééééééé"));
+        pool.intern(new String("éééééééééé"));
+        assertEquals(24 + 32, pool.getStats().getBytesSaved());
+
+        pool.intern(new String("€€€€€€€€€€"));
+        pool.intern(new String("€€€€€€€€€€"));
+        assertEquals(24 + 32 + 24 + 40, pool.getStats().getBytesSaved());
+    }
+
+    @Test
+    void boundedPoolStopsAddingButStillReturnsItsStrings() {
+        final MonarcStringPool pool = MonarcStringPool.create(2);
+        final String fire = new String("Fire");
+        final String flood = new String("Flood");
+        pool.intern(fire);
+        pool.intern(flood);
+
+        // Full: the new strings are returned as they are, and not added
+        final String theft = new String("Theft");
+        assertSame(theft, pool.intern(theft));
+        assertNotSame(theft, pool.intern(new String("Theft")));
+        assertSame(fire, pool.intern(new String("Fire")));
+        assertSame(flood, pool.intern(new String("Flood")));
+
+        final MonarcStringPoolStats stats = pool.getStats();
+        assertEquals(6, stats.getLookups());
+        assertEquals(2, stats.getPooledStrings());
+        assertEquals(2, stats.getDuplicates());
+    }
+
+    @Test
+    void emptyPoolKeepsNothing() {
+        for (MonarcStringPool pool : new MonarcStringPool[] { MonarcStringPool.create(0),
+                MonarcStringPool.weak(0) }) {
+            final String fire = new String("Fire");
+            assertSame(fire, pool.intern(fire));
+            assertNotSame(fire, pool.intern(new String("Fire")));
+            assertEquals(0, pool.getStats().getPooledStrings());
+            assertEquals(0, pool.getStats().getDuplicates());
+        }
+    }
+
+    @Test
+    void negativeMaximumSizesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> MonarcStringPool.create(-1));
+        assertThrows(IllegalArgumentException.class, () -> MonarcStringPool.weak(-1));
+    }
+
+    @Test
+    void weakPoolIsBoundedLikeAStrongPool() {
+        final MonarcStringPool pool = MonarcStringPool.weak(1);
+        final String fire = new String("Fire");
+        assertSame(fire, pool.intern(fire));
+        assertSame(fire, pool.intern(new String("Fire")));
+
+        final String flood = new String("Flood");
+        assertSame(flood, pool.intern(flood));
+        assertNotSame(flood, pool.intern(new String("Flood")));
+        assertEquals(1, pool.getStats().getPooledStrings());
+        assertEquals(1, pool.getStats().getDuplicates());
+    }
+
+    @Test
+    void concurrentInternsKeepASingleInstanceAndTheBound() throws Exception {
+        final MonarcStringPool pool = MonarcStringPool.create(100);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<List<String>>> results = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                results.add(executor.submit(() -> {
+                    final List<String> strings = new ArrayList<>();
+                    for (int i = 0; i < 1000; i++)
+                        strings.add(pool.intern(new String("s" + (i % 200))));
+                    return strings;
+                }));
+            }
+            for (Future<List<String>> result : results) {
+                final List<String> strings = result.get();
+                for (int i = 0; i < strings.size(); i++) {
+                    assertEquals("s" + (i % 200), strings.get(i));
+                    // From the second round, every thread is given the string of
+                    // the pool, if it holds one
+                    final String pooled = pool.intern(new String(strings.get(i)));
+                    final boolean held = pool.intern(new String(strings.get(i))) == pooled;
+                    if (i >= 200)
+                        assertEquals(held, strings.get(i) == pooled, strings.get(i));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        final MonarcStringPoolStats stats = pool.getStats();
+        assertTrue(stats.getPooledStrings() <= 100 + 4, stats.toString());
+        assertTrue(stats.getPooledStrings() >= 100, stats.toString());
+    }
+
+    @Test
+    void loadsGivenTheSamePoolShareTheirStrings() throws Exception {
+        final MonarcStringPool pool = MonarcStringPool.create();
+        final MonarcDatabase first = new MonarcDatabase(MonarcSamples.samplePath(), null, pool);
+        final MonarcStringPoolStats before = pool.getStats();
+        final MonarcDatabase second = new MonarcDatabase(MonarcSamples.samplePath(), null, pool);
+
+        final List<MonarcAsset> firstAssets = first.getAllAssets();
+        final List<MonarcAsset> secondAssets = second.getAllAssets();
+        assertEquals(firstAssets.size(), secondAssets.size());
+        for (int i = 0; i < firstAssets.size(); i++) {
+            assertSame(firstAssets.get(i).getUuid(), secondAssets.get(i).getUuid());
+            assertSame(firstAssets.get(i).getLabel(1), secondAssets.get(i).getLabel(1));
+        }
+
+        // The second load adds no string, and each database reports the pool
+        // as it was at the end of its load
+        final MonarcStringPoolStats after = pool.getStats();
+        assertEquals(before.getPooledStrings(), after.getPooledStrings());
+        assertTrue(after.getDuplicates() > before.getDuplicates());
+        assertEquals(before.getPooledStrings(), first.getStringPoolStats().getPooledStrings());
+        assertEquals(after.getDuplicates(), second.getStringPoolStats().getDuplicates());
+    }
+}
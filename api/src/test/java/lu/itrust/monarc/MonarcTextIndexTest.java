@@ -0,0 +1,107 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Searches of MonarcTextIndex in one or all the languages, with each way of
+ * comparing the texts.
+ */
+class MonarcTextIndexTest {
+
+    // The texts of each object, in the languages 1 to 4
+    private static final String[] FIRE = { "Fire", "Feu", null, "Feuer" };
+    private static final String[] FLOOD = { "FIRE", "Inondation", "Fire", "Hochwasser" };
+    private static final String[] THEFT = { " fire ", "Vol", "Diefstal", "Diebstahl" };
+
+    private static MonarcTextIndex<String[]> index(String[]... values) {
+        final MonarcTextIndex<String[]> index = MonarcTextIndex.of((value, language) -> value[language - 1]);
+        index.build(Arrays.asList(values));
+        return index;
+    }
+
+    @Test
+    void exactMatchComparesTheTextsAsTheyAre() {
+        final MonarcTextIndex<String[]> index = index(FIRE, FLOOD, THEFT);
+
+        assertEquals(Collections.singletonList(FIRE), index.get(1, MonarcTextMatch.EXACT, "Fire"));
+        assertEquals(Collections.singletonList(FLOOD), index.get(1, MonarcTextMatch.EXACT, "FIRE"));
+        assertTrue(index.get(1, MonarcTextMatch.EXACT, "fire").isEmpty());
+        assertTrue(index.get(1, MonarcTextMatch.EXACT, "Fire ").isEmpty());
+        assertEquals(FLOOD, index.first(3, MonarcTextMatch.EXACT, "Fire"));
+        assertNull(index.first(2, MonarcTextMatch.EXACT, "Fire"));
+    }
+
+    @Test
+    void ignoreCaseMatchFollowsEqualsIgnoreCase() {
+        final MonarcTextIndex<String[]> index = index(FIRE, FLOOD, THEFT);
+        assertEquals(Arrays.asList(FIRE, FLOOD), index.get(1, MonarcTextMatch.IGNORE_CASE, "fIrE"));
+        assertTrue(index.get(1, MonarcTextMatch.IGNORE_CASE, "fire ").isEmpty());
+
+        // Each pair matches exactly when String.equalsIgnoreCase says so
+        final List<String[]> pairs = Arrays.asList(new String[] { "σοφία", "ΣΟΦΊΑ" },
+                new String[] { "ς", "Σ" }, new String[] { "ß", "SS" }, new String[] { "Straße", "STRASSE" },
+                new String[] { "İstanbul", "istanbul" }, new String[] { "ǅ", "ǆ" }, new String[] { "K", "K" });
+        for (String[] pair : pairs) {
+            final MonarcTextIndex<String[]> texts = index(new String[] { pair[0], null, null, null });
+            assertEquals(pair[0].equalsIgnoreCase(pair[1]),
+                    !texts.get(1, MonarcTextMatch.IGNORE_CASE, pair[1]).isEmpty(), pair[0] + " / " + pair[1]);
+        }
+    }
+
+    @Test
+    void trimmedMatchIgnoresTheSurroundingSpacesAndTheCase() {
+        final MonarcTextIndex<String[]> index = index(FIRE, FLOOD, THEFT);
+
+        assertEquals(Arrays.asList(FIRE, FLOOD, THEFT), index.get(1, MonarcTextMatch.TRIMMED, "  FIRE\t"));
+        // The first object indexed comes first
+        assertEquals(FIRE, index.first(1, MonarcTextMatch.TRIMMED, "fire"));
+        // Only the surrounding spaces
+        assertTrue(index.get(4, MonarcTextMatch.TRIMMED, "Die bstahl").isEmpty());
+    }
+
+    @Test
+    void allLanguagesReturnEachObjectOnce() {
+        final MonarcTextIndex<String[]> index = index(FIRE, FLOOD, THEFT);
+
+        // FLOOD matches in the languages 1 and 3
+        assertEquals(Arrays.asList(FIRE, FLOOD), index.getInAllLanguages(MonarcTextMatch.EXACT, "Fire"));
+        assertEquals(Arrays.asList(FIRE, FLOOD, THEFT),
+                index.getInAllLanguages(MonarcTextMatch.TRIMMED, "fire"));
+        assertEquals(Collections.singletonList(FIRE), index.getInAllLanguages(MonarcTextMatch.IGNORE_CASE, "FEU"));
+        assertTrue(index.getInAllLanguages(MonarcTextMatch.EXACT, null).isEmpty());
+    }
+
+    @Test
+    void unknownLanguagesAndMissingTextsFindNothing() {
+        final MonarcTextIndex<String[]> index = index(FIRE, FLOOD, THEFT);
+
+        for (MonarcTextMatch match : MonarcTextMatch.values()) {
+            assertTrue(index.get(0, match, "Fire").isEmpty());
+            assertTrue(index.get(5, match, "Fire").isEmpty());
+            assertNull(index.first(0, match, "Fire"));
+            assertTrue(index.get(1, match, null).isEmpty());
+            assertNull(index.first(1, match, null));
+        }
+        // FIRE has no text in the language 3
+        assertEquals(Collections.singletonList(FLOOD), index.get(3, MonarcTextMatch.TRIMMED, "fire"));
+    }
+
+    @Test
+    void buildReplacesTheIndexedObjects() {
+        final MonarcTextIndex<String[]> index = index(FIRE, FLOOD);
+        assertEquals(2, index.get(1, MonarcTextMatch.IGNORE_CASE, "fire").size());
+
+        index.build(Collections.singletonList(THEFT));
+        assertTrue(index.get(1, MonarcTextMatch.IGNORE_CASE, "fire").isEmpty());
+        assertEquals(Collections.singletonList(THEFT), index.get(1, MonarcTextMatch.TRIMMED, "fire"));
+        assertEquals(Collections.singletonList(THEFT), index.getInAllLanguages(MonarcTextMatch.EXACT, "Vol"));
+    }
+}
@@ -0,0 +1,99 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Top risks searched with a bounded heap, checked against a sort of all the
+ * risks.
+ */
+class MonarcTopRisksTest {
+
+    private static final int[] LIMITS = { 0, 1, 3, 10, 50, Integer.MAX_VALUE };
+
+    @Test
+    void heapKeepsTheHighestRisks() {
+        final Random random = new Random(42);
+        for (int capacity : LIMITS) {
+            final int count = random.nextInt(200);
+            final int[] values = new int[count];
+            final MonarcRiskHeap heap = new MonarcRiskHeap(capacity);
+            for (int i = 0; i < count; i++) {
+                values[i] = random.nextInt(20);
+                heap.offer(values[i], i, i);
+            }
+
+            // By value, then by ID, the payload being the ID here
+            final int[] expected = IntStream.range(0, count).boxed()
+                    .sorted(Comparator.<Integer>comparingInt(i -> values[i]).reversed().thenComparingInt(i -> i))
+                    .limit(capacity).mapToInt(Integer::intValue).toArray();
+            assertEquals(expected.length, heap.size());
+            assertArrayEquals(expected, heap.drain(), "Capacity " + capacity);
+            assertEquals(0, heap.size());
+        }
+    }
+
+    @Test
+    void topRisksMatchASortOfTheRisks() throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        database.refreshDependencyValues();
+        final List<MonarcRisks> risks = new ArrayList<>(MonarcSamples.risks(database).values());
+        final List<MonarcInstance> instances = database.getAllMonarcInstances();
+        final Random random = new Random(42);
+
+        for (int round = 0; round < 300; round++) {
+            final MonarcTopRisks search = new MonarcTopRisks(LIMITS[random.nextInt(LIMITS.length)]);
+            final MonarcRisks sample = risks.get(random.nextInt(risks.size()));
+            if (random.nextBoolean())
+                search.targeted();
+            if (random.nextInt(4) == 0)
+                search.threat(sample.getThreat());
+            if (random.nextInt(4) == 0)
+                search.vulnerability(sample.getVulnerability());
+            if (random.nextInt(6) == 0)
+                search.amv(sample.getAmv());
+            if (random.nextInt(4) == 0)
+                search.kindOfMeasure(sample.getKindOfMeasure());
+            Set<Integer> subtree = null;
+            if (random.nextInt(3) == 0) {
+                final int instanceId = instances.get(random.nextInt(instances.size())).getId();
+                search.subtree(instanceId);
+                subtree = MonarcSamples.subtree(database, instanceId);
+            }
+            final Set<Integer> instanceIds = subtree;
+
+            final List<Integer> expected = risks.stream()
+                    .filter(risk -> search.value(risk) >= 0 && search.matches(risk))
+                    .filter(risk -> instanceIds == null || MonarcSamples.inInstances(risk, instanceIds))
+                    .sorted(Comparator.<MonarcRisks>comparingInt(search::value).reversed()
+                            .thenComparingInt(MonarcRisks::getId))
+                    .limit(search.limit).map(MonarcRisks::getId).collect(Collectors.toList());
+            final List<Integer> found = database.searchTopRisks(search).stream().map(MonarcRisks::getId)
+                    .collect(Collectors.toList());
+            assertEquals(expected, found, "Round " + round);
+        }
+    }
+
+    @Test
+    void unboundedSearchReturnsAllTheEvaluatedRisks() throws Exception {
+        final MonarcDatabase database = MonarcSamples.loadSample();
+        final List<MonarcRisks> found = database.searchTopRisks(new MonarcTopRisks(Integer.MAX_VALUE));
+
+        final long evaluated = MonarcSamples.risks(database).values().stream()
+                .filter(risk -> risk.getCacheMaxRisk() >= 0).count();
+        assertEquals(evaluated, found.size());
+        for (int i = 1; i < found.size(); i++)
+            assertTrue(found.get(i - 1).getCacheMaxRisk() >= found.get(i).getCacheMaxRisk());
+    }
+}
@@ -0,0 +1,131 @@
+package lu.itrust.monarc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Similarity searches of MonarcTrigramIndex: scores, ranking, and the
+ * normalization of the accents and the punctuation.
+ */
+class MonarcTrigramIndexTest {
+
+    // The label then the description of each object, in the languages 1 to 4
+    private static final String[][] FIRE = { { "Fire", "Incendie", null, "Feuer" },
+            { null, null, null, null } };
+    private static final String[][] FIRE_ALARM = { { "Fire alarm", "Alarme incendie", null, null },
+            { "An alarm rings", null, null, null } };
+    private static final String[][] ELECTRICAL_FIRE = { { "Electrical fire", "Incendie électrique", null, null },
+            { null, "Départ de feu d'origine électrique.", null, null } };
+    private static final String[][] FLOOD = { { "Flood", "Inondation", null, "Hochwasser" },
+            { null, null, null, null } };
+
+    private static MonarcTrigramIndex<String[][]> index(String[][]... values) {
+        final MonarcTrigramIndex<String[][]> index = MonarcTrigramIndex.of((value, language) -> value[0][language - 1],
+                (value, language) -> value[1][language - 1]);
+        index.build(Arrays.asList(values));
+        return index;
+    }
+
+    @Test
+    void objectsAreRankedByJaccardSimilarity() {
+        final MonarcTrigramIndex<String[][]> index = index(FLOOD, FIRE_ALARM, FIRE);
+        final List<MonarcFuzzyMatch<String[][]>> matches = index.search("fire", 1, 10);
+
+        assertEquals(Arrays.asList(FIRE, FIRE_ALARM, FLOOD), elements(matches));
+        assertEquals(1.0, matches.get(0).getScore());
+        // "fire" has 5 trigrams, "fire alarm" 11, all those of "fire" included
+        assertEquals(5.0 / 11, matches.get(1).getScore(), 1e-9);
+        // Only the first trigram, "  f", is shared
+        assertEquals(1.0 / (5 + 6 - 1), matches.get(2).getScore(), 1e-9);
+        assertEquals("Fire alarm", matches.get(1).getText());
+        assertEquals(1, matches.get(1).getLanguage());
+    }
+
+    @Test
+    void accentsCaseAndPunctuationAreIgnored() {
+        final MonarcTrigramIndex<String[][]> index = index(FIRE, FIRE_ALARM, ELECTRICAL_FIRE, FLOOD);
+
+        final List<MonarcFuzzyMatch<String[][]>> matches = index.search("INCENDIE, ELECTRIQUE !", 2, 1);
+        assertEquals(Collections.singletonList(ELECTRICAL_FIRE), elements(matches));
+        assertEquals(1.0, matches.get(0).getScore());
+        assertEquals("Incendie électrique", matches.get(0).getText());
+
+        // Apostrophes and dots separate the words like spaces
+        final MonarcFuzzyMatch<String[][]> description = index.search("depart de feu d origine electrique", 2, 1)
+                .get(0);
+        assertEquals(ELECTRICAL_FIRE, description.getElement());
+        assertEquals(1.0, description.getScore());
+        assertEquals("Départ de feu d'origine électrique.", description.getText());
+    }
+
+    @Test
+    void eachObjectComesOnceWithItsBestText() {
+        final MonarcTrigramIndex<String[][]> index = index(FIRE_ALARM, ELECTRICAL_FIRE);
+
+        // FIRE_ALARM matches by its labels and its description, "alarm" sharing
+        // its 6 trigrams with the 11 of "fire alarm" and the 14 of "an alarm
+        // rings"
+        final List<MonarcFuzzyMatch<String[][]>> matches = index.search("alarm", 0, 10);
+        assertEquals(Collections.singletonList(FIRE_ALARM), elements(matches));
+        assertEquals("Fire alarm", matches.get(0).getText());
+        assertEquals(6.0 / 11, matches.get(0).getScore(), 1e-9);
+    }
+
+    @Test
+    void equalScoresKeepTheOrderOfTheIndexAndTheLimitKeepsTheBest() {
+        final String[][] first = { { "Fire", null, null, null }, { null, null, null, null } };
+        final String[][] second = { { "fire", null, null, null }, { null, null, null, null } };
+        final MonarcTrigramIndex<String[][]> index = index(FIRE_ALARM, first, FLOOD, second);
+
+        assertEquals(Arrays.asList(first, second, FIRE_ALARM, FLOOD), elements(index.search("Fire", 1, 10)));
+        assertEquals(Arrays.asList(first, second), elements(index.search("Fire", 1, 2)));
+        assertEquals(Collections.singletonList(first), elements(index.search("Fire", 1, 1)));
+    }
+
+    @Test
+    void searchesAreLimitedToTheLanguage() {
+        final MonarcTrigramIndex<String[][]> index = index(FIRE, FLOOD);
+
+        // "Hochwasser" shares the last trigram of "Feuer"
+        assertEquals(Arrays.asList(FIRE, FLOOD), elements(index.search("Feuer", 4, 10)));
+        assertTrue(index.search("Feuer", 2, 10).isEmpty());
+        final MonarcFuzzyMatch<String[][]> anyLanguage = index.search("feuer", 0, 10).get(0);
+        assertEquals(FIRE, anyLanguage.getElement());
+        assertEquals(4, anyLanguage.getLanguage());
+    }
+
+    @Test
+    void textsWithoutWordsFindNothing() {
+        final MonarcTrigramIndex<String[][]> index = index(FIRE, FLOOD);
+
+        assertTrue(index.search(null, 1, 10).isEmpty());
+        assertTrue(index.search("", 1, 10).isEmpty());
+        assertTrue(index.search(" ?!, ", 0, 10).isEmpty());
+        assertTrue(index.search("fire", 1, 0).isEmpty());
+        assertTrue(index.search("fire", 5, 10).isEmpty());
+        assertTrue(index.search("fire", -1, 10).isEmpty());
+        assertTrue(index.search("xyz", 1, 10).isEmpty());
+    }
+
+    @Test
+    void buildReplacesTheIndexedObjects() {
+        final MonarcTrigramIndex<String[][]> index = index(FIRE);
+        assertEquals(Collections.singletonList(FIRE), elements(index.search("fire", 1, 10)));
+
+        index.build(Collections.singletonList(FLOOD));
+        assertEquals(Collections.singletonList(FLOOD), elements(index.search("flood", 1, 10)));
+        assertTrue(index.search("incendie", 4, 10).isEmpty());
+        assertEquals(Collections.singletonList(FLOOD), elements(index.search("incendie", 2, 10)));
+    }
+
+    private static List<String[][]> elements(List<MonarcFuzzyMatch<String[][]>> matches) {
+        return matches.stream().map(MonarcFuzzyMatch::getElement).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,48 @@
+package lu.itrust.monarc.benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. Takes the usual JMH command line options
+ * (-l to list the benchmarks, -p dataset=... to choose the datasets, a regular
+ * expression to select the benchmarks...) and always runs the GC profiler, so
+ * that the results report the allocation rate and the allocated bytes per
+ * operation next to the time.
+ */
+public final class MonarcBenchmarks {
+
+    private MonarcBenchmarks() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, IOException, RunnerException {
+        final CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        if (commandLine.shouldList() || commandLine.shouldListWithParams() || commandLine.shouldListProfilers()
+                || commandLine.shouldListResultFormats()) {
+            // Listing only, nothing to profile
+            Main.main(args);
+            return;
+        }
+
+        final ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getProfilers().stream().noneMatch(e -> isGCProfiler(e.getKlass())))
+            options.addProfiler(GCProfiler.class);
+        new Runner(options.build()).run();
+    }
+
+    private static boolean isGCProfiler(String name) {
+        return "gc".equals(name) || GCProfiler.class.getName().equals(name);
+    }
+}
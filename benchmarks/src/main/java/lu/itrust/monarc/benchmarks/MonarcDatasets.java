@@ -0,0 +1,103 @@
+package lu.itrust.monarc.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+import lu.itrust.monarc.MonarcDatabase;
+
+/**
+ * The ANR files the benchmarks run on, chosen with the "dataset" parameter:
+ * <ul>
+ * <li>sample: the sample file shipped with the API;</li>
+ * <li>a number of instances (10000, 100000...): a synthetic ANR of that size,
+ * generated from the sample file;</li>
+ * <li>any other value: the path of a MONARC JSON file.</li>
+ * </ul>
+ *
+ * The files are kept in the temporary directory, under
+ * trick2monarc-benchmarks, so that the synthetic ANRs are only generated once
+ * for all the forks and runs.
+ */
+final class MonarcDatasets {
+
+    static final String SAMPLE = "sample";
+
+    static final String SAMPLE_RESOURCE = "/FileWithScaleComments.json";
+
+    private MonarcDatasets() {
+    }
+
+    /**
+     * Returns the file of a dataset, writing it first if needed.
+     *
+     * @param dataset The value of the "dataset" parameter.
+     * @return The path of the ANR file.
+     */
+    static Path path(String dataset) {
+        try {
+            if (SAMPLE.equals(dataset))
+                return write("sample.json", MonarcDatasets::copySample);
+            if (dataset.chars().allMatch(Character::isDigit))
+                return write("synthetic-" + MonarcSyntheticAnr.VERSION + "-" + dataset + ".json",
+                        target -> MonarcSyntheticAnr.write(Integer.parseInt(dataset), target));
+            return Paths.get(dataset);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Loads a dataset.
+     *
+     * @param dataset The value of the "dataset" parameter.
+     * @return The database read from the dataset.
+     */
+    static MonarcDatabase load(String dataset) throws Exception {
+        return new MonarcDatabase(path(dataset).toString());
+    }
+
+    /**
+     * Opens the sample file shipped with the API.
+     */
+    static InputStream openSample() throws IOException {
+        final InputStream in = MonarcDatabase.class.getResourceAsStream(SAMPLE_RESOURCE);
+        if (in == null)
+            throw new IOException("Sample file not found in the classpath: " + SAMPLE_RESOURCE);
+        return in;
+    }
+
+    private static void copySample(Path target) throws IOException {
+        try (InputStream in = openSample()) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static synchronized Path write(String name, DatasetWriter writer) throws IOException {
+        final Path directory = Paths.get(System.getProperty("java.io.tmpdir"), "trick2monarc-benchmarks");
+        final Path target = directory.resolve(name);
+        if (Files.isRegularFile(target))
+            return target;
+
+        Files.createDirectories(directory);
+        // Written aside then moved, a run killed halfway leaves no truncated file
+        final Path temp = directory.resolve("." + name + "." + UUID.randomUUID() + ".tmp");
+        try {
+            writer.write(temp);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return target;
+    }
+
+    @FunctionalInterface
+    private interface DatasetWriter {
+        void write(Path target) throws IOException;
+    }
+}
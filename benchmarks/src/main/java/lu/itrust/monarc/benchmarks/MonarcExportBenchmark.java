@@ -0,0 +1,76 @@
+package lu.itrust.monarc.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lu.itrust.monarc.MonarcDatabase;
+
+/**
+ * Export of the instances to JSON: to a stream discarding the output, which
+ * measures the serialization alone, and to a file, plain and compressed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class MonarcExportBenchmark {
+
+    @Param({ MonarcDatasets.SAMPLE, "10000", "100000" })
+    public String dataset;
+
+    private MonarcDatabase database;
+    private Path directory;
+    private String output;
+    private String compressedOutput;
+
+    @Setup
+    public void setup() throws Exception {
+        database = MonarcDatasets.load(dataset);
+        directory = Files.createTempDirectory("trick2monarc-export");
+        output = directory.resolve("export.json").toString();
+        compressedOutput = directory.resolve("export.json.gz").toString();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(directory.resolve("export.json"));
+        Files.deleteIfExists(directory.resolve("export.json.gz"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public MonarcDatabase saveInstancesToStream() throws IOException {
+        database.saveInstancesToJSON(OutputStream.nullOutputStream());
+        return database;
+    }
+
+    @Benchmark
+    public MonarcDatabase saveInstancesToJSON() throws IOException {
+        database.saveInstancesToJSON(output);
+        return database;
+    }
+
+    @Benchmark
+    public MonarcDatabase saveInstancesToCompressedJSON() throws IOException {
+        database.saveInstancesToJSON(compressedOutput, true);
+        return database;
+    }
+}
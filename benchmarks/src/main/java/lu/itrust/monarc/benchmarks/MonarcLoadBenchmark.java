@@ -0,0 +1,51 @@
+package lu.itrust.monarc.benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lu.itrust.monarc.MonarcDatabase;
+
+/**
+ * Loading of an ANR file into a MonarcDatabase, sequentially and with the
+ * sections extracted in parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class MonarcLoadBenchmark {
+
+    @Param({ MonarcDatasets.SAMPLE, "10000", "100000" })
+    public String dataset;
+
+    private String path;
+
+    @Setup
+    public void setup() {
+        path = MonarcDatasets.path(dataset).toString();
+    }
+
+    @Benchmark
+    public MonarcDatabase load() throws Exception {
+        return new MonarcDatabase(path);
+    }
+
+    @Benchmark
+    public MonarcDatabase loadParallel() throws Exception {
+        return new MonarcDatabase(path, ForkJoinPool.commonPool());
+    }
+}
@@ -0,0 +1,67 @@
+package lu.itrust.monarc.benchmarks;
+
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lu.itrust.monarc.MonarcConsequences;
+import lu.itrust.monarc.MonarcDatabase;
+import lu.itrust.monarc.MonarcInstance;
+
+/**
+ * Computation of the C, I and D values of the instances and of the values of
+ * the risks: the full computation, and the update after a change of one
+ * consequence of an upper instance, whose values are inherited by the whole
+ * subtree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class MonarcRiskBenchmark {
+
+    @Param({ MonarcDatasets.SAMPLE, "10000", "100000" })
+    public String dataset;
+
+    private MonarcDatabase database;
+    private MonarcConsequences consequence;
+    private int value;
+
+    @Setup
+    public void setup() throws Exception {
+        database = MonarcDatasets.load(dataset);
+        database.uppdateDependencyValue();
+        consequence = database.getAllMonarcInstances().stream().filter(e -> e.getParent() == 0)
+                .min(Comparator.comparingInt(MonarcInstance::getId))
+                .flatMap(e -> e.getConsequences().values().stream().findFirst())
+                .orElseThrow(() -> new IllegalStateException("No consequence on the upper instances of " + dataset));
+    }
+
+    @Benchmark
+    public MonarcDatabase uppdateDependencyValue() {
+        database.uppdateDependencyValue();
+        return database;
+    }
+
+    @Benchmark
+    public MonarcDatabase refreshDependencyValues() {
+        // Alternates between two values, every call has something to update
+        value = value == 3 ? 4 : 3;
+        consequence.setC(value);
+        database.refreshDependencyValues();
+        return database;
+    }
+}
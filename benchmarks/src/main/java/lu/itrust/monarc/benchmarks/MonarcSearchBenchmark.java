@@ -0,0 +1,300 @@
+package lu.itrust.monarc.benchmarks;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lu.itrust.monarc.MonarcAMV;
+import lu.itrust.monarc.MonarcAsset;
+import lu.itrust.monarc.MonarcDatabase;
+import lu.itrust.monarc.MonarcInstance;
+import lu.itrust.monarc.MonarcMeasures;
+import lu.itrust.monarc.MonarcRecSets;
+import lu.itrust.monarc.MonarcRecos;
+import lu.itrust.monarc.MonarcRecs;
+import lu.itrust.monarc.MonarcReferentials;
+import lu.itrust.monarc.MonarcRisks;
+import lu.itrust.monarc.MonarcScales;
+import lu.itrust.monarc.MonarcSoa;
+import lu.itrust.monarc.MonarcSoaCategories;
+import lu.itrust.monarc.MonarcThreats;
+import lu.itrust.monarc.MonarcVulnerabilities;
+
+/**
+ * The search functions of MonarcDatabase. The searched values are taken from
+ * the last instance of the dataset having risks, so that the searches by label
+ * and description go through most of the elements before finding it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class MonarcSearchBenchmark {
+
+    private static final int LANGUAGE = 2;
+
+    @Param({ MonarcDatasets.SAMPLE, "10000", "100000" })
+    public String dataset;
+
+    private MonarcDatabase database;
+
+    private MonarcInstance instance;
+    private MonarcRisks risk;
+    private MonarcThreats threat;
+    private MonarcVulnerabilities vulnerability;
+    private MonarcAsset asset;
+    private MonarcMeasures measure;
+    private MonarcReferentials referential;
+    private MonarcRecSets recSets;
+    private int scaleType;
+
+    @Setup
+    public void setup() throws Exception {
+        database = MonarcDatasets.load(dataset);
+
+        instance = database.getAllMonarcInstances().stream().filter(e -> !e.getRisks().isEmpty())
+                .max(Comparator.comparingInt(MonarcInstance::getId))
+                .orElseThrow(() -> new IllegalStateException("No instance with risks in " + dataset));
+        risk = instance.getRisks().values().iterator().next();
+        threat = database.searchThreatByUUID(risk.getThreat());
+        vulnerability = database.searchVulnerabilityByUUID(risk.getVulnerability());
+        asset = database.getAllAssets().stream().filter(e -> e.getUuid().equals(instance.getAsset())).findAny()
+                .orElseThrow(() -> new IllegalStateException("No asset for the instance " + instance.getId()));
+
+        final List<MonarcSoa> soas = database.getAllMonarcSoas();
+        measure = soas.isEmpty() ? null : database.searchMeasuresByUUID(soas.get(soas.size() - 1).getMeasureId());
+        referential = measure == null ? null
+                : database.searchReferentialsByUUID(String.valueOf(measure.getReferential()));
+        recSets = instance.getRecSets().values().stream().findAny().orElse(null);
+        scaleType = database.getANR().getScales().values().stream().mapToInt(MonarcScales::getType).max().orElse(1);
+    }
+
+    // region Instances and assets
+
+    @Benchmark
+    public List<MonarcInstance> searchInstanceByName() {
+        return database.searchInstanceByName(instance.getName(LANGUAGE));
+    }
+
+    @Benchmark
+    public List<MonarcInstance> searchInstanceByNameAndLanguage() {
+        return database.searchInstanceByName(instance.getName(LANGUAGE), LANGUAGE);
+    }
+
+    @Benchmark
+    public List<MonarcInstance> searchInstanceByLabel() {
+        return database.searchInstanceByLabel(instance.getLabel(LANGUAGE));
+    }
+
+    @Benchmark
+    public List<MonarcInstance> searchInstanceByLabelAndLanguage() {
+        return database.searchInstanceByLabel(instance.getLabel(LANGUAGE), LANGUAGE);
+    }
+
+    @Benchmark
+    public List<MonarcAsset> searchAssetByLabel() {
+        return database.searchAssetByLabel(asset.getLabel(LANGUAGE));
+    }
+
+    @Benchmark
+    public List<MonarcAsset> searchAssetByLabelAndLanguage() {
+        return database.searchAssetByLabel(asset.getLabel(LANGUAGE), LANGUAGE);
+    }
+
+    // endregion
+
+    // region Risks
+
+    @Benchmark
+    public List<MonarcRisks> searchRiskByInstanceId() {
+        return database.searchRiskByInstanceId(instance.getId());
+    }
+
+    @Benchmark
+    public MonarcRisks searchRiskByID() {
+        return database.searchRiskByID(risk.getId());
+    }
+
+    @Benchmark
+    public List<MonarcRisks> searchRiskByAMV() {
+        return database.searchRiskByAMV(risk.getAmv());
+    }
+
+    @Benchmark
+    public List<MonarcRisks> searchRiskByThreat() {
+        return database.searchRiskByThreat(risk.getThreat());
+    }
+
+    @Benchmark
+    public List<MonarcRisks> searchRiskByVulnerability() {
+        return database.searchRiskByVulnerability(risk.getVulnerability());
+    }
+
+    @Benchmark
+    public List<MonarcRecos> searchRecosByRisk() {
+        return database.searchRecosByRisk(risk.getId());
+    }
+
+    // endregion
+
+    // region Threats and vulnerabilities
+
+    @Benchmark
+    public List<MonarcThreats> searchThreatByInstanceId() {
+        return database.searchThreatByInstanceId(instance.getId());
+    }
+
+    @Benchmark
+    public MonarcThreats searchThreatByLabel() {
+        return database.searchThreatByLabel(threat.getLabel(LANGUAGE), LANGUAGE);
+    }
+
+    @Benchmark
+    public MonarcThreats searchThreatByDescription() {
+        return database.searchThreatByDescription(threat.getDescription(LANGUAGE), LANGUAGE);
+    }
+
+    @Benchmark
+    public MonarcThreats searchThreatByCode() {
+        return database.searchThreatByCode(threat.getCode());
+    }
+
+    @Benchmark
+    public MonarcThreats searchThreatByUUID() {
+        return database.searchThreatByUUID(threat.getUuid());
+    }
+
+    @Benchmark
+    public List<MonarcVulnerabilities> searchVulnerabilityByInstanceId() {
+        return database.searchVulnerabilityByInstanceId(instance.getId());
+    }
+
+    @Benchmark
+    public MonarcVulnerabilities searchVulnerabilityByLabel() {
+        return database.searchVulnerabilityByLabel(vulnerability.getLabel(LANGUAGE), LANGUAGE);
+    }
+
+    @Benchmark
+    public MonarcVulnerabilities searchVulnerabilityByDescription() {
+        return database.searchVulnerabilityByDescription(vulnerability.getDescription(LANGUAGE), LANGUAGE);
+    }
+
+    @Benchmark
+    public MonarcVulnerabilities searchVulnerabilityByCode() {
+        return database.searchVulnerabilityByCode(vulnerability.getCode());
+    }
+
+    @Benchmark
+    public MonarcVulnerabilities searchVulnerabilityByUUID() {
+        return database.searchVulnerabilityByUUID(vulnerability.getUuid());
+    }
+
+    // endregion
+
+    // region AMVs
+
+    @Benchmark
+    public List<MonarcAMV> searchAMVByInstanceId() {
+        return database.searchAMVByInstanceId(instance.getId());
+    }
+
+    @Benchmark
+    public MonarcAMV searchAMVByUUID() {
+        return database.searchAMVByUUID(risk.getAmv());
+    }
+
+    @Benchmark
+    public List<MonarcAMV> searchAMVByThreat() {
+        return database.searchAMVByThreat(risk.getThreat());
+    }
+
+    @Benchmark
+    public List<MonarcAMV> searchAMVByVulnerability() {
+        return database.searchAMVByVulnerability(risk.getVulnerability());
+    }
+
+    @Benchmark
+    public List<MonarcAMV> searchAMVByAsset() {
+        return database.searchAMVByAsset(asset.getUuid());
+    }
+
+    // endregion
+
+    // region Scales, referentials and measures
+
+    @Benchmark
+    public MonarcScales searchScaleByType() {
+        return database.searchScaleByType(scaleType);
+    }
+
+    @Benchmark
+    public MonarcReferentials searchReferentialsByUUID() {
+        return database.searchReferentialsByUUID(referential == null ? null : referential.getUuid());
+    }
+
+    @Benchmark
+    public MonarcReferentials searchReferentialByLabel() {
+        return database.searchReferentialByLabel(referential == null ? null : referential.getLabel2());
+    }
+
+    @Benchmark
+    public MonarcMeasures searchMeasuresByUUID() {
+        return database.searchMeasuresByUUID(measure == null ? null : measure.getUuid());
+    }
+
+    @Benchmark
+    public MonarcMeasures searchMeasuresByReferentialLabelAndCode() {
+        return database.searchMeasuresByReferentialLabelAndCode(referential == null ? null : referential.getLabel2(),
+                measure == null ? null : measure.getCode());
+    }
+
+    @Benchmark
+    public List<MonarcMeasures> searchMeasuresByCode() {
+        return database.searchMeasuresByCode(measure == null ? null : measure.getCode());
+    }
+
+    @Benchmark
+    public List<MonarcMeasures> searchMeasuresByReferentialLabel() {
+        return database.searchMeasuresByReferentialLabel(referential == null ? null : referential.getLabel2());
+    }
+
+    @Benchmark
+    public List<MonarcSoaCategories> searchSoaCategoriesByReferential() {
+        return database.searchSoaCategoriesByReferential(referential == null ? "" : referential.getUuid());
+    }
+
+    @Benchmark
+    public List<MonarcSoa> searchSoaByMeasureID() {
+        return database.searchSoaByMeasureID(measure == null ? null : measure.getUuid());
+    }
+
+    // endregion
+
+    // region Recommendations
+
+    @Benchmark
+    public MonarcRecSets searchRecSetsByLabel() {
+        return database.searchRecSetsByLabel(recSets == null ? null : recSets.getLabel2());
+    }
+
+    @Benchmark
+    public List<MonarcRecs> searchRecsByRecSetsLabel() {
+        return database.searchRecsByRecSetsLabel(recSets == null ? null : recSets.getLabel2());
+    }
+
+    // endregion
+}
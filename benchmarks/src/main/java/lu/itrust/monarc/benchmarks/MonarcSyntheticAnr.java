@@ -0,0 +1,216 @@
+package lu.itrust.monarc.benchmarks;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Generates ANRs of a given number of instances from the sample file.
+ *
+ * The trees of instances of the sample file are copied as many times as
+ * needed, the last copy being cut when the number of instances is reached. In
+ * each copy, the IDs of the instances, risks and consequences are shifted so
+ * that they stay unique, as well as the risk IDs the recos of the instances are
+ * keyed by, and the names and labels of the instances get the
+ * number of the copy. The threats, vulnerabilities, objects, assets and the
+ * other sections are kept as they are, so that the copies share them as the
+ * instances of a real ANR do.
+ *
+ * The file is written as it is generated, only the sample file is held in
+ * memory.
+ */
+final class MonarcSyntheticAnr {
+
+    /**
+     * To be increased whenever the generated files change, so that the files
+     * generated by a previous version are not reused.
+     */
+    static final int VERSION = 2;
+
+    private static final String[] TRANSLATED_FIELDS = { "name1", "name2", "name3", "name4", "label1", "label2",
+            "label3", "label4" };
+
+    private final JsonGenerator generator;
+    private final int instanceStride;
+    private final int riskStride;
+    private final int consequenceStride;
+
+    private int remaining;
+
+    private MonarcSyntheticAnr(JsonGenerator generator, JsonNode instances, int count) {
+        this.generator = generator;
+        this.remaining = count;
+        final int[] maxIds = new int[3];
+        instances.forEach(e -> maxIds(e, maxIds));
+        this.instanceStride = maxIds[0] + 1;
+        this.riskStride = maxIds[1] + 1;
+        this.consequenceStride = maxIds[2] + 1;
+    }
+
+    /**
+     * Writes a synthetic ANR.
+     *
+     * @param count  The number of instances of the ANR.
+     * @param target The file to write.
+     * @throws IOException
+     */
+    static void write(int count, Path target) throws IOException {
+        if (count < 1)
+            throw new IllegalArgumentException("A synthetic ANR needs at least one instance: " + count);
+
+        final ObjectMapper mapper = new ObjectMapper();
+        final JsonNode sample;
+        try (InputStream in = MonarcDatasets.openSample()) {
+            sample = mapper.readTree(in);
+        }
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target), 1 << 16);
+                JsonGenerator generator = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            final JsonNode instances = sample.get("instances");
+            final MonarcSyntheticAnr anr = new MonarcSyntheticAnr(generator, instances, count);
+            generator.writeStartObject();
+            for (Iterator<Map.Entry<String, JsonNode>> fields = sample.fields(); fields.hasNext();) {
+                final Map.Entry<String, JsonNode> field = fields.next();
+                generator.writeFieldName(field.getKey());
+                if (field.getKey().equals("instances"))
+                    anr.writeInstances(instances);
+                else
+                    generator.writeTree(field.getValue());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeInstances(JsonNode instances) throws IOException {
+        if (instances.isEmpty())
+            throw new IOException("The sample file has no instance to copy");
+        generator.writeStartObject();
+        for (int copy = 0; remaining > 0; copy++) {
+            for (Iterator<JsonNode> roots = instances.elements(); remaining > 0 && roots.hasNext();)
+                writeInstance(roots.next(), copy);
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeInstance(JsonNode node, int copy) throws IOException {
+        remaining--;
+        final ObjectNode instance = node.get("instance").deepCopy();
+        final int id = shift(instance.get("id").asInt(), copy, instanceStride);
+        instance.put("id", id);
+        for (String parent : new String[] { "parent", "root" }) {
+            if (instance.path(parent).asInt() != 0)
+                instance.put(parent, shift(instance.get(parent).asInt(), copy, instanceStride));
+        }
+        if (copy > 0) {
+            for (String field : TRANSLATED_FIELDS) {
+                final String value = instance.path(field).asText();
+                if (!value.isEmpty())
+                    instance.put(field, value + " " + copy);
+            }
+        }
+
+        generator.writeFieldName(String.valueOf(id));
+        generator.writeStartObject();
+        for (Iterator<Map.Entry<String, JsonNode>> fields = node.fields(); fields.hasNext();) {
+            final Map.Entry<String, JsonNode> field = fields.next();
+            generator.writeFieldName(field.getKey());
+            switch (field.getKey()) {
+                case "instance":
+                    generator.writeTree(instance);
+                    break;
+                case "risks":
+                    writeShifted(field.getValue(), copy, riskStride);
+                    break;
+                case "consequences":
+                    writeShifted(field.getValue(), copy, consequenceStride);
+                    break;
+                case "recos":
+                    writeRecos(field.getValue(), copy);
+                    break;
+                case "children":
+                    writeChildren(field.getValue(), copy);
+                    break;
+                default:
+                    generator.writeTree(field.getValue());
+                    break;
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeChildren(JsonNode children, int copy) throws IOException {
+        // The instances without children have an empty array
+        if (!children.isObject()) {
+            generator.writeTree(children);
+            return;
+        }
+        generator.writeStartObject();
+        for (Iterator<JsonNode> elements = children.elements(); remaining > 0 && elements.hasNext();)
+            writeInstance(elements.next(), copy);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes an object of elements keyed by their ID, the IDs being shifted for
+     * the copy.
+     */
+    private void writeShifted(JsonNode elements, int copy, int stride) throws IOException {
+        if (!elements.isObject() || copy == 0) {
+            generator.writeTree(elements);
+            return;
+        }
+        generator.writeStartObject();
+        for (JsonNode element : elements) {
+            final ObjectNode shifted = element.deepCopy();
+            final int id = shift(element.get("id").asInt(), copy, stride);
+            shifted.put("id", id);
+            generator.writeFieldName(String.valueOf(id));
+            generator.writeTree(shifted);
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes the recos of an instance, keyed by the IDs of the risks they are
+     * implemented for, the IDs being shifted as the risks of the copy.
+     */
+    private void writeRecos(JsonNode recos, int copy) throws IOException {
+        // The instances without recos have an empty array
+        if (!recos.isObject() || copy == 0) {
+            generator.writeTree(recos);
+            return;
+        }
+        generator.writeStartObject();
+        for (Iterator<Map.Entry<String, JsonNode>> risks = recos.fields(); risks.hasNext();) {
+            final Map.Entry<String, JsonNode> risk = risks.next();
+            generator.writeFieldName(String.valueOf(shift(Integer.parseInt(risk.getKey()), copy, riskStride)));
+            generator.writeTree(risk.getValue());
+        }
+        generator.writeEndObject();
+    }
+
+    private static int shift(int id, int copy, int stride) {
+        return Math.addExact(id, Math.multiplyExact(copy, stride));
+    }
+
+    private static void maxIds(JsonNode node, int[] maxIds) {
+        maxIds[0] = Math.max(maxIds[0], node.path("instance").path("id").asInt());
+        for (JsonNode risk : node.path("risks"))
+            maxIds[1] = Math.max(maxIds[1], risk.path("id").asInt());
+        for (JsonNode consequence : node.path("consequences"))
+            maxIds[2] = Math.max(maxIds[2], consequence.path("id").asInt());
+        for (JsonNode child : node.path("children"))
+            maxIds(child, maxIds);
+    }
+}